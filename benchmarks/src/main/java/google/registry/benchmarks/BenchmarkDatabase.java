@@ -0,0 +1,67 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.benchmarks;
+
+import google.registry.config.RegistryConfig;
+import google.registry.config.RegistryConfigSettings.Caching;
+import google.registry.persistence.transaction.JpaTestExtensions;
+import google.registry.persistence.transaction.JpaTestExtensions.JpaIntegrationTestExtension;
+import google.registry.testing.FakeClock;
+import google.registry.util.RegistryEnvironment;
+
+/**
+ * The test database of {@link JpaTestExtensions}, for benchmarks that need entities to be
+ * persisted.
+ *
+ * <p>The database runs in a PostgreSQL Testcontainers container, like in the core tests, so Docker
+ * must be available, and the PostgreSQL image must either have been pulled already or be
+ * downloadable. Its tables are filled with the canned test registrars.
+ */
+public final class BenchmarkDatabase implements AutoCloseable {
+
+  private final JpaIntegrationTestExtension jpa;
+
+  private BenchmarkDatabase(JpaIntegrationTestExtension jpa) {
+    this.jpa = jpa;
+  }
+
+  /**
+   * Starts the database and makes it the one used by {@code tm()}.
+   *
+   * <p>The test database requires the configuration of the {@link RegistryEnvironment#UNITTEST}
+   * environment, which disables the caches of TLDs, label lists and EPP resources, and would make
+   * the benchmarks measure database round trips instead. Those caches are given the durations of
+   * {@code default-config.yaml} here, so this must be called before the classes that hold them are
+   * loaded.
+   */
+  public static BenchmarkDatabase start(FakeClock clock) throws Exception {
+    RegistryEnvironment.UNITTEST.setup();
+    Caching caching = RegistryConfig.CONFIG_SETTINGS.get().caching;
+    caching.singletonCacheRefreshSeconds = 600;
+    caching.domainLabelCachingSeconds = 3600;
+    caching.singletonCachePersistSeconds = 31557600;
+    caching.eppResourceCachingSeconds = 60;
+    JpaIntegrationTestExtension jpa =
+        new JpaTestExtensions.Builder().withClock(clock).buildIntegrationTestExtension();
+    // The extension doesn't use its JUnit context.
+    jpa.beforeEach(null);
+    return new BenchmarkDatabase(jpa);
+  }
+
+  @Override
+  public void close() {
+    jpa.afterEach(null);
+  }
+}
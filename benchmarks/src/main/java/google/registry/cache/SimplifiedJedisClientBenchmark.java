@@ -0,0 +1,98 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.cache;
+
+import static google.registry.testing.DatabaseHelper.newDomain;
+import static google.registry.testing.DatabaseHelper.newHostWithRoid;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.net.InetAddresses;
+import google.registry.model.domain.Domain;
+import google.registry.model.host.Host;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the Protostuff serialization that {@link SimplifiedJedisClient} does on every
+ * Valkey read and write.
+ *
+ * <p>Only the serialization is measured, so Valkey needn't be running. The entities are built in
+ * memory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimplifiedJedisClientBenchmark {
+
+  private final SimplifiedJedisClient client = new SimplifiedJedisClient(null);
+  private Domain domain;
+  private Host host;
+  private byte[] serializedDomain;
+  private byte[] serializedHost;
+
+  @Setup
+  public void setUp() {
+    Domain superordinate = newDomain("example.tld", "1-TLD");
+    host = newSubordinateHost("ns1.example.tld", "2-ROID", superordinate);
+    Host otherHost = newSubordinateHost("ns2.example.tld", "3-ROID", superordinate);
+    domain =
+        superordinate
+            .asBuilder()
+            .setNameservers(ImmutableSet.of(host.createVKey(), otherHost.createVKey()))
+            .build();
+    serializedDomain = client.serialize(domain);
+    serializedHost = client.serialize(host);
+  }
+
+  private static Host newSubordinateHost(String hostName, String repoId, Domain superordinate) {
+    return newHostWithRoid(hostName, repoId)
+        .asBuilder()
+        .setSuperordinateDomain(superordinate.createVKey())
+        .setInetAddresses(ImmutableSet.of(InetAddresses.forString("1080:0:0:0:8:800:200C:417A")))
+        .build();
+  }
+
+  @Benchmark
+  public byte[] serializeDomain() {
+    return client.serialize(domain);
+  }
+
+  @Benchmark
+  public Domain deserializeDomain() {
+    return client.deserialize(Domain.class, serializedDomain);
+  }
+
+  @Benchmark
+  public byte[] serializeHost() {
+    return client.serialize(host);
+  }
+
+  @Benchmark
+  public Host deserializeHost() {
+    return client.deserialize(Host.class, serializedHost);
+  }
+}
@@ -0,0 +1,84 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.flows;
+
+import static google.registry.testing.TestDataHelper.loadFile;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableMap;
+import google.registry.flows.domain.DomainCreateFlow;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link EppXmlSanitizer}, which masks the passwords in every logged EPP command.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EppXmlSanitizerBenchmark {
+
+  /** The kind of command to sanitize. */
+  public enum Command {
+    /** A login with a password, from {@code google/registry/flows/login.xml}. */
+    LOGIN,
+    /** A domain create with an auth code, from the domain flow test files. */
+    DOMAIN_CREATE,
+    /** A truncated command, which is logged base64-encoded instead. */
+    MALFORMED
+  }
+
+  @Param public Command command;
+
+  private byte[] xml;
+
+  @Setup
+  public void setUp() {
+    String login =
+        loadFile(
+            EppXmlSanitizer.class,
+            "login.xml",
+            ImmutableMap.of("CLID", "NewRegistrar", "PW", "foo-BAR2"));
+    xml =
+        switch (command) {
+          case LOGIN -> login.getBytes(UTF_8);
+          case DOMAIN_CREATE ->
+              loadFile(
+                      DomainCreateFlow.class,
+                      "domain_create.xml",
+                      ImmutableMap.of("DOMAIN", "example.tld"))
+                  .getBytes(UTF_8);
+          case MALFORMED -> login.substring(0, login.length() / 2).getBytes(UTF_8);
+        };
+  }
+
+  @Benchmark
+  public String sanitize() {
+    return EppXmlSanitizer.sanitizeEppXml(xml);
+  }
+}
@@ -0,0 +1,105 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.flows.domain;
+
+import static google.registry.testing.DatabaseHelper.createTld;
+import static google.registry.testing.DatabaseHelper.persistPremiumList;
+import static google.registry.testing.DatabaseHelper.persistResource;
+import static org.joda.money.CurrencyUnit.USD;
+
+import com.google.common.collect.ImmutableMap;
+import google.registry.benchmarks.BenchmarkDatabase;
+import google.registry.flows.EppException;
+import google.registry.flows.custom.DomainPricingCustomLogic;
+import google.registry.model.tld.Tld;
+import google.registry.testing.FakeClock;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link DomainPricingLogic}, which every domain check, create and renew calls, once
+ * per name and fee command.
+ *
+ * <p>The premium list is read through its caches, so this measures the steady state of a warm
+ * server.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DomainPricingLogicBenchmark {
+
+  /** A name on the premium list, or one priced at the TLD's standard price. */
+  @Param({"premium.example", "standard.example"})
+  public String domainName;
+
+  private final FakeClock clock = new FakeClock(Instant.parse("2023-05-13T00:00:00Z"));
+  private BenchmarkDatabase database;
+  private DomainPricingLogic pricingLogic;
+  private Tld tld;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    database = BenchmarkDatabase.start(clock);
+    createTld("example");
+    tld =
+        persistResource(
+            Tld.get("example")
+                .asBuilder()
+                .setPremiumList(persistPremiumList("example", USD, "premium,USD 100"))
+                .build());
+    pricingLogic =
+        new DomainPricingLogic(
+            new DomainPricingCustomLogic(null, null, null),
+            Duration.ofDays(10),
+            Duration.ofHours(1),
+            ImmutableMap.of(USD, new BigDecimal("100000.00")),
+            ImmutableMap.of(USD, new BigDecimal("10.00")));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    database.close();
+  }
+
+  @Benchmark
+  public FeesAndCredits createPrice() throws EppException {
+    return pricingLogic.getCreatePrice(
+        tld, domainName, clock.now(), Optional.empty(), 1, false, false, Optional.empty());
+  }
+
+  @Benchmark
+  public FeesAndCredits renewPrice() {
+    return pricingLogic.getRenewPrice(tld, domainName, clock.now(), 1, null, Optional.empty());
+  }
+}
@@ -0,0 +1,108 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.domain;
+
+import static google.registry.testing.DatabaseHelper.createTld;
+import static google.registry.testing.DatabaseHelper.persistActiveDomain;
+
+import google.registry.benchmarks.BenchmarkDatabase;
+import google.registry.model.eppcommon.StatusValue;
+import google.registry.model.transfer.DomainTransferData;
+import google.registry.model.transfer.TransferStatus;
+import google.registry.testing.FakeClock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link Domain#cloneProjectedAtTime}, which is applied to every domain loaded by a
+ * flow, RDAP or WHOIS query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DomainProjectionBenchmark {
+
+  /** The state of the domain to project. */
+  public enum Scenario {
+    /** Nothing changes at the projection time. */
+    ACTIVE,
+    /** The registration has expired and must be autorenewed. */
+    AUTORENEW,
+    /** A pending transfer has expired and must be server approved. */
+    PENDING_TRANSFER
+  }
+
+  @Param public Scenario scenario;
+
+  private final FakeClock clock = new FakeClock(Instant.parse("2023-05-13T00:00:00Z"));
+  private BenchmarkDatabase database;
+  private Domain domain;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    database = BenchmarkDatabase.start(clock);
+    createTld("tld");
+    Domain active = persistActiveDomain("example.tld");
+    domain =
+        switch (scenario) {
+          case ACTIVE -> active;
+          case AUTORENEW ->
+              active
+                  .asBuilder()
+                  .setRegistrationExpirationTime(clock.now().minus(Duration.ofDays(400)))
+                  .build();
+          case PENDING_TRANSFER ->
+              active
+                  .asBuilder()
+                  .addStatusValue(StatusValue.PENDING_TRANSFER)
+                  .setTransferData(
+                      new DomainTransferData.Builder()
+                          .setTransferStatus(TransferStatus.PENDING)
+                          .setGainingRegistrarId("NewRegistrar")
+                          .setLosingRegistrarId("TheRegistrar")
+                          .setTransferRequestTime(clock.now().minus(Duration.ofDays(10)))
+                          .setPendingTransferExpirationTime(clock.now().minus(Duration.ofDays(5)))
+                          .build())
+                  .build();
+        };
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    database.close();
+  }
+
+  @Benchmark
+  public Domain cloneProjectedAtTime() {
+    return domain.cloneProjectedAtTime(clock.now());
+  }
+}
@@ -0,0 +1,112 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.eppcommon;
+
+import static google.registry.testing.TestDataHelper.loadFile;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import google.registry.flows.domain.DomainCreateFlow;
+import google.registry.model.domain.DomainInfoData;
+import google.registry.model.eppinput.EppInput;
+import google.registry.model.eppoutput.EppOutput;
+import google.registry.model.eppoutput.EppResponse;
+import google.registry.model.eppoutput.Result;
+import google.registry.xml.ValidationMode;
+import google.registry.xml.XmlException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link EppXmlTransformer}, which parses and validates every EPP command and
+ * response against the EPP schemas.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EppXmlTransformerBenchmark {
+
+  /** The command to unmarshal, kept apart so that only that benchmark is parameterized by it. */
+  @State(Scope.Benchmark)
+  public static class Command {
+
+    /** A command from the flow test files in {@code google/registry/flows/domain}. */
+    @Param({"domain_check.xml", "domain_create.xml", "domain_info.xml"})
+    public String file;
+
+    byte[] xml;
+
+    @Setup
+    public void setUp() {
+      xml =
+          loadFile(DomainCreateFlow.class, file, ImmutableMap.of("DOMAIN", "example.tld"))
+              .getBytes(UTF_8);
+    }
+  }
+
+  private EppOutput response;
+
+  @Setup
+  public void setUp() {
+    response =
+        EppOutput.create(
+            new EppResponse.Builder()
+                .setTrid(Trid.create("ABC-12345", "server-trid"))
+                .setResultFromCode(Result.Code.SUCCESS)
+                .setResData(
+                    DomainInfoData.newBuilder()
+                        .setDomainName("example.tld")
+                        .setRepoId("2FF-TLD")
+                        .setStatusValues(
+                            ImmutableSet.of(
+                                StatusValue.CLIENT_DELETE_PROHIBITED,
+                                StatusValue.CLIENT_TRANSFER_PROHIBITED))
+                        .setNameservers(ImmutableSet.of("ns1.example.net", "ns2.example.net"))
+                        .setCurrentSponsorRegistrarId("TheRegistrar")
+                        .setCreationRegistrarId("NewRegistrar")
+                        .setCreationTime(Instant.parse("2020-04-03T22:00:00Z"))
+                        .setLastEppUpdateRegistrarId("NewRegistrar")
+                        .setLastEppUpdateTime(Instant.parse("2022-12-03T09:00:00Z"))
+                        .setRegistrationExpirationTime(Instant.parse("2030-04-03T22:00:00Z"))
+                        .build())
+                .build());
+  }
+
+  @Benchmark
+  public EppInput unmarshalCommand(Command command) throws XmlException {
+    return EppXmlTransformer.unmarshal(EppInput.class, command.xml);
+  }
+
+  /** Marshals a domain info response, validating it like the EPP endpoint does. */
+  @Benchmark
+  public byte[] marshalResponse() throws XmlException {
+    return EppXmlTransformer.marshal(response, ValidationMode.STRICT);
+  }
+}
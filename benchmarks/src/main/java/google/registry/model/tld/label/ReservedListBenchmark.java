@@ -0,0 +1,98 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.tld.label;
+
+import static google.registry.testing.DatabaseHelper.createTld;
+import static google.registry.testing.DatabaseHelper.persistReservedList;
+import static google.registry.testing.DatabaseHelper.persistResource;
+
+import com.google.common.collect.ImmutableSet;
+import google.registry.benchmarks.BenchmarkDatabase;
+import google.registry.model.tld.Tld;
+import google.registry.testing.FakeClock;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link ReservedList#getReservationTypes}, which domain checks and creates call
+ * for every name.
+ *
+ * <p>The TLD has two reserved lists of a thousand labels each, read through their caches.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReservedListBenchmark {
+
+  private static final int LIST_SIZE = 1000;
+
+  /** A label on both lists, on one of them, or on neither. */
+  @Param({"lol", "snowcrash", "available"})
+  public String label;
+
+  private BenchmarkDatabase database;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    database = BenchmarkDatabase.start(new FakeClock(Instant.parse("2023-05-13T00:00:00Z")));
+    createTld("tld");
+    ReservedList first =
+        persistReservedList(
+            "reserved1",
+            IntStream.range(0, LIST_SIZE)
+                .mapToObj(i -> i == 0 ? "lol,NAME_COLLISION" : "first" + i + ",FULLY_BLOCKED")
+                .toArray(String[]::new));
+    ReservedList second =
+        persistReservedList(
+            "reserved2",
+            IntStream.range(0, LIST_SIZE)
+                .mapToObj(
+                    i ->
+                        switch (i) {
+                          case 0 -> "lol,ALLOWED_IN_SUNRISE";
+                          case 1 -> "snowcrash,FULLY_BLOCKED";
+                          default -> "second" + i + ",RESERVED_FOR_SPECIFIC_USE";
+                        })
+                .toArray(String[]::new));
+    persistResource(Tld.get("tld").asBuilder().setReservedLists(first, second).build());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    database.close();
+  }
+
+  @Benchmark
+  public ImmutableSet<ReservationType> getReservationTypes() {
+    return ReservedList.getReservationTypes(label, "tld");
+  }
+}
@@ -0,0 +1,86 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.tmch;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+
+import google.registry.benchmarks.BenchmarkDatabase;
+import google.registry.testing.FakeClock;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for claims lookups through {@link ClaimsListDao#get}, which domain checks and creates
+ * do for every name during a claims period.
+ *
+ * <p>The claims list is loaded from the database like on a running server, so its entries are
+ * fetched one label at a time and then kept in the list's claim key cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClaimsListBenchmark {
+
+  private static final int LIST_SIZE = 10000;
+
+  /** A label on the claims list, or one that isn't. */
+  @Param({"label42", "absent"})
+  public String label;
+
+  private BenchmarkDatabase database;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    FakeClock clock = new FakeClock(Instant.parse("2023-05-13T00:00:00Z"));
+    database = BenchmarkDatabase.start(clock);
+    ClaimsListDao.save(
+        ClaimsList.create(
+            clock.now(),
+            IntStream.range(0, LIST_SIZE)
+                .mapToObj(i -> "label" + i)
+                .collect(toImmutableMap(Function.identity(), l -> l + "--claimkey"))));
+    // Drop the saved instance, which holds all of its entries, so that the list is read back.
+    ClaimsListDao.setCacheForTest(Optional.empty());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    database.close();
+  }
+
+  @Benchmark
+  public Optional<String> getClaimKey() {
+    return ClaimsListDao.get().getClaimKey(label);
+  }
+}
@@ -0,0 +1,111 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.proxy.quota;
+
+import static google.registry.proxy.quota.QuotaConfig.SENTINEL_UNLIMITED_TOKENS;
+import static java.lang.StrictMath.max;
+import static java.lang.StrictMath.min;
+
+import google.registry.proxy.quota.TokenStore.TimestampedInteger;
+import google.registry.util.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link TokenStore#take} and {@link TokenStore#put} of the token store before they were made
+ * lock-free, as a baseline for {@link TokenStoreBenchmark}.
+ *
+ * <p>Each update runs in a {@link ConcurrentHashMap#compute}, which locks the user's entry.
+ */
+final class LegacyTokenStore {
+
+  /**
+   * A wrapper to get around Java lambda's closure limitation.
+   *
+   * <p>Use the class to modify the value of a local variable captured by an lambda.
+   */
+  private static class Wrapper<T> {
+    T value;
+  }
+
+  private final ConcurrentHashMap<String, TimestampedInteger> tokensMap = new ConcurrentHashMap<>();
+
+  private final QuotaConfig config;
+  private final Clock clock;
+
+  LegacyTokenStore(QuotaConfig config, Clock clock) {
+    this.config = config;
+    this.clock = clock;
+  }
+
+  TimestampedInteger take(String userId) {
+    Wrapper<TimestampedInteger> grantedToken = new Wrapper<>();
+    tokensMap.compute(
+        userId,
+        (user, availableTokens) -> {
+          Instant now = clock.now();
+          int currentTokenCount;
+          Instant refillTime;
+          if (config.hasUnlimitedTokens(user)) {
+            grantedToken.value = TimestampedInteger.create(1, now);
+            return TimestampedInteger.create(SENTINEL_UNLIMITED_TOKENS, now);
+          }
+          if (availableTokens == null
+              || (!config.getRefillPeriod(user).isZero()
+                  && Duration.between(availableTokens.timestamp(), now)
+                          .compareTo(config.getRefillPeriod(user))
+                      >= 0)) {
+            currentTokenCount = config.getTokenAmount(user);
+            refillTime = now;
+          } else {
+            currentTokenCount = availableTokens.value();
+            refillTime = availableTokens.timestamp();
+          }
+          int newTokenCount = max(0, currentTokenCount - 1);
+          grantedToken.value =
+              TimestampedInteger.create(currentTokenCount - newTokenCount, refillTime);
+          return TimestampedInteger.create(newTokenCount, refillTime);
+        });
+    return grantedToken.value;
+  }
+
+  void put(String userId, Instant returnedTokenRefillTime) {
+    tokensMap.computeIfPresent(
+        userId,
+        (user, availableTokens) -> {
+          Instant now = clock.now();
+          int currentTokenCount = availableTokens.value();
+          Instant refillTime = availableTokens.timestamp();
+          int newTokenCount;
+          if (!config.hasUnlimitedTokens(userId)) {
+            if (!config.getRefillPeriod(user).isZero()
+                && Duration.between(availableTokens.timestamp(), now)
+                        .compareTo(config.getRefillPeriod(user))
+                    >= 0) {
+              currentTokenCount = config.getTokenAmount(user);
+              refillTime = now;
+            }
+            newTokenCount =
+                returnedTokenRefillTime.equals(refillTime)
+                    ? min(currentTokenCount + 1, config.getTokenAmount(userId))
+                    : currentTokenCount;
+          } else {
+            newTokenCount = SENTINEL_UNLIMITED_TOKENS;
+          }
+          return TimestampedInteger.create(newTokenCount, refillTime);
+        });
+  }
+}
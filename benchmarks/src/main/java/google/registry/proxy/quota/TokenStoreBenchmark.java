@@ -0,0 +1,98 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.proxy.quota;
+
+import com.google.common.collect.ImmutableList;
+import google.registry.proxy.ProxyConfig.Quota;
+import google.registry.proxy.ProxyConfig.Quota.QuotaGroup;
+import google.registry.proxy.quota.TokenStore.TimestampedInteger;
+import google.registry.util.SystemClock;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link TokenStore}, which every proxied connection takes a token from and
+ * returns it to, against the {@link LegacyTokenStore} it replaced.
+ *
+ * <p>Each operation takes a token for a random user and returns it, from several threads at once.
+ * With a single user, all threads contend on the same entry, like connections from one registrar.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class TokenStoreBenchmark {
+
+  /** The number of users that the threads take tokens for. */
+  @Param({"1", "1000"})
+  public int users;
+
+  private String[] userIds;
+  private TokenStore tokenStore;
+  private LegacyTokenStore legacyTokenStore;
+
+  @Setup
+  public void setUp() {
+    QuotaGroup defaultQuota = new QuotaGroup();
+    defaultQuota.userId = ImmutableList.of();
+    defaultQuota.tokenAmount = 100;
+    defaultQuota.refillSeconds = 3600;
+    Quota quota = new Quota();
+    quota.refreshSeconds = 0;
+    quota.defaultQuota = defaultQuota;
+    quota.customQuota = ImmutableList.of();
+    QuotaConfig config = new QuotaConfig(quota, "epp");
+    // The refresh isn't scheduled, so the stores never use their executor.
+    tokenStore = new TokenStore(config, null, new SystemClock());
+    legacyTokenStore = new LegacyTokenStore(config, new SystemClock());
+    userIds = new String[users];
+    for (int i = 0; i < users; i++) {
+      userIds[i] = "user" + i;
+    }
+  }
+
+  private String randomUser() {
+    return userIds[ThreadLocalRandom.current().nextInt(users)];
+  }
+
+  @Benchmark
+  public void takeAndPut() {
+    String userId = randomUser();
+    TimestampedInteger token = tokenStore.take(userId);
+    tokenStore.put(userId, token.timestamp());
+  }
+
+  @Benchmark
+  public void takeAndPutLegacy() {
+    String userId = randomUser();
+    TimestampedInteger token = legacyTokenStore.take(userId);
+    legacyTokenStore.put(userId, token.timestamp());
+  }
+}
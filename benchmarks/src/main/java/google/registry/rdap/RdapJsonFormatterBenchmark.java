@@ -0,0 +1,109 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.rdap;
+
+import static google.registry.testing.DatabaseHelper.createTld;
+import static google.registry.testing.DatabaseHelper.persistResource;
+import static google.registry.testing.DatabaseHelper.persistResources;
+import static google.registry.testing.FullFieldsTestEntityHelper.makeAndPersistHost;
+import static google.registry.testing.FullFieldsTestEntityHelper.makeDomain;
+import static google.registry.testing.FullFieldsTestEntityHelper.makeRegistrar;
+import static google.registry.testing.FullFieldsTestEntityHelper.makeRegistrarPocs;
+import static google.registry.util.DateTimeUtils.minusYears;
+
+import com.google.gson.JsonObject;
+import google.registry.benchmarks.BenchmarkDatabase;
+import google.registry.model.domain.Domain;
+import google.registry.model.host.Host;
+import google.registry.model.registrar.Registrar;
+import google.registry.rdap.RdapJsonFormatter.OutputDataType;
+import google.registry.testing.FakeClock;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link RdapJsonFormatter}, which builds the body of every RDAP domain and
+ * nameserver response.
+ *
+ * <p>A full domain response also loads the domain's nameservers, registrar and history, so this
+ * includes those reads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RdapJsonFormatterBenchmark {
+
+  /** {@code FULL} for a lookup, or {@code SUMMARY} for a search result. */
+  @Param({"FULL", "SUMMARY"})
+  public OutputDataType outputDataType;
+
+  private final FakeClock clock = new FakeClock(Instant.parse("2000-01-01T00:00:00Z"));
+  private BenchmarkDatabase database;
+  private RdapJsonFormatter rdapJsonFormatter;
+  private Domain domain;
+  private Host host;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    database = BenchmarkDatabase.start(clock);
+    rdapJsonFormatter = RdapTestHelper.getTestRdapJsonFormatter(clock);
+    createTld("lol");
+    Registrar registrar =
+        persistResource(makeRegistrar("evilregistrar", "Yes Virginia", Registrar.State.ACTIVE));
+    persistResources(makeRegistrarPocs(registrar));
+    host = makeAndPersistHost("ns1.cat.lol", "1.2.3.4", null, minusYears(clock.now(), 1));
+    Host otherHost =
+        makeAndPersistHost(
+            "ns2.cat.lol", "bad:f00d:cafe:0:0:0:15:beef", minusYears(clock.now(), 2));
+    domain =
+        persistResource(
+            makeDomain("cat.lol", host, otherHost, registrar)
+                .asBuilder()
+                .setCreationTimeForTest(minusYears(clock.now(), 3))
+                .setCreationRegistrarId("TheRegistrar")
+                .build());
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    database.close();
+  }
+
+  @Benchmark
+  public JsonObject domain() {
+    return rdapJsonFormatter.createRdapDomain(domain, outputDataType).toJson();
+  }
+
+  @Benchmark
+  public JsonObject nameserver() {
+    return rdapJsonFormatter.createRdapNameserver(host, outputDataType).toJson();
+  }
+}
@@ -0,0 +1,70 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.rde;
+
+import com.google.common.io.ByteStreams;
+import google.registry.testing.FakeKeyringModule;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.openpgp.PGPPublicKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link Ghostryde#encoder} at different compression levels, to help choose the
+ * {@code compressionLevel} option of the RDE pipeline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GhostrydeBenchmark {
+
+  private static final int DEPOSIT_SIZE = 8 * 1024 * 1024;
+
+  /** A {@link java.util.zip.Deflater} compression level. */
+  @Param({"1", "6", "9"})
+  public int compressionLevel;
+
+  private PGPPublicKey encryptionKey;
+  private byte[] deposit;
+
+  @Setup
+  public void setUp() {
+    encryptionKey = new FakeKeyringModule().get().getRdeStagingEncryptionKey();
+    deposit = SyntheticDeposit.create(DEPOSIT_SIZE);
+  }
+
+  @Benchmark
+  public void encode() throws IOException {
+    try (OutputStream encoder =
+        Ghostryde.encoder(
+            ByteStreams.nullOutputStream(), encryptionKey, null, compressionLevel)) {
+      encoder.write(deposit);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.rde;
+
+import com.google.common.io.ByteStreams;
+import google.registry.keyring.api.Keyring;
+import google.registry.testing.FakeKeyringModule;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for {@link RydeEncoder}, which compresses, encrypts and signs every escrow deposit
+ * before it is uploaded.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RydeEncoderBenchmark {
+
+  private static final int DEPOSIT_SIZE = 8 * 1024 * 1024;
+
+  /** Whether compression and encryption run on their own threads. */
+  @Param({"false", "true"})
+  public boolean pipelined;
+
+  private Keyring keyring;
+  private byte[] deposit;
+
+  @Setup
+  public void setUp() {
+    keyring = new FakeKeyringModule().get();
+    deposit = SyntheticDeposit.create(DEPOSIT_SIZE);
+  }
+
+  @Benchmark
+  public void encode() throws IOException {
+    try (RydeEncoder encoder =
+        new RydeEncoder.Builder()
+            .setRydeOutput(ByteStreams.nullOutputStream(), keyring.getRdeReceiverKey())
+            .setSignatureOutput(ByteStreams.nullOutputStream(), keyring.getRdeSigningKey())
+            .setFileMetadata("tld_2010-10-17_full_S1_R0", deposit.length, Instant.EPOCH)
+            .setPipelined(pipelined)
+            .build()) {
+      encoder.write(deposit);
+    }
+  }
+}
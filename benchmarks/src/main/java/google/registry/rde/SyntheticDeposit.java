@@ -0,0 +1,65 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.rde;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Random;
+
+/**
+ * Generates deposit-like XML for the RDE encoding benchmarks.
+ *
+ * <p>The domains have random names, so that the data compresses about as well as a real deposit
+ * rather than as well as the same fragment repeated.
+ */
+final class SyntheticDeposit {
+
+  private static final String DOMAIN =
+      """
+          <rdeDom:domain>
+            <rdeDom:name>%1$s.tld</rdeDom:name>
+            <rdeDom:roid>%2$X-TLD</rdeDom:roid>
+            <rdeDom:status s="ok"/>
+            <rdeDom:registrant>%1$s-reg</rdeDom:registrant>
+            <rdeDom:ns>
+              <domain:hostObj>ns1.%1$s.tld</domain:hostObj>
+              <domain:hostObj>ns2.%1$s.tld</domain:hostObj>
+            </rdeDom:ns>
+            <rdeDom:clID>TheRegistrar</rdeDom:clID>
+            <rdeDom:crRr>NewRegistrar</rdeDom:crRr>
+            <rdeDom:crDate>20%3$02d-04-03T22:00:00.0Z</rdeDom:crDate>
+            <rdeDom:exDate>20%4$02d-04-03T22:00:00.0Z</rdeDom:exDate>
+          </rdeDom:domain>
+      """;
+
+  /** Returns about {@code size} bytes of domain entries, always the same for the same size. */
+  static byte[] create(int size) {
+    Random random = new Random(size);
+    StringBuilder xml = new StringBuilder(size + DOMAIN.length() * 2);
+    while (xml.length() < size) {
+      StringBuilder name = new StringBuilder();
+      for (int i = 5 + random.nextInt(12); i > 0; i--) {
+        name.append((char) ('a' + random.nextInt(26)));
+      }
+      int roid = random.nextInt(Integer.MAX_VALUE);
+      int created = random.nextInt(25);
+      int expires = created + 1 + random.nextInt(10);
+      xml.append(DOMAIN.formatted(name, roid, created, expires));
+    }
+    return xml.toString().getBytes(UTF_8);
+  }
+
+  private SyntheticDeposit() {}
+}
@@ -27,16 +27,18 @@ import com.google.cloud.tasks.v2.HttpRequest;
 import com.google.cloud.tasks.v2.OidcToken;
 import com.google.cloud.tasks.v2.QueueName;
 import com.google.cloud.tasks.v2.Task;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
-import com.google.common.collect.Streams;
 import com.google.common.escape.Escaper;
 import com.google.common.flogger.FluentLogger;
 import com.google.common.net.HttpHeaders;
 import com.google.common.net.MediaType;
 import com.google.common.net.UrlEscapers;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.util.Timestamps;
 import google.registry.config.CredentialModule.ApplicationDefaultCredential;
@@ -56,6 +58,10 @@ import java.time.Duration;
 import java.util.Arrays;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Supplier;
 
 /** Utilities for dealing with Cloud Tasks. */
@@ -65,6 +71,9 @@ public class CloudTasksUtils implements Serializable {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
   private static final Random random = new Random();
 
+  /** The default maximum number of concurrent requests when enqueueing many tasks. */
+  @VisibleForTesting static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 16;
+
   private final Retrier retrier;
   private final Clock clock;
   private final String projectId;
@@ -102,8 +111,73 @@ public class CloudTasksUtils implements Serializable {
         ApiException.class);
   }
 
+  /**
+   * Enqueues the tasks, with up to {@value #DEFAULT_MAX_IN_FLIGHT_REQUESTS} requests in flight at
+   * the same time.
+   *
+   * @see #enqueue(String, Iterable, int)
+   */
   public ImmutableList<Task> enqueue(String queue, Iterable<Task> tasks) {
-    return Streams.stream(tasks).map(task -> enqueue(queue, task)).collect(toImmutableList());
+    return enqueue(queue, tasks, DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+  }
+
+  /**
+   * Enqueues the tasks, with up to {@code maxInFlightRequests} requests in flight at the same time.
+   *
+   * <p>Each task is retried on its own, and a task that can't be enqueued doesn't stop the others
+   * from being enqueued. Once every task has been tried, a {@link BulkEnqueueException} listing all
+   * the tasks that failed is thrown if there were any. This is also the case when there is only one
+   * task, so that callers only have to handle one kind of exception.
+   *
+   * @return the enqueued tasks, in the same order as {@code tasks}
+   */
+  public ImmutableList<Task> enqueue(String queue, Iterable<Task> tasks, int maxInFlightRequests) {
+    checkArgument(
+        maxInFlightRequests > 0,
+        "Maximum number of in-flight requests must be positive: %s",
+        maxInFlightRequests);
+    ImmutableList<Task> taskList = ImmutableList.copyOf(tasks);
+    if (taskList.isEmpty()) {
+      return ImmutableList.of();
+    }
+    if (taskList.size() == 1) {
+      // Not worth a thread pool, but failures are still reported the same way as for many tasks.
+      try {
+        return ImmutableList.of(enqueue(queue, taskList.get(0)));
+      } catch (RuntimeException e) {
+        throw new BulkEnqueueException(queue, ImmutableList.of(), taskList, ImmutableList.of(e));
+      }
+    }
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            Math.min(maxInFlightRequests, taskList.size()),
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("enqueue-%d").build());
+    try {
+      ImmutableList<Future<Task>> futures =
+          taskList.stream()
+              .map(task -> executor.submit(() -> enqueue(queue, task)))
+              .collect(toImmutableList());
+      ImmutableList.Builder<Task> enqueuedTasks = new ImmutableList.Builder<>();
+      ImmutableList.Builder<Task> succeededTasks = new ImmutableList.Builder<>();
+      ImmutableList.Builder<Task> failedTasks = new ImmutableList.Builder<>();
+      ImmutableList.Builder<Throwable> failures = new ImmutableList.Builder<>();
+      for (int i = 0; i < taskList.size(); i++) {
+        try {
+          enqueuedTasks.add(Uninterruptibles.getUninterruptibly(futures.get(i)));
+          succeededTasks.add(taskList.get(i));
+        } catch (ExecutionException e) {
+          failedTasks.add(taskList.get(i));
+          failures.add(e.getCause());
+        }
+      }
+      if (!failures.build().isEmpty()) {
+        throw new BulkEnqueueException(
+            queue, succeededTasks.build(), failedTasks.build(), failures.build());
+      }
+      return enqueuedTasks.build();
+    } finally {
+      executor.shutdownNow();
+    }
   }
 
   public ImmutableList<Task> enqueue(String queue, Task... tasks) {
@@ -345,6 +419,45 @@ public class CloudTasksUtils implements Serializable {
     return action;
   }
 
+  /** Thrown when some of the tasks passed to {@link #enqueue(String, Iterable)} fail to enqueue. */
+  public static class BulkEnqueueException extends RuntimeException {
+
+    @Serial private static final long serialVersionUID = 2301586406536306542L;
+
+    private final ImmutableList<Task> enqueuedTasks;
+    private final ImmutableList<Task> failedTasks;
+
+    BulkEnqueueException(
+        String queue,
+        ImmutableList<Task> enqueuedTasks,
+        ImmutableList<Task> failedTasks,
+        ImmutableList<Throwable> failures) {
+      super(
+          String.format(
+              "Failed to enqueue %d of %d tasks to queue %s",
+              failedTasks.size(), enqueuedTasks.size() + failedTasks.size(), queue),
+          failures.get(0));
+      failures.stream().skip(1).forEach(this::addSuppressed);
+      this.enqueuedTasks = enqueuedTasks;
+      this.failedTasks = failedTasks;
+    }
+
+    /**
+     * Returns the tasks that were enqueued, as they were passed in and in the same order.
+     *
+     * <p>These are the tasks given to {@link #enqueue(String, Iterable, int)}, not the ones returned
+     * by Cloud Tasks, so that callers can match them against the tasks they created.
+     */
+    public ImmutableList<Task> getEnqueuedTasks() {
+      return enqueuedTasks;
+    }
+
+    /** Returns the tasks that could not be enqueued, in the order they were passed in. */
+    public ImmutableList<Task> getFailedTasks() {
+      return failedTasks;
+    }
+  }
+
   public abstract static class SerializableCloudTasksClient implements Serializable {
 
     @Serial private static final long serialVersionUID = 7872861868968535498L;
@@ -356,19 +469,34 @@ public class CloudTasksUtils implements Serializable {
 
     @Serial private static final long serialVersionUID = -5959253033129154037L;
 
-    // Use a supplier so that we can use try-with-resources with the client, which implements
-    // Autocloseable.
+    // Use a supplier because the client itself is not serializable.
     private final Supplier<CloudTasksClient> clientSupplier;
 
+    // The client is thread-safe and expensive to create, as it opens a new channel to Cloud Tasks,
+    // so it is shared by all requests rather than created for each task.
+    private transient volatile CloudTasksClient client;
+
     public GcpCloudTasksClient(Supplier<CloudTasksClient> clientSupplier) {
       this.clientSupplier = clientSupplier;
     }
 
     @Override
     public Task enqueue(String projectId, String locationId, String queueName, Task task) {
-      try (CloudTasksClient client = clientSupplier.get()) {
-        return client.createTask(QueueName.of(projectId, locationId, queueName), task);
+      return getClient().createTask(QueueName.of(projectId, locationId, queueName), task);
+    }
+
+    private CloudTasksClient getClient() {
+      CloudTasksClient result = client;
+      if (result == null) {
+        synchronized (this) {
+          result = client;
+          if (result == null) {
+            result = clientSupplier.get();
+            client = result;
+          }
+        }
       }
+      return result;
     }
   }
 }
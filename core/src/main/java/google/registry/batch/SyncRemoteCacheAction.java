@@ -14,6 +14,8 @@
 
 package google.registry.batch;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static google.registry.model.common.Cursor.CursorType.REMOTE_CACHE_DOMAIN_SYNC;
 import static google.registry.model.common.Cursor.CursorType.REMOTE_CACHE_HOST_SYNC;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
@@ -32,6 +34,7 @@ import com.google.monitoring.metrics.IncrementableMetric;
 import com.google.monitoring.metrics.LabelDescriptor;
 import com.google.monitoring.metrics.MetricRegistryImpl;
 import google.registry.cache.SimplifiedJedisClient;
+import google.registry.config.RegistryConfig.Config;
 import google.registry.model.EppResource;
 import google.registry.model.common.Cursor;
 import google.registry.model.domain.Domain;
@@ -42,7 +45,9 @@ import google.registry.request.Action;
 import google.registry.request.Response;
 import google.registry.request.auth.Auth;
 import google.registry.request.lock.LockHandler;
+import google.registry.util.Clock;
 import google.registry.util.NonFinalForTesting;
+import google.registry.util.Sleeper;
 import jakarta.inject.Inject;
 import java.time.Duration;
 import java.time.Instant;
@@ -50,6 +55,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Action(
     service = Action.Service.BACKEND,
@@ -63,7 +69,13 @@ public class SyncRemoteCacheAction implements Runnable {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
   private static final String LOCK_NAME = "syncRemoteCacheAction";
-  private static final int BATCH_SIZE = 10000;
+
+  /**
+   * The maximum number of resources of one type that are synced and checkpointed per transaction.
+   *
+   * <p>Kept small so that each transaction is short and changes reach the remote cache quickly.
+   */
+  private static final int BATCH_SIZE = 500;
 
   public enum SyncStatus {
     SUCCESS,
@@ -87,13 +99,30 @@ public class SyncRemoteCacheAction implements Runnable {
   private final LockHandler lockHandler;
   private final Response response;
   private final Optional<SimplifiedJedisClient> jedisClient;
+  private final Clock clock;
+  private final Sleeper sleeper;
+  private final Duration tailDuration;
+  private final Duration pollInterval;
+  private final Duration overlap;
 
   @Inject
   public SyncRemoteCacheAction(
-      LockHandler lockHandler, Response response, Optional<SimplifiedJedisClient> jedisClient) {
+      LockHandler lockHandler,
+      Response response,
+      Optional<SimplifiedJedisClient> jedisClient,
+      Clock clock,
+      Sleeper sleeper,
+      @Config("remoteCacheSyncTailDuration") Duration tailDuration,
+      @Config("remoteCacheSyncPollInterval") Duration pollInterval,
+      @Config("remoteCacheSyncOverlap") Duration overlap) {
     this.lockHandler = lockHandler;
     this.response = response;
     this.jedisClient = jedisClient;
+    this.clock = clock;
+    this.sleeper = sleeper;
+    this.tailDuration = tailDuration;
+    this.pollInterval = pollInterval;
+    this.overlap = overlap;
   }
 
   @Override
@@ -128,57 +157,143 @@ public class SyncRemoteCacheAction implements Runnable {
     }
   }
 
+  /**
+   * Syncs all changes since the last run, then keeps tailing new changes until the tail duration
+   * is up.
+   *
+   * <p>Changes are processed in small batches, each in its own short transaction that pushes the
+   * batch to the remote cache and then checkpoints the cursor. Progress is therefore never lost
+   * when a later batch fails, and no transaction is held open for longer than one batch.
+   *
+   * <p>A resource's update time is the start time of the transaction that wrote it, so a
+   * transaction that commits after a poll can add changes timestamped before the cursor. Each poll
+   * therefore starts the overlap duration before the cursor, and syncs the changes in that window
+   * again. Syncing a resource again is harmless, since its current state is written each time.
+   */
   private void runLocked() {
-    // Note: the transaction ordering means that cursors in our database are updated only if all the
-    // operations for the entity type succeeded. There is no downside to processing the same objects
-    // multiple times if, for some reason, saving the cursor to the DB fails.
-    int syncedDomains = tm().transact(this::syncDomains);
-    int syncedHosts = tm().transact(this::syncHosts);
+    Instant tailDeadline = clock.now().plus(tailDuration);
+    int syncedDomains = 0;
+    int syncedHosts = 0;
+    while (true) {
+      syncedDomains += syncUntilCaughtUp(REMOTE_CACHE_DOMAIN_SYNC, this::syncDomains);
+      syncedHosts += syncUntilCaughtUp(REMOTE_CACHE_HOST_SYNC, this::syncHosts);
+      if (clock.now().plus(pollInterval).isAfter(tailDeadline)) {
+        break;
+      }
+      sleeper.sleepUninterruptibly(pollInterval);
+    }
     String message = String.format("Synced %d domains and %d hosts.", syncedDomains, syncedHosts);
     logger.atInfo().log(message);
     response.setPayload(message);
   }
 
-  private int syncDomains() {
-    Instant domainCursorTime = getPreviousCursorTime(REMOTE_CACHE_DOMAIN_SYNC);
+  /** The number of resources synced by a batch, and the update time of the last one. */
+  private record SyncedBatch(int size, Optional<Instant> lastUpdateTime) {}
+
+  /** Syncs the resources of one type updated strictly after the given time. */
+  @FunctionalInterface
+  private interface BatchSync {
+    SyncedBatch sync(Instant after);
+  }
+
+  /**
+   * Runs the given batch sync in separate transactions until a batch comes up short, returning the
+   * total number of resources synced.
+   *
+   * <p>The first batch starts the overlap duration before the cursor, and each following batch
+   * right after the last update time of the previous one.
+   */
+  private int syncUntilCaughtUp(Cursor.CursorType cursorType, BatchSync batchSync) {
+    // Note: the transaction ordering means that a cursor is updated only if all the operations for
+    // its batch succeeded. There is no downside to processing the same objects multiple times if,
+    // for some reason, saving the cursor to the DB fails.
+    Instant after = tm().transact(() -> getPreviousCursorTime(cursorType)).minus(overlap);
+    int total = 0;
+    SyncedBatch batch;
+    do {
+      Instant batchAfter = after;
+      batch = tm().transact(() -> batchSync.sync(batchAfter));
+      total += batch.size();
+      after = batch.lastUpdateTime().orElse(after);
+    } while (batch.size() >= BATCH_SIZE);
+    return total;
+  }
+
+  private SyncedBatch syncDomains(Instant after) {
     ImmutableSet<String> realTlds = Tlds.getTldsOfType(Tld.TldType.REAL);
     List<Domain> domains =
         tm().query(
-                "FROM Domain WHERE updateTimestamp.lastUpdateTime > :cursorTime AND tld IN"
+                "FROM Domain WHERE updateTimestamp.lastUpdateTime > :after AND tld IN"
                     + " :realTlds ORDER BY updateTimestamp ASC",
                 Domain.class)
-            .setParameter("cursorTime", domainCursorTime)
+            .setParameter("after", after)
             .setParameter("realTlds", realTlds)
             .setMaxResults(BATCH_SIZE)
             .getResultList();
     if (domains.isEmpty()) {
       logger.atInfo().log("No domains to process");
-      return 0;
+      return new SyncedBatch(0, Optional.empty());
+    }
+    if (domains.size() >= BATCH_SIZE) {
+      domains =
+          completeLastTimestamp(
+              domains,
+              tm().query(
+                      "FROM Domain WHERE updateTimestamp.lastUpdateTime = :lastUpdateTime AND tld"
+                          + " IN :realTlds",
+                      Domain.class)
+                  .setParameter("lastUpdateTime", getLastUpdateTime(domains))
+                  .setParameter("realTlds", realTlds)
+                  .getResultList());
     }
     logger.atInfo().log("Processing %d domains", domains.size());
     processResources(Domain.class, domains, Domain::getDomainName);
-    setNewCursorTime(domains, REMOTE_CACHE_DOMAIN_SYNC);
-    return domains.size();
+    return new SyncedBatch(domains.size(), setNewCursorTime(domains, REMOTE_CACHE_DOMAIN_SYNC));
   }
 
-  private int syncHosts() {
-    Instant hostCursorTime = getPreviousCursorTime(REMOTE_CACHE_HOST_SYNC);
+  private SyncedBatch syncHosts(Instant after) {
     List<Host> hosts =
         tm().query(
-                "FROM Host WHERE updateTimestamp.lastUpdateTime > :cursorTime ORDER BY"
+                "FROM Host WHERE updateTimestamp.lastUpdateTime > :after ORDER BY"
                     + " updateTimestamp ASC",
                 Host.class)
-            .setParameter("cursorTime", hostCursorTime)
+            .setParameter("after", after)
             .setMaxResults(BATCH_SIZE)
             .getResultList();
     if (hosts.isEmpty()) {
       logger.atInfo().log("No hosts to process");
-      return 0;
+      return new SyncedBatch(0, Optional.empty());
+    }
+    if (hosts.size() >= BATCH_SIZE) {
+      hosts =
+          completeLastTimestamp(
+              hosts,
+              tm().query(
+                      "FROM Host WHERE updateTimestamp.lastUpdateTime = :lastUpdateTime",
+                      Host.class)
+                  .setParameter("lastUpdateTime", getLastUpdateTime(hosts))
+                  .getResultList());
     }
     logger.atInfo().log("Processing %d hosts", hosts.size());
     processResources(Host.class, hosts, Host::getRepoId);
-    setNewCursorTime(hosts, REMOTE_CACHE_HOST_SYNC);
-    return hosts.size();
+    return new SyncedBatch(hosts.size(), setNewCursorTime(hosts, REMOTE_CACHE_HOST_SYNC));
+  }
+
+  /**
+   * Adds to a full batch the resources that share its last update time but didn't fit in it.
+   *
+   * <p>The next batch starts strictly after the last update time of the batch, so any resources
+   * updated in the same transaction as the last one in the batch would otherwise never be synced.
+   */
+  private static <T extends EppResource> List<T> completeLastTimestamp(
+      List<T> batch, List<T> resourcesWithLastUpdateTime) {
+    ImmutableSet<String> repoIdsInBatch =
+        batch.stream().map(EppResource::getRepoId).collect(toImmutableSet());
+    return Stream.concat(
+            batch.stream(),
+            resourcesWithLastUpdateTime.stream()
+                .filter(resource -> !repoIdsInBatch.contains(resource.getRepoId())))
+        .collect(toImmutableList());
   }
 
   private <T extends EppResource> void processResources(
@@ -198,10 +313,9 @@ public class SyncRemoteCacheAction implements Runnable {
     ImmutableList<String> toDelete = toDeleteBuilder.build();
     ImmutableList<SimplifiedJedisClient.JedisResource<T>> toSave = toSaveBuilder.build();
 
-    jedisClient.get().deleteAll(clazz, toDelete);
-    logger.atInfo().log("Invalidated %d from the remote cache", toDelete.size());
-    jedisClient.get().setAll(toSave);
-    logger.atInfo().log("Set %d in the remote cache", toSave.size());
+    jedisClient.get().setAndDeleteAll(clazz, toSave, toDelete);
+    logger.atInfo().log(
+        "Set %d and invalidated %d in the remote cache", toSave.size(), toDelete.size());
   }
 
   private Instant getPreviousCursorTime(Cursor.CursorType cursorType) {
@@ -210,10 +324,22 @@ public class SyncRemoteCacheAction implements Runnable {
         .orElse(START_INSTANT);
   }
 
-  private void setNewCursorTime(
+  private static Instant getLastUpdateTime(List<? extends EppResource> resources) {
+    return Iterables.getLast(resources).getUpdateTimestamp().getTimestamp();
+  }
+
+  /**
+   * Moves the cursor up to the last update time of the given batch, unless it is already past it,
+   * and returns that last update time.
+   */
+  private Optional<Instant> setNewCursorTime(
       List<? extends EppResource> resources, Cursor.CursorType cursorType) {
-    Instant lastUpdateTime = Iterables.getLast(resources).getUpdateTimestamp().getTimestamp();
-    tm().put(Cursor.createGlobal(cursorType, lastUpdateTime));
-    logger.atInfo().log("Set new %s cursor time to %s", cursorType, lastUpdateTime);
+    Instant lastUpdateTime = getLastUpdateTime(resources);
+    // Batches in the overlap window end before the cursor, which must not move back.
+    if (lastUpdateTime.isAfter(getPreviousCursorTime(cursorType))) {
+      tm().put(Cursor.createGlobal(cursorType, lastUpdateTime));
+      logger.atInfo().log("Set new %s cursor time to %s", cursorType, lastUpdateTime);
+    }
+    return Optional.of(lastUpdateTime);
   }
 }
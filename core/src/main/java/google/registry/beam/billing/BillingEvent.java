@@ -23,10 +23,12 @@ import google.registry.reporting.billing.BillingModule;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 import java.util.regex.Pattern;
 import org.apache.beam.sdk.coders.AtomicCoder;
+import org.apache.beam.sdk.coders.BigDecimalCoder;
 import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.coders.DoubleCoder;
 import org.apache.beam.sdk.coders.NullableCoder;
@@ -232,7 +234,15 @@ public record BillingEvent(
 
     /** Generates a CSV representation of n aggregate billing events. */
     String toCsv(Long quantity) {
-      double totalPrice = unitPrice() * quantity;
+      return toCsv(
+          new InvoiceTotal(
+              quantity, BigDecimal.valueOf(unitPrice()).multiply(BigDecimal.valueOf(quantity))));
+    }
+
+    /** Generates a CSV representation of aggregate billing events, given their total. */
+    String toCsv(InvoiceTotal total) {
+      long quantity = total.quantity();
+      BigDecimal totalPrice = total.totalPrice();
       return Joiner.on(",")
           .join(
               ImmutableList.of(
@@ -292,6 +302,45 @@ public record BillingEvent(
     }
   }
 
+  /**
+   * The number and total price of the billing events that share an {@link InvoiceGroupingKey}.
+   *
+   * <p>This is the compact partial aggregate that is shuffled in place of the billing events
+   * themselves when computing the overall invoice.
+   */
+  record InvoiceTotal(long quantity, BigDecimal totalPrice) {
+
+    static final InvoiceTotal ZERO = new InvoiceTotal(0, BigDecimal.ZERO);
+
+    InvoiceTotal plus(InvoiceTotal other) {
+      return new InvoiceTotal(quantity + other.quantity, totalPrice.add(other.totalPrice));
+    }
+
+    /** Coder that provides deterministic (de)serialization for {@code InvoiceTotal}. */
+    static class InvoiceTotalCoder extends AtomicCoder<InvoiceTotal> {
+      private static final Coder<Long> longCoder = VarLongCoder.of();
+      private static final Coder<BigDecimal> bigDecimalCoder = BigDecimalCoder.of();
+      private static final InvoiceTotalCoder INSTANCE = new InvoiceTotalCoder();
+
+      public static InvoiceTotalCoder of() {
+        return INSTANCE;
+      }
+
+      private InvoiceTotalCoder() {}
+
+      @Override
+      public void encode(InvoiceTotal value, @NotNull OutputStream outStream) throws IOException {
+        longCoder.encode(value.quantity(), outStream);
+        bigDecimalCoder.encode(value.totalPrice(), outStream);
+      }
+
+      @Override
+      public InvoiceTotal decode(@NotNull InputStream inStream) throws IOException {
+        return new InvoiceTotal(longCoder.decode(inStream), bigDecimalCoder.decode(inStream));
+      }
+    }
+  }
+
   static class BillingEventCoder extends AtomicCoder<BillingEvent> {
     private static final Coder<String> stringCoder = StringUtf8Coder.of();
     private static final Coder<Integer> integerCoder = VarIntCoder.of();
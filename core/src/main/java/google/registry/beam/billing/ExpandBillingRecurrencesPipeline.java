@@ -15,6 +15,10 @@
 package google.registry.beam.billing;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.collect.ImmutableSetMultimap.toImmutableSetMultimap;
 import static com.google.common.collect.Sets.difference;
 import static google.registry.model.common.Cursor.CursorType.RECURRING_BILLING;
 import static google.registry.model.domain.Period.Unit.YEARS;
@@ -26,11 +30,15 @@ import static google.registry.util.DateTimeUtils.earliestOf;
 import static google.registry.util.DateTimeUtils.latestOf;
 import static google.registry.util.DateTimeUtils.minusYears;
 import static google.registry.util.DateTimeUtils.plusYears;
+import static org.apache.beam.sdk.values.TypeDescriptors.integers;
 import static org.apache.beam.sdk.values.TypeDescriptors.voids;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Range;
+import com.google.common.collect.Streams;
 import dagger.Component;
 import google.registry.beam.common.RegistryJpaIO;
 import google.registry.config.RegistryConfig.Config;
@@ -51,6 +59,7 @@ import google.registry.model.reporting.DomainTransactionRecord;
 import google.registry.model.reporting.DomainTransactionRecord.TransactionReportField;
 import google.registry.model.tld.Tld;
 import google.registry.persistence.PersistenceModule.TransactionIsolationLevel;
+import google.registry.persistence.VKey;
 import google.registry.util.Clock;
 import google.registry.util.SystemClock;
 import jakarta.inject.Singleton;
@@ -64,6 +73,7 @@ import org.apache.beam.sdk.coders.KvCoder;
 import org.apache.beam.sdk.coders.VarIntCoder;
 import org.apache.beam.sdk.coders.VarLongCoder;
 import org.apache.beam.sdk.metrics.Counter;
+import org.apache.beam.sdk.metrics.Distribution;
 import org.apache.beam.sdk.metrics.Metrics;
 import org.apache.beam.sdk.options.PipelineOptionsFactory;
 import org.apache.beam.sdk.transforms.Create;
@@ -72,6 +82,7 @@ import org.apache.beam.sdk.transforms.GroupIntoBatches;
 import org.apache.beam.sdk.transforms.MapElements;
 import org.apache.beam.sdk.transforms.ParDo;
 import org.apache.beam.sdk.transforms.Wait;
+import org.apache.beam.sdk.transforms.WithKeys;
 import org.apache.beam.sdk.values.KV;
 import org.apache.beam.sdk.values.PCollection;
 import org.apache.beam.sdk.values.PDone;
@@ -91,7 +102,10 @@ import org.apache.beam.sdk.values.PDone;
  *       excluding those that are already present (to make this pipeline idempotent when running
  *       with the same parameters multiple times, either in parallel or in sequence). The {@link
  *       BillingRecurrence} is also updated with the information on when it was last expanded, so it
- *       would not be in scope for expansion until at least a year later.
+ *       would not be in scope for expansion until at least a year later. The {@link
+ *       BillingRecurrence}s are spread across {@link
+ *       ExpandBillingRecurrencesPipelineOptions#getNumRecurrenceShards shards} and expanded in
+ *       batches, each of which loads everything it needs with a few bulk queries.
  *   <li>If the cursor for billing events should be advanced, advance it to {@link #endTime} after
  *       all of the expansions in the previous step is done, only when it is currently at {@link
  *       #startTime}.
@@ -140,6 +154,8 @@ public class ExpandBillingRecurrencesPipeline implements Serializable {
   private final Instant endTime;
   private final boolean isDryRun;
   private final boolean advanceCursor;
+  private final int numShards;
+  private final int sqlReadPartitions;
   private final Counter recurrencesInScopeCounter =
       Metrics.counter("ExpandBilling", "Recurrences in scope for expansion");
   // Note that this counter is only accurate when running in dry run mode. Because SQL persistence
@@ -150,6 +166,11 @@ public class ExpandBillingRecurrencesPipeline implements Serializable {
   // See: https://beam.apache.org/documentation/programming-guide/#user-code-idempotence
   private final Counter oneTimesToExpandCounter =
       Metrics.counter("ExpandBilling", "OneTimes that would be expanded");
+  private final Counter batchesExpandedCounter =
+      Metrics.counter("ExpandBilling", "Batches of Recurrences expanded");
+  // Includes the time spent on retried transactions, which is what determines the overall runtime.
+  private final Distribution batchLatencyMillis =
+      Metrics.distribution("ExpandBilling", "Batch expansion latency in milliseconds");
 
   ExpandBillingRecurrencesPipeline(ExpandBillingRecurrencesPipelineOptions options, Clock clock) {
     startTime = Instant.parse(options.getStartTime());
@@ -162,6 +183,9 @@ public class ExpandBillingRecurrencesPipeline implements Serializable {
         endTime);
     isDryRun = options.getIsDryRun();
     advanceCursor = options.getAdvanceCursor();
+    numShards = options.getNumRecurrenceShards();
+    checkArgument(numShards > 0, "Number of shards must be positive: %s", numShards);
+    sqlReadPartitions = options.getSqlReadPartitions();
   }
 
   private PipelineResult run(Pipeline pipeline) {
@@ -178,48 +202,46 @@ public class ExpandBillingRecurrencesPipeline implements Serializable {
   }
 
   PCollection<KV<Integer, Long>> getRecurrencesInScope(Pipeline pipeline) {
-    return pipeline.apply(
-        "Read all Recurrences in scope",
-        // Use native query because JPQL does not support timestamp arithmetics.
-        RegistryJpaIO.read(
-                "SELECT billing_recurrence_id "
-                    + "FROM \"BillingRecurrence\" "
-                    // Recurrence should not close before the first event time.
-                    + "WHERE event_time < recurrence_end_time "
-                    // First event time should be before end time.
-                    + "AND event_Time < :endTime "
-                    // Recurrence should not close before start time.
-                    + "AND :startTime < recurrence_end_time "
-                    // Last expansion should happen at least one year before end time.
-                    + "AND recurrence_last_expansion < :oneYearAgo "
-                    // The recurrence should not close before next expansion time.
-                    + "AND recurrence_last_expansion + INTERVAL '1 YEAR' < recurrence_end_time",
-                ImmutableMap.of(
-                    "endTime",
-                    endTime,
-                    "startTime",
-                    startTime,
-                    "oneYearAgo",
-                    minusYears(endTime, 1)),
-                true,
-                (Long id) -> {
-                  recurrencesInScopeCounter.inc();
-                  // Note that because all elements are mapped to the same dummy key, the next
-                  // batching transform will effectively be serial. This however does not matter for
-                  // our use case because the elements were obtained from a SQL read query, which
-                  // are returned sequentially already. Therefore, having a sequential step to group
-                  // them does not reduce overall parallelism of the pipeline, and the batches can
-                  // then be distributed to all available workers for further processing, where the
-                  // main benefit of parallelism shows. In benchmarking, turning the distribution
-                  // of elements in this step resulted in marginal improvement in overall
-                  // performance at best without clear indication on why or to which degree. If the
-                  // runtime becomes a concern later on, we could consider fine-tuning the sharding
-                  // of output elements in this step.
-                  //
-                  // See: https://stackoverflow.com/a/44956702/791306
-                  return KV.of(0, id.longValue());
-                })
-            .withCoder(KvCoder.of(VarIntCoder.of(), VarLongCoder.of())));
+    return pipeline
+        .apply(
+            "Read all Recurrences in scope",
+            // Use native query because JPQL does not support timestamp arithmetics.
+            RegistryJpaIO.read(
+                    "SELECT billing_recurrence_id "
+                        + "FROM \"BillingRecurrence\" "
+                        // Recurrence should not close before the first event time.
+                        + "WHERE event_time < recurrence_end_time "
+                        // First event time should be before end time.
+                        + "AND event_Time < :endTime "
+                        // Recurrence should not close before start time.
+                        + "AND :startTime < recurrence_end_time "
+                        // Last expansion should happen at least one year before end time.
+                        + "AND recurrence_last_expansion < :oneYearAgo "
+                        // The recurrence should not close before next expansion time.
+                        + "AND recurrence_last_expansion + INTERVAL '1 YEAR' < recurrence_end_time "
+                        + "AND "
+                        + RegistryJpaIO.hashPartitionCondition("billing_recurrence_id", true),
+                    ImmutableMap.of(
+                        "endTime",
+                        endTime,
+                        "startTime",
+                        startTime,
+                        "oneYearAgo",
+                        minusYears(endTime, 1)),
+                    true,
+                    (Long id) -> {
+                      recurrencesInScopeCounter.inc();
+                      return id;
+                    })
+                .withCoder(VarLongCoder.of())
+                .withPartitions(sqlReadPartitions))
+        .apply(
+            // Batching only combines elements with the same key, so the IDs are spread across
+            // several keys, otherwise the batching step would be serial.
+            "Split Recurrences across shards",
+            WithKeys.<Integer, Long>of(id -> Math.floorMod(Long.hashCode(id), numShards))
+                .withKeyType(integers()))
+        .setCoder(KvCoder.of(VarIntCoder.of(), VarLongCoder.of()));
   }
 
   private PCollection<Void> expandRecurrences(PCollection<KV<Integer, Long>> recurrenceIds) {
@@ -232,25 +254,82 @@ public class ExpandBillingRecurrencesPipeline implements Serializable {
             MapElements.into(voids())
                 .via(
                     element -> {
-                      Iterable<Long> ids = element.getValue();
-                      tm().transact(
-                              () -> {
-                                ImmutableSet.Builder<ImmutableObject> results =
-                                    new ImmutableSet.Builder<>();
-                                ids.forEach(id -> expandOneRecurrence(id, results));
-                                if (!isDryRun) {
-                                  tm().putAll(results.build());
-                                }
-                              });
+                      long start = System.nanoTime();
+                      tm().transact(() -> expandBatch(element.getValue()));
+                      batchLatencyMillis.update((System.nanoTime() - start) / 1_000_000);
+                      batchesExpandedCounter.inc();
                       return null;
                     }));
   }
 
-  private void expandOneRecurrence(
-      Long recurrenceId, ImmutableSet.Builder<ImmutableObject> results) {
-    BillingRecurrence billingRecurrence =
-        tm().loadByKey(BillingRecurrence.createVKey(recurrenceId));
+  /**
+   * Expands a batch of {@link BillingRecurrence}s in the current transaction.
+   *
+   * <p>The recurrences, their domains and their existing {@link BillingEvent}s are each loaded with
+   * a single query for the whole batch, rather than one query per recurrence.
+   */
+  @SuppressWarnings("unchecked")
+  private void expandBatch(Iterable<Long> recurrenceIds) {
+    ImmutableList<VKey<BillingRecurrence>> recurrenceKeys =
+        Streams.stream(recurrenceIds)
+            .map(BillingRecurrence::createVKey)
+            .collect(toImmutableList());
+    ImmutableList<BillingRecurrence> recurrences =
+        ImmutableList.copyOf(tm().loadByKeys(recurrenceKeys).values());
+    ImmutableMap<Long, ImmutableSet<Instant>> eventTimesInScope =
+        recurrences.stream()
+            .collect(toImmutableMap(BillingRecurrence::getId, this::getEventTimesInScope));
+    ImmutableList<BillingRecurrence> recurrencesToExpand =
+        recurrences.stream()
+            .filter(recurrence -> !eventTimesInScope.get(recurrence.getId()).isEmpty())
+            .collect(toImmutableList());
+    if (recurrencesToExpand.isEmpty()) {
+      return;
+    }
+    ImmutableMap<VKey<? extends Domain>, Domain> domains =
+        tm().loadByKeys(
+                recurrencesToExpand.stream()
+                    .map(recurrence -> Domain.createVKey(recurrence.getDomainRepoId()))
+                    .collect(toImmutableSet()));
 
+    // Find the times for which the OneTime billing event are already created, making this expansion
+    // idempotent. There is no need to match to the domain repo ID as the cancellation matching
+    // billing event itself can only be for a single domain.
+    ImmutableSetMultimap<VKey<BillingRecurrence>, Instant> existingEventTimes =
+        tm()
+            .query(
+                "SELECT cancellationMatchingBillingEvent, eventTime FROM BillingEvent WHERE"
+                    + " cancellationMatchingBillingEvent IN :keys",
+                Object[].class)
+            .setParameter(
+                "keys",
+                recurrencesToExpand.stream()
+                    .map(BillingRecurrence::createVKey)
+                    .collect(toImmutableList()))
+            .getResultStream()
+            .collect(
+                toImmutableSetMultimap(
+                    row -> (VKey<BillingRecurrence>) row[0], row -> (Instant) row[1]));
+
+    ImmutableSet.Builder<ImmutableObject> results = new ImmutableSet.Builder<>();
+    for (BillingRecurrence billingRecurrence : recurrencesToExpand) {
+      expandOneRecurrence(
+          billingRecurrence,
+          eventTimesInScope.get(billingRecurrence.getId()),
+          domains.get(Domain.createVKey(billingRecurrence.getDomainRepoId())),
+          existingEventTimes.get(billingRecurrence.createVKey()),
+          results);
+    }
+    if (!isDryRun) {
+      tm().putAll(results.build());
+    }
+  }
+
+  /**
+   * Returns the event times that the recurrence should expand to, or an empty set if there are none
+   * or its state does not allow for an expansion.
+   */
+  private ImmutableSet<Instant> getEventTimesInScope(BillingRecurrence billingRecurrence) {
     // Determine the complete set of EventTimes this recurrence event should expand to within
     // [max(recurrenceLastExpansion + 1 yr, startTime), min(recurrenceEndTime, endTime)).
     //
@@ -269,10 +348,8 @@ public class ExpandBillingRecurrencesPipeline implements Serializable {
     // The best way to handle any unexpected behavior is to simply drop the recurrence from
     // expansion, if its new state still calls for an expansion, it would be picked up the next time
     // the pipeline runs.
-    ImmutableSet<Instant> eventTimes;
     try {
-      eventTimes =
-          ImmutableSet.copyOf(
+      return ImmutableSet.copyOf(
               billingRecurrence
                   .getRecurrenceTimeOfYear()
                   .getInstancesInRange(
@@ -282,23 +359,17 @@ public class ExpandBillingRecurrencesPipeline implements Serializable {
                               startTime),
                           earliestOf(billingRecurrence.getRecurrenceEndTime(), endTime))));
     } catch (IllegalArgumentException e) {
-      return;
+      return ImmutableSet.of();
     }
-    Domain domain = tm().loadByKey(Domain.createVKey(billingRecurrence.getDomainRepoId()));
-    Tld tld = Tld.get(domain.getTld());
-
-    // Find the times for which the OneTime billing event are already created, making this expansion
-    // idempotent. There is no need to match to the domain repo ID as the cancellation matching
-    // billing event itself can only be for a single domain.
-    ImmutableSet<Instant> existingEventTimes =
-        ImmutableSet.copyOf(
-            tm().query(
-                    "SELECT eventTime FROM BillingEvent WHERE cancellationMatchingBillingEvent ="
-                        + " :key",
-                    Instant.class)
-                .setParameter("key", billingRecurrence.createVKey())
-                .getResultList());
+  }
 
+  private void expandOneRecurrence(
+      BillingRecurrence billingRecurrence,
+      ImmutableSet<Instant> eventTimes,
+      Domain domain,
+      ImmutableSet<Instant> existingEventTimes,
+      ImmutableSet.Builder<ImmutableObject> results) {
+    Tld tld = Tld.get(domain.getTld());
     Set<Instant> eventTimesToExpand = difference(eventTimes, existingEventTimes);
 
     if (eventTimesToExpand.isEmpty()) {
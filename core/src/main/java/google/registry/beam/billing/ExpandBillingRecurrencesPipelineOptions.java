@@ -46,4 +46,12 @@ public interface ExpandBillingRecurrencesPipelineOptions extends RegistryPipelin
   boolean getAdvanceCursor();
 
   void setAdvanceCursor(boolean advanceCursor);
+
+  @Description(
+      "The number of shards that the recurrences in scope are spread across, so that they can be"
+          + " batched and expanded in parallel.")
+  @Default.Integer(100)
+  int getNumRecurrenceShards();
+
+  void setNumRecurrenceShards(int numRecurrenceShards);
 }
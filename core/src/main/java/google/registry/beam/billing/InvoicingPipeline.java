@@ -14,13 +14,18 @@
 
 package google.registry.beam.billing;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static org.apache.beam.sdk.values.TypeDescriptors.doubles;
+import static org.apache.beam.sdk.values.TypeDescriptors.kvs;
 import static org.apache.beam.sdk.values.TypeDescriptors.strings;
 
 import com.google.common.flogger.FluentLogger;
 import google.registry.beam.billing.BillingEvent.BillingEventCoder;
 import google.registry.beam.billing.BillingEvent.InvoiceGroupingKey;
 import google.registry.beam.billing.BillingEvent.InvoiceGroupingKey.InvoiceGroupingKeyCoder;
+import google.registry.beam.billing.BillingEvent.InvoiceTotal;
+import google.registry.beam.billing.BillingEvent.InvoiceTotal.InvoiceTotalCoder;
 import google.registry.beam.common.RegistryJpaIO;
 import google.registry.beam.common.RegistryJpaIO.Read;
 import google.registry.model.billing.BillingBase.Flag;
@@ -33,18 +38,25 @@ import google.registry.util.ResourceUtils;
 import google.registry.util.SqlTemplate;
 import java.io.Serial;
 import java.io.Serializable;
+import java.math.BigDecimal;
 import java.time.YearMonth;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.regex.Pattern;
 import org.apache.beam.sdk.Pipeline;
 import org.apache.beam.sdk.PipelineResult;
+import org.apache.beam.sdk.coders.Coder;
+import org.apache.beam.sdk.coders.CoderRegistry;
+import org.apache.beam.sdk.coders.DoubleCoder;
+import org.apache.beam.sdk.coders.KvCoder;
 import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.io.Compression;
 import org.apache.beam.sdk.io.FileIO;
 import org.apache.beam.sdk.io.TextIO;
 import org.apache.beam.sdk.options.PipelineOptionsFactory;
+import org.apache.beam.sdk.transforms.Combine;
+import org.apache.beam.sdk.transforms.Combine.CombineFn;
 import org.apache.beam.sdk.transforms.Contextful;
-import org.apache.beam.sdk.transforms.Count;
 import org.apache.beam.sdk.transforms.Distinct;
 import org.apache.beam.sdk.transforms.Filter;
 import org.apache.beam.sdk.transforms.MapElements;
@@ -137,7 +149,13 @@ public class InvoicingPipeline implements Serializable {
                 billingEvent.getFlags().stream().map(Flag::toString).collect(toImmutableSet()))));
   }
 
-  /** Transform that converts a {@code BillingEvent} into an invoice CSV row. */
+  /**
+   * Transform that aggregates {@code BillingEvent}s into invoice CSV rows.
+   *
+   * <p>Events are combined per {@link InvoiceGroupingKey} into an {@link InvoiceTotal}, which lets
+   * each worker pre-aggregate its events before the shuffle, so that only one partial total per key
+   * and worker is shuffled, rather than every event.
+   */
   private static class GenerateInvoiceRows
       extends PTransform<
           PCollection<google.registry.beam.billing.BillingEvent>, PCollection<String>> {
@@ -150,16 +168,63 @@ public class InvoicingPipeline implements Serializable {
       return input
           .apply(
               "Map to invoicing key",
-              MapElements.into(TypeDescriptor.of(InvoiceGroupingKey.class))
-                  .via(google.registry.beam.billing.BillingEvent::getInvoiceGroupingKey))
-          .setCoder(InvoiceGroupingKeyCoder.of())
+              MapElements.into(kvs(TypeDescriptor.of(InvoiceGroupingKey.class), doubles()))
+                  .via(
+                      (google.registry.beam.billing.BillingEvent event) ->
+                          KV.of(event.getInvoiceGroupingKey(), event.amount())))
+          .setCoder(KvCoder.of(InvoiceGroupingKeyCoder.of(), DoubleCoder.of()))
           .apply(
-              "Filter out free events", Filter.by((InvoiceGroupingKey key) -> key.unitPrice() != 0))
-          .apply("Count occurrences", Count.perElement())
+              "Filter out free events",
+              Filter.by((KV<InvoiceGroupingKey, Double> kv) -> kv.getKey().unitPrice() != 0))
+          .apply("Sum quantities and prices", Combine.perKey(new SumInvoiceTotalsFn()))
           .apply(
               "Format as CSVs",
               MapElements.into(strings())
-                  .via((KV<InvoiceGroupingKey, Long> kv) -> kv.getKey().toCsv(kv.getValue())));
+                  .via(
+                      (KV<InvoiceGroupingKey, InvoiceTotal> kv) ->
+                          kv.getKey().toCsv(kv.getValue())));
+    }
+  }
+
+  /** Sums the amounts of billing events into an {@link InvoiceTotal}. */
+  private static class SumInvoiceTotalsFn extends CombineFn<Double, InvoiceTotal, InvoiceTotal> {
+
+    @Serial private static final long serialVersionUID = 2840178356247126513L;
+
+    @Override
+    public InvoiceTotal createAccumulator() {
+      return InvoiceTotal.ZERO;
+    }
+
+    @Override
+    public InvoiceTotal addInput(InvoiceTotal accumulator, Double amount) {
+      return accumulator.plus(new InvoiceTotal(1, BigDecimal.valueOf(amount)));
+    }
+
+    @Override
+    public InvoiceTotal mergeAccumulators(Iterable<InvoiceTotal> accumulators) {
+      InvoiceTotal merged = InvoiceTotal.ZERO;
+      for (InvoiceTotal accumulator : accumulators) {
+        merged = merged.plus(accumulator);
+      }
+      return merged;
+    }
+
+    @Override
+    public InvoiceTotal extractOutput(InvoiceTotal accumulator) {
+      return accumulator;
+    }
+
+    @Override
+    public Coder<InvoiceTotal> getAccumulatorCoder(
+        CoderRegistry registry, Coder<Double> inputCoder) {
+      return InvoiceTotalCoder.of();
+    }
+
+    @Override
+    public Coder<InvoiceTotal> getDefaultOutputCoder(
+        CoderRegistry registry, Coder<Double> inputCoder) {
+      return InvoiceTotalCoder.of();
     }
   }
 
@@ -190,11 +255,24 @@ public class InvoicingPipeline implements Serializable {
                 .withSuffix(".csv"));
   }
 
-  /** Saves the billing events to detailed report CSV files keyed by registrar-tld pairs. */
+  /**
+   * Saves the billing events to detailed report CSV files keyed by registrar-tld pairs.
+   *
+   * <p>By default, there is one uncompressed file per registrar-tld pair. For months with a lot of
+   * billing events, each report can instead be {@link
+   * InvoicingPipelineOptions#getDetailedReportShards sharded} and {@link
+   * InvoicingPipelineOptions#getCompressDetailedReports compressed}, in which case the shard index
+   * and the compression suffix are added to the file names.
+   */
   static void saveDetailedCsv(
       PCollection<google.registry.beam.billing.BillingEvent> billingEvents,
       InvoicingPipelineOptions options) {
     String yearMonth = options.getYearMonth();
+    int numShards = options.getDetailedReportShards();
+    checkArgument(
+        numShards > 0, "Number of detailed report shards must be positive: %s", numShards);
+    Compression compression =
+        options.getCompressDetailedReports() ? Compression.GZIP : Compression.UNCOMPRESSED;
     billingEvents.apply(
         "Write detailed report for each registrar-tld pair",
         FileIO.<String, google.registry.beam.billing.BillingEvent>writeDynamic()
@@ -203,13 +281,21 @@ public class InvoicingPipeline implements Serializable {
                     "%s/%s/%s",
                     options.getBillingBucketUrl(), BillingModule.INVOICES_DIRECTORY, yearMonth))
             .by(google.registry.beam.billing.BillingEvent::getDetailedReportGroupingKey)
-            .withNumShards(1)
+            .withNumShards(numShards)
+            .withCompression(compression)
             .withDestinationCoder(StringUtf8Coder.of())
             .withNaming(
                 key ->
-                    (window, pane, numShards, shardIndex, compression) ->
+                    (window, pane, shardCount, shardIndex, fileCompression) ->
                         String.format(
-                            "%s_%s_%s.csv", BillingModule.DETAIL_REPORT_PREFIX, yearMonth, key))
+                            "%s_%s_%s%s.csv%s",
+                            BillingModule.DETAIL_REPORT_PREFIX,
+                            yearMonth,
+                            key,
+                            shardCount == 1
+                                ? ""
+                                : String.format("-%05d-of-%05d", shardIndex, shardCount),
+                            fileCompression.getSuggestedSuffix()))
             .via(
                 Contextful.fn(google.registry.beam.billing.BillingEvent::toCsv),
                 TextIO.sink().withHeader(google.registry.beam.billing.BillingEvent.getHeader())));
@@ -15,6 +15,7 @@
 package google.registry.beam.billing;
 
 import google.registry.beam.common.RegistryPipelineOptions;
+import org.apache.beam.sdk.options.Default;
 import org.apache.beam.sdk.options.Description;
 
 /** Custom options for running the invoicing pipeline. */
@@ -34,4 +35,20 @@ public interface InvoicingPipelineOptions extends RegistryPipelineOptions {
   String getBillingBucketUrl();
 
   void setBillingBucketUrl(String value);
+
+  @Description(
+      "The number of files that each detailed report is split into. Reports split into several"
+          + " files are published as several files.")
+  @Default.Integer(1)
+  int getDetailedReportShards();
+
+  void setDetailedReportShards(int value);
+
+  @Description(
+      "Whether the detailed reports are compressed with gzip. Compressed reports are"
+          + " decompressed when they are published to the registrars' Drive folders.")
+  @Default.Boolean(false)
+  boolean getCompressDetailedReports();
+
+  void setCompressDetailedReports(boolean value);
 }
@@ -14,6 +14,8 @@
 
 package google.registry.beam.common;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 import static org.apache.beam.sdk.values.TypeDescriptors.integers;
 
@@ -21,11 +23,13 @@ import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Streams;
 import google.registry.beam.common.RegistryQuery.CriteriaQuerySupplier;
+import google.registry.beam.common.RegistryQuery.PartitionedQuery;
 import google.registry.persistence.transaction.JpaTransactionManager;
 import google.registry.persistence.transaction.TransactionManagerFactory;
 import jakarta.persistence.criteria.CriteriaQuery;
 import java.util.Map;
 import java.util.Objects;
+import java.util.stream.LongStream;
 import javax.annotation.Nullable;
 import org.apache.beam.sdk.coders.Coder;
 import org.apache.beam.sdk.metrics.Counter;
@@ -114,10 +118,40 @@ public final class RegistryJpaIO {
     return Write.<T>builder().build();
   }
 
+  /**
+   * Returns a query condition that keeps only the rows in the partition being read by a {@link
+   * Read} with {@link Read#withPartitions partitions}.
+   *
+   * <p>Rows are assigned to partitions by a hash of the given key, so that partitions are about the
+   * same size however the keys are distributed. The key should be unique, or at least have many
+   * more distinct values than there are partitions, e.g. a primary key or repo ID.
+   *
+   * @param key the key to partition on, which is a column in native queries and a string-valued
+   *     path (e.g. {@code d.repoId}) in JPQL queries
+   * @param nativeQuery whether the condition is for a native query or a JPQL one
+   */
+  public static String hashPartitionCondition(String key, boolean nativeQuery) {
+    // Postgres' hashtext() returns an int, whose absolute value overflows for Integer.MIN_VALUE,
+    // hence the cast to bigint first.
+    String hash =
+        nativeQuery
+            ? String.format("CAST(hashtext(CAST(%s AS text)) AS bigint)", key)
+            : String.format("CAST(FUNCTION('hashtext', %s) AS Long)", key);
+    return String.format(
+        "MOD(ABS(%s), :%s) = :%s",
+        hash, RegistryQuery.PARTITION_COUNT_PARAMETER, RegistryQuery.PARTITION_PARAMETER);
+  }
+
   /**
    * A {@link PTransform transform} that transactionally executes a JPA {@link CriteriaQuery} and
    * adds the results to the BEAM pipeline. Users have the option to transform the results before
    * sending them to the next stages.
+   *
+   * <p>By default, the whole query runs in one transaction on one worker. A string query whose
+   * conditions include a {@link RegistryJpaIO#hashPartitionCondition} can instead be read {@link
+   * #withPartitions in partitions}, each of which runs in its own transaction, in parallel across
+   * workers. Note that the partitions are not read from the same database snapshot, so this is only
+   * suitable for reads that tolerate seeing changes made while the pipeline runs.
    */
   @AutoValue
   public abstract static class Read<R, T> extends PTransform<PBegin, PCollection<T>> {
@@ -134,16 +168,33 @@ public final class RegistryJpaIO {
     @Nullable
     abstract Coder<T> coder();
 
+    /** The number of partitions to read the query in, or zero if it is read all at once. */
+    abstract int partitionCount();
+
     abstract Builder<R, T> toBuilder();
 
     @Override
     @SuppressWarnings("deprecation") // Reshuffle still recommended by GCP.
     public PCollection<T> expand(PBegin input) {
       PCollection<T> output =
-          input
-              .apply("Starting " + name(), Create.of((Void) null))
-              .apply(
-                  "Run query for " + name(), ParDo.of(new QueryRunner<>(query(), resultMapper())));
+          partitionCount() == 0
+              ? input
+                  .apply("Starting " + name(), Create.of((Void) null))
+                  .apply(
+                      "Run query for " + name(),
+                      ParDo.of(new QueryRunner<>(query(), resultMapper())))
+              : input
+                  .apply(
+                      "Create partitions for " + name(),
+                      Create.of(
+                          LongStream.range(0, partitionCount()).boxed().collect(toImmutableList())))
+                  // Spread the partitions across workers, which Create alone may not do.
+                  .apply("Distribute partitions for " + name(), Reshuffle.viaRandomKey())
+                  .apply(
+                      "Run partitioned query for " + name(),
+                      ParDo.of(
+                          new PartitionedQueryRunner<>(
+                              (PartitionedQuery<R>) query(), resultMapper(), partitionCount())));
       if (coder() != null) {
         output = output.setCoder(coder());
       }
@@ -162,8 +213,25 @@ public final class RegistryJpaIO {
       return toBuilder().coder(coder).build();
     }
 
+    /**
+     * Reads the query in the given number of partitions, each in its own transaction.
+     *
+     * <p>The query must be a {@link PartitionedQuery}, such as a string query, that restricts its
+     * results to one partition, see {@link RegistryJpaIO#hashPartitionCondition}. A partition count
+     * of one is allowed, so that pipelines can make the number of partitions configurable.
+     */
+    public Read<R, T> withPartitions(int partitionCount) {
+      checkArgument(partitionCount > 0, "Partition count must be positive: %s", partitionCount);
+      checkArgument(
+          query() instanceof PartitionedQuery,
+          "Only partitioned queries, such as string queries, can be read in partitions");
+      return toBuilder().partitionCount(partitionCount).build();
+    }
+
     static <R, T> Builder<R, T> builder() {
-      return new AutoValue_RegistryJpaIO_Read.Builder<R, T>().name(DEFAULT_NAME);
+      return new AutoValue_RegistryJpaIO_Read.Builder<R, T>()
+          .name(DEFAULT_NAME)
+          .partitionCount(0);
     }
 
     @AutoValue.Builder
@@ -177,6 +245,8 @@ public final class RegistryJpaIO {
 
       abstract Builder<R, T> coder(Coder<T> coder);
 
+      abstract Builder<R, T> partitionCount(int partitionCount);
+
       abstract Read<R, T> build();
 
       Builder<R, T> criteriaQuery(CriteriaQuerySupplier<R> criteriaQuery) {
@@ -222,6 +292,41 @@ public final class RegistryJpaIO {
                 });
       }
     }
+
+    /**
+     * Runs one partition of a query per element, see {@link Read#withPartitions}.
+     *
+     * <p>As in {@link QueryRunner}, the transaction is never retried, and the runner doesn't retry a
+     * failed partition either. Beam discards the output of the failed bundle and reruns it, so
+     * unlike with {@link QueryRunner}, only the partitions in that bundle are read again.
+     */
+    static class PartitionedQueryRunner<R, T> extends DoFn<Long, T> {
+
+      private static final long serialVersionUID = -2146592436287374384L;
+      private final PartitionedQuery<R> query;
+      private final SerializableFunction<R, T> resultMapper;
+      private final long partitionCount;
+
+      PartitionedQueryRunner(
+          PartitionedQuery<R> query, SerializableFunction<R, T> resultMapper, long partitionCount) {
+        this.query = query;
+        this.resultMapper = resultMapper;
+        this.partitionCount = partitionCount;
+      }
+
+      @ProcessElement
+      public void processElement(@Element Long partition, OutputReceiver<T> outputReceiver) {
+        // See QueryRunner for why this is a no-retry transaction.
+        tm().transactNoRetry(
+                () -> {
+                  query
+                      .stream(partition, partitionCount)
+                      .map(resultMapper::apply)
+                      .forEach(outputReceiver::output);
+                  return null;
+                });
+      }
+    }
   }
 
   /**
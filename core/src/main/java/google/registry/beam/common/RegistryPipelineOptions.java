@@ -56,6 +56,14 @@ public interface RegistryPipelineOptions extends GcpOptions {
 
   void setSqlWriteBatchSize(int sqlWriteBatchSize);
 
+  @Description(
+      "The number of partitions that partitionable SQL reads are split into, each of which is read"
+          + " in its own transaction.")
+  @Default.Integer(1)
+  int getSqlReadPartitions();
+
+  void setSqlReadPartitions(int sqlReadPartitions);
+
   static RegistryPipelineComponent toRegistryPipelineComponent(RegistryPipelineOptions options) {
     return DaggerRegistryPipelineComponent.builder()
         .isolationOverride(options.getIsolationOverride())
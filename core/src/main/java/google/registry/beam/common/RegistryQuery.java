@@ -16,6 +16,7 @@ package google.registry.beam.common;
 
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 
+import com.google.common.collect.ImmutableMap;
 import google.registry.persistence.transaction.JpaTransactionManager;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
@@ -38,21 +39,71 @@ public interface RegistryQuery<T> extends Serializable {
    */
   int QUERY_FETCH_SIZE = 1000;
 
+  /**
+   * Name of the query parameter that is bound to the index of the partition being read.
+   *
+   * @see PartitionedQuery#stream(long, long)
+   */
+  String PARTITION_PARAMETER = "partition";
+
+  /**
+   * Name of the query parameter that is bound to the total number of partitions being read.
+   *
+   * @see PartitionedQuery#stream(long, long)
+   */
+  String PARTITION_COUNT_PARAMETER = "partitionCount";
+
   Stream<T> stream();
 
+  /** A query that can be read in partitions, see {@link RegistryJpaIO.Read#withPartitions}. */
+  interface PartitionedQuery<T> extends RegistryQuery<T> {
+
+    /**
+     * Returns the rows in one partition of the result set.
+     *
+     * <p>The query must restrict its results to one partition using the {@value
+     * #PARTITION_PARAMETER} and {@value #PARTITION_COUNT_PARAMETER} parameters, e.g. through {@link
+     * RegistryJpaIO#hashPartitionCondition}.
+     */
+    Stream<T> stream(long partition, long partitionCount);
+  }
+
+  /**
+   * A string query, which can be read in partitions by binding extra parameters to it.
+   *
+   * <p>Note that {@link #stream(long, long)} binds the partition parameters whether or not the
+   * query uses them, so a query that is read in partitions must use all of them.
+   */
+  interface StringQuery<T> extends PartitionedQuery<T> {
+
+    Stream<T> stream(Map<String, Object> extraParameters);
+
+    @Override
+    default Stream<T> stream() {
+      return stream(ImmutableMap.of());
+    }
+
+    @Override
+    default Stream<T> stream(long partition, long partitionCount) {
+      return stream(
+          ImmutableMap.of(
+              PARTITION_PARAMETER, partition, PARTITION_COUNT_PARAMETER, partitionCount));
+    }
+  }
+
   interface CriteriaQuerySupplier<T> extends Supplier<CriteriaQuery<T>>, Serializable {}
 
   /**
-   * Returns a {@link RegistryQuery} that creates a string query from constant text.
+   * Returns a {@link StringQuery} that creates a string query from constant text.
    *
    * @param nativeQuery whether the given string is to be interpreted as a native query or JPQL.
    * @param parameters parameters to be substituted in the query.
    * @param <T> Type of each row in the result set, {@link Object} in single-select queries, and
    *     {@code Object[]} in multi-select queries.
    */
-  static <T> RegistryQuery<T> createQuery(
+  static <T> StringQuery<T> createQuery(
       String sql, @Nullable Map<String, Object> parameters, boolean nativeQuery) {
-    return () -> {
+    return extraParameters -> {
       EntityManager entityManager = tm().getEntityManager();
       Query query =
           nativeQuery ? entityManager.createNativeQuery(sql) : entityManager.createQuery(sql);
@@ -62,6 +113,7 @@ public interface RegistryQuery<T> extends Serializable {
               query.setParameter(key, value);
             });
       }
+      extraParameters.forEach(query::setParameter);
       JpaTransactionManager.setQueryFetchSize(query, QUERY_FETCH_SIZE);
       @SuppressWarnings("unchecked")
       Stream<T> resultStream = query.getResultStream();
@@ -70,20 +122,21 @@ public interface RegistryQuery<T> extends Serializable {
   }
 
   /**
-   * Returns a {@link RegistryQuery} that creates a typed JPQL query from constant text.
+   * Returns a {@link StringQuery} that creates a typed JPQL query from constant text.
    *
    * @param parameters parameters to be substituted in the query.
    * @param <T> Type of each row in the result set.
    */
-  static <T> RegistryQuery<T> createQuery(
+  static <T> StringQuery<T> createQuery(
       String jpql, @Nullable Map<String, Object> parameters, Class<T> clazz) {
-    return () -> {
+    return extraParameters -> {
       // TODO(b/193662898): switch to jpaTm().query() when it can properly detach loaded entities.
       EntityManager entityManager = tm().getEntityManager();
       TypedQuery<T> query = entityManager.createQuery(jpql, clazz);
       if (parameters != null) {
         parameters.forEach(query::setParameter);
       }
+      extraParameters.forEach(query::setParameter);
       JpaTransactionManager.setQueryFetchSize(query, QUERY_FETCH_SIZE);
       return query.getResultStream().map(e -> detach(entityManager, e));
     };
@@ -20,10 +20,12 @@ import static google.registry.model.common.Cursor.getCursorTimeOrStartOfTime;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 import static google.registry.rde.RdeModule.BRDA_QUEUE;
 import static google.registry.rde.RdeModule.RDE_UPLOAD_QUEUE;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.auto.value.AutoValue;
 import com.google.cloud.storage.BlobId;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.flogger.FluentLogger;
 import google.registry.batch.CloudTasksUtils;
@@ -37,7 +39,9 @@ import google.registry.model.tld.Tld;
 import google.registry.rde.BrdaCopyAction;
 import google.registry.rde.DepositFragment;
 import google.registry.rde.Ghostryde;
+import google.registry.rde.GhostrydeSegments;
 import google.registry.rde.PendingDeposit;
+import google.registry.rde.PendingDeposit.PendingDepositCoder;
 import google.registry.rde.RdeCounter;
 import google.registry.rde.RdeMarshaller;
 import google.registry.rde.RdeModule;
@@ -51,16 +55,23 @@ import google.registry.xjc.rdeheader.XjcRdeHeader;
 import google.registry.xjc.rdeheader.XjcRdeHeaderElement;
 import google.registry.xml.ValidationMode;
 import google.registry.xml.XmlException;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
+import java.io.Serial;
+import java.io.Serializable;
 import java.security.Security;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Optional;
+import org.apache.beam.sdk.coders.KvCoder;
+import org.apache.beam.sdk.coders.SerializableCoder;
+import org.apache.beam.sdk.coders.VarIntCoder;
 import org.apache.beam.sdk.options.PipelineOptions;
 import org.apache.beam.sdk.transforms.DoFn;
+import org.apache.beam.sdk.transforms.GroupByKey;
 import org.apache.beam.sdk.transforms.PTransform;
 import org.apache.beam.sdk.transforms.ParDo;
 import org.apache.beam.sdk.values.KV;
@@ -71,9 +82,25 @@ import org.bouncycastle.openpgp.PGPPublicKey;
 
 public class RdeIO {
 
+  /**
+   * Writes the deposit fragments of each pending deposit into an encrypted deposit file on GCS.
+   *
+   * <p>Instead of grouping all the fragments of a deposit under a single key, which would leave a
+   * single worker to serialize and compress the entire deposit, the fragments are first split into
+   * shards by resource type and by a hash of their content. Each shard is compressed on its own in
+   * parallel with the others using {@link GhostrydeSegments}, and the per-type counts of the
+   * fragments it contains are recorded alongside it. The compressed shards are then grouped by
+   * pending deposit and stitched into the final file in a single streaming pass, which only has to
+   * encrypt them and compute the header counts from the per-shard counts.
+   *
+   * <p>The compressed shards are passed from one step to the next through the pipeline rather than
+   * through intermediate GCS objects, because only their encrypted form may ever be persisted. The
+   * fragments in the resulting deposit are not in any particular order, which the escrow
+   * specification does not require.
+   */
   @AutoValue
   abstract static class Write
-      extends PTransform<PCollection<KV<PendingDeposit, Iterable<DepositFragment>>>, PDone> {
+      extends PTransform<PCollection<KV<PendingDeposit, DepositFragment>>, PDone> {
 
     private static final long serialVersionUID = 3334807737227087760L;
 
@@ -90,6 +117,10 @@ public class RdeIO {
 
     abstract ValidationMode validationMode();
 
+    abstract int shardsPerResourceType();
+
+    abstract int compressionLevel();
+
     static Builder builder() {
       return new AutoValue_RdeIO_Write.Builder();
     }
@@ -106,12 +137,28 @@ public class RdeIO {
 
       abstract Builder setValidationMode(ValidationMode value);
 
+      abstract Builder setShardsPerResourceType(int value);
+
+      abstract Builder setCompressionLevel(int value);
+
       abstract Write build();
     }
 
     @Override
-    public PDone expand(PCollection<KV<PendingDeposit, Iterable<DepositFragment>>> input) {
+    public PDone expand(PCollection<KV<PendingDeposit, DepositFragment>> input) {
       input
+          .apply(
+              "Assign DepositFragment to shards",
+              ParDo.of(new ShardAssigner(shardsPerResourceType())))
+          .setCoder(
+              KvCoder.of(
+                  KvCoder.of(PendingDepositCoder.of(), VarIntCoder.of()),
+                  SerializableCoder.of(DepositFragment.class)))
+          .apply("Group DepositFragment by shard", GroupByKey.create())
+          .apply("Compress shards", ParDo.of(new ShardCompressor(compressionLevel())))
+          .setCoder(
+              KvCoder.of(PendingDepositCoder.of(), SerializableCoder.of(DepositSegment.class)))
+          .apply("Group DepositSegment by PendingDeposit", GroupByKey.create())
           .apply(
               "Write to GCS",
               ParDo.of(new RdeWriter(gcsUtils(), rdeBucket(), stagingKeyBytes(), validationMode())))
@@ -122,8 +169,124 @@ public class RdeIO {
     }
   }
 
+  /**
+   * A compressed run of deposit fragments, along with the number of fragments of each type in it.
+   *
+   * @param compressedXml the XML of the fragments, compressed with {@link
+   *     GhostrydeSegments#compress}
+   * @param length the length of the XML before it was compressed
+   * @param failed whether any of the fragments failed to marshal
+   */
+  @SuppressWarnings("ArrayRecordComponent")
+  record DepositSegment(
+      byte[] compressedXml,
+      long length,
+      ImmutableMap<RdeResourceType, Long> counts,
+      boolean failed)
+      implements Serializable {
+
+    @Serial private static final long serialVersionUID = 6236180371936271863L;
+
+    static DepositSegment create(
+        ByteArrayOutputStream xml,
+        int compressionLevel,
+        Map<RdeResourceType, Long> counts,
+        boolean failed) {
+      return new DepositSegment(
+          GhostrydeSegments.compress(xml.toByteArray(), compressionLevel),
+          xml.size(),
+          ImmutableMap.copyOf(counts),
+          failed);
+    }
+  }
+
+  /**
+   * Keys each fragment by its pending deposit and shard.
+   *
+   * <p>Shards are numbered so that all the shards of one resource type are contiguous, and the
+   * fragments of a type are spread over its shards by the hash of their XML.
+   */
+  private static class ShardAssigner
+      extends DoFn<
+          KV<PendingDeposit, DepositFragment>, KV<KV<PendingDeposit, Integer>, DepositFragment>> {
+
+    private static final long serialVersionUID = -2722284434378421497L;
+
+    private final int shardsPerResourceType;
+
+    ShardAssigner(int shardsPerResourceType) {
+      checkState(shardsPerResourceType > 0, "Number of shards must be positive");
+      this.shardsPerResourceType = shardsPerResourceType;
+    }
+
+    @ProcessElement
+    public void processElement(
+        @Element KV<PendingDeposit, DepositFragment> kv,
+        OutputReceiver<KV<KV<PendingDeposit, Integer>, DepositFragment>> outputReceiver) {
+      DepositFragment fragment = kv.getValue();
+      int shard =
+          fragment.type().ordinal() * shardsPerResourceType
+              + Math.floorMod(fragment.xml().hashCode(), shardsPerResourceType);
+      outputReceiver.output(KV.of(KV.of(kv.getKey(), shard), fragment));
+    }
+  }
+
+  /**
+   * Compresses the fragments of a shard into one or more {@link DepositSegment}s.
+   *
+   * <p>A shard is cut into several segments once it grows past {@link #MAX_SEGMENT_LENGTH}, so
+   * that neither the uncompressed XML held in memory nor a single compressed segment passed on to
+   * the {@link RdeWriter} grows with the size of the deposit.
+   */
+  private static class ShardCompressor
+      extends DoFn<
+          KV<KV<PendingDeposit, Integer>, Iterable<DepositFragment>>,
+          KV<PendingDeposit, DepositSegment>> {
+
+    private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+    private static final long serialVersionUID = 1386227393473446826L;
+    private static final int MAX_SEGMENT_LENGTH = 16 * 1024 * 1024;
+
+    private final int compressionLevel;
+
+    ShardCompressor(int compressionLevel) {
+      this.compressionLevel = compressionLevel;
+    }
+
+    @ProcessElement
+    public void processElement(
+        @Element KV<KV<PendingDeposit, Integer>, Iterable<DepositFragment>> kv,
+        OutputReceiver<KV<PendingDeposit, DepositSegment>> outputReceiver) {
+      PendingDeposit key = kv.getKey().getKey();
+      ByteArrayOutputStream xml = new ByteArrayOutputStream();
+      EnumMap<RdeResourceType, Long> counts = new EnumMap<>(RdeResourceType.class);
+      boolean failed = false;
+      for (DepositFragment fragment : kv.getValue()) {
+        if (!fragment.xml().isEmpty()) {
+          xml.writeBytes(fragment.xml().getBytes(UTF_8));
+          counts.merge(fragment.type(), 1L, Long::sum);
+        }
+        if (!fragment.error().isEmpty()) {
+          failed = true;
+          logger.atSevere().log("Fragment error: %s", fragment.error());
+        }
+        if (xml.size() >= MAX_SEGMENT_LENGTH) {
+          outputReceiver.output(
+              KV.of(key, DepositSegment.create(xml, compressionLevel, counts, failed)));
+          xml.reset();
+          counts.clear();
+          failed = false;
+        }
+      }
+      if (xml.size() > 0 || failed) {
+        outputReceiver.output(
+            KV.of(key, DepositSegment.create(xml, compressionLevel, counts, failed)));
+      }
+    }
+  }
+
   private static class RdeWriter
-      extends DoFn<KV<PendingDeposit, Iterable<DepositFragment>>, KV<PendingDeposit, Integer>> {
+      extends DoFn<KV<PendingDeposit, Iterable<DepositSegment>>, KV<PendingDeposit, Integer>> {
 
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
     private static final long serialVersionUID = 5496375923068400382L;
@@ -152,12 +315,12 @@ public class RdeIO {
 
     @ProcessElement
     public void processElement(
-        @Element KV<PendingDeposit, Iterable<DepositFragment>> kv,
+        @Element KV<PendingDeposit, Iterable<DepositSegment>> kv,
         PipelineOptions options,
         OutputReceiver<KV<PendingDeposit, Integer>> outputReceiver) {
       PGPPublicKey stagingKey = PgpHelper.loadPublicKeyBytes(stagingKeyBytes);
       PendingDeposit key = kv.getKey();
-      Iterable<DepositFragment> fragments = kv.getValue();
+      Iterable<DepositSegment> segments = kv.getValue();
       RdeCounter counter = new RdeCounter();
 
       // Determine some basic things about the deposit.
@@ -189,45 +352,48 @@ public class RdeIO {
       boolean failed = false;
       XjcRdeHeader header;
 
-      // Write a gigantic XML file to GCS. We'll start by opening encrypted out/err file handles.
+      // Write a gigantic XML file to GCS, by stitching together the segments that were already
+      // compressed in parallel. Only the top and bottom of the XML document are compressed here.
 
       logger.atInfo().log("Writing files '%s' and '%s'.", xmlFilename, xmlLengthFilename);
       try (OutputStream gcsOutput = gcsUtils.openOutputStream(xmlFilename);
-          OutputStream lengthOutput = gcsUtils.openOutputStream(xmlLengthFilename);
-          OutputStream ghostrydeEncoder = Ghostryde.encoder(gcsOutput, stagingKey, lengthOutput);
-          Writer output = new OutputStreamWriter(ghostrydeEncoder, UTF_8)) {
+          OutputStream lengthOutput = gcsUtils.openOutputStream(xmlLengthFilename)) {
 
         // Output the top portion of the XML document.
-        output.write(marshaller.makeHeader(id, watermark, RdeResourceType.getUris(mode), revision));
-
-        // Output XML fragments while counting them.
-        for (DepositFragment fragment : fragments) {
-          if (!fragment.xml().isEmpty()) {
-            output.write(fragment.xml());
-            counter.increment(fragment.type());
-          }
-          if (!fragment.error().isEmpty()) {
-            failed = true;
-            logger.atSevere().log("Fragment error: %s", fragment.error());
-          }
+        GhostrydeSegments.Writer output =
+            GhostrydeSegments.openWriter(
+                gcsOutput,
+                stagingKey,
+                marshaller
+                    .makeHeader(id, watermark, RdeResourceType.getUris(mode), revision)
+                    .getBytes(UTF_8));
+
+        // Output XML segments while adding up their counts.
+        for (DepositSegment segment : segments) {
+          output.write(segment.compressedXml(), segment.length());
+          segment.counts().forEach(counter::increment);
+          failed |= segment.failed();
         }
 
+        StringBuilder bottom = new StringBuilder();
         // Don't write the IDN elements or EPP params for BRDA.
         if (mode == RdeMode.FULL) {
           for (IdnTableEnum idn : IdnTableEnum.values()) {
-            output.write(marshaller.marshalIdn(idn.getTable()));
+            bottom.append(marshaller.marshalIdn(idn.getTable()));
             counter.increment(RdeResourceType.IDN);
           }
-          output.write(marshaller.marshalRdeEppParams());
+          bottom.append(marshaller.marshalRdeEppParams());
           counter.increment(RdeResourceType.EPP_PARAMS);
         }
 
         // Output XML that says how many resources were emitted.
         header = counter.makeHeader(tld, mode);
-        output.write(marshaller.marshalOrDie(new XjcRdeHeaderElement(header)));
+        bottom.append(marshaller.marshalOrDie(new XjcRdeHeaderElement(header)));
 
         // Output the bottom of the XML document.
-        output.write(marshaller.makeFooter());
+        bottom.append(marshaller.makeFooter());
+        long length = output.finish(bottom.toString().getBytes(UTF_8));
+        lengthOutput.write(Long.toString(length).getBytes(US_ASCII));
 
       } catch (IOException e) {
         throw new RuntimeException(e);
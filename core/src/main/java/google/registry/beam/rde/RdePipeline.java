@@ -88,7 +88,6 @@ import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.Filter;
 import org.apache.beam.sdk.transforms.FlatMapElements;
 import org.apache.beam.sdk.transforms.Flatten;
-import org.apache.beam.sdk.transforms.GroupByKey;
 import org.apache.beam.sdk.transforms.GroupIntoBatches;
 import org.apache.beam.sdk.transforms.ParDo;
 import org.apache.beam.sdk.transforms.WithKeys;
@@ -159,9 +158,11 @@ import org.hibernate.jpa.AvailableHints;
  *
  * <h2>Processing {@link DepositFragment}</h2>
  *
- * The (pending deposit: deposit fragment) pairs from different resources are combined and grouped
- * by pending deposit. For each pending deposit, all the relevant deposit fragments are written into
- * an encrypted file stored on GCS. The filename is uniquely determined by the Beam job ID so there
+ * The (pending deposit: deposit fragment) pairs from different resources are combined and split
+ * into shards by pending deposit, resource type and a hash of the fragment, which are compressed in
+ * parallel. For each pending deposit, the compressed shards are then stitched together into an
+ * encrypted file stored on GCS, with header counts added up from the per-shard counts. See {@link
+ * RdeIO.Write}. The filename is uniquely determined by the Beam job ID so there
  * is no need to lock the GCS write operation to prevent stomping. The cursor for staging the
  * pending deposit is then rolled forward, and the next action is enqueued. The latter two
  * operations are performed in a transaction so the cursor is rolled back if enqueueing failed.
@@ -230,18 +231,17 @@ public class RdePipeline implements Serializable {
     this.stagingKeyBytes = BaseEncoding.base64Url().decode(options.getStagingKey());
     this.gcsUtils = gcsUtils;
     this.cloudTasksUtils = cloudTasksUtils;
-    this.marshaller = new RdeMarshaller(mode);
+    this.marshaller = new RdeMarshaller(mode, options.getFormattedXml());
   }
 
   PipelineResult run() {
     Pipeline pipeline = Pipeline.create(options);
-    PCollection<KV<PendingDeposit, Iterable<DepositFragment>>> fragments =
-        createFragments(pipeline);
+    PCollection<KV<PendingDeposit, DepositFragment>> fragments = createFragments(pipeline);
     persistData(fragments);
     return pipeline.run();
   }
 
-  PCollection<KV<PendingDeposit, Iterable<DepositFragment>>> createFragments(Pipeline pipeline) {
+  PCollection<KV<PendingDeposit, DepositFragment>> createFragments(Pipeline pipeline) {
     PCollection<KV<PendingDeposit, DepositFragment>> registrarFragments =
         processRegistrars(pipeline);
 
@@ -272,11 +272,11 @@ public class RdePipeline implements Serializable {
         .apply(
             "Combine PendingDeposit:DepositFragment pairs from all entities",
             Flatten.pCollections())
-        .setCoder(KvCoder.of(PendingDepositCoder.of(), SerializableCoder.of(DepositFragment.class)))
-        .apply("Group DepositFragment by PendingDeposit", GroupByKey.create());
+        .setCoder(
+            KvCoder.of(PendingDepositCoder.of(), SerializableCoder.of(DepositFragment.class)));
   }
 
-  void persistData(PCollection<KV<PendingDeposit, Iterable<DepositFragment>>> input) {
+  void persistData(PCollection<KV<PendingDeposit, DepositFragment>> input) {
     input.apply(
         "Write to GCS, update cursors, and enqueue upload tasks",
         RdeIO.Write.builder()
@@ -285,6 +285,8 @@ public class RdePipeline implements Serializable {
             .setCloudTasksUtils(cloudTasksUtils)
             .setValidationMode(mode)
             .setStagingKeyBytes(stagingKeyBytes)
+            .setShardsPerResourceType(options.getNumDepositShardsPerResourceType())
+            .setCompressionLevel(options.getCompressionLevel())
             .build());
   }
 
@@ -53,4 +53,29 @@ public interface RdePipelineOptions extends RegistryPipelineOptions {
   int getNumHistoryEntryShards();
 
   void setNumHistoryEntryShards(int value);
+
+  @Description(
+      "The number of shards per resource type that a deposit is split into and compressed in"
+          + " parallel")
+  @Default.Integer(8)
+  int getNumDepositShardsPerResourceType();
+
+  void setNumDepositShardsPerResourceType(int value);
+
+  @Description(
+      "The deflate compression level of the deposit files, from 1 (fastest) to 9 (smallest), or"
+          + " -1 for the default level. Deposit files are only read back by the registry, so any"
+          + " level can be used.")
+  @Default.Integer(1)
+  int getCompressionLevel();
+
+  void setCompressionLevel(int value);
+
+  @Description(
+      "Whether the XML of the deposit files is indented. Compact XML is faster to write and"
+          + " compress, and is equivalent for any XML parser.")
+  @Default.Boolean(true)
+  boolean getFormattedXml();
+
+  void setFormattedXml(boolean value);
 }
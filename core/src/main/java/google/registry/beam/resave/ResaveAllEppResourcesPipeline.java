@@ -25,6 +25,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Streams;
 import google.registry.beam.common.RegistryJpaIO;
 import google.registry.beam.common.RegistryJpaIO.Read;
+import google.registry.beam.common.RegistryQuery;
 import google.registry.model.EppResource;
 import google.registry.model.domain.Domain;
 import google.registry.model.domain.DomainBase;
@@ -33,13 +34,18 @@ import google.registry.persistence.PersistenceModule.TransactionIsolationLevel;
 import google.registry.persistence.VKey;
 import java.io.Serializable;
 import java.time.Instant;
+import java.util.stream.LongStream;
 import org.apache.beam.sdk.Pipeline;
 import org.apache.beam.sdk.PipelineResult;
 import org.apache.beam.sdk.coders.StringUtf8Coder;
+import org.apache.beam.sdk.metrics.Counter;
+import org.apache.beam.sdk.metrics.Metrics;
 import org.apache.beam.sdk.options.PipelineOptionsFactory;
+import org.apache.beam.sdk.transforms.Create;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.GroupIntoBatches;
 import org.apache.beam.sdk.transforms.ParDo;
+import org.apache.beam.sdk.transforms.Reshuffle;
 import org.apache.beam.sdk.transforms.WithKeys;
 import org.apache.beam.sdk.util.ShardedKey;
 import org.apache.beam.sdk.values.KV;
@@ -51,6 +57,11 @@ import org.apache.beam.sdk.values.KV;
  * EppResource#cloneProjectedAtTime(Instant)} it will not actually be re-persisted to the database.
  * Thus, the only actual changes occur when objects are changed by projecting them to now, such as
  * when a pending transfer is resolved.
+ *
+ * <p>Resaving all resources this way is dominated by Hibernate's per-entity overhead, so it can
+ * instead be done in {@link ResaveAllEppResourcesPipelineOptions#getBulk bulk mode}, where each
+ * worker scans its share of the table in pages ordered by repo ID, and only the resources that are
+ * actually changed by the projection are written back, in JDBC batches.
  */
 public class ResaveAllEppResourcesPipeline implements Serializable {
 
@@ -71,11 +82,12 @@ public class ResaveAllEppResourcesPipeline implements Serializable {
    * multiple times, and to avoid projecting and resaving the same domain multiple times.
    */
   private static final String DOMAINS_TO_PROJECT_QUERY =
-      "SELECT repoId FROM Domain d WHERE (d.transferData.transferStatus = 'PENDING' AND"
+      "SELECT repoId FROM Domain d WHERE ((d.transferData.transferStatus = 'PENDING' AND"
           + " d.transferData.pendingTransferExpirationTime < current_timestamp()) OR"
           + " (d.registrationExpirationTime < current_timestamp() AND d.deletionTime ="
           + " (:END_INSTANT)) OR (EXISTS (SELECT 1 FROM GracePeriod gp WHERE gp.domainRepoId ="
-          + " d.repoId AND gp.expirationTime < current_timestamp()))";
+          + " d.repoId AND gp.expirationTime < current_timestamp()))) AND "
+          + RegistryJpaIO.hashPartitionCondition("d.repoId", false);
 
   private final ResaveAllEppResourcesPipelineOptions options;
 
@@ -92,6 +104,8 @@ public class ResaveAllEppResourcesPipeline implements Serializable {
   void setupPipeline(Pipeline pipeline) {
     if (options.getFast()) {
       fastResaveDomains(pipeline);
+    } else if (options.getBulk()) {
+      EPP_RESOURCE_CLASSES.forEach(clazz -> bulkResaveResources(pipeline, clazz));
     } else {
       EPP_RESOURCE_CLASSES.forEach(clazz -> forceResaveAllResources(pipeline, clazz));
     }
@@ -111,7 +125,8 @@ public class ResaveAllEppResourcesPipeline implements Serializable {
                 ImmutableMap.of("END_INSTANT", END_INSTANT),
                 String.class,
                 r -> r)
-            .withCoder(StringUtf8Coder.of());
+            .withCoder(StringUtf8Coder.of())
+            .withPartitions(options.getSqlReadPartitions());
     projectAndResaveResources(pipeline, Domain.class, repoIdRead);
   }
 
@@ -120,11 +135,38 @@ public class ResaveAllEppResourcesPipeline implements Serializable {
     Read<String, String> repoIdRead =
         RegistryJpaIO.read(
                 // Note: cannot use SQL parameters for the table name
-                String.format("SELECT repoId FROM %s", clazz.getSimpleName()), String.class, r -> r)
-            .withCoder(StringUtf8Coder.of());
+                String.format(
+                    "SELECT repoId FROM %s WHERE %s",
+                    clazz.getSimpleName(), RegistryJpaIO.hashPartitionCondition("repoId", false)),
+                String.class,
+                r -> r)
+            .withCoder(StringUtf8Coder.of())
+            .withPartitions(options.getSqlReadPartitions());
     projectAndResaveResources(pipeline, clazz, repoIdRead);
   }
 
+  /**
+   * Projects all resources to the current time and saves those that changed, in bulk.
+   *
+   * <p>The table is split into {@link ResaveAllEppResourcesPipelineOptions#getSqlReadPartitions
+   * partitions} that are scanned in parallel, each of them page by page.
+   */
+  @SuppressWarnings("deprecation") // Reshuffle still recommended by GCP.
+  private <T extends EppResource> void bulkResaveResources(Pipeline pipeline, Class<T> clazz) {
+    int partitionCount = options.getSqlReadPartitions();
+    String className = clazz.getSimpleName();
+    pipeline
+        .apply(
+            "Create partitions for " + className,
+            Create.of(LongStream.range(0, partitionCount).boxed().collect(toImmutableList())))
+        .apply("Distribute partitions for " + className, Reshuffle.viaRandomKey())
+        .apply(
+            "Bulk project and save " + className,
+            ParDo.of(
+                new PagedProjectAndSaveFunction(
+                    clazz, partitionCount, options.getBulkPageSize())));
+  }
+
   /** Projects and re-saves all resources with repo IDs provided by the {@link Read}. */
   private <T extends EppResource> void projectAndResaveResources(
       Pipeline pipeline, Class<T> clazz, Read<?, String> repoIdRead) {
@@ -171,6 +213,80 @@ public class ResaveAllEppResourcesPipeline implements Serializable {
     }
   }
 
+  /**
+   * Function that scans one partition of a resource table in pages ordered by repo ID, and saves
+   * the resources that change when projected to the current time.
+   *
+   * <p>Each page is loaded, projected and saved in its own transaction. Resources that are
+   * unchanged by the projection are not passed to Hibernate at all, which saves it from dirty
+   * checking them, and the rest are flushed in JDBC batches.
+   */
+  private static class PagedProjectAndSaveFunction extends DoFn<Long, Void> {
+
+    private static final Counter RESOURCES_SCANNED =
+        Metrics.counter("ResaveAllEppResources", "Resources scanned");
+    private static final Counter RESOURCES_MODIFIED =
+        Metrics.counter("ResaveAllEppResources", "Resources modified");
+
+    private final Class<? extends EppResource> clazz;
+    private final long partitionCount;
+    private final int pageSize;
+
+    private PagedProjectAndSaveFunction(
+        Class<? extends EppResource> clazz, long partitionCount, int pageSize) {
+      this.clazz = clazz;
+      this.partitionCount = partitionCount;
+      this.pageSize = pageSize;
+    }
+
+    @ProcessElement
+    public void processElement(@Element Long partition) {
+      String lastRepoId = "";
+      while (true) {
+        String previousRepoId = lastRepoId;
+        PageResult result = tm().transact(() -> resavePage(partition, previousRepoId));
+        RESOURCES_SCANNED.inc(result.scanned());
+        RESOURCES_MODIFIED.inc(result.modified());
+        if (result.scanned() < pageSize) {
+          return;
+        }
+        lastRepoId = result.lastRepoId();
+      }
+    }
+
+    private PageResult resavePage(long partition, String previousRepoId) {
+      Instant now = tm().getTxTime();
+      ImmutableList<? extends EppResource> page =
+          tm().query(
+                  String.format(
+                      "FROM %s WHERE repoId > :previousRepoId AND %s ORDER BY repoId",
+                      clazz.getSimpleName(),
+                      RegistryJpaIO.hashPartitionCondition("repoId", false)),
+                  clazz)
+              .setParameter("previousRepoId", previousRepoId)
+              .setParameter(RegistryQuery.PARTITION_PARAMETER, partition)
+              .setParameter(RegistryQuery.PARTITION_COUNT_PARAMETER, partitionCount)
+              .setMaxResults(pageSize)
+              .getResultStream()
+              .collect(toImmutableList());
+      ImmutableList.Builder<EppResource> changed = new ImmutableList.Builder<>();
+      for (EppResource resource : page) {
+        EppResource projected = resource.cloneProjectedAtTime(now);
+        if (!projected.equals(resource)) {
+          changed.add(projected);
+        }
+      }
+      ImmutableList<EppResource> toSave = changed.build();
+      tm().putAll(toSave);
+      return new PageResult(
+          page.isEmpty() ? previousRepoId : page.get(page.size() - 1).getRepoId(),
+          page.size(),
+          toSave.size());
+    }
+
+    private record PageResult(String lastRepoId, int scanned, int modified) {}
+  }
+
   public static void main(String[] args) {
     PipelineOptionsFactory.register(ResaveAllEppResourcesPipelineOptions.class);
     ResaveAllEppResourcesPipelineOptions options =
@@ -15,6 +15,7 @@
 package google.registry.beam.resave;
 
 import google.registry.beam.common.RegistryPipelineOptions;
+import org.apache.beam.sdk.options.Default;
 import org.apache.beam.sdk.options.Description;
 
 public interface ResaveAllEppResourcesPipelineOptions extends RegistryPipelineOptions {
@@ -23,4 +24,18 @@ public interface ResaveAllEppResourcesPipelineOptions extends RegistryPipelineOp
   boolean getFast();
 
   void setFast(boolean fast);
+
+  @Description(
+      "True if all EPP resources should be scanned in pages and only the changed ones saved, rather"
+          + " than resaving each of them. Has no effect in fast mode.")
+  @Default.Boolean(false)
+  boolean getBulk();
+
+  void setBulk(boolean bulk);
+
+  @Description("The number of EPP resources loaded and projected in each transaction in bulk mode.")
+  @Default.Integer(500)
+  int getBulkPageSize();
+
+  void setBulkPageSize(int bulkPageSize);
 }
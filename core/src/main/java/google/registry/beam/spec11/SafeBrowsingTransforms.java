@@ -14,23 +14,34 @@
 
 package google.registry.beam.spec11;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.http.HttpHeaders.RETRY_AFTER;
+import static org.apache.http.HttpStatus.SC_INTERNAL_SERVER_ERROR;
 import static org.apache.http.HttpStatus.SC_OK;
 import static org.apache.http.HttpStatus.SC_TOO_MANY_REQUESTS;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.flogger.FluentLogger;
 import com.google.common.io.CharStreams;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import google.registry.util.Clock;
 import google.registry.util.Retrier;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Serializable;
 import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import org.apache.beam.sdk.transforms.DoFn;
 import org.apache.beam.sdk.transforms.windowing.GlobalWindow;
@@ -60,6 +71,12 @@ public class SafeBrowsingTransforms {
   /**
    * {@link DoFn} mapping a {@link DomainNameInfo} to its evaluation report from SafeBrowsing.
    *
+   * <p>Domain names are evaluated in batches, and several batches can be in flight at once, each on
+   * its own thread and over a pooled connection to the API. The number of batches in flight adapts
+   * to the API: it is halved whenever the API responds that it is overloaded (with a 429 or 5xx
+   * status code), and grows back by one with each successful response, up to the configured
+   * maximum. Failed batches are retried by the {@link Retrier}.
+   *
    * <p>Refer to the Lookup API documentation for the request/response format and other details.
    *
    * @see <a href=https://developers.google.com/safe-browsing/v4/lookup-api>Lookup API</a>
@@ -74,43 +91,50 @@ public class SafeBrowsingTransforms {
      */
     private static final int BATCH_SIZE = 490;
 
+    /** Default maximum number of batches that are evaluated concurrently by each instance. */
+    static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 4;
+
     /** Provides the SafeBrowsing API key at runtime. */
     private final String apiKey;
 
     private final Clock clock;
 
+    /** The maximum number of batches that can be in flight at once. */
+    private final int maxInFlightRequests;
+
     /**
      * Maps a domain name's {@code domainName} to its corresponding {@link DomainNameInfo} to
      * facilitate batching SafeBrowsing API requests.
      */
-    private final Map<String, DomainNameInfo> domainNameInfoBuffer =
-        new LinkedHashMap<>(BATCH_SIZE);
+    private Map<String, DomainNameInfo> domainNameInfoBuffer = new LinkedHashMap<>(BATCH_SIZE);
 
     /**
      * Provides the HTTP client we use to interact with the SafeBrowsing API.
      *
      * <p>This is a supplier to enable mocking out the connection in unit tests while maintaining a
-     * serializable field.
+     * serializable field. It is called once per instance, and the client is shared by all the
+     * bundles processed by the instance.
      */
     private final Supplier<CloseableHttpClient> closeableHttpClientSupplier;
 
     /** Retries on receiving transient failures such as {@link IOException}. */
     private final Retrier retrier;
 
+    private transient CloseableHttpClient httpClient;
+    private transient ExecutorService executor;
+
+    /** The batches being evaluated, oldest first. */
+    private transient Deque<Future<ImmutableSet<KV<DomainNameInfo, ThreatMatch>>>> inFlightBatches;
+
+    /** The number of batches currently allowed in flight, adjusted from the API's responses. */
+    private transient AtomicInteger inFlightLimit;
+
     /**
-     * Constructs a {@link EvaluateSafeBrowsingFn} with a given API key.
-     *
-     * <p>We need to dual-cast the closeableHttpClientSupplier lambda because all {@code DoFn}
-     * member variables need to be serializable. The (Supplier & Serializable) dual cast is safe
-     * because class methods are generally serializable, especially a static function such as {@link
-     * HttpClients#createDefault()}.
+     * Constructs a {@link EvaluateSafeBrowsingFn} with a given API key, which evaluates up to
+     * {@code maxInFlightRequests} batches at once.
      */
-    EvaluateSafeBrowsingFn(String apiKey, Retrier retrier, Clock clock) {
-      this(
-          apiKey,
-          retrier,
-          clock,
-          (Supplier<CloseableHttpClient> & Serializable) HttpClients::createDefault);
+    EvaluateSafeBrowsingFn(String apiKey, Retrier retrier, Clock clock, int maxInFlightRequests) {
+      this(apiKey, retrier, clock, pooledClientSupplier(maxInFlightRequests), maxInFlightRequests);
     }
 
     /**
@@ -122,49 +146,134 @@ public class SafeBrowsingTransforms {
     @VisibleForTesting
     EvaluateSafeBrowsingFn(
         String apiKey, Retrier retrier, Clock clock, Supplier<CloseableHttpClient> clientSupplier) {
+      this(apiKey, retrier, clock, clientSupplier, DEFAULT_MAX_IN_FLIGHT_REQUESTS);
+    }
+
+    /**
+     * Constructs a {@link EvaluateSafeBrowsingFn} with a given HTTP client supplier and maximum
+     * number of batches in flight.
+     */
+    @VisibleForTesting
+    EvaluateSafeBrowsingFn(
+        String apiKey,
+        Retrier retrier,
+        Clock clock,
+        Supplier<CloseableHttpClient> clientSupplier,
+        int maxInFlightRequests) {
+      checkArgument(
+          maxInFlightRequests > 0,
+          "Maximum number of in-flight requests must be positive: %s",
+          maxInFlightRequests);
       this.apiKey = apiKey;
       this.retrier = retrier;
       this.clock = clock;
       this.closeableHttpClientSupplier = clientSupplier;
+      this.maxInFlightRequests = maxInFlightRequests;
+    }
+
+    /**
+     * Returns a supplier of HTTP clients whose connection pool can serve the given number of
+     * concurrent requests.
+     *
+     * <p>We need to dual-cast the lambda because all {@code DoFn} member variables need to be
+     * serializable. The (Supplier & Serializable) dual cast is safe because the lambda only
+     * captures an {@code int}.
+     */
+    static Supplier<CloseableHttpClient> pooledClientSupplier(int maxConnections) {
+      return (Supplier<CloseableHttpClient> & Serializable)
+          () ->
+              HttpClients.custom()
+                  .setMaxConnTotal(maxConnections)
+                  .setMaxConnPerRoute(maxConnections)
+                  .build();
+    }
+
+    @Setup
+    public void setup() {
+      httpClient = closeableHttpClientSupplier.get();
+      executor =
+          Executors.newFixedThreadPool(
+              maxInFlightRequests,
+              new ThreadFactoryBuilder()
+                  .setNameFormat("safe-browsing-%d")
+                  .setDaemon(true)
+                  .build());
+      inFlightBatches = new ArrayDeque<>();
+      inFlightLimit = new AtomicInteger(maxInFlightRequests);
+    }
+
+    @Teardown
+    public void teardown() throws IOException {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+      if (httpClient != null) {
+        httpClient.close();
+      }
     }
 
     /** Evaluates any buffered {@link DomainNameInfo} objects upon completing the bundle. */
     @FinishBundle
     public void finishBundle(FinishBundleContext context) {
       if (!domainNameInfoBuffer.isEmpty()) {
-        ImmutableSet<KV<DomainNameInfo, ThreatMatch>> results = evaluateAndFlush();
-        results.forEach(
-            kv -> {
-              // The Apache Beam API requires org.joda.time.Instant here.
-              @SuppressWarnings("UnnecessarilyFullyQualified")
-              org.joda.time.Instant timestamp =
-                  org.joda.time.Instant.ofEpochMilli(clock.nowMillis());
-              context.output(kv, timestamp, GlobalWindow.INSTANCE);
-            });
+        sendBufferedBatch();
+      }
+      while (!inFlightBatches.isEmpty()) {
+        awaitOldestBatch()
+            .forEach(
+                kv -> {
+                  // The Apache Beam API requires org.joda.time.Instant here.
+                  @SuppressWarnings("UnnecessarilyFullyQualified")
+                  org.joda.time.Instant timestamp =
+                      org.joda.time.Instant.ofEpochMilli(clock.nowMillis());
+                  context.output(kv, timestamp, GlobalWindow.INSTANCE);
+                });
       }
     }
 
     /**
-     * Buffers {@link DomainNameInfo} objects until we reach the batch size, then bulk-evaluate the
-     * URLs with the SafeBrowsing API.
+     * Buffers {@link DomainNameInfo} objects until we reach the batch size, then sends the batch
+     * to the SafeBrowsing API, first waiting for earlier batches if too many are in flight.
      */
     @ProcessElement
     public void processElement(ProcessContext context) {
       DomainNameInfo domainNameInfo = context.element();
       domainNameInfoBuffer.put(domainNameInfo.domainName(), domainNameInfo);
       if (domainNameInfoBuffer.size() >= BATCH_SIZE) {
-        ImmutableSet<KV<DomainNameInfo, ThreatMatch>> results = evaluateAndFlush();
-        results.forEach(context::output);
+        while (inFlightBatches.size() >= inFlightLimit.get()) {
+          awaitOldestBatch().forEach(context::output);
+        }
+        sendBufferedBatch();
       }
     }
 
+    /** Returns the number of batches currently allowed in flight at once. */
+    @VisibleForTesting
+    int getInFlightLimit() {
+      return inFlightLimit.get();
+    }
+
+    /** Starts evaluating the buffered {@link DomainNameInfo} objects, and empties the buffer. */
+    private void sendBufferedBatch() {
+      ImmutableMap<String, DomainNameInfo> batch = ImmutableMap.copyOf(domainNameInfoBuffer);
+      domainNameInfoBuffer = new LinkedHashMap<>(BATCH_SIZE);
+      inFlightBatches.addLast(executor.submit(() -> evaluate(batch)));
+    }
+
+    /** Waits for the oldest batch in flight and returns its results. */
+    private ImmutableSet<KV<DomainNameInfo, ThreatMatch>> awaitOldestBatch() {
+      return Futures.getUnchecked(inFlightBatches.removeFirst());
+    }
+
     /**
-     * Evaluates all {@link DomainNameInfo} objects in the buffer and returns a list of key-value
+     * Evaluates all {@link DomainNameInfo} objects in the batch and returns a list of key-value
      * pairs from {@link DomainNameInfo} to its SafeBrowsing report.
      *
      * <p>If a {@link DomainNameInfo} is safe according to the API, it will not emit a report.
      */
-    private ImmutableSet<KV<DomainNameInfo, ThreatMatch>> evaluateAndFlush() {
+    @VisibleForTesting
+    ImmutableSet<KV<DomainNameInfo, ThreatMatch>> evaluate(
+        ImmutableMap<String, DomainNameInfo> batch) {
       ImmutableSet.Builder<KV<DomainNameInfo, ThreatMatch>> resultBuilder =
           new ImmutableSet.Builder<>();
       try {
@@ -175,32 +284,29 @@ public class SafeBrowsingTransforms {
         HttpPost httpPost = new HttpPost(uriBuilder.build());
         httpPost.addHeader(HTTP.CONTENT_TYPE, ContentType.APPLICATION_JSON.toString());
 
-        JSONObject requestBody = createRequestBody();
+        JSONObject requestBody = createRequestBody(batch);
         httpPost.setEntity(new ByteArrayEntity(requestBody.toString().getBytes(UTF_8)));
         // Retry transient exceptions such as IOException
         retrier.callWithRetry(
             () -> {
-              try (CloseableHttpClient client = closeableHttpClientSupplier.get();
-                  CloseableHttpResponse response = client.execute(httpPost)) {
-                processResponse(response, resultBuilder);
+              try (CloseableHttpResponse response = httpClient.execute(httpPost)) {
+                processResponse(response, batch, resultBuilder);
               }
             },
             IOException.class);
       } catch (URISyntaxException | JSONException e) {
         // Fail the pipeline on a parsing exception- this indicates the API likely changed.
         throw new RuntimeException("Caught parsing exception, failing pipeline.", e);
-      } finally {
-        // Flush the buffer
-        domainNameInfoBuffer.clear();
       }
       return resultBuilder.build();
     }
 
     /** Creates a JSON object matching the request format for the SafeBrowsing API. */
-    private JSONObject createRequestBody() throws JSONException {
+    private static JSONObject createRequestBody(ImmutableMap<String, DomainNameInfo> batch)
+        throws JSONException {
       // Accumulate all domain names to evaluate.
       JSONArray threatArray = new JSONArray();
-      for (String domainName : domainNameInfoBuffer.keySet()) {
+      for (String domainName : batch.keySet()) {
         threatArray.put(new JSONObject().put("url", domainName));
       }
       // Construct the JSON request body
@@ -228,10 +334,18 @@ public class SafeBrowsingTransforms {
      */
     private void processResponse(
         CloseableHttpResponse response,
+        ImmutableMap<String, DomainNameInfo> batch,
         ImmutableSet.Builder<KV<DomainNameInfo, ThreatMatch>> resultBuilder)
         throws IOException {
       int statusCode = response.getStatusLine().getStatusCode();
       if (statusCode != SC_OK) {
+        if (statusCode == SC_TOO_MANY_REQUESTS || statusCode >= SC_INTERNAL_SERVER_ERROR) {
+          // Send fewer batches at once until the API recovers.
+          int limit = inFlightLimit.updateAndGet(current -> Math.max(1, current / 2));
+          logger.atWarning().log(
+              "SafeBrowsing API returned %s, reduced in-flight batch limit to %s.",
+              statusCode, limit);
+        }
         if (statusCode == SC_TOO_MANY_REQUESTS) {
           Header retryAfterHeader = response.getFirstHeader(RETRY_AFTER);
           if (retryAfterHeader != null) {
@@ -243,6 +357,7 @@ public class SafeBrowsingTransforms {
         throw new IOException(
             String.format("Got unexpected status code %s from response.", statusCode));
       }
+      inFlightLimit.updateAndGet(current -> Math.min(maxInFlightRequests, current + 1));
       // Unpack the response body
       try (InputStreamReader reader =
           new InputStreamReader(response.getEntity().getContent(), UTF_8)) {
@@ -255,7 +370,7 @@ public class SafeBrowsingTransforms {
           for (int i = 0; i < threatMatches.length(); i++) {
             JSONObject match = threatMatches.getJSONObject(i);
             String url = match.getJSONObject("threat").getString("url");
-            DomainNameInfo domainNameInfo = domainNameInfoBuffer.get(url);
+            DomainNameInfo domainNameInfo = batch.get(url);
             resultBuilder.add(
                 KV.of(
                     domainNameInfo,
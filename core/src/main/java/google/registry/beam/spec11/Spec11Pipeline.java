@@ -16,6 +16,7 @@ package google.registry.beam.spec11;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import dagger.Component;
 import dagger.Module;
@@ -35,6 +36,7 @@ import jakarta.inject.Singleton;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.time.ZoneOffset;
 import org.apache.beam.sdk.Pipeline;
 import org.apache.beam.sdk.PipelineResult;
 import org.apache.beam.sdk.coders.SerializableCoder;
@@ -83,6 +85,21 @@ public class Spec11Pipeline implements Serializable {
   /** The JSON object field into which we put the threat match array for Spec11 reports. */
   public static final String THREAT_MATCHES_FIELD = "threatMatches";
 
+  private static final String ACTIVE_DOMAINS_QUERY =
+      """
+      SELECT d.domainName, d.repoId, d.currentSponsorRegistrarId, r.emailAddress FROM
+      Domain d JOIN Registrar r ON d.currentSponsorRegistrarId = r.registrarId WHERE
+      r.type = 'REAL' AND d.deletionTime > CAST(now() AS timestamp)
+      """;
+
+  private static final String CHANGED_OR_FLAGGED_DOMAINS_CONDITION =
+      """
+      AND (d.creationTime.creationTime >= :changedSince
+      OR d.updateTimestamp.lastUpdateTime >= :changedSince
+      OR d.repoId IN (SELECT m.domainRepoId FROM Spec11ThreatMatch m WHERE m.checkDate =
+      (SELECT MAX(p.checkDate) FROM Spec11ThreatMatch p WHERE p.checkDate < :checkDate)))
+      """;
+
   private final Spec11PipelineOptions options;
   private final EvaluateSafeBrowsingFn safeBrowsingFn;
 
@@ -99,7 +116,7 @@ public class Spec11Pipeline implements Serializable {
 
   void setupPipeline(Pipeline pipeline) {
     options.setIsolationOverride(TransactionIsolationLevel.TRANSACTION_READ_COMMITTED);
-    PCollection<DomainNameInfo> domains = readFromCloudSql(pipeline);
+    PCollection<DomainNameInfo> domains = readFromCloudSql(pipeline, options);
 
     PCollection<KV<DomainNameInfo, ThreatMatch>> threatMatches =
         domains.apply("Run through SafeBrowsing API", ParDo.of(safeBrowsingFn));
@@ -108,18 +125,47 @@ public class Spec11Pipeline implements Serializable {
     saveToGcs(threatMatches, options);
   }
 
-  static PCollection<DomainNameInfo> readFromCloudSql(Pipeline pipeline) {
+  /**
+   * Reads the domains to evaluate from Cloud SQL.
+   *
+   * <p>This is every active domain, unless the pipeline runs in incremental mode on a day that is
+   * not a full sweep day (see {@link #isFullSweep}). In that case, only the domains that were
+   * created or updated since the start of the previous day are read, along with the domains that
+   * were flagged by the most recent earlier run. The others were clean the last time they were
+   * evaluated, and any new threat on them is caught by the next full sweep.
+   */
+  static PCollection<DomainNameInfo> readFromCloudSql(
+      Pipeline pipeline, Spec11PipelineOptions options) {
+    if (isFullSweep(options)) {
+      return pipeline.apply(
+          "Read active domains from Cloud SQL",
+          RegistryJpaIO.read(ACTIVE_DOMAINS_QUERY, false, Spec11Pipeline::parseRow)
+              .withCoder(SerializableCoder.of(DomainNameInfo.class)));
+    }
+    LocalDate date = LocalDate.parse(options.getDate());
     Read<Object[], DomainNameInfo> read =
         RegistryJpaIO.read(
-                """
-                SELECT d.domainName, d.repoId, d.currentSponsorRegistrarId, r.emailAddress FROM
-                Domain d JOIN Registrar r ON d.currentSponsorRegistrarId = r.registrarId WHERE
-                r.type = 'REAL' AND d.deletionTime > CAST(now() AS timestamp)
-                """,
+                ACTIVE_DOMAINS_QUERY + CHANGED_OR_FLAGGED_DOMAINS_CONDITION,
+                ImmutableMap.of(
+                    "changedSince",
+                    date.minusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant(),
+                    "checkDate",
+                    date),
                 false,
                 Spec11Pipeline::parseRow)
             .withCoder(SerializableCoder.of(DomainNameInfo.class));
-    return pipeline.apply("Read active domains from Cloud SQL", read);
+    return pipeline.apply("Read changed or flagged domains from Cloud SQL", read);
+  }
+
+  /** Returns whether all active domains should be evaluated by this run. */
+  static boolean isFullSweep(Spec11PipelineOptions options) {
+    checkArgument(
+        options.getFullSweepIntervalDays() > 0,
+        "Full sweep interval must be positive: %s",
+        options.getFullSweepIntervalDays());
+    return !options.getIncremental()
+        || LocalDate.parse(options.getDate()).toEpochDay() % options.getFullSweepIntervalDays()
+            == 0;
   }
 
   private static DomainNameInfo parseRow(Object[] row) {
@@ -243,7 +289,10 @@ public class Spec11Pipeline implements Serializable {
       // Have a noticeably longer backoff for SafeBrowsing retries to mitigate any 429s
       Retrier safeBrowsingRetrier = new Retrier(sleeper, 9, 1000L);
       return new EvaluateSafeBrowsingFn(
-          options.getSafeBrowsingApiKey(), safeBrowsingRetrier, clock);
+          options.getSafeBrowsingApiKey(),
+          safeBrowsingRetrier,
+          clock,
+          options.getSafeBrowsingMaxInFlightRequests());
     }
 
     @Provides
@@ -15,6 +15,7 @@
 package google.registry.beam.spec11;
 
 import google.registry.beam.common.RegistryPipelineOptions;
+import org.apache.beam.sdk.options.Default;
 import org.apache.beam.sdk.options.Description;
 
 /** Custom options for running the spec11 pipeline. */
@@ -34,4 +35,28 @@ public interface Spec11PipelineOptions extends RegistryPipelineOptions {
   String getReportingBucketUrl();
 
   void setReportingBucketUrl(String value);
+
+  @Description(
+      "The maximum number of SafeBrowsing API requests each worker thread keeps in flight. The"
+          + " actual number is lowered automatically while the API reports being overloaded.")
+  @Default.Integer(4)
+  int getSafeBrowsingMaxInFlightRequests();
+
+  void setSafeBrowsingMaxInFlightRequests(int value);
+
+  @Description(
+      "Whether to only evaluate the domains that were created or updated since the previous day,"
+          + " or that were flagged by the previous run, except on full sweep days.")
+  @Default.Boolean(false)
+  boolean getIncremental();
+
+  void setIncremental(boolean value);
+
+  @Description(
+      "In incremental mode, the interval in days between full sweeps, which evaluate all active"
+          + " domains. Full sweeps run on the days whose epoch day is a multiple of this value.")
+  @Default.Integer(7)
+  int getFullSweepIntervalDays();
+
+  void setFullSweepIntervalDays(int value);
 }
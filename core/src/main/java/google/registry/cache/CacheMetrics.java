@@ -21,7 +21,7 @@ import com.google.monitoring.metrics.MetricRegistryImpl;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 
-/** Metrics tracking effectiveness of local and remote EPP resource caching. */
+/** Metrics tracking effectiveness of local and remote caching of EPP resources and users. */
 @Singleton
 public class CacheMetrics {
 
@@ -34,7 +34,7 @@ public class CacheMetrics {
 
   private static final ImmutableSet<LabelDescriptor> LABEL_DESCRIPTORS =
       ImmutableSet.of(
-          LabelDescriptor.create("cache_name", "The type of the cache (domain/host)."),
+          LabelDescriptor.create("cache_name", "The type of the cache (e.g. domain, host or user)."),
           LabelDescriptor.create("hit_type", "The type of cache hit or miss."));
 
   private static final IncrementableMetric cacheLookups =
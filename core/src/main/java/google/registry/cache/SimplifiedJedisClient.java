@@ -17,6 +17,7 @@ package google.registry.cache;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
@@ -25,6 +26,7 @@ import com.google.common.flogger.FluentLogger;
 import google.registry.model.EppResource;
 import google.registry.model.domain.Domain;
 import google.registry.model.host.Host;
+import google.registry.monitoring.whitebox.FlowProfile;
 import io.protostuff.Input;
 import io.protostuff.LinkedBuffer;
 import io.protostuff.Output;
@@ -90,6 +92,7 @@ public class SimplifiedJedisClient {
   /** Gets the value from the remote cache. Returns null if it does not exist. */
   public <V extends EppResource> Optional<V> get(Class<V> clazz, String key) {
     checkNotNull(key, "Key cannot be null");
+    FlowProfile.recordValkeyCall();
     byte[] data = jedis.get(convertKey(clazz, key));
     return Optional.ofNullable(data).map(d -> deserialize(clazz, d));
   }
@@ -98,6 +101,7 @@ public class SimplifiedJedisClient {
   public <V extends EppResource> void set(JedisResource<V> resource) {
     checkNotNull(resource.key, "Key cannot be null");
     checkNotNull(resource.value, "Value cannot be null");
+    FlowProfile.recordValkeyCall();
     jedis.set(
         convertKey(resource.value.getClass(), resource.key),
         serialize(resource.value),
@@ -115,6 +119,7 @@ public class SimplifiedJedisClient {
                     convertKey(resource.value.getClass(), resource.key),
                     serialize(resource.value),
                     new SetParams().pxAt(resource.value.getDeletionTime().toEpochMilli())));
+        FlowProfile.recordValkeyCall();
         pipeline.sync();
       }
     }
@@ -137,11 +142,52 @@ public class SimplifiedJedisClient {
     for (Iterable<String> batch : Iterables.partition(keys, BATCH_SIZE)) {
       byte[][] keysToUnlink =
           Streams.stream(batch).map(key -> convertKey(valueType, key)).toArray(byte[][]::new);
+      FlowProfile.recordValkeyCall();
       jedis.unlink(keysToUnlink);
     }
   }
 
-  private <V extends EppResource> byte[] serialize(V value) {
+  /**
+   * Sets and deletes values of a single type in the remote cache, pipelining all the commands.
+   *
+   * <p>This has the same effect as {@link #setAll(ImmutableCollection)} followed by {@link
+   * #deleteAll(Class, ImmutableCollection)}, but only waits for the server's responses once per
+   * batch of {@value #BATCH_SIZE} commands rather than once per {@code UNLINK}. No key should be
+   * both set and deleted.
+   */
+  public <V extends EppResource> void setAndDeleteAll(
+      Class<V> valueType,
+      ImmutableCollection<JedisResource<V>> toSet,
+      ImmutableCollection<String> toDelete) {
+    try (AbstractPipeline pipeline = jedis.pipelined()) {
+      int pendingCommands = 0;
+      for (JedisResource<V> resource : toSet) {
+        pipeline.set(
+            convertKey(valueType, resource.key),
+            serialize(resource.value),
+            new SetParams().pxAt(resource.value.getDeletionTime().toEpochMilli()));
+        if (++pendingCommands == BATCH_SIZE) {
+          FlowProfile.recordValkeyCall();
+          pipeline.sync();
+          pendingCommands = 0;
+        }
+      }
+      for (Iterable<String> batch : Iterables.partition(toDelete, BATCH_SIZE)) {
+        pipeline.unlink(
+            Streams.stream(batch).map(key -> convertKey(valueType, key)).toArray(byte[][]::new));
+        if (++pendingCommands == BATCH_SIZE) {
+          FlowProfile.recordValkeyCall();
+          pipeline.sync();
+          pendingCommands = 0;
+        }
+      }
+      FlowProfile.recordValkeyCall();
+      pipeline.sync();
+    }
+  }
+
+  @VisibleForTesting
+  <V extends EppResource> byte[] serialize(V value) {
     @SuppressWarnings("unchecked")
     Schema<V> valueSchema = (Schema<V>) getValueSchema(value.getClass());
     LinkedBuffer buffer = LinkedBuffer.allocate(LinkedBuffer.DEFAULT_BUFFER_SIZE);
@@ -152,7 +198,8 @@ public class SimplifiedJedisClient {
     }
   }
 
-  private <V extends EppResource> V deserialize(Class<V> clazz, byte[] data) {
+  @VisibleForTesting
+  <V extends EppResource> V deserialize(Class<V> clazz, byte[] data) {
     // We use protobufs because other deserializers don't play nicely with immutable collections
     Schema<V> valueSchema = getValueSchema(clazz);
     V value = valueSchema.newMessage();
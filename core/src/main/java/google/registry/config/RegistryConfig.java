@@ -319,6 +319,21 @@ public final class RegistryConfig {
       return 100;
     }
 
+    /**
+     * How long a single batch of DNS updates should take to commit.
+     *
+     * <p>{@link ReadDnsRefreshRequestsAction} scales the batch size up or down from {@code
+     * dnsTldUpdateBatchSize} so that batches are expected to commit in about this time, based on
+     * the commit latency recently observed for the TLD's DNS writers.
+     *
+     * @see ReadDnsRefreshRequestsAction
+     */
+    @Provides
+    @Config("dnsTargetCommitDuration")
+    public static Duration provideDnsTargetCommitDuration() {
+      return Duration.ofSeconds(30);
+    }
+
     /**
      * The maximum time we allow publishDnsUpdates to run.
      *
@@ -584,6 +599,29 @@ public final class RegistryConfig {
       return config.registryPolicy.requireSslCertificates;
     }
 
+    /**
+     * Returns the number of threads that verify registrar passwords during EPP logins.
+     *
+     * @see google.registry.flows.session.LoginVerificationPool
+     */
+    @Provides
+    @Config("loginVerificationThreads")
+    public static int provideLoginVerificationThreads(RegistryConfigSettings config) {
+      return config.registryPolicy.loginVerificationThreads;
+    }
+
+    /**
+     * Returns the maximum number of EPP logins that can wait for password verification before new
+     * logins are rejected.
+     *
+     * @see google.registry.flows.session.LoginVerificationPool
+     */
+    @Provides
+    @Config("loginVerificationMaxQueueDepth")
+    public static int provideLoginVerificationMaxQueueDepth(RegistryConfigSettings config) {
+      return config.registryPolicy.loginVerificationMaxQueueDepth;
+    }
+
     /**
      * Returns the GCE machine type that a CPU-demanding pipeline should use.
      *
@@ -1333,6 +1371,17 @@ public final class RegistryConfig {
       return config.hibernate.jdbcBatchSize;
     }
 
+    /**
+     * Returns whether request locks are Postgres advisory locks rather than rows in the Lock table.
+     *
+     * @see google.registry.request.lock.AdvisoryLockHandler
+     */
+    @Provides
+    @Config("useAdvisoryLocks")
+    public static boolean provideUseAdvisoryLocks(RegistryConfigSettings config) {
+      return config.hibernate.useAdvisoryLocks;
+    }
+
     @Provides
     @Config("bulkPricingPackageCreateLimitEmailSubject")
     public static String provideBulkPricingPackageCreateLimitEmailSubject(
@@ -1533,6 +1582,44 @@ public final class RegistryConfig {
           .map(valkey -> ImmutableList.copyOf(valkey.hostsAndPorts));
     }
 
+    /**
+     * How long {@link google.registry.batch.SyncRemoteCacheAction} keeps tailing database changes
+     * after it has caught up.
+     *
+     * <p>This should be a little shorter than the interval at which the action is scheduled, so
+     * that there is always one run tailing changes and the remote cache lags the database by about
+     * {@link #provideRemoteCacheSyncPollInterval} rather than by the scheduling interval.
+     */
+    @Provides
+    @Config("remoteCacheSyncTailDuration")
+    public static Duration provideRemoteCacheSyncTailDuration() {
+      return Duration.ofMinutes(4);
+    }
+
+    /**
+     * How long {@link google.registry.batch.SyncRemoteCacheAction} waits between polls for new
+     * database changes while tailing them.
+     */
+    @Provides
+    @Config("remoteCacheSyncPollInterval")
+    public static Duration provideRemoteCacheSyncPollInterval() {
+      return Duration.ofSeconds(5);
+    }
+
+    /**
+     * How far before its cursor {@link google.registry.batch.SyncRemoteCacheAction} looks for
+     * changes on each poll.
+     *
+     * <p>A resource's update time is the start time of the transaction that wrote it, so a change
+     * can become visible after the cursor has moved past its timestamp. This must be longer than
+     * the longest transaction that writes domains or hosts, plus the clock skew between servers.
+     */
+    @Provides
+    @Config("remoteCacheSyncOverlap")
+    public static Duration provideRemoteCacheSyncOverlap() {
+      return Duration.ofSeconds(30);
+    }
+
     @Provides
     @Config("eppServerPort")
     public static int provideEppServerPort(RegistryConfigSettings config) {
@@ -1611,6 +1698,19 @@ public final class RegistryConfig {
       return config.eppServer.maxConnectionsPerRegistrar;
     }
 
+    @Provides
+    @Config("eppServerClusterConnectionLimitsEnabled")
+    public static boolean provideEppServerClusterConnectionLimitsEnabled(
+        RegistryConfigSettings config) {
+      return config.eppServer.clusterConnectionLimitsEnabled;
+    }
+
+    @Provides
+    @Config("eppServerConnectionLeaseSeconds")
+    public static int provideEppServerConnectionLeaseSeconds(RegistryConfigSettings config) {
+      return config.eppServer.connectionLeaseSeconds;
+    }
+
     @Provides
     @Config("eppServerCertificateCacheSeconds")
     public static int provideEppServerCertificateCacheSeconds(RegistryConfigSettings config) {
@@ -1717,6 +1817,24 @@ public final class RegistryConfig {
     return CONFIG_SETTINGS.get().caching.eppResourceMaxCachedEntries;
   }
 
+  /**
+   * Returns the maximum number of verified OIDC tokens to keep in the in-memory cache, or 0 if
+   * verified tokens should not be cached.
+   */
+  public static int getOidcTokenMaxCachedEntries() {
+    return CONFIG_SETTINGS.get().caching.oidcTokenMaxCachedEntries;
+  }
+
+  /** Returns the amount of time a console {@code User} should be cached in memory. */
+  public static Duration getUserCachingDuration() {
+    return Duration.ofSeconds(CONFIG_SETTINGS.get().caching.userCachingSeconds);
+  }
+
+  /** Returns the maximum number of console {@code User} entities to keep in in-memory cache. */
+  public static int getUserMaxCachedEntries() {
+    return CONFIG_SETTINGS.get().caching.userMaxCachedEntries;
+  }
+
   /** Returns the amount of time that a particular claims list should be cached. */
   public static Duration getClaimsListCacheDuration() {
     return Duration.ofSeconds(CONFIG_SETTINGS.get().caching.claimsListCachingSeconds);
@@ -104,6 +104,8 @@ public class RegistryConfigSettings {
     public String registryName;
     public List<String> spec11WebResources;
     public boolean requireSslCertificates;
+    public int loginVerificationThreads;
+    public int loginVerificationMaxQueueDepth;
     public double sunriseDomainCreateDiscount;
     public Set<String> tieredPricingPromotionRegistrarIds;
     public Set<String> noPollMessageOnDeletionRegistrarIds;
@@ -127,6 +129,7 @@ public class RegistryConfigSettings {
     public String hikariIdleTimeout;
     public int jdbcBatchSize;
     public String jdbcFetchSize;
+    public boolean useAdvisoryLocks;
   }
 
   /** Configuration for Cloud SQL. */
@@ -162,6 +165,9 @@ public class RegistryConfigSettings {
     public int eppResourceCachingSeconds;
     public int eppResourceMaxCachedEntries;
     public int claimsListCachingSeconds;
+    public int oidcTokenMaxCachedEntries;
+    public int userCachingSeconds;
+    public int userMaxCachedEntries;
   }
 
   /** Configuration for ICANN monthly reporting. */
@@ -220,6 +226,8 @@ public class RegistryConfigSettings {
     public int preLoginReadTimeoutSeconds;
     public int maxConnectionsPerIp;
     public int maxConnectionsPerRegistrar;
+    public boolean clusterConnectionLimitsEnabled;
+    public int connectionLeaseSeconds;
     public int serverCertificateCacheSeconds;
     public Quota quota;
   }
@@ -17,6 +17,7 @@ package google.registry.cron;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Predicates.in;
 import static com.google.common.base.Predicates.not;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Multimaps.filterKeys;
 import static com.google.common.net.MediaType.PLAIN_TEXT_UTF_8;
@@ -33,6 +34,7 @@ import static google.registry.model.tld.Tlds.getTldsOfType;
 
 import com.google.cloud.tasks.v2.Task;
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
@@ -136,9 +138,13 @@ public final class TldFanoutAction implements Runnable {
     if (tlds.isEmpty()) {
       logger.atWarning().log("No TLDs to fan-out!");
     }
-    for (String tld : tlds) {
-      Task task = createTask(tld, flowThruParams);
-      Task createdTask = cloudTasksUtils.enqueue(queue, task);
+    ImmutableList<String> tldList = tlds.asList();
+    ImmutableList<Task> tasks =
+        tldList.stream().map(tld -> createTask(tld, flowThruParams)).collect(toImmutableList());
+    ImmutableList<Task> createdTasks = cloudTasksUtils.enqueue(queue, tasks);
+    for (int i = 0; i < tldList.size(); i++) {
+      String tld = tldList.get(i);
+      Task createdTask = createdTasks.get(i);
       outputPayload.append(
           String.format(
               "- Task: '%s', tld: '%s', endpoint: '%s'\n",
@@ -16,6 +16,8 @@ package google.registry.dns;
 
 import static google.registry.util.RegistryEnvironment.PRODUCTION;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.monitoring.metrics.DistributionFitter;
 import com.google.monitoring.metrics.EventMetric;
@@ -27,6 +29,8 @@ import com.google.monitoring.metrics.MetricRegistryImpl;
 import google.registry.util.RegistryEnvironment;
 import jakarta.inject.Inject;
 import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /** DNS instrumentation. */
 // TODO(b/67947699):Once load testing is done, revisit these to rename them and delete the ones that
@@ -189,6 +193,19 @@ public class DnsMetrics {
               LABEL_DESCRIPTORS_FOR_LATENCY,
               EXPONENTIAL_FITTER);
 
+  /** Weight given to the latest commit in the moving average of per-item commit latency. */
+  private static final double COMMIT_LATENCY_SMOOTHING_FACTOR = 0.2;
+
+  /**
+   * Exponentially weighted moving average of the per-item latency of successful commits seen by
+   * this instance, in milliseconds, keyed by TLD and DNS writer.
+   *
+   * <p>Unlike the metrics above this is kept in memory so that it can be read back, in order to
+   * size future batches (see {@link DnsRefreshRequestCoalescer#adaptiveBatchSize}).
+   */
+  private static final ConcurrentHashMap<ImmutableList<String>, Double>
+      averageCommitLatencyPerItemMillis = new ConcurrentHashMap<>();
+
   @Inject
   DnsMetrics() {}
 
@@ -231,6 +248,16 @@ public class DnsMetrics {
     domainsCommittedCount.incrementBy(numberOfDomains, tld, status.name(), dnsWriter);
     hostsCommittedCount.incrementBy(numberOfHosts, tld, status.name(), dnsWriter);
 
+    int itemCount = numberOfDomains + numberOfHosts;
+    if (status.equals(CommitStatus.SUCCESS) && itemCount > 0) {
+      double latencyPerItemMillis = processingDuration.toMillis() / (double) itemCount;
+      averageCommitLatencyPerItemMillis.merge(
+          ImmutableList.of(tld, dnsWriter),
+          latencyPerItemMillis,
+          (average, latest) ->
+              average + COMMIT_LATENCY_SMOOTHING_FACTOR * (latest - average));
+    }
+
     // We don't want to record the following metrics in production, as they are quite expensive
     if (RegistryEnvironment.get().equals(PRODUCTION)) {
       return;
@@ -270,4 +297,19 @@ public class DnsMetrics {
         timeSinceUpdateRequest.toMillis(), numberOfItems, tld, status.name(), dnsWriter);
     publishQueueDelay.record(timeSinceActionEnqueued.toMillis(), tld, status.name(), dnsWriter);
   }
+
+  /**
+   * Returns the moving average of the per-item latency of successful commits for the given TLD and
+   * DNS writer, or empty if no commit has been recorded on this instance yet.
+   */
+  public Optional<Duration> getAverageCommitLatencyPerItem(String tld, String dnsWriter) {
+    return Optional.ofNullable(
+            averageCommitLatencyPerItemMillis.get(ImmutableList.of(tld, dnsWriter)))
+        .map(millis -> Duration.ofNanos((long) (millis * 1_000_000)));
+  }
+
+  @VisibleForTesting
+  static void resetAverageCommitLatencies() {
+    averageCommitLatencyPerItemMillis.clear();
+  }
 }
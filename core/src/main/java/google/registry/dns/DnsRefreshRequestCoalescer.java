@@ -0,0 +1,106 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.dns;
+
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static google.registry.util.DateTimeUtils.END_INSTANT;
+import static google.registry.util.DomainNameUtils.getSecondLevelDomain;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Ints;
+import google.registry.dns.DnsUtils.TargetType;
+import google.registry.model.common.DnsRefreshRequest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Collapses a batch of {@link DnsRefreshRequest}s into the smallest set of names that still
+ * refreshes everything that was requested.
+ *
+ * <p>The same name is often requested many times between two reads, e.g. when a host rename or a
+ * bulk nameserver change touches the same domains repeatedly, so duplicate names are only published
+ * once. In addition, a domain refresh is dropped when a host under that domain is refreshed in the
+ * same batch, because every {@link google.registry.dns.writer.DnsWriter} publishes a host by
+ * republishing its superordinate domain (and, for deleted hosts, also removing the host's own
+ * records, which a plain domain refresh would not do).
+ */
+final class DnsRefreshRequestCoalescer {
+
+  /**
+   * How far the adaptive batch size may stray from the configured batch size, in either direction.
+   */
+  private static final int ADAPTIVE_BATCH_SIZE_RANGE = 4;
+
+  /** The names to refresh, after coalescing. */
+  record CoalescedRefreshes(
+      ImmutableSet<String> domains, ImmutableSet<String> hosts, Instant earliestRequestTime) {
+
+    int size() {
+      return domains.size() + hosts.size();
+    }
+  }
+
+  /** Coalesces the given requests, which must all be for names under the given TLD. */
+  static CoalescedRefreshes coalesce(String tld, Collection<DnsRefreshRequest> requests) {
+    Set<String> domains = new LinkedHashSet<>();
+    Set<String> hosts = new LinkedHashSet<>();
+    Instant earliestRequestTime = END_INSTANT;
+    for (DnsRefreshRequest request : requests) {
+      if (request.getRequestTime().isBefore(earliestRequestTime)) {
+        earliestRequestTime = request.getRequestTime();
+      }
+      if (request.getType().equals(TargetType.DOMAIN)) {
+        domains.add(request.getName());
+      } else {
+        hosts.add(request.getName());
+      }
+    }
+    ImmutableSet<String> superordinateDomains =
+        hosts.stream().map(host -> getSecondLevelDomain(host, tld)).collect(toImmutableSet());
+    return new CoalescedRefreshes(
+        domains.stream()
+            .filter(domain -> !superordinateDomains.contains(domain))
+            .collect(toImmutableSet()),
+        ImmutableSet.copyOf(hosts),
+        earliestRequestTime);
+  }
+
+  /**
+   * Returns the number of names that should be published per lock in one batch.
+   *
+   * <p>The batch size is chosen so that a batch is expected to commit within the target duration,
+   * based on the observed per-item commit latency of the slowest DNS writer. It stays within a
+   * factor of {@value #ADAPTIVE_BATCH_SIZE_RANGE} of the configured batch size, which is also used
+   * as-is when there are no observations yet.
+   */
+  static int adaptiveBatchSize(
+      int configuredBatchSize,
+      Duration targetCommitDuration,
+      Optional<Duration> commitLatencyPerItem) {
+    if (commitLatencyPerItem.isEmpty() || commitLatencyPerItem.get().isZero()) {
+      return configuredBatchSize;
+    }
+    long batchSize = targetCommitDuration.toNanos() / commitLatencyPerItem.get().toNanos();
+    int minBatchSize = Math.max(1, configuredBatchSize / ADAPTIVE_BATCH_SIZE_RANGE);
+    int maxBatchSize = configuredBatchSize * ADAPTIVE_BATCH_SIZE_RANGE;
+    return Ints.constrainToRange(Ints.saturatedCast(batchSize), minBatchSize, maxBatchSize);
+  }
+
+  private DnsRefreshRequestCoalescer() {}
+}
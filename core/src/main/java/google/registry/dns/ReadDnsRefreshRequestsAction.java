@@ -14,6 +14,7 @@
 
 package google.registry.dns;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSetMultimap.toImmutableSetMultimap;
 import static google.registry.dns.DnsModule.PARAM_DNS_JITTER_SECONDS;
 import static google.registry.dns.DnsModule.PARAM_DNS_WRITER;
@@ -28,20 +29,23 @@ import static google.registry.dns.DnsUtils.deleteRequests;
 import static google.registry.dns.DnsUtils.readAndUpdateRequestsWithLatestProcessTime;
 import static google.registry.request.Action.Method.POST;
 import static google.registry.request.RequestParameters.PARAM_TLD;
-import static google.registry.util.DateTimeUtils.END_INSTANT;
 import static google.registry.util.DomainNameUtils.getSecondLevelDomain;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.cloud.tasks.v2.Task;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.flogger.FluentLogger;
 import com.google.common.hash.HashFunction;
 import com.google.common.hash.Hashing;
 import google.registry.batch.CloudTasksUtils;
+import google.registry.batch.CloudTasksUtils.BulkEnqueueException;
 import google.registry.config.RegistryConfig.Config;
-import google.registry.dns.DnsUtils.TargetType;
+import google.registry.dns.DnsRefreshRequestCoalescer.CoalescedRefreshes;
 import google.registry.model.common.DnsRefreshRequest;
 import google.registry.model.tld.Tld;
 import google.registry.request.Action;
@@ -52,6 +56,7 @@ import jakarta.inject.Inject;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Optional;
 
 /**
@@ -69,29 +74,35 @@ public final class ReadDnsRefreshRequestsAction implements Runnable {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
   private final int tldUpdateBatchSize;
+  private final Duration targetCommitDuration;
   private final Duration requestedMaximumDuration;
   private final Optional<Integer> jitterSeconds;
   private final String tld;
   private final Clock clock;
   private final HashFunction hashFunction;
   private final CloudTasksUtils cloudTasksUtils;
+  private final DnsMetrics dnsMetrics;
 
   @Inject
   ReadDnsRefreshRequestsAction(
       @Config("dnsTldUpdateBatchSize") int tldUpdateBatchSize,
+      @Config("dnsTargetCommitDuration") Duration targetCommitDuration,
       @Config("readDnsRefreshRequestsActionRuntime") Duration requestedMaximumDuration,
       @Parameter(PARAM_DNS_JITTER_SECONDS) Optional<Integer> jitterSeconds,
       @Parameter(PARAM_TLD) String tld,
       Clock clock,
       HashFunction hashFunction,
-      CloudTasksUtils cloudTasksUtils) {
+      CloudTasksUtils cloudTasksUtils,
+      DnsMetrics dnsMetrics) {
     this.tldUpdateBatchSize = tldUpdateBatchSize;
+    this.targetCommitDuration = targetCommitDuration;
     this.requestedMaximumDuration = requestedMaximumDuration;
     this.jitterSeconds = jitterSeconds;
     this.tld = tld;
     this.clock = clock;
     this.hashFunction = hashFunction;
     this.cloudTasksUtils = cloudTasksUtils;
+    this.dnsMetrics = dnsMetrics;
   }
 
   /**
@@ -106,8 +117,8 @@ public final class ReadDnsRefreshRequestsAction implements Runnable {
     }
     Instant requestedEndTime = clock.now().plus(requestedMaximumDuration);
     // See getLockIndex(), requests are evenly distributed to [1, numDnsPublishLocks], so each
-    // bucket would be roughly the size of tldUpdateBatchSize.
-    int processBatchSize = tldUpdateBatchSize * Tld.get(tld).getNumDnsPublishLocks();
+    // bucket would be roughly the size of the batch size per lock.
+    int processBatchSize = getBatchSizePerLock() * Tld.get(tld).getNumDnsPublishLocks();
     while (requestedEndTime.isAfter(clock.now())) {
       ImmutableList<DnsRefreshRequest> requests =
           readAndUpdateRequestsWithLatestProcessTime(
@@ -121,31 +132,79 @@ public final class ReadDnsRefreshRequestsAction implements Runnable {
       }
     }
   }
+
   /**
-   * Subdivides {@link DnsRefreshRequest} into buckets by lock index, enqueue a Cloud Tasks task per
-   * bucket, and then delete the requests in each bucket.
+   * Returns how many requests to publish per lock in one batch.
+   *
+   * <p>This adapts {@code tldUpdateBatchSize} to the per-item commit latency recently observed for
+   * the slowest of the TLD's DNS writers, so that the throughput scales with the load that the DNS
+   * writers can take instead of with the number of tasks.
+   */
+  int getBatchSizePerLock() {
+    Optional<Duration> slowestCommitLatencyPerItem =
+        Tld.get(tld).getDnsWriters().stream()
+            .map(dnsWriter -> dnsMetrics.getAverageCommitLatencyPerItem(tld, dnsWriter))
+            .flatMap(Optional::stream)
+            .max(Comparator.naturalOrder());
+    return DnsRefreshRequestCoalescer.adaptiveBatchSize(
+        tldUpdateBatchSize, targetCommitDuration, slowestCommitLatencyPerItem);
+  }
+
+  /**
+   * Subdivides {@link DnsRefreshRequest} into buckets by lock index, enqueues the Cloud Tasks tasks
+   * for all the buckets at once, and then deletes the requests in each bucket whose tasks were all
+   * enqueued.
    */
   void processRequests(Collection<DnsRefreshRequest> requests) {
     int numPublishLocks = Tld.get(tld).getNumDnsPublishLocks();
-    requests.stream()
-        .collect(
-            toImmutableSetMultimap(
-                request -> getLockIndex(numPublishLocks, request), request -> request))
-        .asMap()
-        .forEach(
-            (lockIndex, bucketedRequests) -> {
-              try {
-                enqueueUpdates(lockIndex, numPublishLocks, bucketedRequests);
-                deleteRequests(bucketedRequests);
-                logger.atInfo().log(
-                    "Processed %d DNS update requests for TLD %s.", bucketedRequests.size(), tld);
-              } catch (Exception e) {
-                // Log but continue to process the next bucket. The failed tasks will NOT be
-                // deleted and will be retried after the cooldown period has passed.
-                logger.atSevere().withCause(e).log(
-                    "Error processing DNS update requests: %s", bucketedRequests);
-              }
-            });
+    ImmutableMap<Integer, Collection<DnsRefreshRequest>> bucketedRequests =
+        requests.stream()
+            .collect(
+                toImmutableSetMultimap(
+                    request -> getLockIndex(numPublishLocks, request), request -> request))
+            .asMap();
+    ImmutableListMultimap.Builder<Integer, Task> tasksBuilder =
+        new ImmutableListMultimap.Builder<>();
+    bucketedRequests.forEach(
+        (lockIndex, bucket) ->
+            tasksBuilder.putAll(lockIndex, createUpdateTasks(lockIndex, numPublishLocks, bucket)));
+    ImmutableListMultimap<Integer, Task> tasks = tasksBuilder.build();
+    ImmutableSet<Task> enqueuedTasks = enqueueTasks(ImmutableList.copyOf(tasks.values()));
+    bucketedRequests.forEach(
+        (lockIndex, bucket) -> {
+          if (!enqueuedTasks.containsAll(tasks.get(lockIndex))) {
+            // The requests are NOT deleted and will be retried after the cooldown period has
+            // passed.
+            logger.atSevere().log("Error enqueuing DNS update requests: %s", bucket);
+            return;
+          }
+          try {
+            deleteRequests(bucket);
+            logger.atInfo().log("Processed %d DNS update requests for TLD %s.", bucket.size(), tld);
+          } catch (Exception e) {
+            // Log but continue to process the next bucket.
+            logger.atSevere().withCause(e).log("Error processing DNS update requests: %s", bucket);
+          }
+        });
+  }
+
+  /**
+   * Enqueues the tasks concurrently, and returns those that were enqueued.
+   *
+   * <p>The tasks of all the buckets are enqueued together so that they share the same bounded pool
+   * of in-flight requests, rather than being enqueued one bucket after another.
+   */
+  private ImmutableSet<Task> enqueueTasks(ImmutableList<Task> tasks) {
+    try {
+      cloudTasksUtils.enqueue(DNS_PUBLISH_PUSH_QUEUE_NAME, tasks);
+      logger.atInfo().log("Enqueued %d DNS update tasks for TLD %s.", tasks.size(), tld);
+      return ImmutableSet.copyOf(tasks);
+    } catch (BulkEnqueueException e) {
+      logger.atSevere().withCause(e).log(
+          "Failed to enqueue %d of %d DNS update tasks for TLD %s.",
+          e.getFailedTasks().size(), tasks.size(), tld);
+      return ImmutableSet.copyOf(e.getEnqueuedTasks());
+    }
   }
 
   /**
@@ -161,44 +220,40 @@ public final class ReadDnsRefreshRequestsAction implements Runnable {
     return Hashing.consistentHash(hashFunction.hashString(domain, UTF_8), numPublishLocks) + 1;
   }
 
-  /** Creates DNS refresh tasks for all writers for the tld within a lock index. */
-  void enqueueUpdates(int lockIndex, int numPublishLocks, Collection<DnsRefreshRequest> requests) {
-    ImmutableList.Builder<String> domainsBuilder = new ImmutableList.Builder<>();
-    ImmutableList.Builder<String> hostsBuilder = new ImmutableList.Builder<>();
-    Instant earliestRequestTime = END_INSTANT;
-    for (DnsRefreshRequest request : requests) {
-      if (request.getRequestTime().isBefore(earliestRequestTime)) {
-        earliestRequestTime = request.getRequestTime();
-      }
-      String name = request.getName();
-      if (request.getType().equals(TargetType.DOMAIN)) {
-        domainsBuilder.add(name);
-      } else {
-        hostsBuilder.add(name);
-      }
-    }
-    ImmutableList<String> domains = domainsBuilder.build();
-    ImmutableList<String> hosts = hostsBuilder.build();
-    for (String dnsWriter : Tld.get(tld).getDnsWriters()) {
-      Task task =
-          cloudTasksUtils.createTaskWithJitter(
-              PublishDnsUpdatesAction.class,
-              POST,
-              ImmutableMultimap.<String, String>builder()
-                  .put(PARAM_TLD, tld)
-                  .put(PARAM_DNS_WRITER, dnsWriter)
-                  .put(PARAM_LOCK_INDEX, Integer.toString(lockIndex))
-                  .put(PARAM_NUM_PUBLISH_LOCKS, Integer.toString(numPublishLocks))
-                  .put(PARAM_PUBLISH_TASK_ENQUEUED, clock.now().toString())
-                  .put(PARAM_REFRESH_REQUEST_TIME, earliestRequestTime.toString())
-                  .put(PARAM_DOMAINS, Joiner.on(',').join(domains))
-                  .put(PARAM_HOSTS, Joiner.on(',').join(hosts))
-                  .build(),
-              jitterSeconds);
-      cloudTasksUtils.enqueue(DNS_PUBLISH_PUSH_QUEUE_NAME, task);
+  /**
+   * Creates DNS refresh tasks for all writers for the tld within a lock index.
+   *
+   * <p>The requests are coalesced first (see {@link DnsRefreshRequestCoalescer}), so that each
+   * name is only published once.
+   */
+  ImmutableList<Task> createUpdateTasks(
+      int lockIndex, int numPublishLocks, Collection<DnsRefreshRequest> requests) {
+    CoalescedRefreshes refreshes = DnsRefreshRequestCoalescer.coalesce(tld, requests);
+    ImmutableSet<String> domains = refreshes.domains();
+    ImmutableSet<String> hosts = refreshes.hosts();
+    if (refreshes.size() < requests.size()) {
       logger.atInfo().log(
-          "Enqueued DNS update request for (TLD %s, lock %d) with %d domains and %d hosts.",
-          tld, lockIndex, domains.size(), hosts.size());
+          "Coalesced %d DNS update requests for (TLD %s, lock %d) into %d names.",
+          requests.size(), tld, lockIndex, refreshes.size());
     }
+    return Tld.get(tld).getDnsWriters().stream()
+        .map(
+            dnsWriter ->
+                cloudTasksUtils.createTaskWithJitter(
+                    PublishDnsUpdatesAction.class,
+                    POST,
+                    ImmutableMultimap.<String, String>builder()
+                        .put(PARAM_TLD, tld)
+                        .put(PARAM_DNS_WRITER, dnsWriter)
+                        .put(PARAM_LOCK_INDEX, Integer.toString(lockIndex))
+                        .put(PARAM_NUM_PUBLISH_LOCKS, Integer.toString(numPublishLocks))
+                        .put(PARAM_PUBLISH_TASK_ENQUEUED, clock.now().toString())
+                        .put(
+                            PARAM_REFRESH_REQUEST_TIME, refreshes.earliestRequestTime().toString())
+                        .put(PARAM_DOMAINS, Joiner.on(',').join(domains))
+                        .put(PARAM_HOSTS, Joiner.on(',').join(hosts))
+                        .build(),
+                    jitterSeconds))
+        .collect(toImmutableList());
   }
 }
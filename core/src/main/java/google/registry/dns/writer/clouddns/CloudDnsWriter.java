@@ -122,6 +122,12 @@ public class CloudDnsWriter extends BaseDnsWriter {
     // Canonicalize name
     String absoluteDomainName = getAbsoluteHostName(domainName);
 
+    // The domain was already published in this batch, e.g. because several of its hosts were
+    // refreshed, so there is no need to load it again.
+    if (desiredRecords.containsKey(absoluteDomainName)) {
+      return;
+    }
+
     // Load the target domain. Note that it can be absent if this domain was just deleted.
     Optional<Domain> domain = ForeignKeyUtils.loadResource(Domain.class, domainName, clock.now());
 
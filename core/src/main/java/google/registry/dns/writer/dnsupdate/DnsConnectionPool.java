@@ -0,0 +1,115 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.dns.writer.dnsupdate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.flogger.FluentLogger;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A pool of idle TCP connections to DNS UPDATE servers.
+ *
+ * <p>Opening a new connection for every UPDATE batch costs a TCP handshake per batch, which
+ * dominates publishing time for TLDs with frequent small batches. Connections are returned to this
+ * pool after a successful exchange and handed out again to later batches for the same server, as
+ * long as they have not been idle for longer than the configured idle timeout.
+ *
+ * <p>A pooled connection may have been closed by the server without us noticing, so callers must
+ * be prepared to retry on a fresh connection when an exchange on a reused one fails.
+ */
+public class DnsConnectionPool {
+
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private final int maxIdleConnectionsPerServer;
+  private final Duration idleTimeout;
+  private final Map<InetSocketAddress, Deque<IdleConnection>> idleConnections = new HashMap<>();
+
+  /**
+   * Class constructor.
+   *
+   * @param maxIdleConnectionsPerServer the maximum number of idle connections kept for each server
+   * @param idleTimeout how long a connection may stay idle before it is closed instead of reused
+   */
+  public DnsConnectionPool(int maxIdleConnectionsPerServer, Duration idleTimeout) {
+    checkArgument(
+        maxIdleConnectionsPerServer >= 0,
+        "maxIdleConnectionsPerServer must be non-negative: %s",
+        maxIdleConnectionsPerServer);
+    this.maxIdleConnectionsPerServer = maxIdleConnectionsPerServer;
+    this.idleTimeout = idleTimeout;
+  }
+
+  /**
+   * Returns an idle connection to the given server, if there is one that is still fresh enough.
+   *
+   * <p>Stale connections encountered along the way are closed.
+   */
+  synchronized Optional<Socket> borrow(InetSocketAddress server, Instant now) {
+    Deque<IdleConnection> connections = idleConnections.get(server);
+    if (connections == null) {
+      return Optional.empty();
+    }
+    // Most recently used connections are at the head, so they are the least likely to have been
+    // closed by the server.
+    IdleConnection connection;
+    while ((connection = connections.pollFirst()) != null) {
+      if (connection.socket().isClosed()
+          || now.isAfter(connection.idleSince().plus(idleTimeout))) {
+        closeQuietly(connection.socket());
+        continue;
+      }
+      return Optional.of(connection.socket());
+    }
+    return Optional.empty();
+  }
+
+  /** Returns a connection to the pool after a successful exchange, or closes it if it is full. */
+  synchronized void release(InetSocketAddress server, Socket socket, Instant now) {
+    Deque<IdleConnection> connections =
+        idleConnections.computeIfAbsent(server, unused -> new ArrayDeque<>());
+    if (socket.isClosed() || connections.size() >= maxIdleConnectionsPerServer) {
+      closeQuietly(socket);
+      return;
+    }
+    connections.addFirst(new IdleConnection(socket, now));
+  }
+
+  /** Returns the number of idle connections currently held for the given server. */
+  synchronized int idleConnectionCount(InetSocketAddress server) {
+    Deque<IdleConnection> connections = idleConnections.get(server);
+    return connections == null ? 0 : connections.size();
+  }
+
+  static void closeQuietly(Socket socket) {
+    try {
+      socket.close();
+    } catch (IOException e) {
+      logger.atWarning().withCause(e).log("Failed to close DNS connection %s.", socket);
+    }
+  }
+
+  private record IdleConnection(Socket socket, Instant idleSince) {}
+}
@@ -16,40 +16,64 @@ package google.registry.dns.writer.dnsupdate;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.flogger.FluentLogger;
 import com.google.common.primitives.Ints;
 import google.registry.config.RegistryConfig.Config;
+import google.registry.util.Clock;
 import jakarta.inject.Inject;
+import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
 import javax.net.SocketFactory;
 import org.xbill.DNS.Message;
 import org.xbill.DNS.Opcode;
+import org.xbill.DNS.Rcode;
+import org.xbill.DNS.TSIG;
 
 /**
- * A transport for DNS messages. Sends/receives DNS messages over TCP using old-style {@link Socket}
- * s and the message framing defined in <a href="https://tools.ietf.org/html/rfc1035">RFC 1035</a>.
+ * A transport for DNS messages. Sends/receives DNS messages over TCP using the message framing
+ * defined in <a href="https://tools.ietf.org/html/rfc1035">RFC 1035</a>.
  *
- * <p>TODO(b/463732345): now that we're no longer on AppEngine, see if we can use the dnsjava
- * library's {@link org.xbill.DNS.SimpleResolver} class instead of this (that requires {@link
- * java.nio.channels.SocketChannel} which is not supported on AppEngine).
+ * <p>Connections are kept open after a successful exchange and reused by later calls through a
+ * shared {@link DnsConnectionPool}, so that publishing a batch does not cost a TCP handshake. When
+ * several messages are sent at once through {@link #sendAll}, they are pipelined over a single
+ * connection as permitted by <a href="https://tools.ietf.org/html/rfc7766">RFC 7766</a>: all
+ * queries are written before any response is read, and responses are matched to their queries by
+ * message ID, since the server may answer them out of order.
+ *
+ * <p>If a TSIG key is configured, every outgoing message is signed with it and every response is
+ * verified against it, as described in <a href="https://tools.ietf.org/html/rfc8945">RFC
+ * 8945</a>.
  */
 public class DnsMessageTransport {
 
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
   /**
    * Size of message length field for DNS TCP transport.
    *
    * @see <a href="https://tools.ietf.org/html/rfc1035">RFC 1035</a>
    */
   static final int MESSAGE_LENGTH_FIELD_BYTES = 2;
-  private static final int MESSAGE_MAXIMUM_LENGTH = (1 << (MESSAGE_LENGTH_FIELD_BYTES * 8)) - 1;
+
+  @VisibleForTesting
+  static final int MESSAGE_MAXIMUM_LENGTH = (1 << (MESSAGE_LENGTH_FIELD_BYTES * 8)) - 1;
 
   /**
    * The standard DNS port number.
@@ -58,9 +82,14 @@ public class DnsMessageTransport {
    */
   @VisibleForTesting static final int DNS_PORT = 53;
 
+  private static final Random random = new Random();
+
   private final SocketFactory factory;
   private final String updateHost;
   private final int updateTimeout;
+  private final Optional<TSIG> tsig;
+  private final DnsConnectionPool connectionPool;
+  private final Clock clock;
 
   /**
    * Class constructor.
@@ -68,15 +97,25 @@ public class DnsMessageTransport {
    * @param factory a factory for TCP sockets
    * @param updateHost host name of the DNS server
    * @param updateTimeout update I/O timeout
+   * @param tsigKey optional TSIG key used to sign messages, in the {@code [algorithm:]name:secret}
+   *     format accepted by {@link TSIG#fromString}
+   * @param connectionPool the pool that idle connections are kept in between calls
+   * @param clock a source of time
    */
   @Inject
   public DnsMessageTransport(
       SocketFactory factory,
       @Config("dnsUpdateHost") String updateHost,
-      @Config("dnsUpdateTimeout") Duration updateTimeout) {
+      @Config("dnsUpdateTimeout") Duration updateTimeout,
+      @Config("dnsUpdateTsigKey") Optional<String> tsigKey,
+      DnsConnectionPool connectionPool,
+      Clock clock) {
     this.factory = factory;
     this.updateHost = updateHost;
     this.updateTimeout = Ints.checkedCast(updateTimeout.toMillis());
+    this.tsig = tsigKey.map(TSIG::fromString);
+    this.connectionPool = connectionPool;
+    this.clock = clock;
   }
 
   /**
@@ -89,46 +128,147 @@ public class DnsMessageTransport {
    * @throws IllegalArgumentException if the query is too large to be sent (&gt; 65535 bytes)
    */
   public Message send(Message query) throws IOException {
-    try (Socket socket = factory.createSocket(InetAddress.getByName(updateHost), DNS_PORT)) {
+    return sendAll(ImmutableList.of(query)).get(0);
+  }
+
+  /**
+   * Sends several DNS "query" messages over a single connection and returns their responses, in
+   * the same order as the queries.
+   *
+   * <p>The queries are assigned distinct message IDs if necessary, so that the responses can be
+   * told apart. Each response is checked for matching ID and opcode.
+   *
+   * @param queries the messages to send
+   * @return the responses received from the server, in query order
+   * @throws IOException if the Socket input/output streams throws one
+   * @throws IllegalArgumentException if any query is too large to be sent (&gt; 65535 bytes)
+   */
+  public ImmutableList<Message> sendAll(List<? extends Message> queries) throws IOException {
+    if (queries.isEmpty()) {
+      return ImmutableList.of();
+    }
+    Map<Integer, Message> queriesById = assignUniqueIds(queries);
+    ImmutableList<byte[]> wireQueries =
+        queriesById.values().stream().map(this::toWire).collect(toImmutableList());
+    InetSocketAddress server = new InetSocketAddress(InetAddress.getByName(updateHost), DNS_PORT);
+
+    Optional<Socket> pooledSocket = connectionPool.borrow(server, clock.now());
+    if (pooledSocket.isPresent()) {
+      try {
+        return exchange(server, pooledSocket.get(), queriesById, wireQueries);
+      } catch (IOException e) {
+        // The server may have closed the idle connection in the meantime, so try again once on a
+        // new connection before giving up.
+        logger.atInfo().withCause(e).log(
+            "Exchange on pooled DNS connection to %s failed, reconnecting.", server);
+      }
+    }
+    Socket socket = factory.createSocket(server.getAddress(), DNS_PORT);
+    return exchange(server, socket, queriesById, wireQueries);
+  }
+
+  private ImmutableList<Message> exchange(
+      InetSocketAddress server,
+      Socket socket,
+      Map<Integer, Message> queriesById,
+      ImmutableList<byte[]> wireQueries)
+      throws IOException {
+    boolean reusable = false;
+    try {
       socket.setSoTimeout(updateTimeout);
-      writeMessage(socket.getOutputStream(), query);
-      Message response = readMessage(socket.getInputStream());
-      checkValidResponse(query, response);
-      return response;
+      OutputStream outputStream = new BufferedOutputStream(socket.getOutputStream());
+      for (byte[] wireQuery : wireQueries) {
+        writeMessage(outputStream, wireQuery);
+      }
+      outputStream.flush();
+      DataInputStream inputStream = new DataInputStream(socket.getInputStream());
+      Map<Integer, Message> outstanding = new LinkedHashMap<>(queriesById);
+      Map<Integer, Message> responsesById = new LinkedHashMap<>();
+      while (!outstanding.isEmpty()) {
+        byte[] responseData = readMessage(inputStream);
+        Message response = new Message(responseData);
+        Message query = checkValidResponse(outstanding, response);
+        verifyTsig(query, response, responseData);
+        responsesById.put(response.getHeader().getID(), response);
+      }
+      reusable = true;
+      return queriesById.keySet().stream().map(responsesById::get).collect(toImmutableList());
+    } finally {
+      if (reusable) {
+        connectionPool.release(server, socket, clock.now());
+      } else {
+        DnsConnectionPool.closeQuietly(socket);
+      }
     }
   }
 
-  private void checkValidResponse(Message query, Message response) {
+  /**
+   * Makes sure that no two queries share a message ID, and returns them keyed by their IDs.
+   *
+   * <p>Message IDs are generated randomly, so collisions are rare, but a collision would make it
+   * impossible to match a pipelined response to its query.
+   */
+  private static Map<Integer, Message> assignUniqueIds(List<? extends Message> queries) {
+    Map<Integer, Message> queriesById = new LinkedHashMap<>();
+    for (Message query : queries) {
+      while (queriesById.containsKey(query.getHeader().getID())) {
+        query.getHeader().setID(random.nextInt(1 << 16));
+      }
+      queriesById.put(query.getHeader().getID(), query);
+    }
+    return queriesById;
+  }
+
+  private byte[] toWire(Message query) {
+    tsig.ifPresent(key -> key.apply(query, null));
+    byte[] messageData = query.toWire();
+    checkArgument(
+        messageData.length <= MESSAGE_MAXIMUM_LENGTH,
+        "DNS request message larger than maximum of %s: %s",
+        MESSAGE_MAXIMUM_LENGTH,
+        messageData.length);
+    return messageData;
+  }
+
+  private static Message checkValidResponse(Map<Integer, Message> outstanding, Message response) {
+    Message query = outstanding.remove(response.getHeader().getID());
     verify(
-        response.getHeader().getID() == query.getHeader().getID(),
+        query != null,
         "response ID %s does not match query ID %s",
         response.getHeader().getID(),
-        query.getHeader().getID());
+        Joiner.on(", ").join(outstanding.keySet()));
     verify(
         response.getHeader().getOpcode() == query.getHeader().getOpcode(),
         "response opcode '%s' does not match query opcode '%s'",
         Opcode.string(response.getHeader().getOpcode()),
         Opcode.string(query.getHeader().getOpcode()));
+    return query;
   }
 
-  private void writeMessage(OutputStream outputStream, Message message) throws IOException {
-    byte[] messageData = message.toWire();
-    checkArgument(
-        messageData.length <= MESSAGE_MAXIMUM_LENGTH,
-        "DNS request message larger than maximum of %s: %s",
-        MESSAGE_MAXIMUM_LENGTH,
-        messageData.length);
+  private void verifyTsig(Message query, Message response, byte[] responseData) {
+    if (tsig.isEmpty()) {
+      return;
+    }
+    int error = tsig.get().verify(response, responseData, query.getTSIG());
+    verify(
+        error == Rcode.NOERROR,
+        "TSIG verification of response ID %s failed: %s",
+        response.getHeader().getID(),
+        Rcode.TSIGstring(error));
+  }
+
+  private static void writeMessage(OutputStream outputStream, byte[] messageData)
+      throws IOException {
     ByteBuffer buffer = ByteBuffer.allocate(messageData.length + MESSAGE_LENGTH_FIELD_BYTES);
     buffer.putShort((short) messageData.length);
     buffer.put(messageData);
     outputStream.write(buffer.array());
   }
 
-  private Message readMessage(InputStream inputStream) throws IOException {
-    DataInputStream stream = new DataInputStream(inputStream);
+  private static byte[] readMessage(DataInputStream stream) throws IOException {
     int length = stream.readUnsignedShort();
     byte[] messageData = new byte[length];
     stream.readFully(messageData);
-    return new Message(messageData);
+    return messageData;
   }
 }
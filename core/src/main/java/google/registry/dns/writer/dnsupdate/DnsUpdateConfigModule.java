@@ -18,6 +18,7 @@ import dagger.Module;
 import dagger.Provides;
 import google.registry.config.RegistryConfig.Config;
 import java.time.Duration;
+import java.util.Optional;
 
 /** Dagger module that provides DNS configuration settings. */
 @Module
@@ -41,4 +42,15 @@ public class DnsUpdateConfigModule {
   public static Duration provideDnsUpdateTimeout() {
     return Duration.ofSeconds(30);
   }
+
+  /**
+   * TSIG key used to sign DNS update requests, in {@code [algorithm:]name:base64-secret} format.
+   *
+   * <p>Updates are sent unsigned if no key is configured.
+   */
+  @Provides
+  @Config("dnsUpdateTsigKey")
+  public static Optional<String> provideDnsUpdateTsigKey() {
+    return Optional.empty();
+  }
 }
@@ -20,9 +20,11 @@ import static com.google.common.collect.Sets.intersection;
 import static com.google.common.collect.Sets.union;
 import static google.registry.dns.DnsUtils.getDnsAPlusAAAATtlForHost;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.net.InternetDomainName;
 import google.registry.config.RegistryConfig.Config;
 import google.registry.dns.writer.BaseDnsWriter;
@@ -40,7 +42,13 @@ import java.net.Inet4Address;
 import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import org.xbill.DNS.AAAARecord;
 import org.xbill.DNS.ARecord;
 import org.xbill.DNS.DClass;
@@ -50,6 +58,8 @@ import org.xbill.DNS.NSRecord;
 import org.xbill.DNS.Name;
 import org.xbill.DNS.RRset;
 import org.xbill.DNS.Rcode;
+import org.xbill.DNS.Record;
+import org.xbill.DNS.Section;
 import org.xbill.DNS.TextParseException;
 import org.xbill.DNS.Type;
 import org.xbill.DNS.Update;
@@ -60,9 +70,11 @@ import org.xbill.DNS.Update;
  * to a (capable) external DNS server, sometimes called a "hidden master". DNS UPDATE messages are
  * sent via a supplied "transport" class.
  *
- * <p>On call to {@link #commit()}, a single UPDATE message is created containing the records
- * required to "synchronize" the DNS with the current (at the time of processing) state of the
- * registry, for the supplied domain/host.
+ * <p>On call to {@link #commit()}, UPDATE messages are sent containing the records required to
+ * "synchronize" the DNS with the current (at the time of processing) state of the registry, for the
+ * supplied domain/host. Usually this is a single message, but if the records would not fit in one
+ * DNS message they are split across several, which are pipelined over the same connection. All
+ * records for a given domain and its subordinate hosts are always kept in the same message.
  *
  * <p>The general strategy of the publish methods is to delete <em>all</em> resource records of any
  * <em>type</em> that match the exact domain/host name supplied. And then for create/update cases,
@@ -73,8 +85,8 @@ import org.xbill.DNS.Update;
  * <p>Only NS, DS, A, and AAAA records are published, and in particular no DNSSEC signing is done
  * assuming that this will be done by a third party DNS provider.
  *
- * <p>Each commit call is treated as an atomic update to the DNS. If a commit fails an exception is
- * thrown. The SOA record serial number is implicitly incremented by the server on each UPDATE
+ * <p>Each UPDATE message is applied atomically by the DNS server. If any of them fails an exception
+ * is thrown. The SOA record serial number is implicitly incremented by the server on each UPDATE
  * message, as required by RFC 2136. Care must be taken to make sure the SOA serial number does not
  * go backwards if the entire TLD (zone) is "reset" to empty and republished.
  */
@@ -86,13 +98,28 @@ public class DnsUpdateWriter extends BaseDnsWriter {
    */
   public static final String NAME = "DnsUpdateWriter";
 
+  /**
+   * The maximum size of a single UPDATE message before records are split into another message.
+   *
+   * <p>This is kept below the 65535 byte limit of the TCP framing to leave room for a TSIG record.
+   */
+  @VisibleForTesting static final int DEFAULT_MAX_UPDATE_MESSAGE_BYTES = 60000;
+
   private final Duration dnsDefaultATtl;
   private final Duration dnsDefaultNsTtl;
   private final Duration dnsDefaultDsTtl;
   private final DnsMessageTransport transport;
   private final Clock clock;
-  private final Update update;
+  private final List<Update> updates = new ArrayList<>();
+
+  /**
+   * The domains already staged in this batch, mapped to the host names whose records their staged
+   * update deletes, or to null if the domain no longer exists.
+   */
+  private final Map<String, Set<String>> stagedDomains = new HashMap<>();
   private final String zoneName;
+  private int maxUpdateMessageBytes = DEFAULT_MAX_UPDATE_MESSAGE_BYTES;
+  private int currentUpdateBytes;
 
   /**
    * Class constructor.
@@ -112,7 +139,6 @@ public class DnsUpdateWriter extends BaseDnsWriter {
       DnsMessageTransport transport,
       Clock clock) {
     this.zoneName = zoneName;
-    this.update = new Update(toAbsoluteName(zoneName));
     this.dnsDefaultATtl = dnsDefaultATtl;
     this.dnsDefaultNsTtl = dnsDefaultNsTtl;
     this.dnsDefaultDsTtl = dnsDefaultDsTtl;
@@ -129,9 +155,15 @@ public class DnsUpdateWriter extends BaseDnsWriter {
    *     this domain refresh request
    */
   private void publishDomain(String domainName, String requestingHostName) {
+    if (stagedDomains.containsKey(domainName)) {
+      publishStagedDomain(domainName, requestingHostName);
+      return;
+    }
+    Update update = new Update(toAbsoluteName(zoneName));
     Optional<Domain> domainOptional =
         ForeignKeyUtils.loadResource(Domain.class, domainName, clock.now());
     update.delete(toAbsoluteName(domainName), Type.ANY);
+    stagedDomains.put(domainName, domainOptional.isPresent() ? new HashSet<>() : null);
     // If the domain is now deleted, then don't update DNS for it.
     if (domainOptional.isPresent()) {
       Domain domain = domainOptional.get();
@@ -143,6 +175,53 @@ public class DnsUpdateWriter extends BaseDnsWriter {
         update.add(makeDelegationSignerSet(domain));
       }
     }
+    appendToCurrentUpdate(update);
+  }
+
+  /**
+   * Handles a repeated publish of a domain that has already been staged in this batch, e.g. because
+   * several of its hosts were refreshed.
+   *
+   * <p>The staged update already republishes the domain and all of its subordinate hosts, so the
+   * only thing left to do is to delete the records of a requesting host that is no longer
+   * subordinate to it, which the staged update would otherwise leave behind.
+   */
+  private void publishStagedDomain(String domainName, String requestingHostName) {
+    Set<String> deletedHostNames = stagedDomains.get(domainName);
+    // Nothing is deleted for the hosts of a domain that no longer exists.
+    if (deletedHostNames == null
+        || requestingHostName == null
+        || !deletedHostNames.add(requestingHostName)) {
+      return;
+    }
+    Update update = new Update(toAbsoluteName(zoneName));
+    update.delete(toAbsoluteName(requestingHostName), Type.ANY);
+    appendToCurrentUpdate(update);
+  }
+
+  /**
+   * Appends the records of a single domain's update to the UPDATE message being built, starting a
+   * new message first if they would push it over the size limit.
+   *
+   * <p>The size of the combined message is estimated by summing the sizes of the individual
+   * messages, which overestimates it since it ignores name compression across them.
+   */
+  private void appendToCurrentUpdate(Update domainUpdate) {
+    int domainUpdateBytes = domainUpdate.toWire().length;
+    if (updates.isEmpty() || currentUpdateBytes + domainUpdateBytes > maxUpdateMessageBytes) {
+      updates.add(new Update(toAbsoluteName(zoneName)));
+      currentUpdateBytes = 0;
+    }
+    Update update = Iterables.getLast(updates);
+    for (Record record : domainUpdate.getSection(Section.UPDATE)) {
+      update.addRecord(record, Section.UPDATE);
+    }
+    currentUpdateBytes += domainUpdateBytes;
+  }
+
+  @VisibleForTesting
+  void setMaxUpdateMessageBytes(int maxUpdateMessageBytes) {
+    this.maxUpdateMessageBytes = maxUpdateMessageBytes;
   }
 
   @Override
@@ -174,13 +253,22 @@ public class DnsUpdateWriter extends BaseDnsWriter {
 
   @Override
   protected void commitUnchecked() {
+    if (updates.isEmpty()) {
+      // Nothing was published; still send an (empty) UPDATE so that commits behave uniformly.
+      updates.add(new Update(toAbsoluteName(zoneName)));
+    }
     try {
-      Message response = transport.send(update);
-      verify(
-          response.getRcode() == Rcode.NOERROR,
-          "DNS server failed domain update for '%s' rcode: %s",
-          zoneName,
-          Rcode.string(response.getRcode()));
+      ImmutableList<Message> responses =
+          updates.size() == 1
+              ? ImmutableList.of(transport.send(updates.get(0)))
+              : transport.sendAll(updates);
+      for (Message response : responses) {
+        verify(
+            response.getRcode() == Rcode.NOERROR,
+            "DNS server failed domain update for '%s' rcode: %s",
+            zoneName,
+            Rcode.string(response.getRcode()));
+      }
     } catch (IOException e) {
       throw new RuntimeException("publishDomain failed for zone: " + zoneName, e);
     }
@@ -215,6 +303,7 @@ public class DnsUpdateWriter extends BaseDnsWriter {
                 ? ImmutableSet.of()
                 : ImmutableSet.of(additionalHost)))) {
       update.delete(toAbsoluteName(hostName), Type.ANY);
+      stagedDomains.get(domain.getDomainName()).add(hostName);
     }
   }
 
@@ -22,12 +22,27 @@ import dagger.multibindings.IntoSet;
 import dagger.multibindings.StringKey;
 import google.registry.dns.writer.DnsWriter;
 import jakarta.inject.Named;
+import java.time.Duration;
 import javax.net.SocketFactory;
 
 /** Dagger module that provides a DnsUpdateWriter. */
 @Module
 public abstract class DnsUpdateWriterModule {
 
+  /**
+   * The pool of idle DNS UPDATE connections.
+   *
+   * <p>This is shared by all requests, since the point of pooling is to reuse connections across
+   * publish batches.
+   */
+  private static final DnsConnectionPool CONNECTION_POOL =
+      new DnsConnectionPool(4, Duration.ofSeconds(30));
+
+  @Provides
+  static DnsConnectionPool provideConnectionPool() {
+    return CONNECTION_POOL;
+  }
+
   @Provides
   static SocketFactory provideSocketFactory() {
     return SocketFactory.getDefault();
@@ -25,6 +25,7 @@ import google.registry.config.RegistryConfigSettings;
 import google.registry.eppserver.Protocol.FrontendProtocol;
 import google.registry.eppserver.handler.EppServiceHandler;
 import google.registry.eppserver.quota.EppServerQuotaManager;
+import google.registry.eppserver.quota.ValkeyConnectionLimiter;
 import google.registry.networking.handler.SslServerInitializer;
 import google.registry.quota.NoopQuotaManager;
 import google.registry.quota.QuotaManager;
@@ -42,7 +43,9 @@ import jakarta.inject.Singleton;
 import java.io.IOException;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Supplier;
 import redis.clients.jedis.UnifiedJedis;
 
@@ -146,4 +149,25 @@ public final class EppProtocolModule {
         jedis.isPresent() ? new ValkeyQuotaManager(jedis.get(), "command") : new NoopQuotaManager();
     return new EppServerQuotaManager(quota, quotaManager);
   }
+
+  @Provides
+  @Singleton
+  static Optional<ValkeyConnectionLimiter> provideClusterConnectionLimiter(
+      @Config("eppServerClusterConnectionLimitsEnabled") boolean enabled,
+      @Config("eppServerMaxConnectionsPerRegistrar") int maxConnectionsPerRegistrar,
+      @Config("eppServerConnectionLeaseSeconds") int leaseSeconds,
+      Optional<UnifiedJedis> jedis,
+      ScheduledExecutorService executor) {
+    if (!enabled || jedis.isEmpty()) {
+      return Optional.empty();
+    }
+    ValkeyConnectionLimiter limiter =
+        new ValkeyConnectionLimiter(
+            jedis.get(),
+            "connection",
+            maxConnectionsPerRegistrar,
+            Duration.ofSeconds(leaseSeconds));
+    limiter.startRenewing(executor);
+    return Optional.of(limiter);
+  }
 }
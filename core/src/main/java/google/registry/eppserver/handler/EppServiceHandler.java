@@ -28,6 +28,8 @@ import google.registry.eppserver.EppProtocolModule.CommandQuota;
 import google.registry.eppserver.metric.FrontendMetrics;
 import google.registry.eppserver.quota.EppServerQuotaManager;
 import google.registry.eppserver.quota.LocalConnectionLimiter;
+import google.registry.eppserver.quota.ValkeyConnectionLimiter;
+import google.registry.eppserver.quota.ValkeyConnectionLimiter.Lease;
 import google.registry.module.RegistryServlet;
 import google.registry.request.RequestHandler;
 import google.registry.util.FakeHttpServletRequest;
@@ -47,6 +49,7 @@ import jakarta.inject.Named;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.security.cert.X509Certificate;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
@@ -76,6 +79,7 @@ public class EppServiceHandler extends SimpleChannelInboundHandler<ByteBuf> {
   private final byte[] helloBytes;
   private final FrontendMetrics metrics;
   private final LocalConnectionLimiter localConnectionLimiter;
+  private final Optional<ValkeyConnectionLimiter> clusterConnectionLimiter;
   private final EppServerQuotaManager commandQuotaManager;
   private final Supplier<String> idTokenSupplier;
   private final String projectId;
@@ -89,6 +93,7 @@ public class EppServiceHandler extends SimpleChannelInboundHandler<ByteBuf> {
 
   private boolean ipAcquired = false;
   private boolean registrarAcquired = false;
+  private Lease registrarLease; // Only set if connections are limited cluster-wide
   private ScheduledFuture<?> preLoginTimeoutTask;
 
   @VisibleForTesting RequestHandler<?> requestHandler = RegistryServlet.component.requestHandler();
@@ -98,6 +103,7 @@ public class EppServiceHandler extends SimpleChannelInboundHandler<ByteBuf> {
       @Named("hello") byte[] helloBytes,
       FrontendMetrics metrics,
       LocalConnectionLimiter localConnectionLimiter,
+      Optional<ValkeyConnectionLimiter> clusterConnectionLimiter,
       @CommandQuota EppServerQuotaManager commandQuotaManager,
       @Named("idToken") Supplier<String> idTokenSupplier,
       @Config("projectId") String projectId,
@@ -105,6 +111,7 @@ public class EppServiceHandler extends SimpleChannelInboundHandler<ByteBuf> {
     this.helloBytes = helloBytes.clone();
     this.metrics = metrics;
     this.localConnectionLimiter = localConnectionLimiter;
+    this.clusterConnectionLimiter = clusterConnectionLimiter;
     this.commandQuotaManager = commandQuotaManager;
     this.idTokenSupplier = idTokenSupplier;
     this.projectId = projectId;
@@ -261,7 +268,7 @@ public class EppServiceHandler extends SimpleChannelInboundHandler<ByteBuf> {
     String authRegistrarId = rsp.getHeader(ProxyHttpHeaders.LOGGED_IN_REGISTRAR);
     if (authRegistrarId != null && !registrarAcquired) {
       logger.atInfo().log("Registrar %s successfully authenticated", authRegistrarId);
-      if (!localConnectionLimiter.acquireRegistrar(authRegistrarId)) {
+      if (!acquireRegistrarConnection(authRegistrarId)) {
         logger.atWarning().log(
             "Registrar %s exceeded concurrent connection limit, closing connection",
             authRegistrarId);
@@ -290,6 +297,26 @@ public class EppServiceHandler extends SimpleChannelInboundHandler<ByteBuf> {
     }
   }
 
+  /**
+   * Acquires a connection slot for the registrar, first on this instance and then, if enabled,
+   * across all instances. The local check comes first so that Valkey is not consulted for
+   * connections that would be rejected anyway.
+   */
+  private boolean acquireRegistrarConnection(String registrarId) {
+    if (!localConnectionLimiter.acquireRegistrar(registrarId)) {
+      return false;
+    }
+    if (clusterConnectionLimiter.isPresent()) {
+      Optional<Lease> lease = clusterConnectionLimiter.get().acquire(registrarId);
+      if (lease.isEmpty()) {
+        localConnectionLimiter.releaseRegistrar(registrarId);
+        return false;
+      }
+      registrarLease = lease.get();
+    }
+    return true;
+  }
+
   private void closeConnection(ChannelHandlerContext ctx) {
     @SuppressWarnings("unused")
     Future<?> unusedFuture = ctx.close();
@@ -304,6 +331,10 @@ public class EppServiceHandler extends SimpleChannelInboundHandler<ByteBuf> {
     if (registrarAcquired) {
       localConnectionLimiter.releaseRegistrar(authenticatedRegistrarId);
     }
+    if (registrarLease != null) {
+      clusterConnectionLimiter.get().release(registrarLease);
+      registrarLease = null;
+    }
     if (ipAcquired) {
       localConnectionLimiter.releaseIp(clientAddress);
     }
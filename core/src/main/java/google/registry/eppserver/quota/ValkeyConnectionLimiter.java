@@ -0,0 +1,277 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.eppserver.quota;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableListMultimap.toImmutableListMultimap;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.hash.Hashing;
+import com.google.monitoring.metrics.IncrementableMetric;
+import com.google.monitoring.metrics.LabelDescriptor;
+import com.google.monitoring.metrics.MetricRegistryImpl;
+import java.net.URLEncoder;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.ThreadSafe;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.exceptions.JedisDataException;
+
+/**
+ * Limits the number of concurrent connections per registrar across all EPP server instances.
+ *
+ * <p>{@link LocalConnectionLimiter} only knows about the connections to its own instance, so a
+ * registrar can open as many connections as the limit for every instance that serves it. This
+ * limiter keeps a lease for each live registrar connection in a Valkey sorted set per registrar,
+ * scored by when the lease expires. Leases are taken when a registrar logs in and dropped when the
+ * connection closes; while the connection is open, its instance renews the lease every third of
+ * the lease duration. Leases of an instance that died without closing its connections are not
+ * renewed and are reaped by the next login of the same registrar.
+ *
+ * <p>Valkey is only consulted on login and disconnect, after the local limiter has let the
+ * connection through, so the per-command path never leaves the instance. Expiry is computed from
+ * the Valkey server's clock, so that clock skew between instances doesn't matter. Like {@link
+ * google.registry.quota.ValkeyQuotaManager}, the limiter fails open: if Valkey can't be reached,
+ * the connection is let through and only the local limit applies.
+ */
+@ThreadSafe
+public class ValkeyConnectionLimiter {
+
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  /**
+   * Lua script to atomically reap the expired leases of a registrar and take a new one if there is
+   * room left.
+   *
+   * <p>Returns whether the lease was taken (1 or 0), and the number of expired leases reaped.
+   */
+  private static final String ACQUIRE_LUA =
+      """
+      local time = redis.call('TIME')
+      local now = time[1] * 1000 + math.floor(time[2] / 1000)
+      local expired = redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now)
+      if redis.call('ZCARD', KEYS[1]) >= tonumber(ARGV[2]) then
+        return {0, expired}
+      end
+      redis.call('ZADD', KEYS[1], now + tonumber(ARGV[3]), ARGV[1])
+      redis.call('PEXPIRE', KEYS[1], ARGV[3])
+      return {1, expired}
+      """;
+
+  /**
+   * Lua script to atomically renew the given leases of a registrar.
+   *
+   * <p>Leases that are missing, because they were reaped while this instance couldn't reach Valkey
+   * or because they were let through while failing open, are added back since their connections
+   * are still open. Returns the number of leases added back.
+   */
+  private static final String RENEW_LUA =
+      """
+      local time = redis.call('TIME')
+      local now = time[1] * 1000 + math.floor(time[2] / 1000)
+      local expiry = now + tonumber(ARGV[1])
+      local restored = 0
+      for i = 2, #ARGV do
+        restored = restored + redis.call('ZADD', KEYS[1], expiry, ARGV[i])
+      end
+      redis.call('PEXPIRE', KEYS[1], ARGV[1])
+      return restored
+      """;
+
+  private static final String ACQUIRE_LUA_HASH =
+      Hashing.sha1().hashString(ACQUIRE_LUA, UTF_8).toString();
+  private static final String RENEW_LUA_HASH =
+      Hashing.sha1().hashString(RENEW_LUA, UTF_8).toString();
+
+  private static final IncrementableMetric acquisitionsCounter =
+      MetricRegistryImpl.getDefault()
+          .newIncrementableMetric(
+              "/eppserver/connection_leases/acquisitions",
+              "Count of attempts to take a cluster-wide registrar connection lease.",
+              "count",
+              ImmutableSet.of(
+                  LabelDescriptor.create(
+                      "outcome", "Whether the lease was ACQUIRED, REJECTED or taken on ERROR.")));
+
+  private static final IncrementableMetric reconciledCounter =
+      MetricRegistryImpl.getDefault()
+          .newIncrementableMetric(
+              "/eppserver/connection_leases/reconciled",
+              "Count of registrar connection leases fixed up in Valkey.",
+              "count",
+              ImmutableSet.of(
+                  LabelDescriptor.create(
+                      "reason",
+                      "EXPIRED for leases reaped after their holder stopped renewing them,"
+                          + " RESTORED for leases of open connections that were missing.")));
+
+  /** A lease on one connection slot of a registrar. */
+  public record Lease(String registrarId, String id) {}
+
+  private final UnifiedJedis jedis;
+  private final String namespace;
+  private final int maxConnectionsPerRegistrar;
+  private final Duration leaseDuration;
+
+  /** The leases held by connections to this instance, which need to be renewed. */
+  private final ConcurrentHashMap<String, Lease> liveLeases = new ConcurrentHashMap<>();
+
+  public ValkeyConnectionLimiter(
+      UnifiedJedis jedis,
+      String namespace,
+      int maxConnectionsPerRegistrar,
+      Duration leaseDuration) {
+    checkArgument(maxConnectionsPerRegistrar >= 0, "Max connections must be non-negative");
+    checkArgument(leaseDuration.toMillis() >= 3, "Lease duration too short: %s", leaseDuration);
+    this.jedis = checkNotNull(jedis, "jedis must not be null");
+    this.namespace = checkNotNull(namespace, "namespace must not be null");
+    this.maxConnectionsPerRegistrar = maxConnectionsPerRegistrar;
+    this.leaseDuration = leaseDuration;
+  }
+
+  /** Schedules the renewal of the leases held by this instance on the given executor. */
+  public void startRenewing(ScheduledExecutorService executor) {
+    long periodMillis = leaseDuration.toMillis() / 3;
+    @SuppressWarnings("unused")
+    ScheduledFuture<?> unusedFuture =
+        executor.scheduleAtFixedRate(
+            this::renewLeases, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Attempts to take a connection lease for the registrar.
+   *
+   * <p>Returns empty if the registrar already has as many live connections as it is allowed.
+   * Otherwise the returned lease must be passed to {@link #release} once the connection closes.
+   */
+  public Optional<Lease> acquire(String registrarId) {
+    Lease lease = new Lease(registrarId, UUID.randomUUID().toString());
+    String key = createValkeyKey(registrarId);
+    try {
+      List<?> result =
+          (List<?>)
+              runScript(
+                  ACQUIRE_LUA,
+                  ACQUIRE_LUA_HASH,
+                  ImmutableList.of(key),
+                  ImmutableList.of(
+                      lease.id(),
+                      String.valueOf(maxConnectionsPerRegistrar),
+                      String.valueOf(leaseDuration.toMillis())));
+      long expired = (Long) result.get(1);
+      if (expired > 0) {
+        logger.atInfo().log("Reaped %d expired connection leases of %s", expired, registrarId);
+        reconciledCounter.incrementBy(expired, "EXPIRED");
+      }
+      if ((Long) result.get(0) == 0) {
+        acquisitionsCounter.increment("REJECTED");
+        return Optional.empty();
+      }
+      acquisitionsCounter.increment("ACQUIRED");
+    } catch (Exception e) {
+      logger.atSevere().withCause(e).log(
+          "Valkey error acquiring connection lease for: %s", URLEncoder.encode(key, UTF_8));
+      // Fail open. The lease is still renewed, which adds it to Valkey once it is reachable again.
+      acquisitionsCounter.increment("ERROR");
+    }
+    liveLeases.put(lease.id(), lease);
+    return Optional.of(lease);
+  }
+
+  /** Releases a lease taken by {@link #acquire}. */
+  public void release(Lease lease) {
+    liveLeases.remove(lease.id());
+    String key = createValkeyKey(lease.registrarId());
+    try {
+      jedis.zrem(key, lease.id());
+    } catch (Exception e) {
+      // The lease is no longer renewed, so it will be reaped once it expires.
+      logger.atSevere().withCause(e).log(
+          "Valkey error releasing connection lease for: %s", URLEncoder.encode(key, UTF_8));
+    }
+  }
+
+  /** Renews all leases held by this instance, one round trip per registrar. */
+  @VisibleForTesting
+  void renewLeases() {
+    ImmutableListMultimap<String, String> leaseIdsByRegistrar =
+        liveLeases.values().stream()
+            .collect(toImmutableListMultimap(Lease::registrarId, Lease::id));
+    for (Map.Entry<String, Collection<String>> entry : leaseIdsByRegistrar.asMap().entrySet()) {
+      String key = createValkeyKey(entry.getKey());
+      try {
+        long restored =
+            (Long)
+                runScript(
+                    RENEW_LUA,
+                    RENEW_LUA_HASH,
+                    ImmutableList.of(key),
+                    ImmutableList.<String>builder()
+                        .add(String.valueOf(leaseDuration.toMillis()))
+                        .addAll(entry.getValue())
+                        .build());
+        if (restored > 0) {
+          logger.atWarning().log(
+              "Restored %d missing connection leases of %s", restored, entry.getKey());
+          reconciledCounter.incrementBy(restored, "RESTORED");
+        }
+        // A connection may have closed after the leases were collected above, in which case its
+        // release may have run before the renewal and the renewal has added the lease back.
+        String[] releasedIds =
+            entry.getValue().stream()
+                .filter(id -> !liveLeases.containsKey(id))
+                .toArray(String[]::new);
+        if (releasedIds.length > 0) {
+          jedis.zrem(key, releasedIds);
+        }
+      } catch (Exception e) {
+        // Don't let one failure cancel the periodic renewal.
+        logger.atSevere().withCause(e).log(
+            "Valkey error renewing connection leases for: %s", URLEncoder.encode(key, UTF_8));
+      }
+    }
+  }
+
+  private String createValkeyKey(String registrarId) {
+    return String.format("%s:%s", namespace, registrarId);
+  }
+
+  private Object runScript(String script, String scriptHash, List<String> keys, List<String> args) {
+    try {
+      return jedis.evalsha(scriptHash, keys, args);
+    } catch (JedisDataException e) {
+      // Scripts may have been flushed, e.g. if the Valkey server has restarted.
+      if (e.getMessage() != null && e.getMessage().startsWith("NOSCRIPT")) {
+        jedis.scriptLoad(script);
+        return jedis.evalsha(scriptHash, keys, args);
+      }
+      throw e;
+    }
+  }
+}
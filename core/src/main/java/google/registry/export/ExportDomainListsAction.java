@@ -24,7 +24,6 @@ import static google.registry.request.Action.Method.POST;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.cloud.storage.BlobId;
-import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.flogger.FluentLogger;
 import com.google.common.net.MediaType;
@@ -39,12 +38,17 @@ import google.registry.request.Action;
 import google.registry.request.auth.Auth;
 import google.registry.storage.drive.DriveConnection;
 import google.registry.util.Clock;
+import google.registry.util.Concurrent;
 import jakarta.inject.Inject;
+import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
-import java.util.List;
+import java.util.Iterator;
+import java.util.stream.Stream;
 import org.hibernate.query.NativeQuery;
 import org.hibernate.query.TupleTransformer;
 
@@ -53,6 +57,9 @@ import org.hibernate.query.TupleTransformer;
  *
  * <p>Each TLD's active domain names are exported as a newline-delimited flat text file with the
  * name TLD.txt into the domain-lists bucket. Note that this overwrites the files in place.
+ *
+ * <p>Domains are streamed rather than loaded all at once, and several TLDs are exported
+ * concurrently, so that large TLDs don't need several times their domain list's size in memory.
  */
 @Action(
     service = Action.Service.BACKEND,
@@ -79,6 +86,12 @@ public class ExportDomainListsAction implements Runnable {
   // This may be a CSV, but it is uses a .txt file extension for back-compatibility
   static final String REGISTERED_DOMAINS_FILENAME_FORMAT = "registered_domains_%s.txt";
 
+  /** The number of rows fetched from the database at a time while streaming a TLD's domains. */
+  private static final int FETCH_SIZE = 1000;
+
+  /** The maximum number of TLDs that are exported at the same time. */
+  private static final int MAX_CONCURRENT_EXPORTS = 4;
+
   @Inject Clock clock;
   @Inject DriveConnection driveConnection;
   @Inject GcsUtils gcsUtils;
@@ -93,45 +106,102 @@ public class ExportDomainListsAction implements Runnable {
 
     boolean includeDeletionTimes =
         tm().transact(() -> FeatureFlag.isActiveNow(INCLUDE_PENDING_DELETE_DATE_FOR_DOMAINS));
-    realTlds.forEach(
+    Concurrent.transform(
+        realTlds.asList(),
+        MAX_CONCURRENT_EXPORTS,
         tld -> {
-          List<String> domainsList =
-              replicaTm()
-                  .transact(
-                      TRANSACTION_REPEATABLE_READ,
-                      () -> {
-                        if (includeDeletionTimes) {
-                          // We want to include deletion times, but only for domains in the 5-day
-                          // PENDING_DELETE period after the REDEMPTION grace period. In order to
-                          // accomplish this without loading the entire list of domains, we use a
-                          // native query to join against the GracePeriod table to find
-                          // PENDING_DELETE domains that don't have a REDEMPTION grace period.
-                          return replicaTm()
-                              .getEntityManager()
-                              .createNativeQuery(SELECT_DOMAINS_AND_DELETION_TIMES_STATEMENT)
-                              .unwrap(NativeQuery.class)
-                              .setTupleTransformer(new DomainResultTransformer())
-                              .setParameter("tld", tld)
-                              .setParameter("now", replicaTm().getTxTime().toString())
-                              .getResultList();
-                        } else {
-                          return replicaTm()
-                              .query(SELECT_DOMAINS_STATEMENT, String.class)
-                              .setParameter("tld", tld)
-                              .setParameter("now", replicaTm().getTxTime())
-                              .getResultList();
-                        }
-                      });
-          logger.atInfo().log(
-              "Exporting %d domains for TLD %s to GCS and Drive.", domainsList.size(), tld);
-          String domainsListOutput = Joiner.on('\n').join(domainsList);
-          exportToGcs(tld, domainsListOutput, gcsBucket, gcsUtils);
-          exportToDrive(tld, domainsListOutput, driveConnection);
+          exportTld(tld, includeDeletionTimes);
+          return null;
         });
   }
 
+  /**
+   * Exports the domain list of a single TLD.
+   *
+   * <p>Domains are streamed out of the database into a local temporary file, which is then streamed
+   * to GCS and uploaded to Drive. This keeps memory usage independent of the size of the TLD, and
+   * keeps the GCS and Drive exports independent of each other, as they were when the list was
+   * built in memory.
+   */
+  private void exportTld(String tld, boolean includeDeletionTimes) {
+    Path domainsFile;
+    try {
+      domainsFile = Files.createTempFile("registered_domains_" + tld, ".txt");
+    } catch (IOException e) {
+      throw new UncheckedIOException(
+          String.format("Error creating temporary file for TLD %s", tld), e);
+    }
+    try {
+      // The file is truncated when the transaction is retried, so it never has duplicate lines.
+      long domainCount =
+          replicaTm()
+              .transact(
+                  TRANSACTION_REPEATABLE_READ,
+                  () -> writeDomainsToFile(tld, includeDeletionTimes, domainsFile));
+      logger.atInfo().log("Exporting %d domains for TLD %s to GCS and Drive.", domainCount, tld);
+      // Failures to export to either destination are logged without affecting the other one.
+      exportToGcs(tld, domainsFile, gcsBucket, gcsUtils);
+      exportToDrive(tld, domainsFile, driveConnection);
+    } finally {
+      try {
+        Files.deleteIfExists(domainsFile);
+      } catch (IOException e) {
+        logger.atWarning().withCause(e).log("Failed to delete temporary file %s.", domainsFile);
+      }
+    }
+  }
+
+  /**
+   * Writes the newline-delimited domain list of a TLD to the given file, returning the number of
+   * domains written.
+   *
+   * <p>Must be called within a transaction, which keeps the result set's cursor open while the
+   * rows are fetched {@value #FETCH_SIZE} at a time.
+   */
+  private static long writeDomainsToFile(String tld, boolean includeDeletionTimes, Path file)
+      throws IOException {
+    long count = 0;
+    try (Stream<?> domains = streamDomains(tld, includeDeletionTimes);
+        Writer writer = Files.newBufferedWriter(file, UTF_8)) {
+      Iterator<?> iterator = domains.iterator();
+      while (iterator.hasNext()) {
+        if (count++ > 0) {
+          writer.write('\n');
+        }
+        writer.write((String) iterator.next());
+      }
+    }
+    return count;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Stream<?> streamDomains(String tld, boolean includeDeletionTimes) {
+    if (includeDeletionTimes) {
+      // We want to include deletion times, but only for domains in the 5-day PENDING_DELETE period
+      // after the REDEMPTION grace period. In order to accomplish this without loading the entire
+      // list of domains, we use a native query to join against the GracePeriod table to find
+      // PENDING_DELETE domains that don't have a REDEMPTION grace period.
+      return replicaTm()
+          .getEntityManager()
+          .createNativeQuery(SELECT_DOMAINS_AND_DELETION_TIMES_STATEMENT)
+          .unwrap(NativeQuery.class)
+          .setTupleTransformer(new DomainResultTransformer())
+          .setParameter("tld", tld)
+          .setParameter("now", replicaTm().getTxTime().toString())
+          .setHint("org.hibernate.fetchSize", FETCH_SIZE)
+          .getResultStream();
+    } else {
+      return replicaTm()
+          .query(SELECT_DOMAINS_STATEMENT, String.class)
+          .setParameter("tld", tld)
+          .setParameter("now", replicaTm().getTxTime())
+          .setHint("org.hibernate.fetchSize", FETCH_SIZE)
+          .getResultStream();
+    }
+  }
+
   protected static void exportToDrive(
-      String tldStr, String domains, DriveConnection driveConnection) {
+      String tldStr, Path domainsFile, DriveConnection driveConnection) {
     verifyNotNull(driveConnection, "Expecting non-null driveConnection");
     try {
       Tld tld = Tld.get(tldStr);
@@ -141,11 +211,11 @@ public class ExportDomainListsAction implements Runnable {
             tldStr);
       } else {
         String resultMsg =
-            driveConnection.createOrUpdateFile(
+            driveConnection.createOrUpdateFileFromPath(
                 String.format(REGISTERED_DOMAINS_FILENAME_FORMAT, tldStr),
                 MediaType.PLAIN_TEXT_UTF_8,
                 tld.getDriveFolderId(),
-                domains.getBytes(UTF_8));
+                domainsFile);
         logger.atInfo().log(
             "Exporting registered domains succeeded for TLD %s, response was: %s",
             tldStr, resultMsg);
@@ -157,11 +227,10 @@ public class ExportDomainListsAction implements Runnable {
   }
 
   protected static void exportToGcs(
-      String tld, String domains, String gcsBucket, GcsUtils gcsUtils) {
+      String tld, Path domainsFile, String gcsBucket, GcsUtils gcsUtils) {
     BlobId blobId = BlobId.of(gcsBucket, tld + ".txt");
-    try (OutputStream gcsOutput = gcsUtils.openOutputStream(blobId);
-        Writer osWriter = new OutputStreamWriter(gcsOutput, UTF_8)) {
-      osWriter.write(domains);
+    try (OutputStream gcsOutput = gcsUtils.openOutputStream(blobId)) {
+      Files.copy(domainsFile, gcsOutput);
     } catch (Throwable e) {
       logger.atSevere().withCause(e).log(
           "Error exporting registered domains for TLD %s to GCS, skipping...", tld);
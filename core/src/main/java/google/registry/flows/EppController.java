@@ -33,6 +33,8 @@ import google.registry.model.eppoutput.EppResponse;
 import google.registry.model.eppoutput.Result;
 import google.registry.model.eppoutput.Result.Code;
 import google.registry.monitoring.whitebox.EppMetric;
+import google.registry.monitoring.whitebox.FlowProfile;
+import google.registry.monitoring.whitebox.FlowProfile.Phase;
 import jakarta.inject.Inject;
 import java.util.Optional;
 
@@ -63,9 +65,10 @@ public final class EppController {
       boolean isSuperuser,
       byte[] inputXmlBytes) {
     eppMetricBuilder.setRegistrarId(Optional.ofNullable(sessionMetadata.getRegistrarId()));
+    Optional<FlowProfile> ownProfile = FlowProfile.startIfAbsent();
     try {
       EppInput eppInput;
-      try {
+      try (FlowProfile.Timer timer = FlowProfile.time(Phase.PARSE)) {
         eppInput = unmarshalEpp(EppInput.class, inputXmlBytes);
       } catch (EppException e) {
         // Log the unmarshalling error, with the sanitized bytes (in base64) to help with debugging.
@@ -119,6 +122,14 @@ public final class EppController {
         eppMetrics.incrementEppRequests(metric);
         eppMetrics.recordProcessingTime(metric);
       }
+      // Only profiles started here are done; otherwise the caller still has work to profile.
+      ownProfile.ifPresent(
+          profile -> {
+            profile.stop();
+            if (!isDryRun) {
+              eppMetrics.recordProfile(profile);
+            }
+          });
     }
   }
 
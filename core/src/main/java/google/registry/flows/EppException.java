@@ -84,6 +84,15 @@ public abstract class EppException extends Exception {
     }
   }
 
+  /** Abstract exception class. Do not throw this directly or catch in tests. */
+  @EppResultCode(Code.SESSION_LIMIT_EXCEEDED_CLOSING_CONNECTION)
+  public abstract static class SessionLimitExceededClosingConnectionException
+      extends EppException {
+    public SessionLimitExceededClosingConnectionException(String message) {
+      super(message);
+    }
+  }
+
   /** Abstract exception class. Do not throw this directly or catch in tests. */
   @EppResultCode(Code.AUTHORIZATION_ERROR)
   public abstract static class AuthorizationErrorException extends EppException {
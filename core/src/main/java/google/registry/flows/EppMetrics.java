@@ -17,11 +17,14 @@ package google.registry.flows;
 import static com.google.monitoring.metrics.EventMetric.DEFAULT_FITTER;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multiset;
 import com.google.monitoring.metrics.EventMetric;
+import com.google.monitoring.metrics.ExponentialFitter;
 import com.google.monitoring.metrics.IncrementableMetric;
 import com.google.monitoring.metrics.LabelDescriptor;
 import com.google.monitoring.metrics.MetricRegistryImpl;
 import google.registry.monitoring.whitebox.EppMetric;
+import google.registry.monitoring.whitebox.FlowProfile;
 import jakarta.inject.Inject;
 
 /** EPP Instrumentation. */
@@ -71,6 +74,76 @@ public class EppMetrics {
               LABEL_DESCRIPTORS,
               DEFAULT_FITTER);
 
+  private static final ImmutableSet<LabelDescriptor> LABEL_DESCRIPTORS_BY_COMMAND =
+      ImmutableSet.of(LabelDescriptor.create("command", "The name of the command."));
+
+  private static final ImmutableSet<LabelDescriptor> LABEL_DESCRIPTORS_BY_ENTITY_TYPE =
+      ImmutableSet.of(
+          LabelDescriptor.create("command", "The name of the command."),
+          LabelDescriptor.create("entity_type", "The type of the entities loaded."));
+
+  private static final ImmutableSet<LabelDescriptor> LABEL_DESCRIPTORS_BY_PHASE =
+      ImmutableSet.of(
+          LabelDescriptor.create("command", "The name of the command."),
+          LabelDescriptor.create("phase", "The phase of handling the command."));
+
+  /** Fitter for per-command counts, with buckets up to 2^16. */
+  private static final ExponentialFitter COUNT_FITTER = ExponentialFitter.create(16, 2.0, 1.0);
+
+  private static final EventMetric sqlStatements =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/epp/profile/sql_statements",
+              "SQL statements prepared per EPP command",
+              "count",
+              LABEL_DESCRIPTORS_BY_COMMAND,
+              COUNT_FITTER);
+
+  private static final EventMetric rowsLoaded =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/epp/profile/rows_loaded",
+              "Rows returned by queries per EPP command",
+              "count",
+              LABEL_DESCRIPTORS_BY_COMMAND,
+              COUNT_FITTER);
+
+  private static final EventMetric entityLoads =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/epp/profile/entity_loads",
+              "Entities loaded from the database per EPP command, by entity type",
+              "count",
+              LABEL_DESCRIPTORS_BY_ENTITY_TYPE,
+              COUNT_FITTER);
+
+  private static final EventMetric valkeyCalls =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/epp/profile/valkey_calls",
+              "Round trips to Valkey per EPP command",
+              "count",
+              LABEL_DESCRIPTORS_BY_COMMAND,
+              COUNT_FITTER);
+
+  private static final EventMetric transactionRetries =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/epp/profile/transaction_retries",
+              "Transaction retries per EPP command",
+              "count",
+              LABEL_DESCRIPTORS_BY_COMMAND,
+              COUNT_FITTER);
+
+  private static final EventMetric phaseTime =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/epp/profile/phase_time",
+              "Time spent in each phase of an EPP command",
+              "milliseconds",
+              LABEL_DESCRIPTORS_BY_PHASE,
+              DEFAULT_FITTER);
+
   private enum TrafficType {
     CANARY, PROBER, REAL
   }
@@ -104,6 +177,25 @@ public class EppMetrics {
     requestTime.record(processingTime, commandName, getTrafficType(tld).toString(), eppStatusCode);
   }
 
+  /**
+   * Records the distributions of the work done by an EPP command.
+   *
+   * @see FlowProfile
+   */
+  public void recordProfile(FlowProfile profile) {
+    String commandName = profile.getCommandName();
+    sqlStatements.record(profile.getSqlStatements(), commandName);
+    rowsLoaded.record(profile.getRowsLoaded(), commandName);
+    for (Multiset.Entry<String> entry : profile.getEntityLoads().entrySet()) {
+      entityLoads.record(entry.getCount(), commandName, entry.getElement());
+    }
+    valkeyCalls.record(profile.getValkeyCalls(), commandName);
+    transactionRetries.record(profile.getTransactionRetries(), commandName);
+    profile
+        .getPhaseTimes()
+        .forEach((phase, time) -> phaseTime.record(time.toMillis(), commandName, phase.name()));
+  }
+
   private static TrafficType getTrafficType(String tld) {
     if (tld.endsWith("canary.test")) {
       return TrafficType.CANARY;
@@ -15,6 +15,7 @@
 package google.registry.flows;
 
 import static google.registry.flows.FlowUtils.marshalWithLenientRetry;
+import static google.registry.model.eppoutput.Result.Code.SESSION_LIMIT_EXCEEDED_CLOSING_CONNECTION;
 import static google.registry.model.eppoutput.Result.Code.SUCCESS_AND_CLOSE;
 import static google.registry.xml.XmlTransformer.prettyPrint;
 import static jakarta.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
@@ -24,10 +25,13 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import com.google.common.flogger.FluentLogger;
 import com.google.common.net.MediaType;
 import google.registry.model.eppoutput.EppOutput;
+import google.registry.monitoring.whitebox.FlowProfile;
+import google.registry.monitoring.whitebox.FlowProfile.Phase;
 import google.registry.request.Response;
 import google.registry.util.ProxyHttpHeaders;
 import google.registry.util.StopwatchLogger;
 import jakarta.inject.Inject;
+import java.util.Optional;
 
 /** Handle an EPP request and response. */
 public class EppRequestHandler {
@@ -38,6 +42,7 @@ public class EppRequestHandler {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
   @Inject EppController eppController;
+  @Inject EppMetrics eppMetrics;
   @Inject Response response;
 
   @Inject
@@ -51,14 +56,22 @@ public class EppRequestHandler {
       boolean isDryRun,
       boolean isSuperuser,
       byte[] inputXmlBytes) {
+    Optional<FlowProfile> profile = FlowProfile.startIfAbsent();
     try {
       EppOutput eppOutput =
           eppController.handleEppCommand(
               sessionMetadata, credentials, eppRequestSource, isDryRun, isSuperuser, inputXmlBytes);
       response.setContentType(APPLICATION_EPP_XML);
       final StopwatchLogger stopwatch = new StopwatchLogger();
-      byte[] eppResponseXmlBytes = marshalWithLenientRetry(eppOutput);
+      byte[] eppResponseXmlBytes;
+      try (FlowProfile.Timer timer = FlowProfile.time(Phase.MARSHAL)) {
+        eppResponseXmlBytes = marshalWithLenientRetry(eppOutput);
+      }
       stopwatch.tick("Completed EPP output marshaling.");
+      // Let the nomulus tool see what the command cost, without needing access to our metrics.
+      if (eppRequestSource == EppRequestSource.TOOL) {
+        profile.ifPresent(p -> response.setHeader(FlowProfile.RESPONSE_HEADER, p.toHeaderValue()));
+      }
 
       response.setPayload(new String(eppResponseXmlBytes, UTF_8));
       logger.atInfo().log(
@@ -75,6 +88,9 @@ public class EppRequestHandler {
       // closed by the proxy. Whether the EPP proxy actually terminates the connection with the
       // client is up to its implementation.
       // See: https://tools.ietf.org/html/rfc5734#section-2
+      //
+      // The same goes for logins that are rejected because the server is overloaded, so that the
+      // client backs off and reconnects rather than retrying on the same connection.
       String authRegistrarId = null;
       try {
         authRegistrarId = sessionMetadata.getRegistrarId();
@@ -85,7 +101,9 @@ public class EppRequestHandler {
         response.setHeader(ProxyHttpHeaders.LOGGED_IN_REGISTRAR, authRegistrarId);
       }
       if (eppOutput.isResponse()
-          && eppOutput.getResponse().getResult().getCode() == SUCCESS_AND_CLOSE) {
+          && (eppOutput.getResponse().getResult().getCode() == SUCCESS_AND_CLOSE
+              || eppOutput.getResponse().getResult().getCode()
+                  == SESSION_LIMIT_EXCEEDED_CLOSING_CONNECTION)) {
         response.setHeader(ProxyHttpHeaders.EPP_SESSION, "close");
       }
     } catch (Exception e) {
@@ -93,6 +111,13 @@ public class EppRequestHandler {
       response.setStatus(SC_BAD_REQUEST);
     } finally {
       sessionMetadata.save(response);
+      profile.ifPresent(
+          p -> {
+            p.stop();
+            if (!isDryRun) {
+              eppMetrics.recordProfile(p);
+            }
+          });
     }
   }
 }
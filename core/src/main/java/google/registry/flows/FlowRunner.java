@@ -27,6 +27,8 @@ import google.registry.flows.session.LoginFlow;
 import google.registry.model.eppcommon.Trid;
 import google.registry.model.eppoutput.EppOutput;
 import google.registry.monitoring.whitebox.EppMetric;
+import google.registry.monitoring.whitebox.FlowProfile;
+import google.registry.monitoring.whitebox.FlowProfile.Phase;
 import google.registry.persistence.PersistenceModule.TransactionIsolationLevel;
 import google.registry.persistence.transaction.JpaTransactionManager;
 import google.registry.util.StopwatchLogger;
@@ -78,12 +80,25 @@ public class FlowRunner {
       flowReporter.recordToLogs();
     }
     eppMetricBuilder.setCommandNameFromFlow(flowClass.getSimpleName());
+    FlowProfile.current()
+        .ifPresent(
+            profile ->
+                profile.setCommandName(
+                    EppMetric.getCommandNameFromFlow(flowClass.getSimpleName())));
     final StopwatchLogger stopwatch = new StopwatchLogger();
 
     // We may already be in a transaction, e.g., when invoked by DeleteExpiredDomainsAction.
     if (!isTransactional || jpaTransactionManager.inTransaction()) {
       stopwatch.tick("We're in transaction, running the flow now.");
-      return EppOutput.create(flowProvider.get().run());
+      EppOutput output;
+      try (FlowProfile.Timer timer = FlowProfile.time(Phase.FLOW)) {
+        output = EppOutput.create(flowProvider.get().run());
+      }
+      if (flowClass.equals(LoginFlow.class)) {
+        // In LoginFlow, registrarId isn't known until after the flow executes, so save it then.
+        eppMetricBuilder.setRegistrarId(sessionMetadata.getRegistrarId());
+      }
+      return output;
     }
 
     stopwatch.tick("We're not in transaction, calling transact.");
@@ -93,18 +108,14 @@ public class FlowRunner {
           () -> {
             try {
               stopwatch.tick("Running the flow in transaction.");
-              EppOutput output = EppOutput.create(flowProvider.get().run());
+              EppOutput output;
+              try (FlowProfile.Timer timer = FlowProfile.time(Phase.FLOW)) {
+                output = EppOutput.create(flowProvider.get().run());
+              }
               stopwatch.tick("Completed the flow in transaction.");
               if (isDryRun) {
                 throw new DryRunException(output);
               }
-              if (flowClass.equals(LoginFlow.class)) {
-                // In LoginFlow, registrarId isn't known until after the flow executes, so save
-                // it then.
-                stopwatch.tick("Login flow started setting registrar id.");
-                eppMetricBuilder.setRegistrarId(sessionMetadata.getRegistrarId());
-                stopwatch.tick("Login flow finished setting registrar id.");
-              }
               return output;
             } catch (EppException e) {
               throw new EppRuntimeException(e);
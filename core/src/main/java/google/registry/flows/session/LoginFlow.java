@@ -30,9 +30,10 @@ import google.registry.flows.EppException.UnimplementedExtensionException;
 import google.registry.flows.EppException.UnimplementedObjectServiceException;
 import google.registry.flows.EppException.UnimplementedProtocolVersionException;
 import google.registry.flows.ExtensionManager;
+import google.registry.flows.Flow;
+import google.registry.flows.FlowModule.DryRun;
 import google.registry.flows.FlowModule.RegistrarId;
 import google.registry.flows.FlowUtils.GenericXmlSyntaxErrorException;
-import google.registry.flows.MutatingFlow;
 import google.registry.flows.SessionMetadata;
 import google.registry.flows.TlsCredentials.BadRegistrarCertificateException;
 import google.registry.flows.TlsCredentials.BadRegistrarIpAddressException;
@@ -47,6 +48,8 @@ import google.registry.model.eppinput.EppInput.Options;
 import google.registry.model.eppinput.EppInput.Services;
 import google.registry.model.eppoutput.EppResponse;
 import google.registry.model.registrar.Registrar;
+import google.registry.monitoring.whitebox.FlowProfile;
+import google.registry.monitoring.whitebox.FlowProfile.Phase;
 import google.registry.util.PasswordUtils;
 import google.registry.util.StopwatchLogger;
 import jakarta.inject.Inject;
@@ -56,6 +59,10 @@ import java.util.Set;
 /**
  * An EPP flow for login.
  *
+ * <p>This flow is not transactional, so that the credentials are verified without holding a
+ * transaction or a database connection while a login waits for the {@link LoginVerificationPool}.
+ * The only write, the rehashing of the password, runs in its own transaction.
+ *
  * @error {@link UnimplementedExtensionException}
  * @error {@link UnimplementedObjectServiceException}
  * @error {@link UnimplementedProtocolVersionException}
@@ -69,8 +76,9 @@ import java.util.Set;
  * @error {@link LoginFlow.TooManyFailedLoginsException}
  * @error {@link LoginFlow.RegistrarAccountNotActiveException}
  * @error {@link LoginFlow.UnsupportedLanguageException}
+ * @error {@link LoginVerificationPool.TooManyPendingLoginsException}
  */
-public class LoginFlow implements MutatingFlow {
+public class LoginFlow implements Flow {
 
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
@@ -83,6 +91,8 @@ public class LoginFlow implements MutatingFlow {
   @Inject TransportCredentials credentials;
   @Inject @RegistrarId String registrarId;
   @Inject EppResponse.Builder responseBuilder;
+  @Inject LoginVerificationPool loginVerificationPool;
+  @Inject @DryRun boolean isDryRun;
 
   @Inject LoginFlow() {}
 
@@ -137,9 +147,19 @@ public class LoginFlow implements MutatingFlow {
       throw new BadRegistrarIdException(login.getClientId());
     }
     stopwatch.tick("LoginFlow loadByRegistrarIdCached");
-    // AuthenticationErrorExceptions will propagate up through here.
-    try {
-      credentials.validate(registrar.get(), login.getPassword());
+    // AuthenticationErrorExceptions will propagate up through here. The expensive password hashing
+    // runs on the verification pool so that a burst of logins can't starve other EPP commands.
+    Optional<PasswordUtils.HashAlgorithm> hashAlgorithm;
+    try (FlowProfile.Timer timer = FlowProfile.time(Phase.AUTH)) {
+      hashAlgorithm =
+          loginVerificationPool.verify(
+              login.getClientId(),
+              () -> {
+                credentials.validate(registrar.get(), login.getPassword());
+                return login.getNewPassword().isPresent()
+                    ? Optional.empty()
+                    : registrar.get().getCurrentHashAlgorithm(login.getPassword());
+              });
     } catch (AuthenticationErrorException e) {
       sessionMetadata.incrementFailedLoginAttempts();
       if (sessionMetadata.getFailedLoginAttempts() > MAX_FAILED_LOGIN_ATTEMPTS_PER_CONNECTION) {
@@ -155,9 +175,9 @@ public class LoginFlow implements MutatingFlow {
 
     // TODO(b/458423787): Remove this circa March 2026 after enough time has passed for the logins
     // to have transitioned to Argon2 hashing.
-    if (login.getNewPassword().isPresent()
-        || registrar.get().getCurrentHashAlgorithm(login.getPassword()).orElse(null)
-            != PasswordUtils.HashAlgorithm.ARGON_2_ID) {
+    if (!isDryRun
+        && (login.getNewPassword().isPresent()
+            || hashAlgorithm.orElse(null) != PasswordUtils.HashAlgorithm.ARGON_2_ID)) {
       String newPassword =
           login
               .getNewPassword()
@@ -167,12 +187,18 @@ public class LoginFlow implements MutatingFlow {
                     return login.getPassword();
                   });
       // Load fresh from database (bypassing the cache) to ensure we don't save stale data.
-      Optional<Registrar> freshRegistrar = Registrar.loadByRegistrarId(login.getClientId());
-      stopwatch.tick("LoginFlow reload freshRegistrar");
-      if (freshRegistrar.isEmpty()) {
+      boolean updated =
+          tm().transact(
+                  () -> {
+                    Optional<Registrar> freshRegistrar =
+                        Registrar.loadByRegistrarId(login.getClientId());
+                    freshRegistrar.ifPresent(
+                        r -> tm().put(r.asBuilder().setPassword(newPassword).build()));
+                    return freshRegistrar.isPresent();
+                  });
+      if (!updated) {
         throw new BadRegistrarIdException(login.getClientId());
       }
-      tm().put(freshRegistrar.get().asBuilder().setPassword(newPassword).build());
       stopwatch.tick("LoginFlow updated password");
     }
 
@@ -0,0 +1,241 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.flows.session;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.monitoring.metrics.EventMetric.DEFAULT_FITTER;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.monitoring.metrics.EventMetric;
+import com.google.monitoring.metrics.IncrementableMetric;
+import com.google.monitoring.metrics.LabelDescriptor;
+import com.google.monitoring.metrics.MetricRegistryImpl;
+import google.registry.config.RegistryConfig.Config;
+import google.registry.flows.EppException.AuthenticationErrorException;
+import google.registry.flows.EppException.SessionLimitExceededClosingConnectionException;
+import google.registry.util.Clock;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.concurrent.GuardedBy;
+
+/**
+ * A bounded pool of threads that verify the credentials of EPP logins.
+ *
+ * <p>Registrar passwords are hashed with a deliberately expensive algorithm. When many registrars
+ * reconnect at the same time, e.g. right before a popular domain drops, verifying their passwords
+ * on the request threads would take up every core and slow down the EPP commands of sessions that
+ * are already logged in. This pool runs the verifications on a fixed number of threads instead.
+ *
+ * <p>Logins wait in one queue per registrar, and the queues are served round-robin, so a registrar
+ * opening many connections at once cannot hold up the logins of other registrars. If too many
+ * logins are already waiting, new ones are rejected right away with a {@link
+ * TooManyPendingLoginsException}, which makes the client back off and reconnect later rather than
+ * wait for a response that may arrive after it has given up.
+ */
+@Singleton
+public class LoginVerificationPool {
+
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private static final ImmutableSet<LabelDescriptor> LABEL_DESCRIPTORS =
+      ImmutableSet.of(LabelDescriptor.create("outcome", "Outcome of the verification."));
+
+  private static final IncrementableMetric verifications =
+      MetricRegistryImpl.getDefault()
+          .newIncrementableMetric(
+              "/epp/login/verifications",
+              "Count of EPP login credential verifications",
+              "count",
+              LABEL_DESCRIPTORS);
+
+  private static final EventMetric queueTime =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/epp/login/queue_time",
+              "Time EPP logins wait for a verification thread",
+              "milliseconds",
+              ImmutableSet.of(),
+              DEFAULT_FITTER);
+
+  private static final EventMetric verificationTime =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/epp/login/verification_time",
+              "Time taken to verify the credentials of EPP logins",
+              "milliseconds",
+              LABEL_DESCRIPTORS,
+              DEFAULT_FITTER);
+
+  private static final Duration IDLE_THREAD_TIMEOUT = Duration.ofMinutes(1);
+
+  private final ExecutorService executor;
+  private final int maxQueueDepth;
+  private final Clock clock;
+
+  /** The logins waiting for a verification thread, by registrar, in the order they are served. */
+  @GuardedBy("this")
+  private final LinkedHashMap<String, Deque<PendingVerification<?>>> pendingVerifications =
+      new LinkedHashMap<>();
+
+  @GuardedBy("this")
+  private int queueDepth;
+
+  @Inject
+  LoginVerificationPool(
+      @Config("loginVerificationThreads") int threads,
+      @Config("loginVerificationMaxQueueDepth") int maxQueueDepth,
+      Clock clock) {
+    checkArgument(
+        threads > 0, "Number of login verification threads must be positive: %s", threads);
+    checkArgument(
+        maxQueueDepth > 0,
+        "Maximum login verification queue depth must be positive: %s",
+        maxQueueDepth);
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            IDLE_THREAD_TIMEOUT.toSeconds(),
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            new ThreadFactoryBuilder()
+                .setDaemon(true)
+                .setNameFormat("login-verification-%d")
+                .build());
+    // Logins are rare outside of reconnect storms, so there is no need to keep idle threads around.
+    executor.allowCoreThreadTimeOut(true);
+    this.executor = executor;
+    this.maxQueueDepth = maxQueueDepth;
+    this.clock = clock;
+  }
+
+  /** A verification of login credentials, which throws if the credentials are not valid. */
+  @FunctionalInterface
+  public interface Verification<T> {
+    T verify() throws AuthenticationErrorException;
+  }
+
+  /**
+   * Runs the verification on one of the pool's threads and waits for its result.
+   *
+   * @throws TooManyPendingLoginsException if too many logins are already waiting
+   * @throws AuthenticationErrorException if the verification throws it
+   */
+  public <T> T verify(String registrarId, Verification<T> verification)
+      throws AuthenticationErrorException, TooManyPendingLoginsException {
+    PendingVerification<T> pending = new PendingVerification<>(verification, clock.now());
+    synchronized (this) {
+      if (queueDepth >= maxQueueDepth) {
+        verifications.increment("REJECTED");
+        logger.atWarning().log(
+            "Rejecting login of %s: %d logins are waiting for verification.",
+            registrarId, queueDepth);
+        throw new TooManyPendingLoginsException();
+      }
+      pendingVerifications.computeIfAbsent(registrarId, id -> new ArrayDeque<>()).add(pending);
+      queueDepth++;
+    }
+    // Every queued login gets a task, but each task runs whichever login is next in turn.
+    executor.execute(this::runNext);
+    try {
+      return Uninterruptibles.getUninterruptibly(pending.result);
+    } catch (ExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), AuthenticationErrorException.class);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  @VisibleForTesting
+  synchronized int getQueueDepth() {
+    return queueDepth;
+  }
+
+  private void runNext() {
+    PendingVerification<?> pending = pollNext();
+    Instant startTime = clock.now();
+    queueTime.record(Duration.between(pending.enqueueTime, startTime).toMillis());
+    String outcome = pending.run();
+    verifications.increment(outcome);
+    verificationTime.record(Duration.between(startTime, clock.now()).toMillis(), outcome);
+  }
+
+  /** Takes the oldest login of the registrar whose turn it is. */
+  private synchronized PendingVerification<?> pollNext() {
+    Iterator<Map.Entry<String, Deque<PendingVerification<?>>>> iterator =
+        pendingVerifications.entrySet().iterator();
+    Map.Entry<String, Deque<PendingVerification<?>>> next = iterator.next();
+    iterator.remove();
+    PendingVerification<?> pending = next.getValue().poll();
+    // The registrar goes to the back of the line if it has more logins waiting.
+    if (!next.getValue().isEmpty()) {
+      pendingVerifications.put(next.getKey(), next.getValue());
+    }
+    queueDepth--;
+    return pending;
+  }
+
+  private static class PendingVerification<T> {
+
+    private final Verification<T> verification;
+    private final Instant enqueueTime;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+
+    PendingVerification(Verification<T> verification, Instant enqueueTime) {
+      this.verification = verification;
+      this.enqueueTime = enqueueTime;
+    }
+
+    /** Runs the verification and returns its outcome for metrics. */
+    String run() {
+      try {
+        result.complete(verification.verify());
+        return "SUCCESS";
+      } catch (AuthenticationErrorException e) {
+        result.completeExceptionally(e);
+        return "FAILURE";
+      } catch (Throwable e) {
+        result.completeExceptionally(e);
+        return "ERROR";
+      }
+    }
+  }
+
+  /** Too many logins are waiting for verification. */
+  public static class TooManyPendingLoginsException
+      extends SessionLimitExceededClosingConnectionException {
+    TooManyPendingLoginsException() {
+      super("Too many logins are in progress, try again later");
+    }
+  }
+}
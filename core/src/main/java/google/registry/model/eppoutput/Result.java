@@ -121,7 +121,10 @@ public class Result extends ImmutableObject {
     COMMAND_FAILED("Command failed"),
 
     @XmlEnumValue("2501")
-    AUTHENTICATION_ERROR_CLOSING_CONNECTION("Authentication error; server closing connection");
+    AUTHENTICATION_ERROR_CLOSING_CONNECTION("Authentication error; server closing connection"),
+
+    @XmlEnumValue("2502")
+    SESSION_LIMIT_EXCEEDED_CLOSING_CONNECTION("Session limit exceeded; server closing connection");
 
     /** A four-digit (positive) number that describes the success or failure of the command. */
     public final int code;
@@ -0,0 +1,139 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.server;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import google.registry.model.server.Lock.LockState;
+import google.registry.util.Clock;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import javax.annotation.Nullable;
+
+/**
+ * A lock on some shared resource, held as a Postgres session-level advisory lock.
+ *
+ * <p>Unlike a {@link Lock}, which is a row written in one transaction and deleted in another, an
+ * advisory lock only exists in the memory of the database server. Acquiring or releasing it takes
+ * a single round trip, and it is tied to the database session that acquired it: Postgres releases
+ * it when that session ends, so a crashed holder never blocks others until a lease expires.
+ *
+ * <p>The lock is only held as long as the connection it was acquired on stays open, so callers
+ * must keep that connection to themselves until they release it. Advisory locks and {@link Lock}
+ * rows don't exclude each other.
+ */
+public final class AdvisoryLock {
+
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  /** The hash that maps lock names to the 64-bit keys of advisory locks. */
+  private static final HashFunction KEY_HASH = Hashing.farmHashFingerprint64();
+
+  @VisibleForTesting static LockMetrics lockMetrics = new LockMetrics();
+
+  private final Connection connection;
+  private final String resourceName;
+  private final String scope;
+  private final long key;
+  private final Instant acquiredTime;
+  private final Clock clock;
+
+  private AdvisoryLock(
+      Connection connection,
+      String resourceName,
+      String scope,
+      long key,
+      Instant acquiredTime,
+      Clock clock) {
+    this.connection = connection;
+    this.resourceName = resourceName;
+    this.scope = scope;
+    this.key = key;
+    this.acquiredTime = acquiredTime;
+    this.clock = clock;
+  }
+
+  /**
+   * Tries to acquire a lock on the given connection, without waiting. Returns absent if another
+   * session holds it.
+   */
+  public static Optional<AdvisoryLock> tryAcquire(
+      Connection connection, String resourceName, @Nullable String tld, Clock clock)
+      throws SQLException {
+    checkArgument(!Strings.isNullOrEmpty(resourceName), "resourceName cannot be null or empty");
+    String scope = tld != null ? tld : Lock.GLOBAL;
+    long key = getKey(resourceName, scope);
+    Instant startTime = clock.now();
+    boolean acquired = callLockFunction(connection, "pg_try_advisory_lock", key);
+    Instant acquiredTime = clock.now();
+    LockState lockState = acquired ? LockState.FREE : LockState.IN_USE;
+    lockMetrics.recordAcquire(resourceName, scope, lockState);
+    lockMetrics.recordAcquireLatency(
+        resourceName, scope, lockState, Duration.between(startTime, acquiredTime));
+    if (!acquired) {
+      return Optional.empty();
+    }
+    AdvisoryLock lock = new AdvisoryLock(connection, resourceName, scope, key, acquiredTime, clock);
+    logger.atInfo().log("Acquired advisory lock: %s", lock);
+    return Optional.of(lock);
+  }
+
+  /** Releases the lock. */
+  public void release() throws SQLException {
+    if (callLockFunction(connection, "pg_advisory_unlock", key)) {
+      lockMetrics.recordRelease(resourceName, scope, Duration.between(acquiredTime, clock.now()));
+      logger.atInfo().log("Released advisory lock: %s", this);
+    } else {
+      // This can only happen if the lock was released already, e.g. by a previous call.
+      logger.atSevere().log("Advisory lock %s was not held when released.", this);
+    }
+  }
+
+  @VisibleForTesting
+  static long getKey(String resourceName, String scope) {
+    // Use the same ID as the Lock row for the same resource.
+    return KEY_HASH.hashString(String.format("%s-%s", scope, resourceName), UTF_8).asLong();
+  }
+
+  private static boolean callLockFunction(Connection connection, String function, long key)
+      throws SQLException {
+    try (PreparedStatement statement =
+        connection.prepareStatement(String.format("SELECT %s(?)", function))) {
+      statement.setLong(1, key);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        resultSet.next();
+        return resultSet.getBoolean(1);
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "AdvisoryLock{resource=%s, scope=%s, key=%d, acquired=%s}",
+        resourceName, scope, key, acquiredTime);
+  }
+}
@@ -53,6 +53,15 @@ class LockMetrics {
               "count",
               REQUEST_LABEL_DESCRIPTORS);
 
+  private static final EventMetric lockAcquireLatencyMetric =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/lock/acquire_lock_latency",
+              "Time taken by lock acquisition attempts",
+              "milliseconds",
+              REQUEST_LABEL_DESCRIPTORS,
+              EXPONENTIAL_FITTER);
+
   private static final EventMetric lockLifetimeMetric =
       MetricRegistryImpl.getDefault()
           .newEventMetric(
@@ -66,6 +75,12 @@ class LockMetrics {
     lockRequestsMetric.increment(String.valueOf(tld), resourceName, state.name());
   }
 
+  void recordAcquireLatency(
+      String resourceName, @Nullable String tld, LockState state, Duration duration) {
+    lockAcquireLatencyMetric.record(
+        duration.toMillis(), String.valueOf(tld), resourceName, state.name());
+  }
+
   void recordRelease(String resourceName, @Nullable String tld, Duration duration) {
     lockLifetimeMetric.record(duration.toMillis(), String.valueOf(tld), resourceName);
   }
@@ -49,6 +49,13 @@ public record EppMetric(
     return builder().setStartTimestamp(clock.now()).setClock(clock);
   }
 
+  /** Returns the command name recorded for a flow, given the simple name of its class. */
+  public static String getCommandNameFromFlow(String flowSimpleClassName) {
+    checkArgument(
+        flowSimpleClassName.endsWith("Flow"), "Must pass in the simple class name of a flow class");
+    return flowSimpleClassName.replaceFirst("Flow$", "");
+  }
+
   public Instant getStartTimestamp() {
     return startTimestamp;
   }
@@ -87,10 +94,7 @@ public record EppMetric(
     abstract Builder setCommandName(String commandName);
 
     public Builder setCommandNameFromFlow(String flowSimpleClassName) {
-      checkArgument(
-          flowSimpleClassName.endsWith("Flow"),
-          "Must pass in the simple class name of a flow class");
-      return setCommandName(flowSimpleClassName.replaceFirst("Flow$", ""));
+      return setCommandName(getCommandNameFromFlow(flowSimpleClassName));
     }
 
     public abstract Builder setRegistrarId(String registrarId);
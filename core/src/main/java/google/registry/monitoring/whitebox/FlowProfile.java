@@ -0,0 +1,244 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.monitoring.whitebox;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.Ascii;
+import com.google.common.base.Joiner;
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.ImmutableSortedMultiset;
+import com.google.common.collect.Multiset;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A profile of the work done by a single EPP command, for finding expensive patterns like N+1
+ * queries in production without turning on SQL logging.
+ *
+ * <p>The profile of the command being run on the current thread is kept in a thread local, so that
+ * the layers doing the work (Hibernate, the transaction manager, the Valkey client) can record to
+ * it without having it passed down. Recording is a no-op on threads that aren't profiling a
+ * command, e.g. in batch actions, and work done on other threads isn't recorded.
+ *
+ * <p>A profile is not thread-safe, as it is only ever updated from the thread it belongs to.
+ */
+public final class FlowProfile {
+
+  /** HTTP response header through which the profile is returned to tool-initiated requests. */
+  public static final String RESPONSE_HEADER = "Nomulus-Flow-Profile";
+
+  /** The phases of handling an EPP command that are timed. */
+  public enum Phase {
+    /** Unmarshalling the EPP input. */
+    PARSE,
+    /** Validating the credentials on login; this is part of {@link #FLOW}. */
+    AUTH,
+    /** Running the flow, across all attempts of its transaction. */
+    FLOW,
+    /** Committing the transaction of the flow. */
+    COMMIT,
+    /** Marshalling the EPP output. */
+    MARSHAL
+  }
+
+  private static final ThreadLocal<FlowProfile> currentProfile = new ThreadLocal<>();
+
+  private static final Timer NOOP_TIMER = new Timer(null, Phase.FLOW, 0);
+
+  private String commandName = "";
+  private int sqlStatements;
+  private int rowsLoaded;
+  private final Multiset<String> entityLoads = HashMultiset.create();
+  private int valkeyCalls;
+  private int transactionRetries;
+  private final EnumMap<Phase, Long> phaseNanos = new EnumMap<>(Phase.class);
+
+  private FlowProfile() {}
+
+  /**
+   * Starts profiling a command on the current thread, unless one is being profiled already.
+   *
+   * <p>Returns the new profile if one was started, in which case the caller must {@link #stop} it.
+   * Returns empty if the thread was already profiling, so that the outermost caller, which can see
+   * all phases, owns the profile.
+   */
+  public static Optional<FlowProfile> startIfAbsent() {
+    if (currentProfile.get() != null) {
+      return Optional.empty();
+    }
+    FlowProfile profile = new FlowProfile();
+    currentProfile.set(profile);
+    return Optional.of(profile);
+  }
+
+  /** Returns the profile of the command being run on the current thread, if any. */
+  public static Optional<FlowProfile> current() {
+    return Optional.ofNullable(currentProfile.get());
+  }
+
+  /** Stops profiling on the current thread. The profile can still be read afterwards. */
+  public void stop() {
+    checkState(currentProfile.get() == this, "Profile is not active on this thread");
+    currentProfile.remove();
+  }
+
+  /** Records that an SQL statement was prepared. */
+  public static void recordSqlStatement() {
+    FlowProfile profile = currentProfile.get();
+    if (profile != null) {
+      profile.sqlStatements++;
+    }
+  }
+
+  /** Records that a row was returned by a query. */
+  public static void recordRowLoaded() {
+    FlowProfile profile = currentProfile.get();
+    if (profile != null) {
+      profile.rowsLoaded++;
+    }
+  }
+
+  /** Records that an entity of the given type was loaded from the database. */
+  public static void recordEntityLoad(Class<?> entityType) {
+    FlowProfile profile = currentProfile.get();
+    if (profile != null) {
+      profile.entityLoads.add(entityType.getSimpleName());
+    }
+  }
+
+  /** Records a round trip to Valkey. */
+  public static void recordValkeyCall() {
+    FlowProfile profile = currentProfile.get();
+    if (profile != null) {
+      profile.valkeyCalls++;
+    }
+  }
+
+  /** Records that a transaction is being retried. */
+  public static void recordTransactionRetry() {
+    FlowProfile profile = currentProfile.get();
+    if (profile != null) {
+      profile.transactionRetries++;
+    }
+  }
+
+  /**
+   * Starts timing a phase, which is added to the profile of the current thread once the returned
+   * timer is closed. Phases that run more than once, e.g. on retries, add up.
+   */
+  public static Timer time(Phase phase) {
+    FlowProfile profile = currentProfile.get();
+    return profile == null ? NOOP_TIMER : new Timer(profile, phase, System.nanoTime());
+  }
+
+  /** A running timer for a phase, to be used in a try-with-resources block. */
+  public static final class Timer implements AutoCloseable {
+
+    private final FlowProfile profile;
+    private final Phase phase;
+    private final long startNanos;
+
+    private Timer(FlowProfile profile, Phase phase, long startNanos) {
+      this.profile = profile;
+      this.phase = phase;
+      this.startNanos = startNanos;
+    }
+
+    @Override
+    public void close() {
+      if (profile != null) {
+        profile.phaseNanos.merge(phase, System.nanoTime() - startNanos, Long::sum);
+      }
+    }
+  }
+
+  /** Sets the name of the command, as in {@link EppMetric#getCommandName}. */
+  public void setCommandName(String commandName) {
+    this.commandName = commandName;
+  }
+
+  public String getCommandName() {
+    return commandName;
+  }
+
+  public int getSqlStatements() {
+    return sqlStatements;
+  }
+
+  public int getRowsLoaded() {
+    return rowsLoaded;
+  }
+
+  public ImmutableMultiset<String> getEntityLoads() {
+    return ImmutableMultiset.copyOf(entityLoads);
+  }
+
+  public int getValkeyCalls() {
+    return valkeyCalls;
+  }
+
+  public int getTransactionRetries() {
+    return transactionRetries;
+  }
+
+  /** Returns the time spent in each phase that was run. */
+  public ImmutableMap<Phase, Duration> getPhaseTimes() {
+    ImmutableMap.Builder<Phase, Duration> phaseTimes = ImmutableMap.builder();
+    for (Map.Entry<Phase, Long> entry : phaseNanos.entrySet()) {
+      phaseTimes.put(entry.getKey(), Duration.ofNanos(entry.getValue()));
+    }
+    return phaseTimes.buildOrThrow();
+  }
+
+  /**
+   * Returns the profile in a compact form for {@link #RESPONSE_HEADER}, e.g. {@code
+   * sql_statements=3; rows_loaded=1; entity_loads=Domain:1,Registrar:1; valkey_calls=1;
+   * transaction_retries=0; parse_ms=2; flow_ms=35; commit_ms=4; marshal_ms=1}.
+   */
+  public String toHeaderValue() {
+    StringBuilder value =
+        new StringBuilder()
+            .append("sql_statements=")
+            .append(sqlStatements)
+            .append("; rows_loaded=")
+            .append(rowsLoaded)
+            .append("; entity_loads=");
+    Joiner.on(',')
+        .appendTo(
+            value,
+            ImmutableSortedMultiset.copyOf(entityLoads).entrySet().stream()
+                .map(entry -> entry.getElement() + ":" + entry.getCount())
+                .iterator());
+    value
+        .append("; valkey_calls=")
+        .append(valkeyCalls)
+        .append("; transaction_retries=")
+        .append(transactionRetries);
+    getPhaseTimes()
+        .forEach(
+            (phase, time) ->
+                value
+                    .append("; ")
+                    .append(Ascii.toLowerCase(phase.name()))
+                    .append("_ms=")
+                    .append(time.toMillis()));
+    return value.toString();
+  }
+}
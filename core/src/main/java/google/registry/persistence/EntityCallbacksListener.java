@@ -14,6 +14,7 @@
 
 package google.registry.persistence;
 
+import google.registry.monitoring.whitebox.FlowProfile;
 import jakarta.persistence.Embeddable;
 import jakarta.persistence.Embedded;
 import jakarta.persistence.MappedSuperclass;
@@ -120,6 +121,7 @@ public class EntityCallbacksListener {
 
   @PostLoad
   void postLoad(Object entity) {
+    FlowProfile.recordEntityLoad(entity.getClass());
     EntityCallbackExecutor.create(RecursivePostLoad.class).execute(entity, entity.getClass());
   }
 
@@ -81,6 +81,8 @@ public abstract class PersistenceModule {
   public static final String HIKARI_DS_SOCKET_FACTORY = "hibernate.hikari.dataSource.socketFactory";
   public static final String HIKARI_DS_CLOUD_SQL_INSTANCE =
       "hibernate.hikari.dataSource.cloudSqlInstance";
+  public static final String HIKARI_DS_REWRITE_BATCHED_INSERTS =
+      "hibernate.hikari.dataSource.reWriteBatchedInserts";
 
   public static final String JDBC_BATCH_SIZE = "hibernate.jdbc.batch_size";
   public static final String JDBC_FETCH_SIZE = "hibernate.jdbc.fetch_size";
@@ -113,6 +115,7 @@ public abstract class PersistenceModule {
     properties.put(Environment.DIALECT, NomulusPostgreSQLDialect.class.getName());
     properties.put(JDBC_BATCH_SIZE, Integer.toString(getHibernateJdbcBatchSize()));
     properties.put(JDBC_FETCH_SIZE, getHibernateJdbcFetchSize());
+    properties.put(Environment.STATEMENT_INSPECTOR, ProfilingStatementInspector.class.getName());
     return properties.build();
   }
 
@@ -180,6 +183,9 @@ public abstract class PersistenceModule {
     // which can be configured using pipeline options. See {@link RegistryPipelineOptions} for more
     // information.
     overrides.put(HIKARI_MAXIMUM_POOL_SIZE, String.valueOf(Integer.MAX_VALUE));
+    // Pipelines write many rows per transaction. This makes the driver send each JDBC batch of
+    // inserts as a single multi-row INSERT statement, rather than one statement per row.
+    overrides.put(HIKARI_DS_REWRITE_BATCHED_INSERTS, "true");
     instanceConnectionNameOverride
         .map(Provider::get)
         .ifPresent(
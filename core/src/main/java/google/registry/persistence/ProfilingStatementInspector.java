@@ -0,0 +1,34 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.persistence;
+
+import google.registry.monitoring.whitebox.FlowProfile;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * A {@link StatementInspector} that counts the SQL statements prepared for the EPP command being
+ * profiled on the current thread, if any. The statements themselves are left unchanged.
+ *
+ * <p>This is set for all sessions in {@link PersistenceModule#provideDefaultDatabaseConfigs}.
+ * Sessions that log their statements use their own inspector, which must count them as well.
+ */
+public class ProfilingStatementInspector implements StatementInspector {
+
+  @Override
+  public String inspect(String sql) {
+    FlowProfile.recordSqlStatement();
+    return sql;
+  }
+}
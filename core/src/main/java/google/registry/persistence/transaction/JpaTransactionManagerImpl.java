@@ -34,6 +34,8 @@ import com.google.common.collect.Streams;
 import com.google.common.flogger.FluentLogger;
 import com.google.common.flogger.StackSize;
 import google.registry.model.ImmutableObject;
+import google.registry.monitoring.whitebox.FlowProfile;
+import google.registry.monitoring.whitebox.FlowProfile.Phase;
 import google.registry.persistence.JpaRetries;
 import google.registry.persistence.PersistenceModule.TransactionIsolationLevel;
 import google.registry.persistence.VKey;
@@ -73,6 +75,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
@@ -183,7 +186,7 @@ public class JpaTransactionManagerImpl implements JpaTransactionManager {
       return transactNoRetry(null, work);
     }
     return retrier.callWithRetry(
-        () -> transactNoRetry(null, work), JpaRetries::isFailedTxnRetriable);
+        countingRetries(() -> transactNoRetry(null, work)), JpaRetries::isFailedTxnRetriable);
   }
 
   @Override
@@ -206,10 +209,21 @@ public class JpaTransactionManagerImpl implements JpaTransactionManager {
       return transactNoRetry(isolationLevel, work);
     }
     return retrier.callWithRetry(
-        () -> transactNoRetry(isolationLevel, work, logSqlStatements),
+        countingRetries(() -> transactNoRetry(isolationLevel, work, logSqlStatements)),
         JpaRetries::isFailedTxnRetriable);
   }
 
+  /** Wraps the work so that every attempt after the first is recorded as a transaction retry. */
+  private static <T> Callable<T> countingRetries(Callable<T> work) {
+    AtomicBoolean isFirstAttempt = new AtomicBoolean(true);
+    return () -> {
+      if (!isFirstAttempt.getAndSet(false)) {
+        FlowProfile.recordTransactionRetry();
+      }
+      return work.call();
+    };
+  }
+
   @Override
   public <T> T transact(Callable<T> work) {
     return transact(null, work);
@@ -263,6 +277,8 @@ public class JpaTransactionManagerImpl implements JpaTransactionManager {
                       @Override
                       public String apply(String s) {
                         logger.atInfo().log(SQL_STATEMENT_LOG_SENTINEL_FORMAT, s);
+                        // This replaces the ProfilingStatementInspector set for all sessions.
+                        FlowProfile.recordSqlStatement();
                         return s;
                       }
                     })
@@ -290,7 +306,9 @@ public class JpaTransactionManagerImpl implements JpaTransactionManager {
             getDefaultTransactionIsolationLevel(), isolationLevel);
       }
       T result = work.call();
-      txn.commit();
+      try (FlowProfile.Timer timer = FlowProfile.time(Phase.COMMIT)) {
+        txn.commit();
+      }
       return result;
     } catch (Throwable e) {
       // Catch a Throwable here so even Errors would lead to a rollback.
@@ -877,25 +895,31 @@ public class JpaTransactionManagerImpl implements JpaTransactionManager {
 
     @Override
     public T getSingleResultOrNull() {
-      return delegate.getSingleResultOrNull();
+      T result = delegate.getSingleResultOrNull();
+      if (result != null) {
+        FlowProfile.recordRowLoaded();
+      }
+      return result;
     }
 
     @Override
     public List<T> getResultList() {
-      return delegate
-          .getResultStream()
-          .map(JpaTransactionManagerImpl.this::detachIfEntity)
-          .collect(toImmutableList());
+      return delegate.getResultStream().map(this::loadRow).collect(toImmutableList());
     }
 
     @Override
     public Stream<T> getResultStream() {
-      return delegate.getResultStream().map(JpaTransactionManagerImpl.this::detachIfEntity);
+      return delegate.getResultStream().map(this::loadRow);
     }
 
     @Override
     public T getSingleResult() {
-      return detachIfEntity(delegate.getSingleResult());
+      return loadRow(delegate.getSingleResult());
+    }
+
+    private T loadRow(T row) {
+      FlowProfile.recordRowLoaded();
+      return detachIfEntity(row);
     }
 
     @Override
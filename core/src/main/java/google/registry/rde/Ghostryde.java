@@ -37,6 +37,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.time.Instant;
+import java.util.zip.Deflater;
 import javax.annotation.Nullable;
 import org.bouncycastle.openpgp.PGPPrivateKey;
 import org.bouncycastle.openpgp.PGPPublicKey;
@@ -162,13 +163,36 @@ public final class Ghostryde {
    */
   public static ImprovedOutputStream encoder(
       OutputStream output, PGPPublicKey encryptionKey, @Nullable OutputStream lengthOutput) {
+    return encoder(output, encryptionKey, lengthOutput, Deflater.DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * Creates a Ghostryde Encoder with the given compression level.
+   *
+   * <p>Unlike RyDE files, ghostryde files are only ever read back by us, so a faster compression
+   * level than the default can be used to trade some size for speed. Any level produces the same
+   * format, so the files can be read by any decoder.
+   *
+   * @param output where to write the encrypted data
+   * @param encryptionKey the encryption key to use
+   * @param lengthOutput if not null - will save the total length of the data written to this
+   *     output. See {@link #readLength}.
+   * @param compressionLevel a {@link Deflater} compression level, from {@link
+   *     Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}, or {@link
+   *     Deflater#DEFAULT_COMPRESSION}
+   */
+  public static ImprovedOutputStream encoder(
+      OutputStream output,
+      PGPPublicKey encryptionKey,
+      @Nullable OutputStream lengthOutput,
+      int compressionLevel) {
 
     // We use a Closer to handle the stream .close, to make sure it's done correctly.
     Closer closer = Closer.create();
     OutputStream encryptionLayer =
         closer.register(
             openEncryptor(output, GHOSTRYDE_USE_INTEGRITY_PACKET, ImmutableList.of(encryptionKey)));
-    OutputStream kompressor = closer.register(openCompressor(encryptionLayer));
+    OutputStream kompressor = closer.register(openCompressor(encryptionLayer, compressionLevel));
     OutputStream fileLayer =
         closer.register(openPgpFileWriter(kompressor, INNER_FILENAME, INNER_MODIFICATION_TIME));
 
@@ -0,0 +1,248 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.rde;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static google.registry.rde.Ghostryde.INNER_FILENAME;
+import static google.registry.rde.Ghostryde.INNER_MODIFICATION_TIME;
+import static google.registry.rde.RydeEncryption.GHOSTRYDE_USE_INTEGRITY_PACKET;
+import static google.registry.rde.RydeEncryption.openEncryptor;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.bouncycastle.bcpg.CompressionAlgorithmTags.ZIP;
+import static org.bouncycastle.openpgp.PGPLiteralData.BINARY;
+
+import com.google.common.collect.ImmutableList;
+import google.registry.util.ImprovedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import javax.annotation.WillNotClose;
+import org.bouncycastle.bcpg.BCPGOutputStream;
+import org.bouncycastle.bcpg.PacketTags;
+import org.bouncycastle.openpgp.PGPPublicKey;
+
+/**
+ * Ghostryde encoding for files whose contents are compressed in independent segments.
+ *
+ * <p>Compression is by far the most expensive part of writing a large {@link Ghostryde} file, and
+ * a regular encoder has to do all of it on a single thread. This class splits the work the same way
+ * {@code pigz} does: each segment of the file's contents is turned into a self-contained run of
+ * deflate blocks by {@link #compress}, which can happen anywhere and in parallel, and a {@link
+ * Writer} then stitches the compressed segments together into a single ghostryde file, which only
+ * needs to encrypt them.
+ *
+ * <p>To make this possible, the PGP literal data packet that wraps the file contents is framed by
+ * hand using partial body lengths, so the total length of the file does not have to be known in
+ * advance, and every segment ends on a byte boundary with a deflate sync flush. The result is
+ * indistinguishable from any other ghostryde file to {@link Ghostryde#decoder}. Segments can be
+ * written in any order, but each segment is decoded as a unit, so segments must not split a
+ * multi-byte character or any other structure that the reader cares about.
+ */
+public final class GhostrydeSegments {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /** New-format packet tag of the literal data packet, see RFC 4880 section 4.2. */
+  private static final int LITERAL_DATA_TAG = 0xc0 | PacketTags.LITERAL_DATA;
+
+  /** Partial body length header of a chunk of 2^n bytes is {@code 0xe0 | n}. */
+  private static final int PARTIAL_BODY_LENGTH = 0xe0;
+
+  /** The largest partial body chunk is 2^30 bytes. */
+  private static final int MAX_PARTIAL_BODY_LENGTH_EXPONENT = 30;
+
+  /**
+   * The first chunk of a packet with partial body lengths must be at least 512 bytes long. The head
+   * of the file is written as the first chunks, so it must be at least that long.
+   */
+  private static final int MIN_HEAD_LENGTH = 512;
+
+  /**
+   * Compresses a segment of the contents of a ghostryde file with the default compression level.
+   *
+   * <p>The result can be passed to {@link Writer#write} along with the length of {@code data}.
+   */
+  public static byte[] compress(byte[] data) {
+    return compress(data, Deflater.DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * Compresses a segment of the contents of a ghostryde file with the given compression level.
+   *
+   * <p>Segments compressed with different levels can be mixed freely in the same file.
+   *
+   * @see Ghostryde#encoder(OutputStream, PGPPublicKey, OutputStream, int)
+   */
+  public static byte[] compress(byte[] data, int compressionLevel) {
+    ByteArrayOutputStream framed = new ByteArrayOutputStream(data.length + Integer.SIZE);
+    writePartialBodyChunks(framed, data, 0, data.length);
+    return deflate(framed.toByteArray(), compressionLevel, false);
+  }
+
+  /**
+   * Opens a writer that stitches compressed segments into a ghostryde file.
+   *
+   * @param output where to write the encrypted data. Is not closed by the writer.
+   * @param encryptionKey the encryption key to use
+   * @param head the beginning of the file contents, written before any segment. It must be at
+   *     least {@value #MIN_HEAD_LENGTH} bytes long.
+   */
+  public static Writer openWriter(
+      @WillNotClose OutputStream output, PGPPublicKey encryptionKey, byte[] head)
+      throws IOException {
+    checkArgument(
+        head.length >= MIN_HEAD_LENGTH,
+        "Head must be at least %s bytes long, got %s",
+        MIN_HEAD_LENGTH,
+        head.length);
+    return new Writer(output, encryptionKey, head);
+  }
+
+  /**
+   * Stitches compressed segments into a single ghostryde file.
+   *
+   * <p>This writes the encryption and compression packets around the segments, as well as the head
+   * and tail of the file contents. Only the head and the tail are compressed here, everything else
+   * is merely encrypted.
+   */
+  public static final class Writer {
+
+    private final ImprovedOutputStream encryptionLayer;
+    private final BCPGOutputStream compressionLayer;
+    private long length;
+    private boolean finished;
+
+    private Writer(OutputStream output, PGPPublicKey encryptionKey, byte[] head)
+        throws IOException {
+      encryptionLayer =
+          openEncryptor(output, GHOSTRYDE_USE_INTEGRITY_PACKET, ImmutableList.of(encryptionKey));
+      compressionLayer =
+          new BCPGOutputStream(encryptionLayer, PacketTags.COMPRESSED_DATA, new byte[BUFFER_SIZE]);
+      compressionLayer.write(ZIP);
+
+      // The literal data packet header, followed by its body, which starts with the file metadata.
+      byte[] filename = INNER_FILENAME.getBytes(US_ASCII);
+      ByteArrayOutputStream body = new ByteArrayOutputStream(head.length + filename.length + 6);
+      body.write(BINARY);
+      body.write(filename.length);
+      body.write(filename);
+      writeInt(body, INNER_MODIFICATION_TIME.getEpochSecond());
+      body.write(head);
+      ByteArrayOutputStream framed = new ByteArrayOutputStream(body.size() + Integer.SIZE);
+      framed.write(LITERAL_DATA_TAG);
+      writePartialBodyChunks(framed, body.toByteArray(), 0, body.size());
+      compressionLayer.write(deflate(framed.toByteArray(), Deflater.DEFAULT_COMPRESSION, false));
+      length = head.length;
+    }
+
+    /**
+     * Writes a segment returned by {@link GhostrydeSegments#compress}.
+     *
+     * @param compressedSegment the compressed segment
+     * @param segmentLength the length of the segment before it was compressed
+     */
+    public void write(byte[] compressedSegment, long segmentLength) throws IOException {
+      checkState(!finished, "Writer is already finished");
+      compressionLayer.write(compressedSegment);
+      length += segmentLength;
+    }
+
+    /**
+     * Writes the end of the file contents and closes all the packets.
+     *
+     * @return the total length of the file contents, which is what {@link Ghostryde#encoder} saves
+     *     to its length output. See {@link Ghostryde#readLength}.
+     */
+    public long finish(byte[] tail) throws IOException {
+      checkState(!finished, "Writer is already finished");
+      finished = true;
+      // A packet with partial body lengths must end with a chunk of a definite length.
+      ByteArrayOutputStream framed = new ByteArrayOutputStream(tail.length + 5);
+      writeBodyLength(framed, tail.length);
+      framed.write(tail);
+      compressionLayer.write(deflate(framed.toByteArray(), Deflater.DEFAULT_COMPRESSION, true));
+      compressionLayer.finish();
+      encryptionLayer.close();
+      length += tail.length;
+      return length;
+    }
+  }
+
+  /** Writes the data as partial body length chunks, largest first, of sizes that add up to it. */
+  private static void writePartialBodyChunks(
+      ByteArrayOutputStream output, byte[] data, int offset, int length) {
+    for (int exponent = MAX_PARTIAL_BODY_LENGTH_EXPONENT; exponent >= 0; exponent--) {
+      int chunkLength = 1 << exponent;
+      if ((length & chunkLength) != 0) {
+        output.write(PARTIAL_BODY_LENGTH | exponent);
+        output.write(data, offset, chunkLength);
+        offset += chunkLength;
+      }
+    }
+  }
+
+  /** Writes a definite new-format body length, see RFC 4880 section 4.2.2. */
+  private static void writeBodyLength(ByteArrayOutputStream output, int length) {
+    if (length < 192) {
+      output.write(length);
+    } else if (length < 8384) {
+      output.write(((length - 192) >> 8) + 192);
+      output.write(length - 192);
+    } else {
+      output.write(0xff);
+      writeInt(output, length);
+    }
+  }
+
+  private static void writeInt(ByteArrayOutputStream output, long value) {
+    output.write((int) (value >> 24));
+    output.write((int) (value >> 16));
+    output.write((int) (value >> 8));
+    output.write((int) value);
+  }
+
+  /**
+   * Compresses the data into raw deflate blocks that end on a byte boundary.
+   *
+   * <p>Unless {@code last} is set, the blocks end with a sync flush rather than a final block, so
+   * that the compressed data of the next segment can be appended to them.
+   */
+  private static byte[] deflate(byte[] data, int compressionLevel, boolean last) {
+    Deflater deflater = new Deflater(compressionLevel, true);
+    try {
+      deflater.setInput(data);
+      if (last) {
+        deflater.finish();
+      }
+      ByteArrayOutputStream output = new ByteArrayOutputStream(data.length / 4 + 64);
+      byte[] buffer = new byte[BUFFER_SIZE];
+      while (true) {
+        int count =
+            deflater.deflate(
+                buffer, 0, buffer.length, last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+        output.write(buffer, 0, count);
+        if (last ? deflater.finished() : count < buffer.length && deflater.needsInput()) {
+          return output.toByteArray();
+        }
+      }
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private GhostrydeSegments() {}
+}
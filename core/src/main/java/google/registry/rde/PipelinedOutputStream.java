@@ -0,0 +1,236 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.rde;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+
+import com.google.common.flogger.FluentLogger;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import javax.annotation.WillNotClose;
+
+/**
+ * OutputStream that writes to another OutputStream on a separate thread.
+ *
+ * <p>The layers of a RyDE file - compression, encryption and signing - are each expensive, and
+ * stacking them on a single thread means a multi-gigabyte deposit is processed by one core. Placing
+ * this stream between two layers moves everything downstream of it to its own thread, so the layers
+ * run concurrently like the stages of a shell pipeline.
+ *
+ * <p>Data is handed over in {@value #BUFFER_SIZE} byte buffers through a bounded queue, so a slow
+ * downstream stage blocks the upstream one instead of buffering the whole file in memory. The
+ * buffers are recycled once written, so a stage never holds more than {@value #MAX_BUFFERS} of
+ * them.
+ *
+ * <p>{@link #flush} hands over buffered data but does not flush the downstream stream, and {@link
+ * #close} waits for all the data to be written but does not close the downstream stream, which
+ * must be closed afterwards by the caller. Any exception thrown downstream is rethrown by the next
+ * call to this stream. The number of bytes written and the time spent by each side of the stage is
+ * logged on close, which shows which layer of the pipeline is the bottleneck.
+ */
+final class PipelinedOutputStream extends OutputStream {
+
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  /** Same size as the buffers of the PGP layers, so that each write fills about one buffer. */
+  static final int BUFFER_SIZE = 64 * 1024;
+
+  /** Maximum number of buffers of a stage, either queued, being written or being filled. */
+  static final int MAX_BUFFERS = 16;
+
+  /** Marks the end of the data in the queue. */
+  private static final Chunk END = new Chunk(new byte[0], 0);
+
+  private final String name;
+  private final OutputStream out;
+  private final BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(MAX_BUFFERS + 1);
+  private final BlockingQueue<byte[]> freeBuffers = new ArrayBlockingQueue<>(MAX_BUFFERS);
+  private final Thread writer;
+
+  private byte[] buffer;
+  private int position;
+  private int allocatedBuffers;
+  private long bytesWritten;
+  private long waitNanos;
+  private boolean isClosed;
+
+  /** Set by the writer thread, read by the writer thread and after it has been joined. */
+  private long writeNanos;
+
+  private volatile Throwable failure;
+
+  /**
+   * Creates a stage that writes to {@code out} on a new thread.
+   *
+   * @param name the name of the stage, used to name the thread and in the logs
+   * @param out where the data is written. Is not closed by this object.
+   */
+  PipelinedOutputStream(String name, @WillNotClose OutputStream out) {
+    this.name = name;
+    this.out = checkNotNull(out, "out");
+    this.buffer = allocateBuffer();
+    writer =
+        new ThreadFactoryBuilder()
+            .setNameFormat("ryde-" + name + "-%d")
+            .setDaemon(true)
+            .build()
+            .newThread(this::writeChunks);
+    writer.start();
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    checkNotFailed();
+    if (position == buffer.length) {
+      handOver();
+    }
+    buffer[position++] = (byte) b;
+    bytesWritten++;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    checkPositionIndexes(off, off + len, b.length);
+    checkNotFailed();
+    while (len > 0) {
+      if (position == buffer.length) {
+        handOver();
+      }
+      int count = Math.min(len, buffer.length - position);
+      System.arraycopy(b, off, buffer, position, count);
+      position += count;
+      off += count;
+      len -= count;
+      bytesWritten += count;
+    }
+  }
+
+  /** Hands over the buffered data to the writer thread, without flushing the downstream stream. */
+  @Override
+  public void flush() throws IOException {
+    checkNotFailed();
+    if (position > 0) {
+      handOver();
+    }
+  }
+
+  /** Waits for all the data to be written, without closing the downstream stream. */
+  @Override
+  public void close() throws IOException {
+    if (isClosed) {
+      return;
+    }
+    isClosed = true;
+    try {
+      if (position > 0 && failure == null) {
+        enqueue(new Chunk(buffer, position));
+      }
+      enqueue(END);
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      writer.interrupt();
+      throw new InterruptedIOException("Interrupted while closing stage " + name);
+    }
+    logger.atInfo().log(
+        "Stage %s wrote %,d bytes in %s (%.1f MB/s), waited %s for the stage to catch up.",
+        name,
+        bytesWritten,
+        Duration.ofNanos(writeNanos),
+        writeNanos == 0 ? 0.0 : bytesWritten * 1000.0 / writeNanos,
+        Duration.ofNanos(waitNanos));
+    checkNotFailed();
+  }
+
+  /** Returns the number of bytes that have been written to this stream thus far. */
+  long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  private void handOver() throws IOException {
+    try {
+      enqueue(new Chunk(buffer, position));
+      position = 0;
+      buffer = freeBuffers.poll();
+      if (buffer == null) {
+        buffer = allocatedBuffers < MAX_BUFFERS ? allocateBuffer() : waitForBuffer();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while writing to stage " + name);
+    }
+    checkNotFailed();
+  }
+
+  private void enqueue(Chunk chunk) throws InterruptedException {
+    long start = System.nanoTime();
+    queue.put(chunk);
+    waitNanos += System.nanoTime() - start;
+  }
+
+  private byte[] waitForBuffer() throws InterruptedException {
+    long start = System.nanoTime();
+    byte[] freeBuffer = freeBuffers.take();
+    waitNanos += System.nanoTime() - start;
+    return freeBuffer;
+  }
+
+  private byte[] allocateBuffer() {
+    allocatedBuffers++;
+    return new byte[BUFFER_SIZE];
+  }
+
+  private void checkNotFailed() throws IOException {
+    Throwable cause = failure;
+    if (cause != null) {
+      throw new IOException("Stage " + name + " failed", cause);
+    }
+  }
+
+  /**
+   * Writes chunks from the queue until the end marker, on the writer thread.
+   *
+   * <p>After a failure, the remaining chunks are still taken from the queue, so that the upstream
+   * side never blocks on a stage that will not make any more progress.
+   */
+  private void writeChunks() {
+    try {
+      Chunk chunk;
+      while ((chunk = queue.take()) != END) {
+        if (failure == null) {
+          long start = System.nanoTime();
+          try {
+            out.write(chunk.data(), 0, chunk.length());
+          } catch (Throwable t) {
+            logger.atWarning().withCause(t).log("Stage %s failed.", name);
+            failure = t;
+          }
+          writeNanos += System.nanoTime() - start;
+        }
+        freeBuffers.offer(chunk.data());
+      }
+    } catch (InterruptedException e) {
+      failure = e;
+    }
+  }
+
+  private record Chunk(byte[] data, int length) {}
+}
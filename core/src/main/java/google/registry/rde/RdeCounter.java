@@ -49,6 +49,11 @@ public final class RdeCounter {
     counts.get(type).incrementAndGet();
   }
 
+  /** Increment the count on a given resource by the number of resources counted elsewhere. */
+  public void increment(RdeResourceType type, long count) {
+    counts.get(type).addAndGet(count);
+  }
+
   /** Constructs a header containing the sum of {@link #increment(RdeResourceType)} calls. */
   public XjcRdeHeader makeHeader(String tld, RdeMode mode) {
     XjcRdeHeader header = new XjcRdeHeader();
@@ -54,20 +54,47 @@ import java.io.Serial;
 import java.io.Serializable;
 import java.time.Instant;
 import java.util.Collection;
-import javax.annotation.concurrent.NotThreadSafe;
-
-/** XML document <i>fragment</i> marshaller for RDE. */
-@NotThreadSafe
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * XML document <i>fragment</i> marshaller for RDE.
+ *
+ * <p>This class is thread-safe. The underlying JAXB marshallers are expensive to create and not
+ * thread-safe, so each thread gets its own, which is shared by all the instances of this class.
+ * This matters in Beam pipelines, where DoFns holding an instance are deserialized once per worker
+ * thread: the marshallers survive the DoFn instances and are reused by the next ones.
+ */
+@ThreadSafe
 public final class RdeMarshaller implements Serializable {
 
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
   @Serial private static final long serialVersionUID = 202890386611768455L;
 
+  private static final ThreadLocal<XmlFragmentMarshaller> formattedMarshallers =
+      ThreadLocal.withInitial(() -> XjcXmlTransformer.get().createFragmentMarshaller(true));
+
+  private static final ThreadLocal<XmlFragmentMarshaller> compactMarshallers =
+      ThreadLocal.withInitial(() -> XjcXmlTransformer.get().createFragmentMarshaller(false));
+
   private final ValidationMode validationMode;
-  private transient XmlFragmentMarshaller memoizedMarshaller;
+  private final boolean formattedOutput;
 
   public RdeMarshaller(ValidationMode validationMode) {
+    this(validationMode, true);
+  }
+
+  /**
+   * Creates a marshaller.
+   *
+   * @param validationMode whether to validate each fragment against the schema. {@link
+   *     ValidationMode#LENIENT} skips the validation, in which case the whole deposit should be
+   *     validated afterwards, e.g. with the {@code validate_escrow_deposit} command.
+   * @param formattedOutput whether to indent the fragments. Compact fragments are a single line,
+   *     which makes deposits considerably smaller before compression.
+   */
+  public RdeMarshaller(ValidationMode validationMode, boolean formattedOutput) {
     this.validationMode = validationMode;
+    this.formattedOutput = formattedOutput;
   }
 
   /** Returns top-portion of XML document. */
@@ -218,9 +245,6 @@ public final class RdeMarshaller implements Serializable {
   }
 
   private XmlFragmentMarshaller getMarshaller() {
-    if (memoizedMarshaller == null) {
-      memoizedMarshaller = XjcXmlTransformer.get().createFragmentMarshaller();
-    }
-    return memoizedMarshaller;
+    return (formattedOutput ? formattedMarshallers : compactMarshallers).get();
   }
 }
@@ -220,6 +220,10 @@ public final class RdeUploadAction implements Runnable, EscrowTask {
    *  && cat /tmp/sig > gs://bucket/$rydeFilename.sig      # Save a copy of signature to GCS.
    *
    * }</pre>
+   *
+   * <p>Like in the shell, the stages run concurrently: decryption and decompression of the
+   * GhostRyDE file run on the calling thread, while compression and encryption with signing of the
+   * RyDE file each run on their own thread. See {@link RydeEncoder.Builder#setPipelined}.
    */
   @VisibleForTesting
   private void upload(
@@ -242,6 +246,7 @@ public final class RdeUploadAction implements Runnable, EscrowTask {
                     .setRydeOutput(teeOutput, receiverKey)
                     .setSignatureOutput(sigOut, signingKey)
                     .setFileMetadata(nameWithoutPrefix, xmlLength, watermark)
+                    .setPipelined(true)
                     .build()) {
           long bytesCopied = ByteStreams.copy(ghostrydeDecoder, rydeEncoder);
           logger.atInfo().log("Uploaded %,d bytes to path '%s'.", bytesCopied, rydeFilename);
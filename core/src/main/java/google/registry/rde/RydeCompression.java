@@ -21,6 +21,7 @@ import google.registry.util.ImprovedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.zip.Deflater;
 import javax.annotation.CheckReturnValue;
 import javax.annotation.WillNotClose;
 import org.bouncycastle.openpgp.PGPCompressedData;
@@ -30,7 +31,9 @@ import org.bouncycastle.openpgp.PGPException;
 /**
  * OpenPGP compression service that wraps an {@link OutputStream}.
  *
- * <p>This uses the ZIP compression algorithm per the ICANN escrow specification.
+ * <p>This uses the ZIP compression algorithm per the ICANN escrow specification. The compression
+ * level can be chosen freely, because it only affects how hard the compressor tries and any level
+ * produces data that every decompressor can read.
  */
 final class RydeCompression {
 
@@ -53,10 +56,25 @@ final class RydeCompression {
    */
   @CheckReturnValue
   static ImprovedOutputStream openCompressor(@WillNotClose OutputStream os) {
+    return openCompressor(os, Deflater.DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * Creates an OutputStream that compresses the data with the given compression level.
+   *
+   * @param os where to write the compressed data. Is not closed by this object.
+   * @param compressionLevel a {@link Deflater} compression level, from {@link
+   *     Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}, or {@link
+   *     Deflater#DEFAULT_COMPRESSION}
+   */
+  @CheckReturnValue
+  static ImprovedOutputStream openCompressor(
+      @WillNotClose OutputStream os, int compressionLevel) {
     try {
       return new ImprovedOutputStream(
           "RydeCompressor",
-          new PGPCompressedDataGenerator(COMPRESSION_ALGORITHM).open(os, new byte[BUFFER_SIZE]));
+          new PGPCompressedDataGenerator(COMPRESSION_ALGORITHM, compressionLevel)
+              .open(os, new byte[BUFFER_SIZE]));
     } catch (IOException | PGPException e) {
       throw new RuntimeException(e);
     }
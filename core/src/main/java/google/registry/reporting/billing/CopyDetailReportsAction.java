@@ -41,6 +41,7 @@ import java.io.InputStream;
 import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
 
 /** Copy all registrar detail reports in a given bucket's subdirectory from GCS to Drive. */
 @Action(
@@ -55,7 +56,9 @@ public final class CopyDetailReportsAction implements Runnable {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
   private static final Pattern FILENAME_PATTERN =
-      Pattern.compile("^invoice_details_[0-9]{4}-[0-9]{2}_(.+)_.+\\.csv$");
+      Pattern.compile("^invoice_details_[0-9]{4}-[0-9]{2}_(.+)_.+\\.csv(\\.gz)?$");
+
+  private static final String GZIP_SUFFIX = ".gz";
 
   private final String billingBucket;
   private final String invoiceDirectoryPrefix;
@@ -103,7 +106,8 @@ public final class CopyDetailReportsAction implements Runnable {
     ImmutableMultimap.Builder<String, Throwable> copyErrorsBuilder =
         new ImmutableMultimap.Builder<>();
     for (String detailReportName : detailReportObjectNames) {
-      // The standard report format is "invoice_details_yyyy-MM_registrarId_tld.csv
+      // The standard report format is "invoice_details_yyyy-MM_registrarId_tld.csv, optionally
+      // gzipped by the invoicing pipeline, in which case it is published uncompressed.
       Matcher matcher = FILENAME_PATTERN.matcher(detailReportName);
       if (!matcher.matches()) {
         logger.atWarning().log(
@@ -111,6 +115,11 @@ public final class CopyDetailReportsAction implements Runnable {
         continue;
       }
       String registrarId = matcher.group(1);
+      boolean isCompressed = matcher.group(2) != null;
+      String driveFileName =
+          isCompressed
+              ? detailReportName.substring(0, detailReportName.length() - GZIP_SUFFIX.length())
+              : detailReportName;
       Optional<Registrar> registrar = Registrar.loadByRegistrarId(registrarId);
       if (registrar.isEmpty()) {
         logger.atWarning().log(
@@ -126,11 +135,12 @@ public final class CopyDetailReportsAction implements Runnable {
       try {
         retrier.callWithRetry(
             () -> {
-              try (InputStream input =
-                  gcsUtils.openInputStream(
-                      BlobId.of(billingBucket, invoiceDirectoryPrefix + detailReportName))) {
+              try (InputStream gcsInput =
+                      gcsUtils.openInputStream(
+                          BlobId.of(billingBucket, invoiceDirectoryPrefix + detailReportName));
+                  InputStream input = isCompressed ? new GZIPInputStream(gcsInput) : gcsInput) {
                 driveConnection.createOrUpdateFile(
-                    detailReportName,
+                    driveFileName,
                     MediaType.CSV_UTF_8,
                     driveFolderId,
                     ByteStreams.toByteArray(input));
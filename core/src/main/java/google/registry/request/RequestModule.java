@@ -40,12 +40,15 @@ import com.google.gson.reflect.TypeToken;
 import com.google.protobuf.ByteString;
 import dagger.Module;
 import dagger.Provides;
+import google.registry.config.RegistryConfig.Config;
 import google.registry.request.HttpException.BadRequestException;
 import google.registry.request.HttpException.PayloadTooLargeException;
 import google.registry.request.HttpException.UnsupportedMediaTypeException;
 import google.registry.request.auth.AuthResult;
+import google.registry.request.lock.AdvisoryLockHandler;
 import google.registry.request.lock.LockHandler;
 import google.registry.request.lock.LockHandlerImpl;
+import jakarta.inject.Provider;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
@@ -213,8 +216,11 @@ public final class RequestModule {
   }
 
   @Provides
-  static LockHandler provideLockHandler(LockHandlerImpl lockHandler) {
-    return lockHandler;
+  static LockHandler provideLockHandler(
+      @Config("useAdvisoryLocks") boolean useAdvisoryLocks,
+      Provider<LockHandlerImpl> lockHandler,
+      Provider<AdvisoryLockHandler> advisoryLockHandler) {
+    return useAdvisoryLocks ? advisoryLockHandler.get() : lockHandler.get();
   }
 
   @Provides
@@ -15,24 +15,38 @@
 package google.registry.request.auth;
 
 import static com.google.common.base.Preconditions.checkState;
+import static google.registry.config.RegistryConfig.getOidcTokenMaxCachedEntries;
+import static google.registry.config.RegistryConfig.getUserCachingDuration;
+import static google.registry.config.RegistryConfig.getUserMaxCachedEntries;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.google.api.client.json.webtoken.JsonWebSignature;
 import com.google.auth.oauth2.TokenVerifier.VerificationException;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.flogger.FluentLogger;
+import com.google.common.hash.Hashing;
+import google.registry.cache.CacheMetrics;
+import google.registry.cache.CacheMetrics.CacheHitType;
 import google.registry.config.RegistryConfig.Config;
+import google.registry.model.CacheUtils;
 import google.registry.model.console.User;
 import google.registry.persistence.VKey;
 import google.registry.request.auth.AuthModule.IapOidc;
 import google.registry.request.auth.AuthModule.RegularOidc;
 import google.registry.request.auth.AuthSettings.AuthLevel;
+import google.registry.util.Clock;
+import google.registry.util.NonFinalForTesting;
 import google.registry.util.RegistryEnvironment;
 import google.registry.util.StopwatchLogger;
 import jakarta.inject.Inject;
 import jakarta.servlet.http.HttpServletRequest;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Optional;
 import javax.annotation.Nullable;
 
@@ -44,6 +58,12 @@ import javax.annotation.Nullable;
  * address for which the token is minted exists both as a {link User} and as a service account, the
  * returned {@link AuthResult} is at {@link AuthLevel#APP} to avoid database lookups when possible.
  *
+ * <p>Console pages make many API calls with the same token, so verified tokens are cached (keyed by
+ * a hash of the raw token) until they expire, and {@link User} entities are cached for a short
+ * time. Code that modifies a user should call {@link #invalidateCachedUser} once the change has
+ * been committed so that it takes effect immediately on this instance; other instances pick it up
+ * when their cache entry expires.
+ *
  * @see <a href="https://developers.google.com/identity/openid-connect/openid-connect">OpenID
  *     Connect </a>
  */
@@ -55,19 +75,52 @@ public abstract class OidcTokenAuthenticationMechanism implements Authentication
   // the RegistryTestServer
   private static AuthResult authResultForTesting = null;
 
+  private static final String TOKEN_CACHE_NAME = "oidc_token";
+  private static final String USER_CACHE_NAME = "user";
+
+  /**
+   * The longest time a verified token is kept in the cache.
+   *
+   * <p>Google-signed ID tokens are valid for an hour, so entries are always evicted once they are
+   * no longer usable. Tokens are also checked against their own expiration time when read.
+   */
+  private static final Duration MAX_TOKEN_LIFETIME = Duration.ofHours(1);
+
+  /** A cache of verified tokens, or empty if token caching is disabled. */
+  @NonFinalForTesting
+  private static Optional<Cache<TokenKey, VerifiedToken>> tokenCache =
+      createTokenCache(getOidcTokenMaxCachedEntries());
+
+  /**
+   * A cache of the {@link User} for a given email address.
+   *
+   * <p>Absent users are cached as well, as {@link Optional#empty()}.
+   */
+  @NonFinalForTesting
+  private static LoadingCache<String, Optional<User>> userCache =
+      createUserCache(getUserCachingDuration());
+
   protected final TokenExtractor tokenExtractor;
 
   protected final TokenVerifier tokenVerifier;
 
   private final ImmutableSet<String> serviceAccountEmails;
 
+  private final CacheMetrics cacheMetrics;
+
+  private final Clock clock;
+
   protected OidcTokenAuthenticationMechanism(
       ImmutableSet<String> serviceAccountEmails,
       TokenExtractor tokenExtractor,
-      TokenVerifier tokenVerifier) {
+      TokenVerifier tokenVerifier,
+      CacheMetrics cacheMetrics,
+      Clock clock) {
     this.serviceAccountEmails = serviceAccountEmails;
     this.tokenExtractor = tokenExtractor;
     this.tokenVerifier = tokenVerifier;
+    this.cacheMetrics = cacheMetrics;
+    this.clock = clock;
   }
 
   @Override
@@ -90,7 +143,7 @@ public abstract class OidcTokenAuthenticationMechanism implements Authentication
       if (request.getHeader("canary") != null) {
         service += "-canary";
       }
-      token = tokenVerifier.verify(service, rawIdToken);
+      token = verifyToken(service, rawIdToken);
     } catch (Exception e) {
       logger.atInfo().withCause(e).log(
           "Failed OIDC verification attempt:\n%s",
@@ -117,8 +170,7 @@ public abstract class OidcTokenAuthenticationMechanism implements Authentication
       return AuthResult.createApp(email);
     }
     logger.atInfo().log("No service account found for email address %s, loading the User", email);
-    Optional<User> maybeUser =
-        tm().transact(() -> tm().loadByKeyIfPresent(VKey.create(User.class, email)));
+    Optional<User> maybeUser = loadUser(email);
     stopwatch.tick("OidcTokenAuthenticationMechanism maybeUser loaded");
     if (maybeUser.isPresent()) {
       return AuthResult.createUser(maybeUser.get());
@@ -130,6 +182,86 @@ public abstract class OidcTokenAuthenticationMechanism implements Authentication
     return AuthResult.NOT_AUTHENTICATED;
   }
 
+  /**
+   * Verifies the raw token, or returns the already verified token from the cache.
+   *
+   * <p>The cache is keyed by the service as well, because a token is only valid for the audience
+   * that it was minted for.
+   */
+  @Nullable
+  private JsonWebSignature verifyToken(String service, String rawToken)
+      throws VerificationException {
+    if (tokenCache.isEmpty()) {
+      return tokenVerifier.verify(service, rawToken);
+    }
+    TokenKey key = new TokenKey(service, Hashing.sha256().hashString(rawToken, UTF_8).toString());
+    VerifiedToken cachedToken = tokenCache.get().getIfPresent(key);
+    if (cachedToken != null && clock.now().isBefore(cachedToken.expirationTime())) {
+      cacheMetrics.recordLookup(TOKEN_CACHE_NAME, CacheHitType.LOCAL);
+      return cachedToken.token();
+    }
+    cacheMetrics.recordLookup(TOKEN_CACHE_NAME, CacheHitType.MISS);
+    JsonWebSignature token = tokenVerifier.verify(service, rawToken);
+    // Tokens without an expiration time are never cached.
+    if (token != null && token.getPayload().getExpirationTimeSeconds() != null) {
+      tokenCache
+          .get()
+          .put(
+              key,
+              new VerifiedToken(
+                  token, Instant.ofEpochSecond(token.getPayload().getExpirationTimeSeconds())));
+    }
+    return token;
+  }
+
+  private Optional<User> loadUser(String email) {
+    Optional<User> cachedUser = userCache.getIfPresent(email);
+    if (cachedUser != null) {
+      cacheMetrics.recordLookup(USER_CACHE_NAME, CacheHitType.LOCAL);
+      return cachedUser;
+    }
+    cacheMetrics.recordLookup(USER_CACHE_NAME, CacheHitType.MISS);
+    return userCache.get(email);
+  }
+
+  /** Removes the {@link User} with the given email address from the cache on this instance. */
+  public static void invalidateCachedUser(String email) {
+    userCache.invalidate(email);
+  }
+
+  private static Optional<Cache<TokenKey, VerifiedToken>> createTokenCache(int maxEntries) {
+    if (maxEntries == 0) {
+      return Optional.empty();
+    }
+    return Optional.of(
+        CacheUtils.newCacheBuilder()
+            .expireAfterWrite(MAX_TOKEN_LIFETIME)
+            .maximumSize(maxEntries)
+            .build());
+  }
+
+  private static LoadingCache<String, Optional<User>> createUserCache(Duration expiry) {
+    return CacheUtils.newCacheBuilder(expiry)
+        .maximumSize(getUserMaxCachedEntries())
+        .build(
+            email -> tm().transact(() -> tm().loadByKeyIfPresent(VKey.create(User.class, email))));
+  }
+
+  @VisibleForTesting
+  public static void setTokenCacheForTest(Optional<Integer> maxEntries) {
+    tokenCache = createTokenCache(maxEntries.orElse(getOidcTokenMaxCachedEntries()));
+  }
+
+  @VisibleForTesting
+  public static void setUserCacheForTest(Optional<Duration> expiry) {
+    userCache = createUserCache(expiry.orElse(getUserCachingDuration()));
+  }
+
+  @VisibleForTesting
+  public static LoadingCache<String, Optional<User>> getUserCacheForTest() {
+    return userCache;
+  }
+
   @VisibleForTesting
   public static void setAuthResultForTesting(@Nullable AuthResult authResult) {
     checkState(
@@ -146,6 +278,11 @@ public abstract class OidcTokenAuthenticationMechanism implements Authentication
     authResultForTesting = null;
   }
 
+  /** The service that a token was verified for and the hash of the raw token. */
+  private record TokenKey(String service, String tokenHash) {}
+
+  private record VerifiedToken(JsonWebSignature token, Instant expirationTime) {}
+
   @FunctionalInterface
   protected interface TokenExtractor {
     @Nullable
@@ -175,8 +312,10 @@ public abstract class OidcTokenAuthenticationMechanism implements Authentication
     protected IapOidcAuthenticationMechanism(
         @Config("allowedServiceAccountEmails") ImmutableSet<String> serviceAccountEmails,
         @IapOidc TokenExtractor tokenExtractor,
-        @IapOidc TokenVerifier tokenVerifier) {
-      super(serviceAccountEmails, tokenExtractor, tokenVerifier);
+        @IapOidc TokenVerifier tokenVerifier,
+        CacheMetrics cacheMetrics,
+        Clock clock) {
+      super(serviceAccountEmails, tokenExtractor, tokenVerifier, cacheMetrics, clock);
     }
   }
 
@@ -196,8 +335,10 @@ public abstract class OidcTokenAuthenticationMechanism implements Authentication
     protected RegularOidcAuthenticationMechanism(
         @Config("allowedServiceAccountEmails") ImmutableSet<String> serviceAccountEmails,
         @RegularOidc TokenExtractor tokenExtractor,
-        @RegularOidc TokenVerifier tokenVerifier) {
-      super(serviceAccountEmails, tokenExtractor, tokenVerifier);
+        @RegularOidc TokenVerifier tokenVerifier,
+        CacheMetrics cacheMetrics,
+        Clock clock) {
+      super(serviceAccountEmails, tokenExtractor, tokenVerifier, cacheMetrics, clock);
     }
   }
 }
@@ -0,0 +1,183 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.request.lock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import google.registry.model.server.AdvisoryLock;
+import google.registry.util.Clock;
+import google.registry.util.TimeLimiter;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.Nullable;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+/**
+ * Implementation of {@link LockHandler} that uses Postgres advisory locks.
+ *
+ * <p>The locks are held on a connection taken from the pool for the duration of the work. There is
+ * no lease to renew: the locks are held for as long as that connection is open, and are released
+ * as soon as the work is done. The lease length still limits how long the work may run. If it runs
+ * over, the connection is aborted, which makes Postgres release the locks right away rather than
+ * leaving them to a thread that may never finish.
+ *
+ * @see AdvisoryLock
+ */
+public class AdvisoryLockHandler implements LockHandler {
+
+  private static final long serialVersionUID = -3302573816279815427L;
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  /** Fudge factor to make sure we kill threads before a lock actually expires. */
+  private static final Duration LOCK_TIMEOUT_FUDGE = Duration.ofSeconds(5);
+
+  private final Clock clock;
+
+  @Inject
+  public AdvisoryLockHandler(Clock clock) {
+    this.clock = clock;
+  }
+
+  @Override
+  public boolean executeWithLocks(
+      Callable<Void> callable, @Nullable String tld, Duration leaseLength, String... lockNames) {
+    checkArgument(leaseLength.compareTo(LOCK_TIMEOUT_FUDGE) > 0);
+    Instant startTime = clock.now();
+    String sanitizedTld = Strings.emptyToNull(tld);
+    // Make sure we join locks in a fixed (lexicographical) order to avoid deadlock.
+    ImmutableSortedSet<String> sortedLockNames = ImmutableSortedSet.copyOf(lockNames);
+    AtomicReference<Connection> lockConnection = new AtomicReference<>();
+    try {
+      return TimeLimiter.create()
+          .callWithTimeout(
+              () -> callWithLocks(callable, sanitizedTld, sortedLockNames, lockConnection),
+              leaseLength.minus(LOCK_TIMEOUT_FUDGE).toMillis(),
+              TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      synchronized (lockConnection) {
+        abort(lockConnection.getAndSet(null));
+      }
+      throw new RuntimeException(
+          String.format(
+              "Execution on locks '%s' for TLD '%s' timed out after %s; started at %s",
+              Joiner.on(", ").join(lockNames),
+              Optional.ofNullable(sanitizedTld).orElse("(null)"),
+              Duration.between(startTime, clock.now()),
+              startTime),
+          e);
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      // Unwrap the execution exception and throw its root cause.
+      Throwable cause = e.getCause();
+      throwIfUnchecked(cause);
+      throw new RuntimeException(cause);
+    } catch (Exception e) {
+      throwIfUnchecked(e);
+      throw new RuntimeException(e);
+    }
+  }
+
+  private boolean callWithLocks(
+      Callable<Void> callable,
+      @Nullable String tld,
+      ImmutableSortedSet<String> lockNames,
+      AtomicReference<Connection> lockConnection)
+      throws Exception {
+    Connection connection = openConnection();
+    Deque<AdvisoryLock> acquiredLocks = new ArrayDeque<>();
+    try {
+      // Without auto-commit, the connection would sit idle in a transaction while the work runs.
+      connection.setAutoCommit(true);
+      lockConnection.set(connection);
+      for (String lockName : lockNames) {
+        Optional<AdvisoryLock> lock = AdvisoryLock.tryAcquire(connection, lockName, tld, clock);
+        if (lock.isEmpty()) {
+          logger.atInfo().log("Couldn't acquire lock named: %s for TLD %s.", lockName, tld);
+          return false;
+        }
+        acquiredLocks.push(lock.get());
+      }
+      callable.call();
+      return true;
+    } finally {
+      releaseAll(connection, acquiredLocks);
+      // Make sure a timeout can't abort the connection once it is back in the pool.
+      synchronized (lockConnection) {
+        lockConnection.set(null);
+      }
+      connection.close();
+    }
+  }
+
+  /** Releases the locks, in the reverse order they were acquired. */
+  private static void releaseAll(Connection connection, Deque<AdvisoryLock> locks) {
+    try {
+      while (!locks.isEmpty()) {
+        locks.pop().release();
+      }
+    } catch (SQLException e) {
+      // Never return a connection that may still hold locks to the pool.
+      logger.atWarning().withCause(e).log("Failed to release locks, aborting their connection.");
+      abort(connection);
+    }
+  }
+
+  /** Takes a connection from the pool that is not shared with any {@link EntityManager}. */
+  private static Connection openConnection() throws SQLException {
+    EntityManager entityManager = tm().getStandaloneEntityManager();
+    try {
+      return entityManager
+          .getEntityManagerFactory()
+          .unwrap(SessionFactoryImplementor.class)
+          .getServiceRegistry()
+          .getService(ConnectionProvider.class)
+          .getConnection();
+    } finally {
+      entityManager.close();
+    }
+  }
+
+  /** Closes the physical connection, which releases every advisory lock it holds. */
+  private static void abort(@Nullable Connection connection) {
+    if (connection == null) {
+      return;
+    }
+    try {
+      connection.abort(MoreExecutors.directExecutor());
+    } catch (SQLException e) {
+      logger.atWarning().withCause(e).log("Failed to abort the connection holding the locks.");
+    }
+  }
+}
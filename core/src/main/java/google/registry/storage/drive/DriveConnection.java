@@ -15,7 +15,9 @@
 package google.registry.storage.drive;
 
 import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.AbstractInputStreamContent;
 import com.google.api.client.http.ByteArrayContent;
+import com.google.api.client.http.FileContent;
 import com.google.api.services.drive.Drive;
 import com.google.api.services.drive.Drive.Files;
 import com.google.api.services.drive.model.File;
@@ -26,6 +28,7 @@ import com.google.common.flogger.FluentLogger;
 import com.google.common.net.MediaType;
 import jakarta.inject.Inject;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 import javax.annotation.Nullable;
 
@@ -70,11 +73,19 @@ public class DriveConnection {
    */
   public String createFile(String name, MediaType mimeType, String parentFolderId, byte[] bytes)
       throws IOException {
+    return createFile(
+        name, mimeType, parentFolderId, new ByteArrayContent(mimeType.toString(), bytes));
+  }
+
+  private String createFile(
+      String name,
+      MediaType mimeType,
+      String parentFolderId,
+      AbstractInputStreamContent content)
+      throws IOException {
     return drive
         .files()
-        .create(
-            createFileReference(name, mimeType, parentFolderId),
-            new ByteArrayContent(mimeType.toString(), bytes))
+        .create(createFileReference(name, mimeType, parentFolderId), content)
         .execute()
         .getId();
   }
@@ -89,6 +100,34 @@ public class DriveConnection {
    */
   public String createOrUpdateFile(
       String name, MediaType mimeType, String parentFolderId, byte[] bytes) throws IOException {
+    return createOrUpdateFile(
+        name, mimeType, parentFolderId, new ByteArrayContent(mimeType.toString(), bytes));
+  }
+
+  /**
+   * Creates a file with the given parent from the contents of a local file, or updates the existing
+   * one if a file already exists with that same name and parent.
+   *
+   * <p>Unlike {@link #createOrUpdateFile(String, MediaType, String, byte[])}, the contents are
+   * never held in memory all at once; they are read from disk as they are sent in a resumable
+   * upload, which makes this the method to use for large files.
+   *
+   * @return the file id.
+   * @throws IllegalStateException if multiple files with that name exist in the given folder.
+   * @throws IOException if communication with Google Drive fails for any reason.
+   */
+  public String createOrUpdateFileFromPath(
+      String name, MediaType mimeType, String parentFolderId, Path path) throws IOException {
+    return createOrUpdateFile(
+        name, mimeType, parentFolderId, new FileContent(mimeType.toString(), path.toFile()));
+  }
+
+  private String createOrUpdateFile(
+      String name,
+      MediaType mimeType,
+      String parentFolderId,
+      AbstractInputStreamContent content)
+      throws IOException {
     List<String> existingFiles = listFiles(parentFolderId, String.format("name = '%s'", name));
     if (existingFiles.size() > 1) {
       throw new IllegalStateException(
@@ -98,8 +137,8 @@ public class DriveConnection {
               name, parentFolderId));
     }
     return existingFiles.isEmpty()
-        ? createFile(name, mimeType, parentFolderId, bytes)
-        : updateFile(existingFiles.getFirst(), name, mimeType, bytes);
+        ? createFile(name, mimeType, parentFolderId, content)
+        : updateFile(existingFiles.getFirst(), name, content);
   }
 
   /**
@@ -110,12 +149,13 @@ public class DriveConnection {
    */
   public String updateFile(String fileId, String name, MediaType mimeType, byte[] bytes)
       throws IOException {
+    return updateFile(fileId, name, new ByteArrayContent(mimeType.toString(), bytes));
+  }
+
+  private String updateFile(String fileId, String name, AbstractInputStreamContent content)
+      throws IOException {
     File file = new File().setName(name);
-    return drive
-        .files()
-        .update(fileId, file, new ByteArrayContent(mimeType.toString(), bytes))
-        .execute()
-        .getId();
+    return drive.files().update(fileId, file, content).execute().getId();
   }
 
   /**
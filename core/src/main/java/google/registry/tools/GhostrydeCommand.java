@@ -31,6 +31,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.zip.Deflater;
 import javax.annotation.Nullable;
 import org.bouncycastle.openpgp.PGPPrivateKey;
 import org.bouncycastle.openpgp.PGPPublicKey;
@@ -67,6 +68,13 @@ final class GhostrydeCommand implements Command {
   @Nullable
   private Path output;
 
+  @Parameter(
+      names = {"-l", "--compression_level"},
+      description =
+          "Deflate compression level in --encrypt mode, from 1 (fastest) to 9 (smallest), or -1 for"
+              + " the default level.")
+  private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+
   @Inject
   @Key("rdeStagingEncryptionKey")
   Provider<PGPPublicKey> rdeStagingEncryptionKey;
@@ -78,6 +86,12 @@ final class GhostrydeCommand implements Command {
   @Override
   public void run() throws Exception {
     checkArgument(encrypt ^ decrypt, "Please specify either --encrypt or --decrypt");
+    checkArgument(
+        compressionLevel == Deflater.DEFAULT_COMPRESSION
+            || (compressionLevel >= Deflater.BEST_SPEED
+                && compressionLevel <= Deflater.BEST_COMPRESSION),
+        "Invalid --compression_level: %s",
+        compressionLevel);
     if (encrypt) {
       checkArgumentNotNull(output, "--output path is required in --encrypt mode");
       runEncrypt();
@@ -96,7 +110,7 @@ final class GhostrydeCommand implements Command {
                 ? null
                 : Files.asByteSink(lenOutFile.toFile()).openBufferedStream();
         OutputStream ghostrydeEncoder =
-            Ghostryde.encoder(out, rdeStagingEncryptionKey.get(), lenOut);
+            Ghostryde.encoder(out, rdeStagingEncryptionKey.get(), lenOut, compressionLevel);
         InputStream in = Files.asByteSource(input.toFile()).openBufferedStream()) {
       ByteStreams.copy(in, ghostrydeEncoder);
     }
@@ -15,6 +15,7 @@
 package google.registry.tools.server;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.io.BaseEncoding.base16;
 import static google.registry.model.EppResourceUtils.loadAtPointInTime;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
@@ -27,6 +28,9 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.flogger.FluentLogger;
+import com.google.monitoring.metrics.IncrementableMetric;
+import com.google.monitoring.metrics.LabelDescriptor;
+import com.google.monitoring.metrics.MetricRegistryImpl;
 import google.registry.config.RegistryConfig.Config;
 import google.registry.gcs.GcsUtils;
 import google.registry.model.domain.Domain;
@@ -34,12 +38,15 @@ import google.registry.model.domain.secdns.DomainDsData;
 import google.registry.model.host.Host;
 import google.registry.model.tld.Tld;
 import google.registry.model.tld.Tlds;
+import google.registry.persistence.VKey;
 import google.registry.request.Action;
 import google.registry.request.HttpException.BadRequestException;
 import google.registry.request.JsonActionRunner;
 import google.registry.request.auth.Auth;
 import google.registry.util.Clock;
+import google.registry.util.Concurrent;
 import jakarta.inject.Inject;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
@@ -49,6 +56,8 @@ import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.hibernate.CacheMode;
@@ -77,6 +86,28 @@ public class GenerateZoneFilesAction implements Runnable, JsonActionRunner.JsonA
   /** Number of domains to process in one batch. */
   private static final int BATCH_SIZE = 1000;
 
+  /** Maximum number of TLDs whose zone files are generated in parallel. */
+  private static final int MAX_PARALLEL_TLDS = 4;
+
+  private static final ImmutableSet<LabelDescriptor> LABEL_DESCRIPTORS =
+      ImmutableSet.of(LabelDescriptor.create("tld", "TLD"));
+
+  private static final IncrementableMetric domainsScanned =
+      MetricRegistryImpl.getDefault()
+          .newIncrementableMetric(
+              "/zone_files/domains_scanned",
+              "Count of domains scanned while generating zone files",
+              "count",
+              LABEL_DESCRIPTORS);
+
+  private static final IncrementableMetric stanzasWritten =
+      MetricRegistryImpl.getDefault()
+          .newIncrementableMetric(
+              "/zone_files/stanzas_written",
+              "Count of stanzas written to zone files",
+              "count",
+              LABEL_DESCRIPTORS);
+
   /** Format for the zone file name. */
   private static final String FILENAME_FORMAT = "%s-%s.zone";
 
@@ -133,7 +164,13 @@ public class GenerateZoneFilesAction implements Runnable, JsonActionRunner.JsonA
       throw new BadRequestException(
           String.format("Invalid export time: must be < %d days ago", databaseRetention.toDays()));
     }
-    tlds.forEach(tld -> generateForTld(tld, exportTime));
+    Concurrent.transform(
+        tlds.asList(),
+        MAX_PARALLEL_TLDS,
+        tld -> {
+          generateForTld(tld, exportTime);
+          return tld;
+        });
     ImmutableList<String> filenames =
         tlds.stream()
             .map(
@@ -146,21 +183,32 @@ public class GenerateZoneFilesAction implements Runnable, JsonActionRunner.JsonA
   }
 
   private void generateForTld(String tld, Instant exportTime) {
-    ImmutableList<String> stanzas = tm().transact(() -> getStanzasForTld(tld, exportTime));
     BlobId outputBlobId = BlobId.of(bucket, String.format(FILENAME_FORMAT, tld, exportTime));
-    try (OutputStream gcsOutput = gcsUtils.openOutputStream(outputBlobId);
-        Writer osWriter = new OutputStreamWriter(gcsOutput, UTF_8);
-        PrintWriter writer = new PrintWriter(osWriter)) {
-      writer.printf(HEADER_FORMAT, tld);
-      stanzas.forEach(writer::println);
-      writer.flush();
-    } catch (IOException e) {
-      throw new RuntimeException(e);
-    }
+    // Stanzas are written out as the domains are scrolled through, so that the zone file never has
+    // to be held in memory. The output is opened inside the transaction so that a retried
+    // transaction starts the file over instead of appending to it.
+    long stanzaCount =
+        tm().transact(
+                () -> {
+                  try (OutputStream gcsOutput = gcsUtils.openOutputStream(outputBlobId);
+                      Writer osWriter = new OutputStreamWriter(gcsOutput, UTF_8);
+                      PrintWriter writer = new PrintWriter(new BufferedWriter(osWriter))) {
+                    writer.printf(HEADER_FORMAT, tld);
+                    long count = writeStanzasForTld(tld, exportTime, writer);
+                    writer.flush();
+                    if (writer.checkError()) {
+                      throw new IOException("Failed to write zone file " + outputBlobId);
+                    }
+                    return count;
+                  } catch (IOException e) {
+                    throw new RuntimeException(e);
+                  }
+                });
+    log.atInfo().log("Wrote %d stanzas to zone file for TLD %s.", stanzaCount, tld);
   }
 
-  private ImmutableList<String> getStanzasForTld(String tld, Instant exportTime) {
-    ImmutableList.Builder<String> result = new ImmutableList.Builder<>();
+  /** Writes the stanzas for all domains in the TLD, returning the number of stanzas written. */
+  private long writeStanzasForTld(String tld, Instant exportTime, PrintWriter writer) {
     ScrollableResults<Domain> scrollableResults =
         tm().query("FROM Domain WHERE tld = :tld AND deletionTime > :exportTime", Domain.class)
             .setParameter("tld", tld)
@@ -168,54 +216,103 @@ public class GenerateZoneFilesAction implements Runnable, JsonActionRunner.JsonA
             .unwrap(SelectionQuery.class)
             .setCacheMode(CacheMode.IGNORE)
             .scroll(ScrollMode.FORWARD_ONLY);
-    for (int i = 1; scrollableResults.next(); i = (i + 1) % BATCH_SIZE) {
-      Domain domain = scrollableResults.get();
-      populateStanzasForDomain(domain, exportTime, result);
-      if (i == 0) {
+    List<Domain> page = new ArrayList<>(BATCH_SIZE);
+    long domainCount = 0;
+    long stanzaCount = 0;
+    while (scrollableResults.next()) {
+      page.add(scrollableResults.get());
+      if (page.size() == BATCH_SIZE) {
+        stanzaCount += writeStanzasForPage(page, exportTime, writer);
+        domainCount += page.size();
+        page.clear();
         tm().getEntityManager().flush();
         tm().getEntityManager().clear();
+        log.atInfo().log(
+            "Zone file for TLD %s: scanned %d domains, wrote %d stanzas so far.",
+            tld, domainCount, stanzaCount);
       }
     }
-    return result.build();
+    stanzaCount += writeStanzasForPage(page, exportTime, writer);
+    domainCount += page.size();
+    log.atInfo().log(
+        "Zone file for TLD %s: scanned %d domains, wrote %d stanzas.",
+        tld, domainCount, stanzaCount);
+    return stanzaCount;
   }
 
-  private void populateStanzasForDomain(
-      Domain domain, Instant exportTime, ImmutableList.Builder<String> result) {
-    domain = loadAtPointInTime(domain, exportTime);
-    // A null means the domain was deleted (or not created) at this time.
-    if (domain == null || !domain.shouldPublishToDns()) {
-      return;
+  /**
+   * Writes the stanzas for one page of scrolled domains, returning the number of stanzas written.
+   *
+   * <p>The nameservers of all domains on the page are loaded in a single query and projected to the
+   * export time once, since many domains share the same nameservers.
+   */
+  private int writeStanzasForPage(List<Domain> page, Instant exportTime, PrintWriter writer) {
+    if (page.isEmpty()) {
+      return 0;
     }
-    String stanza = domainStanza(domain, exportTime);
-    if (!stanza.isEmpty()) {
-      result.add(stanza);
+    ImmutableList<Domain> domains =
+        page.stream()
+            .map(domain -> loadAtPointInTime(domain, exportTime))
+            // A null means the domain was deleted (or not created) at this time.
+            .filter(domain -> domain != null && domain.shouldPublishToDns())
+            .collect(toImmutableList());
+    ImmutableMap<VKey<? extends Host>, Host> unprojectedHosts =
+        tm().loadByKeys(
+            domains.stream()
+                .flatMap(domain -> domain.getNameservers().stream())
+                .collect(toImmutableSet()));
+    // Load the nameservers at the export time in case they've been renamed or deleted. Hosts that
+    // didn't exist at that time are left out.
+    Map<VKey<? extends Host>, Host> hosts = new HashMap<>();
+    unprojectedHosts.forEach(
+        (key, unprojectedHost) -> {
+          Host host = loadAtPointInTime(unprojectedHost, exportTime);
+          if (host != null) {
+            hosts.put(key, host);
+          }
+        });
+    int stanzaCount = 0;
+    for (Domain domain : domains) {
+      String stanza = domainStanza(domain, hosts, exportTime);
+      if (!stanza.isEmpty()) {
+        writer.println(stanza);
+        stanzaCount++;
+      }
+      stanzaCount += writeStanzasForSubordinateHosts(domain, hosts, exportTime, writer);
     }
-    populateStanzasForSubordinateHosts(domain, exportTime, result);
+    stanzasWritten.incrementBy(stanzaCount, page.get(0).getTld());
+    domainsScanned.incrementBy(page.size(), page.get(0).getTld());
+    return stanzaCount;
   }
 
-  private void populateStanzasForSubordinateHosts(
-      Domain domain, Instant exportTime, ImmutableList.Builder<String> result) {
+  private int writeStanzasForSubordinateHosts(
+      Domain domain,
+      Map<VKey<? extends Host>, Host> hosts,
+      Instant exportTime,
+      PrintWriter writer) {
     ImmutableSet<String> subordinateHosts = domain.getSubordinateHosts();
+    int stanzaCount = 0;
     if (!subordinateHosts.isEmpty()) {
-      for (Host unprojectedHost : tm().loadByKeys(domain.getNameservers()).values()) {
-        Host host = loadAtPointInTime(unprojectedHost, exportTime);
-        // A null means the host was deleted (or not created) at this time.
+      for (VKey<Host> nameserver : domain.getNameservers()) {
+        Host host = hosts.get(nameserver);
         if (host != null && subordinateHosts.contains(host.getHostName())) {
           String stanza = hostStanza(host, domain.getTld());
           if (!stanza.isEmpty()) {
-            result.add(stanza);
+            writer.println(stanza);
+            stanzaCount++;
           }
         } else if (host == null) {
           log.atSevere().log(
               "Domain %s contained nameserver %s that didn't exist at time %s",
-              domain.getRepoId(), unprojectedHost.getRepoId(), exportTime);
+              domain.getRepoId(), nameserver.getKey(), exportTime);
         } else {
           log.atSevere().log(
               "Domain %s contained nameserver %s not in subordinate hosts at time %s",
-              domain.getRepoId(), unprojectedHost.getRepoId(), exportTime);
+              domain.getRepoId(), nameserver.getKey(), exportTime);
         }
       }
     }
+    return stanzaCount;
   }
 
   /**
@@ -230,17 +327,17 @@ public class GenerateZoneFilesAction implements Runnable, JsonActionRunner.JsonA
    * }
    * </pre>
    */
-  private String domainStanza(Domain domain, Instant exportTime) {
+  private String domainStanza(
+      Domain domain, Map<VKey<? extends Host>, Host> hosts, Instant exportTime) {
     StringBuilder result = new StringBuilder();
     String domainLabel = stripTld(domain.getDomainName(), domain.getTld());
     Tld tld = Tld.get(domain.getTld());
-    for (Host nameserver : tm().loadByKeys(domain.getNameservers()).values()) {
-      // Load the nameservers at the export time in case they've been renamed or deleted
-      Host host = loadAtPointInTime(nameserver, exportTime);
+    for (VKey<Host> nameserver : domain.getNameservers()) {
+      Host host = hosts.get(nameserver);
       if (host == null) {
         log.atSevere().log(
             "Domain %s contained nameserver %s that didn't exist at time %s",
-            domain.getRepoId(), nameserver.getRepoId(), exportTime);
+            domain.getRepoId(), nameserver.getKey(), exportTime);
         continue;
       }
       result.append(
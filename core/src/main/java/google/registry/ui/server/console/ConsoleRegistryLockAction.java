@@ -38,6 +38,7 @@ import google.registry.request.Action.Service;
 import google.registry.request.Parameter;
 import google.registry.request.Response;
 import google.registry.request.auth.Auth;
+import google.registry.request.auth.OidcTokenAuthenticationMechanism;
 import google.registry.tools.DomainLockUtils;
 import google.registry.util.EmailMessage;
 import google.registry.util.PasswordUtils.HashAlgorithm;
@@ -129,7 +130,11 @@ public class ConsoleRegistryLockAction extends ConsoleApiAction {
     boolean isAdmin = user.getUserRoles().isAdmin();
     if (!isAdmin) {
       checkArgument(postInput.password != null, "No password provided");
-      Optional<HashAlgorithm> hashAlgorithm = user.getCurrentHashAlgorithm(postInput.password);
+      // The authenticated user may have been cached, so check the password against the stored one
+      // in case it has been reset since.
+      User storedUser = tm().transact(() -> tm().loadByEntity(user));
+      Optional<HashAlgorithm> hashAlgorithm =
+          storedUser.getCurrentHashAlgorithm(postInput.password);
       if (hashAlgorithm.isEmpty()) {
         setFailedResponse("Incorrect registry lock password", SC_UNAUTHORIZED);
         return;
@@ -146,6 +151,7 @@ public class ConsoleRegistryLockAction extends ConsoleApiAction {
                                 .removeRegistryLockPassword()
                                 .setRegistryLockPassword(postInput.password)
                                 .build()));
+        OidcTokenAuthenticationMechanism.invalidateCachedUser(user.getEmailAddress());
       }
     }
 
@@ -48,6 +48,7 @@ import google.registry.request.Action.Service;
 import google.registry.request.HttpException.BadRequestException;
 import google.registry.request.Parameter;
 import google.registry.request.auth.Auth;
+import google.registry.request.auth.OidcTokenAuthenticationMechanism;
 import google.registry.tools.IamClient;
 import google.registry.util.DiffUtils;
 import google.registry.util.StringGenerator;
@@ -107,13 +108,18 @@ public class ConsoleUsersAction extends ConsoleApiAction {
   @Override
   protected void postHandler(User user) {
     checkPermission(user, registrarId, ConsolePermission.MANAGE_USERS);
-    tm().transact(() -> runPostInTransaction(user));
+    String email = tm().transact(() -> runPostInTransaction(user));
+    // A new address may have been cached as not belonging to any user. This is only invalidated
+    // once the transaction has committed, as a concurrent request could otherwise cache the user as
+    // it was before the change.
+    OidcTokenAuthenticationMechanism.invalidateCachedUser(email);
   }
 
   @Override
   protected void putHandler(User user) {
     checkPermission(user, registrarId, ConsolePermission.MANAGE_USERS);
-    tm().transact(this::runUpdateInTransaction);
+    tm().transact(this::runUpdateInTransaction)
+        .ifPresent(OidcTokenAuthenticationMechanism::invalidateCachedUser);
   }
 
   @Override
@@ -137,19 +143,21 @@ public class ConsoleUsersAction extends ConsoleApiAction {
   @Override
   protected void deleteHandler(User user) {
     checkPermission(user, registrarId, ConsolePermission.MANAGE_USERS);
-    tm().transact(this::runDeleteInTransaction);
+    tm().transact(this::runDeleteInTransaction)
+        .ifPresent(OidcTokenAuthenticationMechanism::invalidateCachedUser);
   }
 
-  private void runPostInTransaction(User callingUser) throws IOException {
+  /** Creates or appends the user, and returns the email address of the user that was modified. */
+  private String runPostInTransaction(User callingUser) throws IOException {
     validateRequestParams();
     if (!tm().exists(VKey.create(User.class, this.userData.get().emailAddress))) {
-      this.runCreate();
+      return this.runCreate();
     } else {
-      this.runAppendUserToExistingRegistrar(callingUser);
+      return this.runAppendUserToExistingRegistrar(callingUser);
     }
   }
 
-  private void runAppendUserToExistingRegistrar(User callingUser) {
+  private String runAppendUserToExistingRegistrar(User callingUser) {
     ImmutableList<User> allRegistrarUsers = getAllRegistrarUsers(registrarId);
     if (allRegistrarUsers.size() >= 4) {
       throw new BadRequestException("Total users amount per registrar is limited to 4");
@@ -170,11 +178,13 @@ public class ConsoleUsersAction extends ConsoleApiAction {
 
     sendConfirmationEmail(registrarId, this.userData.get().emailAddress, "Added existing user");
     consoleApiParams.response().setStatus(SC_OK);
+    return this.userData.get().emailAddress;
   }
 
-  private void runDeleteInTransaction() throws IOException {
+  /** Deletes the user, and returns the email address of the user if it was modified. */
+  private Optional<String> runDeleteInTransaction() throws IOException {
     if (!isModifyingRequestValid()) {
-      return;
+      return Optional.empty();
     }
 
     String email = this.userData.get().emailAddress;
@@ -218,9 +228,10 @@ public class ConsoleUsersAction extends ConsoleApiAction {
     }
 
     consoleApiParams.response().setStatus(SC_OK);
+    return Optional.of(email);
   }
 
-  private void runCreate() throws IOException {
+  private String runCreate() throws IOException {
     ImmutableList<User> allRegistrarUsers = getAllRegistrarUsers(registrarId);
     if (allRegistrarUsers.size() >= 4) {
       throw new BadRequestException("Total users amount per registrar is limited to 4");
@@ -274,11 +285,13 @@ public class ConsoleUsersAction extends ConsoleApiAction {
             .setDescription(
                 String.format(
                     "%s%s%s", registrarId, ConsoleUpdateHistory.DESCRIPTION_SEPARATOR, newEmail)));
+    return newEmail;
   }
 
-  private void runUpdateInTransaction() {
+  /** Updates the user, and returns the email address of the user if it was modified. */
+  private Optional<String> runUpdateInTransaction() {
     if (!isModifyingRequestValid()) {
-      return;
+      return Optional.empty();
     }
 
     User userToUpdate = verifyUserExists(this.userData.get().emailAddress);
@@ -302,6 +315,7 @@ public class ConsoleUsersAction extends ConsoleApiAction {
                     registrarId,
                     ConsoleUpdateHistory.DESCRIPTION_SEPARATOR,
                     this.userData.get().emailAddress)));
+    return Optional.of(this.userData.get().emailAddress);
   }
 
   private boolean isModifyingRequestValid() {
@@ -32,6 +32,7 @@ import google.registry.persistence.VKey;
 import google.registry.request.Action;
 import google.registry.request.Parameter;
 import google.registry.request.auth.Auth;
+import google.registry.request.auth.OidcTokenAuthenticationMechanism;
 import jakarta.inject.Inject;
 import jakarta.servlet.http.HttpServletResponse;
 import java.util.Optional;
@@ -70,25 +71,34 @@ public class PasswordResetVerifyAction extends ConsoleApiAction {
   @Override
   protected void postHandler(User user) {
     checkArgument(!Strings.isNullOrEmpty(newPassword.orElse(null)), "Password must be provided");
-    tm().transact(
-            () -> {
-              PasswordResetRequest request = loadAndValidateResetRequest(user);
-              switch (request.getType()) {
-                case EPP -> handleEppPasswordReset(request);
-                case REGISTRY_LOCK -> handleRegistryLockPasswordReset(request);
-              }
-              tm().put(request.asBuilder().setFulfillmentTime(tm().getTxTime()).build());
-
-              finishAndPersistConsoleUpdateHistory(
-                  new ConsoleUpdateHistory.Builder()
-                      .setType(ConsoleUpdateHistory.Type.EPP_PASSWORD_UPDATE)
-                      .setDescription(
-                          String.format(
-                              "%s%s%s",
-                              request.getRegistrarId(),
-                              ConsoleUpdateHistory.DESCRIPTION_SEPARATOR,
-                              "Password reset fulfilled via verification code")));
-            });
+    Optional<String> affectedUserEmail =
+        tm().transact(
+                () -> {
+                  PasswordResetRequest request = loadAndValidateResetRequest(user);
+                  Optional<String> modifiedUserEmail =
+                      switch (request.getType()) {
+                        case EPP -> {
+                          handleEppPasswordReset(request);
+                          yield Optional.empty();
+                        }
+                        case REGISTRY_LOCK -> Optional.of(handleRegistryLockPasswordReset(request));
+                      };
+                  tm().put(request.asBuilder().setFulfillmentTime(tm().getTxTime()).build());
+
+                  finishAndPersistConsoleUpdateHistory(
+                      new ConsoleUpdateHistory.Builder()
+                          .setType(ConsoleUpdateHistory.Type.EPP_PASSWORD_UPDATE)
+                          .setDescription(
+                              String.format(
+                                  "%s%s%s",
+                                  request.getRegistrarId(),
+                                  ConsoleUpdateHistory.DESCRIPTION_SEPARATOR,
+                                  "Password reset fulfilled via verification code")));
+                  return modifiedUserEmail;
+                });
+    // The cached user still has the old registry lock password, so drop it once the new one has
+    // been committed.
+    affectedUserEmail.ifPresent(OidcTokenAuthenticationMechanism::invalidateCachedUser);
     consoleApiParams.response().setStatus(HttpServletResponse.SC_OK);
   }
 
@@ -97,7 +107,8 @@ public class PasswordResetVerifyAction extends ConsoleApiAction {
     tm().put(registrar.asBuilder().setPassword(newPassword.get()).build());
   }
 
-  private void handleRegistryLockPasswordReset(PasswordResetRequest request) {
+  /** Resets the registry lock password, and returns the email address of the affected user. */
+  private String handleRegistryLockPasswordReset(PasswordResetRequest request) {
     User affectedUser =
         checkUserExistsWithRegistryLockEmail(
             request.getDestinationEmail(), request.getRegistrarId());
@@ -107,6 +118,7 @@ public class PasswordResetVerifyAction extends ConsoleApiAction {
                 .removeRegistryLockPassword()
                 .setRegistryLockPassword(newPassword.get())
                 .build());
+    return affectedUser.getEmailAddress();
   }
 
   private PasswordResetRequest loadAndValidateResetRequest(User user) {
@@ -39,17 +39,19 @@ public final class XmlFragmentMarshaller {
   private final ByteArrayOutputStream os = new ByteArrayOutputStream();
   private final Marshaller marshaller;
   private final Schema schema;
+  private final boolean formattedOutput;
 
-  XmlFragmentMarshaller(JAXBContext jaxbContext, Schema schema) {
+  XmlFragmentMarshaller(JAXBContext jaxbContext, Schema schema, boolean formattedOutput) {
     try {
       marshaller = jaxbContext.createMarshaller();
       marshaller.setProperty(Marshaller.JAXB_ENCODING, UTF_8.toString());
-      marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+      marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, formattedOutput);
       marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
     } catch (JAXBException e) {
       throw new RuntimeException(e);
     }
     this.schema = schema;
+    this.formattedOutput = formattedOutput;
   }
 
   /**
@@ -86,10 +88,13 @@ public final class XmlFragmentMarshaller {
       throw new RuntimeException("Mysterious XML exception", e);
     }
     String fragment = new String(os.toByteArray(), UTF_8);
-    int endOfFirstLine = fragment.indexOf(">\n");
-    verify(endOfFirstLine > 0, "Bad XML fragment:\n%s", fragment);
-    String firstLine = fragment.substring(0, endOfFirstLine + 2);
-    String rest = fragment.substring(firstLine.length());
-    return XMLNS_PATTERN.matcher(firstLine).replaceAll("") + rest;
+    // The namespace declarations are all on the first tag, and are removed because the fragment
+    // is going to be embedded in a document that already declares them.
+    int endOfFirstTag = fragment.indexOf('>');
+    verify(endOfFirstTag > 0, "Bad XML fragment:\n%s", fragment);
+    String firstTag = fragment.substring(0, endOfFirstTag + 1);
+    String rest = fragment.substring(firstTag.length());
+    // Formatted fragments end with a newline, keep compact ones one per line as well.
+    return XMLNS_PATTERN.matcher(firstTag).replaceAll("") + rest + (formattedOutput ? "" : "\n");
   }
 }
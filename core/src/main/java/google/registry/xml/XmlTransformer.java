@@ -233,9 +233,19 @@ public class XmlTransformer {
     }
   }
 
-  /** Returns new instance of {@link XmlFragmentMarshaller}. */
+  /** Returns new instance of {@link XmlFragmentMarshaller} with formatted output. */
   public XmlFragmentMarshaller createFragmentMarshaller() {
-    return new XmlFragmentMarshaller(jaxbContext, schema);
+    return createFragmentMarshaller(true);
+  }
+
+  /**
+   * Returns new instance of {@link XmlFragmentMarshaller}.
+   *
+   * @param formattedOutput whether to indent the fragments and put each element on its own line,
+   *     otherwise each fragment is a single line
+   */
+  public XmlFragmentMarshaller createFragmentMarshaller(boolean formattedOutput) {
+    return new XmlFragmentMarshaller(jaxbContext, schema, formattedOutput);
   }
 
   /** Creates a single {@link Schema} from multiple {@code .xsd} files. */
@@ -14,6 +14,7 @@
 
 package google.registry.batch;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.truth.Truth.assertThat;
 import static google.registry.request.Action.Method.GET;
 import static google.registry.request.Action.Method.POST;
@@ -30,10 +31,12 @@ import com.google.cloud.tasks.v2.Task;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.LinkedListMultimap;
+import google.registry.batch.CloudTasksUtils.BulkEnqueueException;
 import google.registry.batch.CloudTasksUtils.SerializableCloudTasksClient;
 import google.registry.request.Action;
 import google.registry.request.Action.Service;
 import google.registry.request.auth.Auth;
+import google.registry.testing.CloudTasksHelper;
 import google.registry.testing.CloudTasksHelper.FakeGoogleCredentialsBundle;
 import google.registry.testing.FakeClock;
 import google.registry.testing.FakeSleeper;
@@ -42,6 +45,7 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -110,6 +114,95 @@ public class CloudTasksUtilsTest {
     verify(mockClient).enqueue("project", "location", "test-queue", task2);
   }
 
+  @Test
+  void testSuccess_enqueueTasks_concurrentlyWithBoundedRequests() {
+    CloudTasksHelper cloudTasksHelper =
+        new CloudTasksHelper(clock).setEnqueueLatency(Duration.ofMillis(20));
+    ImmutableList<Task> tasks = createTasks(40);
+
+    ImmutableList<Task> enqueued =
+        cloudTasksHelper.getTestCloudTasksUtils().enqueue("test-queue", tasks, 8);
+
+    assertThat(enqueued).containsExactlyElementsIn(tasks).inOrder();
+    assertThat(cloudTasksHelper.getTestTasksFor("test-queue")).containsExactlyElementsIn(tasks);
+    assertThat(cloudTasksHelper.getMaxConcurrentEnqueues()).isGreaterThan(1);
+    assertThat(cloudTasksHelper.getMaxConcurrentEnqueues()).isAtMost(8);
+  }
+
+  @Test
+  void testSuccess_enqueueTasks_resultsInInputOrder() {
+    ImmutableList<Task> tasks = createTasks(3);
+    // The first task takes the longest, so it finishes last.
+    when(mockClient.enqueue("project", "location", "test-queue", tasks.get(0)))
+        .thenAnswer(
+            invocation -> {
+              Thread.sleep(50);
+              return invocation.getArgument(3);
+            });
+    assertThat(cloudTasksUtils.enqueue("test-queue", tasks))
+        .containsExactlyElementsIn(tasks)
+        .inOrder();
+  }
+
+  @Test
+  void testFailure_enqueueTasks_failuresAggregated() {
+    ImmutableList<Task> tasks = createTasks(4);
+    when(mockClient.enqueue("project", "location", "test-queue", tasks.get(1)))
+        .thenThrow(new IllegalStateException("first"));
+    when(mockClient.enqueue("project", "location", "test-queue", tasks.get(3)))
+        .thenThrow(new IllegalStateException("second"));
+
+    BulkEnqueueException thrown =
+        assertThrows(
+            BulkEnqueueException.class, () -> cloudTasksUtils.enqueue("test-queue", tasks));
+
+    assertThat(thrown)
+        .hasMessageThat()
+        .isEqualTo("Failed to enqueue 2 of 4 tasks to queue test-queue");
+    assertThat(thrown).hasCauseThat().hasMessageThat().isEqualTo("first");
+    assertThat(thrown.getSuppressed()).hasLength(1);
+    assertThat(thrown.getSuppressed()[0]).hasMessageThat().isEqualTo("second");
+    assertThat(thrown.getEnqueuedTasks()).containsExactly(tasks.get(0), tasks.get(2)).inOrder();
+    assertThat(thrown.getFailedTasks()).containsExactly(tasks.get(1), tasks.get(3)).inOrder();
+    // A failed task doesn't stop the others from being enqueued.
+    verify(mockClient).enqueue("project", "location", "test-queue", tasks.get(2));
+  }
+
+  @Test
+  void testFailure_enqueueTasks_singleTask_throwsBulkEnqueueException() {
+    ImmutableList<Task> tasks = createTasks(1);
+    when(mockClient.enqueue("project", "location", "test-queue", tasks.get(0)))
+        .thenThrow(new IllegalStateException("failed"));
+
+    BulkEnqueueException thrown =
+        assertThrows(
+            BulkEnqueueException.class, () -> cloudTasksUtils.enqueue("test-queue", tasks));
+
+    assertThat(thrown)
+        .hasMessageThat()
+        .isEqualTo("Failed to enqueue 1 of 1 tasks to queue test-queue");
+    assertThat(thrown).hasCauseThat().hasMessageThat().isEqualTo("failed");
+    assertThat(thrown.getEnqueuedTasks()).isEmpty();
+    assertThat(thrown.getFailedTasks()).containsExactly(tasks.get(0));
+  }
+
+  @Test
+  void testFailure_enqueueTasks_nonPositiveMaxInFlightRequests() {
+    IllegalArgumentException thrown =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> cloudTasksUtils.enqueue("test-queue", createTasks(2), 0));
+    assertThat(thrown)
+        .hasMessageThat()
+        .isEqualTo("Maximum number of in-flight requests must be positive: 0");
+  }
+
+  private ImmutableList<Task> createTasks(int count) {
+    return IntStream.range(0, count)
+        .mapToObj(i -> cloudTasksUtils.createTask("/path/" + i, GET, Service.BACKEND, params))
+        .collect(toImmutableList());
+  }
+
   @Test
   void testSuccess_enqueueTasks_iterable() {
     Task task1 = cloudTasksUtils.createTask(TheAction.class, GET, params);
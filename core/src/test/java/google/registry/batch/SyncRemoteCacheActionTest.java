@@ -14,6 +14,7 @@
 
 package google.registry.batch;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.monitoring.metrics.contrib.LongMetricSubject.assertThat;
 import static google.registry.batch.SyncRemoteCacheAction.SyncStatus.FAILURE;
@@ -22,15 +23,18 @@ import static google.registry.batch.SyncRemoteCacheAction.SyncStatus.SUCCESS;
 import static google.registry.model.common.Cursor.CursorType.REMOTE_CACHE_DOMAIN_SYNC;
 import static google.registry.model.common.Cursor.CursorType.REMOTE_CACHE_HOST_SYNC;
 import static google.registry.testing.DatabaseHelper.createTld;
+import static google.registry.testing.DatabaseHelper.newDomain;
 import static google.registry.testing.DatabaseHelper.persistActiveDomain;
 import static google.registry.testing.DatabaseHelper.persistActiveHost;
 import static google.registry.testing.DatabaseHelper.persistDeletedDomain;
 import static google.registry.testing.DatabaseHelper.persistDeletedHost;
+import static google.registry.testing.DatabaseHelper.persistResources;
 import static google.registry.util.DateTimeUtils.minusDays;
 import static jakarta.servlet.http.HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
 import static jakarta.servlet.http.HttpServletResponse.SC_NO_CONTENT;
 import static jakarta.servlet.http.HttpServletResponse.SC_OK;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
@@ -46,12 +50,17 @@ import google.registry.testing.DatabaseHelper;
 import google.registry.testing.FakeClock;
 import google.registry.testing.FakeLockHandler;
 import google.registry.testing.FakeResponse;
+import google.registry.testing.FakeSleeper;
+import google.registry.util.Sleeper;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Optional;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
@@ -72,13 +81,32 @@ class SyncRemoteCacheActionTest {
 
   private final FakeResponse response = new FakeResponse();
   private FakeLockHandler lockHandler = new FakeLockHandler(true);
+  private Sleeper sleeper = new FakeSleeper(clock);
   private SyncRemoteCacheAction action;
 
   @BeforeEach
   void beforeEach() {
     createTld("tld");
     SyncRemoteCacheAction.SYNC_CACHE_RUNS_METRIC.reset();
-    action = new SyncRemoteCacheAction(lockHandler, response, Optional.of(jedisClient));
+    action = createAction(Optional.of(jedisClient), Duration.ZERO);
+  }
+
+  private SyncRemoteCacheAction createAction(
+      Optional<SimplifiedJedisClient> jedisClient, Duration tailDuration) {
+    return createAction(jedisClient, tailDuration, Duration.ZERO);
+  }
+
+  private SyncRemoteCacheAction createAction(
+      Optional<SimplifiedJedisClient> jedisClient, Duration tailDuration, Duration overlap) {
+    return new SyncRemoteCacheAction(
+        lockHandler,
+        response,
+        jedisClient,
+        clock,
+        sleeper,
+        tailDuration,
+        Duration.ofSeconds(5),
+        overlap);
   }
 
   private static void verifyMetrics(SyncRemoteCacheAction.SyncStatus status) {
@@ -90,7 +118,7 @@ class SyncRemoteCacheActionTest {
 
   @Test
   void test_noJedisConfig() {
-    action = new SyncRemoteCacheAction(lockHandler, response, Optional.empty());
+    action = createAction(Optional.empty(), Duration.ZERO);
     action.run();
     assertThat(response.getStatus()).isEqualTo(SC_NO_CONTENT);
     assertThat(response.getPayload()).contains("No Jedis/Valkey configuration found");
@@ -100,7 +128,7 @@ class SyncRemoteCacheActionTest {
   @Test
   void test_lockAcquisitionFails() {
     lockHandler = new FakeLockHandler(false);
-    action = new SyncRemoteCacheAction(lockHandler, response, Optional.of(jedisClient));
+    action = createAction(Optional.of(jedisClient), Duration.ZERO);
     action.run();
     assertThat(response.getStatus()).isEqualTo(SC_NO_CONTENT);
     assertThat(response.getPayload()).contains("Could not acquire lock");
@@ -109,7 +137,9 @@ class SyncRemoteCacheActionTest {
 
   @Test
   void test_exceptionThrown() {
-    doThrow(new RuntimeException("Redis failed")).when(jedisClient).deleteAll(any(), any());
+    doThrow(new RuntimeException("Redis failed"))
+        .when(jedisClient)
+        .setAndDeleteAll(any(), any(), any());
     persistActiveDomain("example.tld"); // So there is something to process
     action.run();
     assertThat(response.getStatus()).isEqualTo(SC_INTERNAL_SERVER_ERROR);
@@ -137,10 +167,12 @@ class SyncRemoteCacheActionTest {
 
     assertThat(response.getStatus()).isEqualTo(SC_OK);
     verify(jedisClient)
-        .setAll(
+        .setAndDeleteAll(
+            Domain.class,
             ImmutableList.of(
                 new SimplifiedJedisClient.JedisResource<>("example1.tld", domain1),
-                new SimplifiedJedisClient.JedisResource<>("example2.tld", domain2)));
+                new SimplifiedJedisClient.JedisResource<>("example2.tld", domain2)),
+            ImmutableList.of());
 
     assertThat(
             DatabaseHelper.loadByKey(Cursor.createGlobalVKey(REMOTE_CACHE_DOMAIN_SYNC))
@@ -159,10 +191,10 @@ class SyncRemoteCacheActionTest {
 
     assertThat(response.getStatus()).isEqualTo(SC_OK);
     verify(jedisClient)
-        .setAll(
-            ImmutableList.of(
-                new SimplifiedJedisClient.JedisResource<>("active.tld", activeDomain)));
-    verify(jedisClient).deleteAll(Domain.class, ImmutableList.of("deleted.tld"));
+        .setAndDeleteAll(
+            Domain.class,
+            ImmutableList.of(new SimplifiedJedisClient.JedisResource<>("active.tld", activeDomain)),
+            ImmutableList.of("deleted.tld"));
     verifyMetrics(SUCCESS);
   }
 
@@ -182,8 +214,10 @@ class SyncRemoteCacheActionTest {
 
     assertThat(response.getStatus()).isEqualTo(SC_OK);
     verify(jedisClient)
-        .setAll(
-            ImmutableList.of(new SimplifiedJedisClient.JedisResource<>("example2.tld", domain2)));
+        .setAndDeleteAll(
+            Domain.class,
+            ImmutableList.of(new SimplifiedJedisClient.JedisResource<>("example2.tld", domain2)),
+            ImmutableList.of());
     verifyMetrics(SUCCESS);
   }
 
@@ -207,10 +241,12 @@ class SyncRemoteCacheActionTest {
 
     assertThat(response.getStatus()).isEqualTo(SC_OK);
     verify(jedisClient)
-        .setAll(
+        .setAndDeleteAll(
+            Host.class,
             ImmutableList.of(
                 new SimplifiedJedisClient.JedisResource<>(host1.getRepoId(), host1),
-                new SimplifiedJedisClient.JedisResource<>(host2.getRepoId(), host2)));
+                new SimplifiedJedisClient.JedisResource<>(host2.getRepoId(), host2)),
+            ImmutableList.of());
 
     assertThat(
             DatabaseHelper.loadByKey(Cursor.createGlobalVKey(REMOTE_CACHE_HOST_SYNC))
@@ -229,10 +265,158 @@ class SyncRemoteCacheActionTest {
 
     assertThat(response.getStatus()).isEqualTo(SC_OK);
     verify(jedisClient)
-        .setAll(
+        .setAndDeleteAll(
+            Host.class,
+            ImmutableList.of(new SimplifiedJedisClient.JedisResource<>(active.getRepoId(), active)),
+            ImmutableList.of(deleted.getRepoId()));
+    verifyMetrics(SUCCESS);
+  }
+
+  @Test
+  void testTail_syncsChangesMadeWhileRunning() {
+    Domain domain1 = persistActiveDomain("example1.tld");
+    Domain[] laterDomain = new Domain[1];
+    sleeper =
+        new Sleeper() {
+          @Override
+          public void sleep(Duration duration) {
+            sleepUninterruptibly(duration);
+          }
+
+          @Override
+          public void sleepUninterruptibly(Duration duration) {
+            clock.advanceBy(duration);
+            if (laterDomain[0] == null) {
+              laterDomain[0] = persistActiveDomain("example2.tld");
+            }
+          }
+        };
+    action = createAction(Optional.of(jedisClient), Duration.ofSeconds(8));
+
+    action.run();
+
+    assertThat(response.getStatus()).isEqualTo(SC_OK);
+    assertThat(response.getPayload()).isEqualTo("Synced 2 domains and 0 hosts.");
+    verify(jedisClient)
+        .setAndDeleteAll(
+            Domain.class,
+            ImmutableList.of(new SimplifiedJedisClient.JedisResource<>("example1.tld", domain1)),
+            ImmutableList.of());
+    verify(jedisClient)
+        .setAndDeleteAll(
+            Domain.class,
             ImmutableList.of(
-                new SimplifiedJedisClient.JedisResource<>(active.getRepoId(), active)));
-    verify(jedisClient).deleteAll(Host.class, ImmutableList.of(deleted.getRepoId()));
+                new SimplifiedJedisClient.JedisResource<>("example2.tld", laterDomain[0])),
+            ImmutableList.of());
+    assertThat(
+            DatabaseHelper.loadByKey(Cursor.createGlobalVKey(REMOTE_CACHE_DOMAIN_SYNC))
+                .getCursorTime())
+        .isEqualTo(laterDomain[0].getUpdateTimestamp().getTimestamp());
+    // Polls at 0s and 5s, then stops since another poll at 10s would be past the 8s deadline.
+    assertThat(clock.now()).isEqualTo(Instant.parse("2025-01-01T00:00:05Z"));
+    verifyMetrics(SUCCESS);
+  }
+
+  @Test
+  void testOverlap_syncsChangeCommittedAfterPollWithOlderTimestamp() {
+    Domain domain = persistActiveDomain("example1.tld");
+    Instant cursorTime = domain.getUpdateTimestamp().getTimestamp();
+    Domain[] lateDomain = new Domain[1];
+    sleeper =
+        new Sleeper() {
+          @Override
+          public void sleep(Duration duration) {
+            sleepUninterruptibly(duration);
+          }
+
+          @Override
+          public void sleepUninterruptibly(Duration duration) {
+            Instant afterSleep = clock.now().plus(duration);
+            if (lateDomain[0] == null) {
+              // A transaction that started before the first poll, but committed after it.
+              clock.setTo(cursorTime.minusSeconds(1));
+              lateDomain[0] = persistActiveDomain("example2.tld");
+            }
+            clock.setTo(afterSleep);
+          }
+        };
+    action = createAction(Optional.of(jedisClient), Duration.ofSeconds(8), Duration.ofSeconds(30));
+
+    action.run();
+
+    assertThat(response.getStatus()).isEqualTo(SC_OK);
+    verify(jedisClient)
+        .setAndDeleteAll(
+            Domain.class,
+            ImmutableList.of(new SimplifiedJedisClient.JedisResource<>("example1.tld", domain)),
+            ImmutableList.of());
+    // The second poll syncs the late change, and the change in the overlap window again.
+    verify(jedisClient)
+        .setAndDeleteAll(
+            Domain.class,
+            ImmutableList.of(
+                new SimplifiedJedisClient.JedisResource<>("example2.tld", lateDomain[0]),
+                new SimplifiedJedisClient.JedisResource<>("example1.tld", domain)),
+            ImmutableList.of());
+    assertThat(response.getPayload()).isEqualTo("Synced 3 domains and 0 hosts.");
+    // The cursor doesn't move back to the late change.
+    assertThat(
+            DatabaseHelper.loadByKey(Cursor.createGlobalVKey(REMOTE_CACHE_DOMAIN_SYNC))
+                .getCursorTime())
+        .isEqualTo(cursorTime);
+    verifyMetrics(SUCCESS);
+  }
+
+  @Test
+  void testNoOverlap_skipsChangeCommittedAfterPollWithOlderTimestamp() {
+    Domain domain = persistActiveDomain("example1.tld");
+    Instant cursorTime = domain.getUpdateTimestamp().getTimestamp();
+    sleeper =
+        new Sleeper() {
+          @Override
+          public void sleep(Duration duration) {
+            sleepUninterruptibly(duration);
+          }
+
+          @Override
+          public void sleepUninterruptibly(Duration duration) {
+            Instant afterSleep = clock.now().plus(duration);
+            clock.setTo(cursorTime.minusSeconds(1));
+            persistActiveDomain("example2.tld");
+            clock.setTo(afterSleep);
+          }
+        };
+    action = createAction(Optional.of(jedisClient), Duration.ofSeconds(8), Duration.ZERO);
+
+    action.run();
+
+    assertThat(response.getPayload()).isEqualTo("Synced 1 domains and 0 hosts.");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testCompleteLastTimestamp_syncsFullBatchWithResourcesSharingLastUpdateTime() {
+    // These are all written in the same transaction, so they share their update time, and one of
+    // them doesn't fit in the first batch.
+    persistResources(
+        IntStream.range(0, 501)
+            .mapToObj(i -> newDomain(String.format("example%d.tld", i)))
+            .collect(toImmutableList()));
+    ArgumentCaptor<ImmutableList<SimplifiedJedisClient.JedisResource<Domain>>> saved =
+        ArgumentCaptor.forClass(ImmutableList.class);
+
+    action.run();
+
+    assertThat(response.getStatus()).isEqualTo(SC_OK);
+    assertThat(response.getPayload()).isEqualTo("Synced 501 domains and 0 hosts.");
+    verify(jedisClient).setAndDeleteAll(eq(Domain.class), saved.capture(), eq(ImmutableList.of()));
+    assertThat(saved.getValue().stream().map(SimplifiedJedisClient.JedisResource::key))
+        .containsExactlyElementsIn(
+            IntStream.range(0, 501).mapToObj(i -> String.format("example%d.tld", i)).toList());
+    assertThat(
+            DatabaseHelper.loadByKey(Cursor.createGlobalVKey(REMOTE_CACHE_DOMAIN_SYNC))
+                .getCursorTime())
+        .isEqualTo(clock.now());
     verifyMetrics(SUCCESS);
   }
 }
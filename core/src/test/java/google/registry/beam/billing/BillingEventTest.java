@@ -19,10 +19,13 @@ import static com.google.common.truth.Truth.assertThat;
 import google.registry.beam.billing.BillingEvent.BillingEventCoder;
 import google.registry.beam.billing.BillingEvent.InvoiceGroupingKey;
 import google.registry.beam.billing.BillingEvent.InvoiceGroupingKey.InvoiceGroupingKeyCoder;
+import google.registry.beam.billing.BillingEvent.InvoiceTotal;
+import google.registry.beam.billing.BillingEvent.InvoiceTotal.InvoiceTotalCoder;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigDecimal;
 import java.time.Instant;
 import org.apache.beam.sdk.coders.NullableCoder;
 import org.junit.jupiter.api.BeforeEach;
@@ -118,6 +121,26 @@ class BillingEventTest {
                 + ",3,RENEW | TLD: test | TERM: 0-year,20.50,USD,");
   }
 
+  @Test
+  void testConvertInvoiceGroupingKey_invoiceTotal_toCsv() {
+    InvoiceGroupingKey invoiceKey = event.getInvoiceGroupingKey();
+    assertThat(invoiceKey.toCsv(new InvoiceTotal(3, new BigDecimal("61.50"))))
+        .isEqualTo(
+            "2017-10-01,2022-09-30,12345-CRRHELLO,61.50,USD,10125,1,PURCHASE,"
+                + ",3,RENEW | TLD: test | TERM: 5-year,20.50,USD,");
+  }
+
+  @Test
+  void testInvoiceTotalCoder_deterministicSerialization() throws IOException {
+    InvoiceTotal total =
+        new InvoiceTotal(3, new BigDecimal("61.50")).plus(new InvoiceTotal(1, BigDecimal.ONE));
+    InvoiceTotalCoder coder = InvoiceTotalCoder.of();
+    ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+    coder.encode(total, outStream);
+    InputStream inStream = new ByteArrayInputStream(outStream.toByteArray());
+    assertThat(coder.decode(inStream)).isEqualTo(new InvoiceTotal(4, new BigDecimal("62.50")));
+  }
+
   @Test
   void testInvoiceGroupingKeyCoder_deterministicSerialization() throws IOException {
     InvoiceGroupingKey invoiceKey = event.getInvoiceGroupingKey();
@@ -355,6 +355,53 @@ public class ExpandBillingRecurrencesPipelineTest {
     assertCursorAt(endTime);
   }
 
+  @Test
+  void testSuccess_expandMultipleEvents_shardedAndPartitioned() {
+    createTld("test");
+    ImmutableList.Builder<BillingRecurrence> otherRecurrences = new ImmutableList.Builder<>();
+    for (int i = 0; i < 5; i++) {
+      otherRecurrences.add(
+          createDomainAtTime(
+              String.format("other%d.test", i), minusYears(startTime, 1).plus(i + 1, HOURS)));
+    }
+
+    options.setNumRecurrenceShards(3);
+    options.setSqlReadPartitions(2);
+    runPipeline();
+
+    assertAutoRenewDomainHistories(domain, defaultDomainHistory());
+    assertBillingEventsForResource(
+        domain,
+        defaultOneTime(getOnlyAutoRenewHistory()),
+        billingRecurrence
+            .asBuilder()
+            .setRecurrenceLastExpansion(plusYears(domain.getCreationTime(), 1))
+            .build());
+    for (BillingRecurrence otherRecurrence : otherRecurrences.build()) {
+      Domain otherDomain =
+          ForeignKeyUtils.loadResource(Domain.class, otherRecurrence.getTargetId(), clock.now())
+              .get();
+      assertAutoRenewDomainHistories(otherDomain, defaultDomainHistory(otherDomain));
+      assertBillingEventsForResource(
+          otherDomain,
+          defaultOneTime(
+              otherDomain, getOnlyAutoRenewHistory(otherDomain), otherRecurrence, 11),
+          otherRecurrence
+              .asBuilder()
+              .setRecurrenceLastExpansion(plusYears(otherDomain.getCreationTime(), 1))
+              .build());
+    }
+    assertCursorAt(endTime);
+  }
+
+  @Test
+  void testFailure_nonPositiveNumberOfShards() {
+    options.setNumRecurrenceShards(0);
+    IllegalArgumentException thrown =
+        assertThrows(IllegalArgumentException.class, this::runPipeline);
+    assertThat(thrown).hasMessageThat().isEqualTo("Number of shards must be positive: 0");
+  }
+
   @Test
   void testSuccess_expandMultipleEvents_multipleEventTime() {
     clock.advanceBy(Duration.ofDays(365));
@@ -25,6 +25,7 @@ import static google.registry.testing.DatabaseHelper.persistResource;
 import static google.registry.testing.LogsSubject.assertAboutLogs;
 import static google.registry.util.DateTimeUtils.END_INSTANT;
 import static google.registry.util.DateTimeUtils.START_INSTANT;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.logging.Level.SEVERE;
 import static org.joda.money.CurrencyUnit.CAD;
 import static org.joda.money.CurrencyUnit.JPY;
@@ -53,6 +54,7 @@ import google.registry.persistence.transaction.JpaTestExtensions.JpaIntegrationT
 import google.registry.testing.FakeClock;
 import google.registry.util.ResourceUtils;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.Serial;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -63,6 +65,7 @@ import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 import org.apache.beam.sdk.options.PipelineOptionsFactory;
 import org.apache.beam.sdk.testing.PAssert;
 import org.apache.beam.sdk.transforms.Create;
@@ -401,6 +404,29 @@ class InvoicingPipelineTest {
     }
   }
 
+  @Test
+  void testSuccess_saveDetailedCsv_shardedAndCompressed() throws Exception {
+    options.setDetailedReportShards(2);
+    options.setCompressDetailedReports(true);
+    InvoicingPipeline.saveDetailedCsv(billingEvents, options);
+    pipeline.run().waitUntilFinish();
+    for (Entry<String, ImmutableList<String>> entry : EXPECTED_DETAILED_REPORT_MAP.entrySet()) {
+      String baseName = entry.getKey().substring(0, entry.getKey().length() - ".csv".length());
+      ImmutableList.Builder<String> rows = new ImmutableList.Builder<>();
+      for (int shard = 0; shard < 2; shard++) {
+        ImmutableList<String> detailReport =
+            compressedResultFileContents(
+                String.format("%s-%05d-of-00002.csv.gz", baseName, shard));
+        assertThat(detailReport.get(0))
+            .isEqualTo(
+                "id,billingTime,eventTime,registrarId,billingId,poNumber,tld,action,"
+                    + "domain,repositoryId,years,currency,amount,flags");
+        rows.addAll(detailReport.subList(1, detailReport.size()));
+      }
+      assertThat(rows.build()).containsExactlyElementsIn(entry.getValue());
+    }
+  }
+
   @Test
   void testSuccess_makeCloudSqlQuery() throws Exception {
     // The Pipeline must run due to TestPipelineExtension's checks.
@@ -437,6 +463,16 @@ AND cr.id IS NULL
         ResourceUtils.readResourceUtf8(resultFile.toURI().toURL()).split("\n"));
   }
 
+  /** Returns the lines of a gzipped file under the beamBucket/results directory. */
+  private ImmutableList<String> compressedResultFileContents(String filename) throws Exception {
+    File resultFile =
+        new File(
+            String.format("%s/invoices/2017-10/%s", billingBucketUrl.getAbsolutePath(), filename));
+    try (GZIPInputStream input = new GZIPInputStream(new FileInputStream(resultFile))) {
+      return ImmutableList.copyOf(new String(input.readAllBytes(), UTF_8).split("\n"));
+    }
+  }
+
   private static void setupCloudSql() {
     persistNewRegistrar("NewRegistrar");
     persistNewRegistrar("TheRegistrar");
@@ -14,6 +14,7 @@
 
 package google.registry.beam.common;
 
+import static com.google.common.truth.Truth.assertThat;
 import static google.registry.persistence.transaction.JpaTransactionManagerExtension.makeRegistrar1;
 import static google.registry.testing.DatabaseHelper.newHost;
 import static google.registry.testing.DatabaseHelper.newTld;
@@ -22,6 +23,7 @@ import static google.registry.testing.DatabaseHelper.persistResources;
 import static google.registry.util.DateTimeUtils.END_INSTANT;
 import static google.registry.util.DateTimeUtils.START_INSTANT;
 import static google.registry.util.DateTimeUtils.plusYears;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -162,6 +164,71 @@ public class RegistryJpaReadTest {
     testPipeline.run();
   }
 
+  @Test
+  void readWithPartitions_typedQuery() {
+    Read<String, String> read =
+        RegistryJpaIO.read(
+                "SELECT hostName FROM Host WHERE "
+                    + RegistryJpaIO.hashPartitionCondition("repoId", false),
+                String.class,
+                r -> r)
+            .withCoder(StringUtf8Coder.of())
+            .withPartitions(4);
+    PCollection<String> hostNames = testPipeline.apply(read);
+
+    PAssert.that(hostNames)
+        .containsInAnyOrder("ns0.example.tld", "ns1.example.tld", "ns2.example.tld");
+    testPipeline.run();
+  }
+
+  @Test
+  void readWithPartitions_nativeQuery() {
+    Read<String, String> read =
+        RegistryJpaIO.read(
+                "SELECT host_name FROM \"Host\" WHERE "
+                    + RegistryJpaIO.hashPartitionCondition("repo_id", true),
+                true,
+                (String r) -> r)
+            .withCoder(StringUtf8Coder.of())
+            .withPartitions(2);
+    PCollection<String> hostNames = testPipeline.apply(read);
+
+    PAssert.that(hostNames)
+        .containsInAnyOrder("ns0.example.tld", "ns1.example.tld", "ns2.example.tld");
+    testPipeline.run();
+  }
+
+  @Test
+  void readWithPartitions_singlePartition() {
+    Read<String, String> read =
+        RegistryJpaIO.read(
+                "SELECT hostName FROM Host WHERE "
+                    + RegistryJpaIO.hashPartitionCondition("repoId", false),
+                String.class,
+                r -> r)
+            .withCoder(StringUtf8Coder.of())
+            .withPartitions(1);
+    PCollection<String> hostNames = testPipeline.apply(read);
+
+    PAssert.that(hostNames)
+        .containsInAnyOrder("ns0.example.tld", "ns1.example.tld", "ns2.example.tld");
+    testPipeline.run();
+  }
+
+  @Test
+  void withPartitions_criteriaQuery_fails() {
+    Read<Host, String> read =
+        RegistryJpaIO.read(
+            () -> CriteriaQueryBuilder.create(Host.class).build(), HostBase::getHostName);
+    IllegalArgumentException thrown =
+        assertThrows(IllegalArgumentException.class, () -> read.withPartitions(2));
+    assertThat(thrown)
+        .hasMessageThat()
+        .isEqualTo("Only partitioned queries, such as string queries, can be read in partitions");
+    // The pipeline extension requires a pipeline to be run by every test.
+    testPipeline.run();
+  }
+
   private void setupForJoinQuery() {
     Tld registry = newTld("com", "ABCDAPP");
     Registrar registrar =
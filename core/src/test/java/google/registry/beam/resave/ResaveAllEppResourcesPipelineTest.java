@@ -174,6 +174,30 @@ public class ResaveAllEppResourcesPipelineTest {
         .containsExactly(renewed.getRepoId(), nonRenewed.getRepoId());
   }
 
+  @Test
+  void testPipeline_bulkOnlySavesChanged() {
+    options.setFast(false);
+    options.setBulk(true);
+    options.setBulkPageSize(2);
+    options.setSqlReadPartitions(2);
+    Instant now = fakeClock.now();
+    Domain renewed =
+        persistDomainWithDependentResources("renewed", "tld", now, now, plusYears(now, 1));
+    for (int i = 0; i < 4; i++) {
+      persistActiveDomain("nonrenewed" + i + ".tld", now, plusYears(now, 20));
+    }
+    fakeClock.advanceBy(Duration.ofDays(500));
+    // Spy the transaction manager so we can be sure we're only saving the renewed domain
+    JpaTransactionManager spy = spy(tm());
+    TransactionManagerFactory.setJpaTm(() -> spy);
+    ArgumentCaptor<EppResource> eppResourcePutCaptor = ArgumentCaptor.forClass(EppResource.class);
+    runPipeline();
+    verify(spy).put(eppResourcePutCaptor.capture());
+    assertThat(eppResourcePutCaptor.getValue().getRepoId()).isEqualTo(renewed.getRepoId());
+    assertThat(loadByEntity(renewed).getRegistrationExpirationTime())
+        .isEqualTo(plusYears(now, 2));
+  }
+
   private void runPipeline() {
     ResaveAllEppResourcesPipeline pipeline = new ResaveAllEppResourcesPipeline(options);
     pipeline.setupPipeline(testPipeline);
@@ -14,7 +14,10 @@
 
 package google.registry.beam.spec11;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -35,6 +38,8 @@ import java.io.InputStreamReader;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 import org.apache.beam.sdk.coders.SerializableCoder;
 import org.apache.beam.sdk.testing.PAssert;
 import org.apache.beam.sdk.transforms.Create;
@@ -148,6 +153,97 @@ class SafeBrowsingTransformsTest {
     pipeline.run().waitUntilFinish();
   }
 
+  @Test
+  void testSuccess_concurrentBatches_retriedWhenOverloaded() throws Exception {
+    when(mockHttpClient.execute(any(HttpPost.class))).thenAnswer(new OverloadedOnceResponder());
+    OverloadedOnceResponder.requestCount.set(0);
+    ImmutableList<DomainNameInfo> domainNameInfos =
+        IntStream.range(0, 1200)
+            .mapToObj(i -> createDomainNameInfo(String.format("domain%d.dev", i)))
+            .collect(toImmutableList());
+    PCollection<KV<DomainNameInfo, ThreatMatch>> threats =
+        pipeline
+            .apply(
+                Create.of(
+                        ImmutableList.<DomainNameInfo>builder()
+                            .addAll(domainNameInfos)
+                            .add(createDomainNameInfo("111.com"))
+                            .add(createDomainNameInfo("bitcoin.bank"))
+                            .build())
+                    .withCoder(SerializableCoder.of(DomainNameInfo.class)))
+            .apply(
+                ParDo.of(
+                    new EvaluateSafeBrowsingFn(
+                        "API_KEY",
+                        new Retrier(new FakeSleeper(clock), 3),
+                        clock,
+                        Suppliers.ofInstance(mockHttpClient),
+                        2)));
+
+    PAssert.that(threats).containsInAnyOrder(getKv("111.com"), getKv("bitcoin.bank"));
+    pipeline.run().waitUntilFinish();
+    // At least three batches, one of which was sent twice.
+    assertThat(OverloadedOnceResponder.requestCount.get()).isAtLeast(4);
+  }
+
+  @Test
+  void testSuccess_inFlightLimit_reducedWhenOverloadedAndRestoredAfterSuccesses()
+      throws Exception {
+    AtomicInteger requestCount = new AtomicInteger();
+    when(mockHttpClient.execute(any(HttpPost.class)))
+        .thenAnswer(
+            invocation ->
+                switch (requestCount.getAndIncrement()) {
+                  case 0 -> getMockErrorResponse(429, "Too Many Requests");
+                  case 1 -> getMockErrorResponse(503, "Service Unavailable");
+                  default -> new HttpResponder().answer(invocation);
+                });
+    EvaluateSafeBrowsingFn fn =
+        new EvaluateSafeBrowsingFn(
+            "API_KEY",
+            new Retrier(new FakeSleeper(clock), 1),
+            clock,
+            Suppliers.ofInstance(mockHttpClient),
+            4);
+    ImmutableMap<String, DomainNameInfo> batch =
+        ImmutableMap.of("111.com", createDomainNameInfo("111.com"));
+    fn.setup();
+    try {
+      assertThat(fn.getInFlightLimit()).isEqualTo(4);
+      assertThrows(RuntimeException.class, () -> fn.evaluate(batch));
+      assertThat(fn.getInFlightLimit()).isEqualTo(2);
+      assertThrows(RuntimeException.class, () -> fn.evaluate(batch));
+      assertThat(fn.getInFlightLimit()).isEqualTo(1);
+      assertThat(fn.evaluate(batch)).containsExactly(getKv("111.com"));
+      assertThat(fn.getInFlightLimit()).isEqualTo(2);
+      fn.evaluate(batch);
+      assertThat(fn.getInFlightLimit()).isEqualTo(3);
+      fn.evaluate(batch);
+      assertThat(fn.getInFlightLimit()).isEqualTo(4);
+      fn.evaluate(batch);
+      assertThat(fn.getInFlightLimit()).isEqualTo(4);
+    } finally {
+      fn.teardown();
+    }
+  }
+
+  @Test
+  void testFailure_nonPositiveMaxInFlightRequests() {
+    IllegalArgumentException thrown =
+        assertThrows(
+            IllegalArgumentException.class,
+            () ->
+                new EvaluateSafeBrowsingFn(
+                    "API_KEY",
+                    new Retrier(new FakeSleeper(clock), 1),
+                    clock,
+                    Suppliers.ofInstance(mockHttpClient),
+                    0));
+    assertThat(thrown)
+        .hasMessageThat()
+        .isEqualTo("Maximum number of in-flight requests must be positive: 0");
+  }
+
   @Test
   void testSuccess_noBadDomains() throws Exception {
     ImmutableList<DomainNameInfo> domainNameInfos =
@@ -178,6 +274,34 @@ class SafeBrowsingTransformsTest {
     }
   }
 
+  /**
+   * A serializable {@link Answer} that responds to the first request with a 429 status code, as if
+   * the API were overloaded, and to the following ones like {@link HttpResponder}.
+   */
+  static class OverloadedOnceResponder implements Answer<CloseableHttpResponse>, Serializable {
+
+    /** Static so that it is shared by the deserialized copies of the responder. */
+    static final AtomicInteger requestCount = new AtomicInteger();
+
+    @Override
+    public CloseableHttpResponse answer(InvocationOnMock invocation) throws Throwable {
+      if (requestCount.getAndIncrement() == 0) {
+        return getMockErrorResponse(429, "Too Many Requests");
+      }
+      return new HttpResponder().answer(invocation);
+    }
+  }
+
+  /** Returns a {@link CloseableHttpResponse} with the given error status and no content. */
+  private static CloseableHttpResponse getMockErrorResponse(int statusCode, String reasonPhrase) {
+    CloseableHttpResponse httpResponse =
+        mock(CloseableHttpResponse.class, withSettings().serializable());
+    when(httpResponse.getStatusLine())
+        .thenReturn(
+            new BasicStatusLine(new ProtocolVersion("HTTP", 1, 1), statusCode, reasonPhrase));
+    return httpResponse;
+  }
+
   /**
    * Returns a {@link CloseableHttpResponse} containing either positive (threat found) or negative
    * (no threat) API examples based on the request data.
@@ -20,9 +20,11 @@ import static google.registry.model.ImmutableObjectSubject.immutableObjectCorres
 import static google.registry.persistence.transaction.JpaTransactionManagerExtension.makeRegistrar1;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 import static google.registry.testing.DatabaseHelper.createTld;
+import static google.registry.testing.DatabaseHelper.loadRegistrar;
 import static google.registry.testing.DatabaseHelper.persistNewRegistrar;
 import static google.registry.testing.DatabaseHelper.persistResource;
 import static google.registry.util.DateTimeUtils.plusYears;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -216,11 +218,78 @@ class Spec11PipelineTest {
   @Test
   void testSuccess_readFromCloudSql() {
     setupCloudSql();
-    PCollection<DomainNameInfo> domainNameInfos = Spec11Pipeline.readFromCloudSql(pipeline);
+    PCollection<DomainNameInfo> domainNameInfos =
+        Spec11Pipeline.readFromCloudSql(pipeline, options);
     PAssert.that(domainNameInfos).containsInAnyOrder(DOMAIN_NAME_INFOS);
     pipeline.run().waitUntilFinish();
   }
 
+  @Test
+  void testSuccess_readFromCloudSql_incremental() {
+    setupCloudSql();
+    Registrar registrar = loadRegistrar("hello-registrar");
+    persistResource(
+        createDomain("new-domain.com", "ABCDEF012-COM", registrar)
+            .asBuilder()
+            .setCreationTimeForTest(Instant.parse("2020-01-26T18:00:00Z"))
+            .build());
+    // Only the matches of the most recent earlier check date are re-evaluated.
+    persistResource(
+        new Spec11ThreatMatch.Builder()
+            .setDomainName("111.com")
+            .setDomainRepoId("123456789-COM")
+            .setRegistrarId("hello-registrar")
+            .setCheckDate(LocalDate.of(2020, 1, 10))
+            .setThreatTypes(ImmutableSet.of(ThreatType.MALWARE))
+            .build());
+    persistResource(
+        new Spec11ThreatMatch.Builder()
+            .setDomainName("bitcoin.bank")
+            .setDomainRepoId("1C3D5E7F9-BANK")
+            .setRegistrarId("hello-registrar")
+            .setCheckDate(LocalDate.of(2020, 1, 20))
+            .setThreatTypes(ImmutableSet.of(ThreatType.POTENTIALLY_HARMFUL_APPLICATION))
+            .build());
+    options.setIncremental(true);
+    // 2020-01-27 is epoch day 18288, which is not a multiple of 7.
+    options.setFullSweepIntervalDays(7);
+
+    PCollection<DomainNameInfo> domainNameInfos =
+        Spec11Pipeline.readFromCloudSql(pipeline, options);
+    PAssert.that(domainNameInfos)
+        .containsInAnyOrder(
+            DomainNameInfo.create(
+                "new-domain.com", "ABCDEF012-COM", "hello-registrar", "email@hello.net"),
+            DomainNameInfo.create(
+                "bitcoin.bank", "1C3D5E7F9-BANK", "hello-registrar", "email@hello.net"));
+    pipeline.run().waitUntilFinish();
+  }
+
+  @Test
+  void testSuccess_readFromCloudSql_incrementalOnFullSweepDay() {
+    setupCloudSql();
+    options.setIncremental(true);
+    // 2020-01-27 is epoch day 18288, which is a multiple of 8.
+    options.setFullSweepIntervalDays(8);
+
+    PCollection<DomainNameInfo> domainNameInfos =
+        Spec11Pipeline.readFromCloudSql(pipeline, options);
+    PAssert.that(domainNameInfos).containsInAnyOrder(DOMAIN_NAME_INFOS);
+    pipeline.run().waitUntilFinish();
+  }
+
+  @Test
+  void testFailure_nonPositiveFullSweepInterval() {
+    options.setIncremental(true);
+    options.setFullSweepIntervalDays(0);
+    IllegalArgumentException thrown =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> Spec11Pipeline.readFromCloudSql(pipeline, options));
+    assertThat(thrown).hasMessageThat().isEqualTo("Full sweep interval must be positive: 0");
+    pipeline.run().waitUntilFinish();
+  }
+
   private void setupCloudSql() {
     persistNewRegistrar("TheRegistrar");
     persistNewRegistrar("NewRegistrar");
@@ -145,6 +145,26 @@ public class SimplifiedJedisClientTest {
     assertThat(client.get(Host.class, "repoId3")).hasValue(host3);
   }
 
+  @Test
+  void testSetAndDelete() {
+    Host host1 = persistActiveHost("ns1.example.tld");
+    Host host2 = persistActiveHost("ns2.example.tld");
+    Host host3 = persistActiveHost("ns3.example.tld");
+    SimplifiedJedisClient client = createJedisClient();
+    client.setAll(
+        ImmutableList.of(
+            new SimplifiedJedisClient.JedisResource<>("repoId1", host1),
+            new SimplifiedJedisClient.JedisResource<>("repoId2", host2)));
+
+    client.setAndDeleteAll(
+        Host.class,
+        ImmutableList.of(new SimplifiedJedisClient.JedisResource<>("repoId3", host3)),
+        ImmutableList.of("repoId1", "nonexistent"));
+    assertThat(client.get(Host.class, "repoId1")).isEmpty();
+    assertThat(client.get(Host.class, "repoId2")).hasValue(host2);
+    assertThat(client.get(Host.class, "repoId3")).hasValue(host3);
+  }
+
   @Test
   void testClient_nonexistent() {
     SimplifiedJedisClient domainClient = createJedisClient();
@@ -0,0 +1,130 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.dns;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import google.registry.dns.DnsRefreshRequestCoalescer.CoalescedRefreshes;
+import google.registry.dns.DnsUtils.TargetType;
+import google.registry.model.common.DnsRefreshRequest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link DnsRefreshRequestCoalescer}. */
+class DnsRefreshRequestCoalescerTest {
+
+  private static final Instant NOW = Instant.parse("2026-03-01T00:00:00Z");
+
+  @Test
+  void testCoalesce_collapsesDuplicateNames() {
+    CoalescedRefreshes refreshes =
+        DnsRefreshRequestCoalescer.coalesce(
+            "tld",
+            ImmutableList.of(
+                domainRequest("a.tld", NOW),
+                domainRequest("b.tld", NOW),
+                domainRequest("a.tld", NOW),
+                hostRequest("ns1.example.com.tld", NOW),
+                hostRequest("ns1.example.com.tld", NOW)));
+    assertThat(refreshes.domains()).containsExactly("a.tld", "b.tld").inOrder();
+    assertThat(refreshes.hosts()).containsExactly("ns1.example.com.tld");
+    assertThat(refreshes.size()).isEqualTo(3);
+  }
+
+  @Test
+  void testCoalesce_dropsDomainsRefreshedThroughTheirHosts() {
+    CoalescedRefreshes refreshes =
+        DnsRefreshRequestCoalescer.coalesce(
+            "tld",
+            ImmutableList.of(
+                domainRequest("a.tld", NOW),
+                domainRequest("b.tld", NOW),
+                hostRequest("ns1.a.tld", NOW),
+                hostRequest("ns2.a.tld", NOW)));
+    assertThat(refreshes.domains()).containsExactly("b.tld");
+    assertThat(refreshes.hosts()).containsExactly("ns1.a.tld", "ns2.a.tld").inOrder();
+  }
+
+  @Test
+  void testCoalesce_multiPartTld() {
+    CoalescedRefreshes refreshes =
+        DnsRefreshRequestCoalescer.coalesce(
+            "co.uk",
+            ImmutableList.of(
+                domainRequest("a.co.uk", NOW), hostRequest("ns1.a.co.uk", NOW)));
+    assertThat(refreshes.domains()).isEmpty();
+    assertThat(refreshes.hosts()).containsExactly("ns1.a.co.uk");
+  }
+
+  @Test
+  void testCoalesce_keepsEarliestRequestTime() {
+    Instant earliest = NOW.minus(Duration.ofMinutes(10));
+    CoalescedRefreshes refreshes =
+        DnsRefreshRequestCoalescer.coalesce(
+            "tld",
+            ImmutableList.of(
+                domainRequest("a.tld", NOW),
+                domainRequest("a.tld", earliest),
+                hostRequest("ns1.a.tld", NOW.minus(Duration.ofMinutes(5)))));
+    assertThat(refreshes.earliestRequestTime()).isEqualTo(earliest);
+  }
+
+  @Test
+  void testAdaptiveBatchSize_noObservations() {
+    assertThat(
+            DnsRefreshRequestCoalescer.adaptiveBatchSize(
+                100, Duration.ofSeconds(30), Optional.empty()))
+        .isEqualTo(100);
+    assertThat(
+            DnsRefreshRequestCoalescer.adaptiveBatchSize(
+                100, Duration.ofSeconds(30), Optional.of(Duration.ZERO)))
+        .isEqualTo(100);
+  }
+
+  @Test
+  void testAdaptiveBatchSize_fitsTargetDuration() {
+    assertThat(
+            DnsRefreshRequestCoalescer.adaptiveBatchSize(
+                100, Duration.ofSeconds(30), Optional.of(Duration.ofMillis(200))))
+        .isEqualTo(150);
+  }
+
+  @Test
+  void testAdaptiveBatchSize_clampedToRange() {
+    assertThat(
+            DnsRefreshRequestCoalescer.adaptiveBatchSize(
+                100, Duration.ofSeconds(30), Optional.of(Duration.ofNanos(1))))
+        .isEqualTo(400);
+    assertThat(
+            DnsRefreshRequestCoalescer.adaptiveBatchSize(
+                100, Duration.ofSeconds(30), Optional.of(Duration.ofMinutes(1))))
+        .isEqualTo(25);
+    assertThat(
+            DnsRefreshRequestCoalescer.adaptiveBatchSize(
+                2, Duration.ofSeconds(30), Optional.of(Duration.ofMinutes(1))))
+        .isEqualTo(1);
+  }
+
+  private static DnsRefreshRequest domainRequest(String name, Instant requestTime) {
+    return new DnsRefreshRequest(TargetType.DOMAIN, name, "tld", requestTime);
+  }
+
+  private static DnsRefreshRequest hostRequest(String name, Instant requestTime) {
+    return new DnsRefreshRequest(TargetType.HOST, name, "tld", requestTime);
+  }
+}
@@ -21,19 +21,27 @@ import static google.registry.testing.DatabaseHelper.persistResource;
 import static google.registry.testing.DatabaseHelper.persistResources;
 import static google.registry.util.DateTimeUtils.START_INSTANT;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyCollection;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import com.google.cloud.tasks.v2.Task;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import google.registry.batch.CloudTasksUtils;
+import google.registry.batch.CloudTasksUtils.SerializableCloudTasksClient;
+import google.registry.dns.DnsMetrics.CommitStatus;
 import google.registry.dns.DnsUtils.TargetType;
 import google.registry.model.common.DnsRefreshRequest;
 import google.registry.model.common.DnsRefreshRequestTest;
@@ -41,16 +49,21 @@ import google.registry.model.tld.Tld;
 import google.registry.persistence.transaction.JpaTestExtensions;
 import google.registry.persistence.transaction.JpaTestExtensions.JpaIntegrationTestExtension;
 import google.registry.testing.CloudTasksHelper;
+import google.registry.testing.CloudTasksHelper.FakeGoogleCredentialsBundle;
 import google.registry.testing.CloudTasksHelper.TaskMatcher;
 import google.registry.testing.FakeClock;
+import google.registry.testing.FakeSleeper;
+import google.registry.util.Retrier;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 
 /** Unit tests for {@link DnsRefreshRequestTest}. */
 public class ReadDnsRefreshRequestsActionTest {
@@ -58,6 +71,8 @@ public class ReadDnsRefreshRequestsActionTest {
   private final FakeClock clock = new FakeClock(Instant.parse("2020-02-02T01:23:45Z"));
   private final CloudTasksHelper cloudTasksHelper = new CloudTasksHelper(clock);
   private final Optional<Integer> jitterSeconds = Optional.of(5);
+  private final DnsMetrics dnsMetrics = new DnsMetrics();
+  private final CloudTasksUtils cloudTasksUtils = spy(cloudTasksHelper.getTestCloudTasksUtils());
 
   @RegisterExtension
   JpaIntegrationTestExtension jpa =
@@ -67,12 +82,14 @@ public class ReadDnsRefreshRequestsActionTest {
       spy(
           new ReadDnsRefreshRequestsAction(
               2,
+              Duration.ofSeconds(30),
               Duration.ofSeconds(10),
               jitterSeconds,
               "tld",
               clock,
               null,
-              cloudTasksHelper.getTestCloudTasksUtils()));
+              cloudTasksUtils,
+              dnsMetrics));
 
   private ImmutableList<DnsRefreshRequest> requests;
 
@@ -103,13 +120,19 @@ public class ReadDnsRefreshRequestsActionTest {
     clock.advanceBy(Duration.ofMinutes(5));
     persistResources(requests);
     requests = loadAllOf(DnsRefreshRequest.class);
+    DnsMetrics.resetAverageCommitLatencies();
+  }
+
+  @AfterEach
+  void afterEach() {
+    DnsMetrics.resetAverageCommitLatencies();
   }
 
   @Test
   void testSuccess_runAction_pausedTld() {
     persistResource(createTld("tld").asBuilder().setDnsPaused(true).build());
     action.run();
-    verify(action, never()).enqueueUpdates(anyInt(), anyInt(), anyCollection());
+    verify(action, never()).createUpdateTasks(anyInt(), anyInt(), anyCollection());
     verify(action, never()).processRequests(anyCollection());
   }
 
@@ -117,7 +140,7 @@ public class ReadDnsRefreshRequestsActionTest {
   void testSuccess_runAction_requestTimeInTheFuture() {
     clock.setTo(Instant.parse("2000-01-01T00:00:00Z"));
     action.run();
-    verify(action, never()).enqueueUpdates(anyInt(), anyInt(), anyCollection());
+    verify(action, never()).createUpdateTasks(anyInt(), anyInt(), anyCollection());
     verify(action, never()).processRequests(anyCollection());
   }
 
@@ -131,7 +154,7 @@ public class ReadDnsRefreshRequestsActionTest {
     @SuppressWarnings("unchecked")
     ArgumentCaptor<Collection<DnsRefreshRequest>> captor =
         ArgumentCaptor.forClass(Collection.class);
-    verify(action, times(1)).enqueueUpdates(eq(2), eq(2), captor.capture());
+    verify(action, times(1)).createUpdateTasks(eq(2), eq(2), captor.capture());
     assertThat(captor.getValue().size()).isEqualTo(3);
     verify(action, times(1)).processRequests(captor.capture());
     assertThat(captor.getValue().size()).isEqualTo(3);
@@ -159,7 +182,7 @@ public class ReadDnsRefreshRequestsActionTest {
     @SuppressWarnings("unchecked")
     ArgumentCaptor<Collection<DnsRefreshRequest>> captor =
         ArgumentCaptor.forClass(Collection.class);
-    verify(action, times(2)).enqueueUpdates(eq(1), eq(1), captor.capture());
+    verify(action, times(2)).createUpdateTasks(eq(1), eq(1), captor.capture());
     assertThat(captor.getAllValues().get(0).size()).isEqualTo(2);
     assertThat(captor.getAllValues().get(1).size()).isEqualTo(1);
     verify(action, times(2)).processRequests(captor.capture());
@@ -187,7 +210,7 @@ public class ReadDnsRefreshRequestsActionTest {
         .when(action)
         .processRequests(anyCollection());
     action.run();
-    verify(action, times(1)).enqueueUpdates(anyInt(), anyInt(), anyCollection());
+    verify(action, times(1)).createUpdateTasks(anyInt(), anyInt(), anyCollection());
     verify(action, times(1)).processRequests(anyCollection());
     // The third request is left untouched because it is not read;
     ImmutableList<DnsRefreshRequest> remainingRequests = loadAllOf(DnsRefreshRequest.class);
@@ -203,30 +226,124 @@ public class ReadDnsRefreshRequestsActionTest {
         .when(action)
         .getLockIndex(eq(2), any(DnsRefreshRequest.class));
     action.processRequests(requests);
-    verify(action).enqueueUpdates(2, 2, ImmutableSet.of(requests.get(0), requests.get(2)));
-    verify(action).enqueueUpdates(1, 2, ImmutableSet.of(requests.get(1)));
+    verify(action).createUpdateTasks(2, 2, ImmutableSet.of(requests.get(0), requests.get(2)));
+    verify(action).createUpdateTasks(1, 2, ImmutableSet.of(requests.get(1)));
+    // The tasks of both buckets are enqueued together.
+    verify(cloudTasksUtils)
+        .enqueue(
+            eq("dns-publish"),
+            ArgumentMatchers.<Iterable<Task>>argThat(tasks -> Iterables.size(tasks) == 4));
+    assertThat(cloudTasksHelper.getTestTasksFor("dns-publish")).hasSize(4);
     assertThat(loadAllOf(DnsRefreshRequest.class)).isEmpty();
   }
 
   @Test
   void testSuccess_processTasks_enqueueFailed_tasksNotDeleted() {
+    SerializableCloudTasksClient client = mock(SerializableCloudTasksClient.class);
+    when(client.enqueue(anyString(), anyString(), anyString(), any(Task.class)))
+        .thenAnswer(
+            invocation -> {
+              Task task = invocation.getArgument(3);
+              if (task.getHttpRequest().getBody().toStringUtf8().contains("lockIndex=2&")) {
+                throw new IllegalStateException("Something went wrong!");
+              }
+              return task;
+            });
+    ReadDnsRefreshRequestsAction failingAction =
+        spy(
+            new ReadDnsRefreshRequestsAction(
+                2,
+                Duration.ofSeconds(30),
+                Duration.ofSeconds(10),
+                jitterSeconds,
+                "tld",
+                clock,
+                null,
+                new CloudTasksUtils(
+                    new Retrier(new FakeSleeper(clock), 1),
+                    clock,
+                    "project",
+                    "location",
+                    "clientId",
+                    FakeGoogleCredentialsBundle.create(),
+                    client),
+                dnsMetrics));
     doReturn(2)
         .doReturn(1)
         .doReturn(2)
-        .when(action)
+        .when(failingAction)
         .getLockIndex(eq(2), any(DnsRefreshRequest.class));
-    doThrow(new RuntimeException("Something went wrong!"))
-        .when(action)
-        .enqueueUpdates(eq(2), eq(2), anyCollection());
+    failingAction.processRequests(requests);
+    // The tasks of both buckets are tried, but only the requests of the bucket whose tasks were all
+    // enqueued are deleted.
+    verify(client, times(4)).enqueue(anyString(), anyString(), anyString(), any(Task.class));
+    assertThat(loadAllOf(DnsRefreshRequest.class))
+        .containsExactly(requests.get(0), requests.get(2));
+  }
+
+  @Test
+  void testSuccess_processTasks_singleTaskEnqueueFailed_tasksNotDeleted() {
+    persistResource(Tld.get("tld").asBuilder().setDnsWriters(ImmutableSet.of("FooWriter")).build());
+    doReturn(1).when(action).getLockIndex(eq(2), any(DnsRefreshRequest.class));
+    doThrow(new IllegalStateException("Something went wrong!"))
+        .when(cloudTasksUtils)
+        .enqueue(eq("dns-publish"), any(Task.class));
     action.processRequests(requests);
-    verify(action).enqueueUpdates(2, 2, ImmutableSet.of(requests.get(0), requests.get(2)));
-    verify(action).enqueueUpdates(1, 2, ImmutableSet.of(requests.get(1)));
-    assertThat(loadAllOf(DnsRefreshRequest.class).size()).isEqualTo(2);
+    assertThat(loadAllOf(DnsRefreshRequest.class)).hasSize(3);
+  }
+
+  @Test
+  void testSuccess_getBatchSizePerLock_noObservations_usesConfiguredSize() {
+    assertThat(action.getBatchSizePerLock()).isEqualTo(2);
+  }
+
+  @Test
+  void testSuccess_getBatchSizePerLock_adaptsToSlowestWriter() {
+    // 100ms per item for FooWriter, 1s per item for BarWriter; the target commit time is 30s.
+    dnsMetrics.recordCommit("tld", "FooWriter", CommitStatus.SUCCESS, Duration.ofSeconds(1), 5, 5);
+    dnsMetrics.recordCommit("tld", "BarWriter", CommitStatus.SUCCESS, Duration.ofSeconds(6), 3, 3);
+    // 30 items would fit, but that is capped at 4 times the configured size.
+    assertThat(action.getBatchSizePerLock()).isEqualTo(8);
+  }
+
+  @Test
+  void testSuccess_getBatchSizePerLock_slowWriter_shrinksBatch() {
+    dnsMetrics.recordCommit(
+        "tld", "FooWriter", CommitStatus.SUCCESS, Duration.ofSeconds(60), 1, 0);
+    assertThat(action.getBatchSizePerLock()).isEqualTo(1);
+  }
+
+  @Test
+  void testSuccess_getBatchSizePerLock_ignoresFailedCommits() {
+    dnsMetrics.recordCommit(
+        "tld", "FooWriter", CommitStatus.FAILURE, Duration.ofSeconds(60), 1, 0);
+    assertThat(action.getBatchSizePerLock()).isEqualTo(2);
+  }
+
+  @Test
+  void testSuccess_enqueueTasks_coalescesRequests() {
+    ImmutableList<DnsRefreshRequest> duplicateRequests =
+        ImmutableList.of(
+            new DnsRefreshRequest(TargetType.DOMAIN, "a.tld", "tld", clock.now()),
+            new DnsRefreshRequest(TargetType.DOMAIN, "a.tld", "tld", clock.now()),
+            new DnsRefreshRequest(TargetType.DOMAIN, "b.tld", "tld", clock.now()),
+            new DnsRefreshRequest(TargetType.HOST, "ns1.b.tld", "tld", clock.now()),
+            new DnsRefreshRequest(TargetType.HOST, "ns1.b.tld", "tld", clock.now()),
+            new DnsRefreshRequest(TargetType.HOST, "ns2.b.tld", "tld", clock.now()));
+    persistResource(Tld.get("tld").asBuilder().setDnsWriters(ImmutableSet.of("FooWriter")).build());
+    cloudTasksUtils.enqueue("dns-publish", action.createUpdateTasks(1, 2, duplicateRequests));
+    cloudTasksHelper.assertTasksEnqueued(
+        "dns-publish",
+        new TaskMatcher()
+            .path("/_dr/task/publishDnsUpdates")
+            .param("dnsWriter", "FooWriter")
+            .param("domains", "a.tld")
+            .param("hosts", "ns1.b.tld,ns2.b.tld"));
   }
 
   @Test
   void testSuccess_enqueueTasks() {
-    action.enqueueUpdates(2, 3, requests);
+    cloudTasksUtils.enqueue("dns-publish", action.createUpdateTasks(2, 3, requests));
     cloudTasksHelper.assertTasksEnqueued(
         "dns-publish",
         new TaskMatcher()
@@ -238,7 +355,7 @@ public class ReadDnsRefreshRequestsActionTest {
             .param("numPublishLocks", "3")
             .param("enqueued", clock.now().toString())
             .param("requestTime", clock.now().minus(Duration.ofMinutes(6)).toString())
-            .param("domains", "domain.tld,future.tld")
+            .param("domains", "future.tld")
             .param("hosts", "ns1.domain.tld"),
         new TaskMatcher()
             .path("/_dr/task/publishDnsUpdates")
@@ -249,7 +366,7 @@ public class ReadDnsRefreshRequestsActionTest {
             .param("numPublishLocks", "3")
             .param("enqueued", clock.now().toString())
             .param("requestTime", clock.now().minus(Duration.ofMinutes(6)).toString())
-            .param("domains", "domain.tld,future.tld")
+            .param("domains", "future.tld")
             .param("hosts", "ns1.domain.tld"));
     cloudTasksHelper
         .getTestTasksFor("dns-publish")
@@ -15,23 +15,40 @@
 package google.registry.dns.writer.dnsupdate;
 
 import static com.google.common.io.BaseEncoding.base16;
+import static com.google.common.io.BaseEncoding.base64;
 import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.base.VerifyException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import google.registry.testing.FakeClock;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.EOFException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.InetAddress;
+import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.net.SocketFactory;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
@@ -44,6 +61,7 @@ import org.xbill.DNS.Name;
 import org.xbill.DNS.Opcode;
 import org.xbill.DNS.Rcode;
 import org.xbill.DNS.Record;
+import org.xbill.DNS.TSIG;
 import org.xbill.DNS.Type;
 import org.xbill.DNS.Update;
 
@@ -51,9 +69,14 @@ import org.xbill.DNS.Update;
 class DnsMessageTransportTest {
 
   private static final String UPDATE_HOST = "127.0.0.1";
+  private static final Duration IDLE_TIMEOUT = Duration.ofSeconds(30);
+  private static final String TSIG_KEY =
+      "hmac-sha256:update-key:"
+          + base64().encode("0123456789abcdef0123456789abcdef".getBytes(UTF_8));
 
   private final SocketFactory mockFactory = mock(SocketFactory.class);
   private final Socket mockSocket = mock(Socket.class);
+  private final FakeClock clock = new FakeClock(Instant.parse("2026-01-01T00:00:00Z"));
 
   private Message simpleQuery;
   private Message expectedResponse;
@@ -67,7 +90,7 @@ class DnsMessageTransportTest {
     expectedResponse = responseMessageWithCode(simpleQuery, Rcode.NOERROR);
     when(mockFactory.createSocket(InetAddress.getByName(UPDATE_HOST), DnsMessageTransport.DNS_PORT))
         .thenReturn(mockSocket);
-    resolver = new DnsMessageTransport(mockFactory, UPDATE_HOST, Duration.ZERO);
+    resolver = createTransport(mockFactory, Duration.ZERO, Optional.empty());
   }
 
   @Test
@@ -122,7 +145,7 @@ class DnsMessageTransportTest {
     when(mockSocket.getOutputStream()).thenReturn(new ByteArrayOutputStream());
 
     Duration testTimeout = Duration.ofSeconds(1);
-    DnsMessageTransport resolver = new DnsMessageTransport(mockFactory, UPDATE_HOST, testTimeout);
+    DnsMessageTransport resolver = createTransport(mockFactory, testTimeout, Optional.empty());
     Message expectedQuery = new Message();
     assertThrows(SocketTimeoutException.class, () -> resolver.send(expectedQuery));
     verify(mockSocket).setSoTimeout((int) testTimeout.toMillis());
@@ -174,6 +197,130 @@ class DnsMessageTransportTest {
         .contains("response opcode 'STATUS' does not match query opcode 'QUERY'");
   }
 
+  @Test
+  void testSendAll_pipelinesMessagesOverOneConnection() throws Exception {
+    try (FakeDnsServer server = new FakeDnsServer(Optional.empty())) {
+      DnsMessageTransport transport =
+          createTransport(server.socketFactory(), Duration.ofSeconds(10), Optional.empty());
+      ImmutableList<Message> queries = ImmutableList.of(newUpdate(), newUpdate(), newUpdate());
+
+      ImmutableList<Message> responses = transport.sendAll(queries);
+
+      assertThat(responses).hasSize(3);
+      for (int i = 0; i < queries.size(); i++) {
+        assertThat(responses.get(i).getHeader().getID())
+            .isEqualTo(queries.get(i).getHeader().getID());
+      }
+      assertThat(server.connectionCount()).isEqualTo(1);
+      // The fake server answers in reverse order, so the responses must have been matched by ID.
+      assertThat(server.responseOrder())
+          .containsExactly(
+              queries.get(2).getHeader().getID(),
+              queries.get(1).getHeader().getID(),
+              queries.get(0).getHeader().getID())
+          .inOrder();
+    }
+  }
+
+  @Test
+  void testSendAll_duplicateIds_areMadeUnique() throws Exception {
+    try (FakeDnsServer server = new FakeDnsServer(Optional.empty())) {
+      DnsMessageTransport transport =
+          createTransport(server.socketFactory(), Duration.ofSeconds(10), Optional.empty());
+      Message first = newUpdate();
+      Message second = newUpdate();
+      second.getHeader().setID(first.getHeader().getID());
+
+      ImmutableList<Message> responses = transport.sendAll(ImmutableList.of(first, second));
+
+      assertThat(first.getHeader().getID()).isNotEqualTo(second.getHeader().getID());
+      assertThat(responses.get(0).getHeader().getID()).isEqualTo(first.getHeader().getID());
+      assertThat(responses.get(1).getHeader().getID()).isEqualTo(second.getHeader().getID());
+    }
+  }
+
+  @Test
+  void testSend_reusesPooledConnection() throws Exception {
+    try (FakeDnsServer server = new FakeDnsServer(Optional.empty())) {
+      DnsMessageTransport transport =
+          createTransport(server.socketFactory(), Duration.ofSeconds(10), Optional.empty());
+
+      transport.send(newUpdate());
+      transport.send(newUpdate());
+      transport.sendAll(ImmutableList.of(newUpdate(), newUpdate()));
+
+      assertThat(server.connectionCount()).isEqualTo(1);
+    }
+  }
+
+  @Test
+  void testSend_idleConnectionExpired_reconnects() throws Exception {
+    try (FakeDnsServer server = new FakeDnsServer(Optional.empty())) {
+      DnsMessageTransport transport =
+          createTransport(server.socketFactory(), Duration.ofSeconds(10), Optional.empty());
+
+      transport.send(newUpdate());
+      clock.advanceBy(IDLE_TIMEOUT.plusSeconds(1));
+      transport.send(newUpdate());
+
+      assertThat(server.connectionCount()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  void testSend_pooledConnectionClosedByServer_reconnects() throws Exception {
+    try (FakeDnsServer server = new FakeDnsServer(Optional.empty())) {
+      DnsMessageTransport transport =
+          createTransport(server.socketFactory(), Duration.ofSeconds(10), Optional.empty());
+
+      transport.send(newUpdate());
+      server.closeAllConnections();
+      Message response = transport.send(newUpdate());
+
+      assertThat(response.getRcode()).isEqualTo(Rcode.NOERROR);
+      assertThat(server.connectionCount()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  void testSend_withTsig_signsQueriesAndVerifiesResponses() throws Exception {
+    TSIG tsig = TSIG.fromString(TSIG_KEY);
+    try (FakeDnsServer server = new FakeDnsServer(Optional.of(tsig))) {
+      DnsMessageTransport transport =
+          createTransport(server.socketFactory(), Duration.ofSeconds(10), Optional.of(TSIG_KEY));
+
+      ImmutableList<Message> responses =
+          transport.sendAll(ImmutableList.of(newUpdate(), newUpdate()));
+
+      assertThat(responses).hasSize(2);
+      assertThat(server.verifiedSignatureCount()).isEqualTo(2);
+    }
+  }
+
+  @Test
+  void testSend_withTsig_unsignedResponseFails() throws Exception {
+    try (FakeDnsServer server = new FakeDnsServer(Optional.empty())) {
+      DnsMessageTransport transport =
+          createTransport(server.socketFactory(), Duration.ofSeconds(10), Optional.of(TSIG_KEY));
+
+      VerifyException thrown =
+          assertThrows(VerifyException.class, () -> transport.send(newUpdate()));
+      assertThat(thrown).hasMessageThat().contains("TSIG verification");
+    }
+  }
+
+  private DnsMessageTransport createTransport(
+      SocketFactory factory, Duration timeout, Optional<String> tsigKey) {
+    return new DnsMessageTransport(
+        factory, UPDATE_HOST, timeout, tsigKey, new DnsConnectionPool(2, IDLE_TIMEOUT), clock);
+  }
+
+  private static Update newUpdate() throws Exception {
+    Update update = new Update(Name.fromString("tld", Name.root));
+    update.delete(Name.fromString("example.tld", Name.root), Type.ANY);
+    return update;
+  }
+
   private Message responseMessageWithCode(Message query, int responseCode) {
     Message message = new Message(query.getHeader().getID());
     message.getHeader().setOpcode(query.getHeader().getOpcode());
@@ -190,4 +337,136 @@ class DnsMessageTransportTest {
     buffer.put(bytes);
     return buffer.array();
   }
+
+  /**
+   * An in-process stand-in for a DNS server that accepts UPDATE messages over TCP.
+   *
+   * <p>It keeps connections open across messages, and answers each pipelined batch of messages in
+   * reverse order, so that clients have to match responses to queries by ID.
+   */
+  private static final class FakeDnsServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final Optional<TSIG> tsig;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<Socket> connections = new CopyOnWriteArrayList<>();
+    private final List<Integer> responseOrder = new CopyOnWriteArrayList<>();
+    private final AtomicInteger verifiedSignatures = new AtomicInteger();
+
+    FakeDnsServer(Optional<TSIG> tsig) throws IOException {
+      this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+      this.tsig = tsig;
+      executor.execute(this::acceptConnections);
+    }
+
+    SocketFactory socketFactory() {
+      return new SocketFactory() {
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+          return new Socket(serverSocket.getInetAddress(), serverSocket.getLocalPort());
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort)
+            throws IOException {
+          return createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+          return createSocket(host.getHostAddress(), port);
+        }
+
+        @Override
+        public Socket createSocket(
+            InetAddress address, int port, InetAddress localAddress, int localPort)
+            throws IOException {
+          return createSocket(address.getHostAddress(), port);
+        }
+      };
+    }
+
+    int connectionCount() {
+      return connections.size();
+    }
+
+    ImmutableList<Integer> responseOrder() {
+      return ImmutableList.copyOf(responseOrder);
+    }
+
+    int verifiedSignatureCount() {
+      return verifiedSignatures.get();
+    }
+
+    void closeAllConnections() throws IOException {
+      for (Socket connection : connections) {
+        connection.close();
+      }
+    }
+
+    private void acceptConnections() {
+      try {
+        while (!serverSocket.isClosed()) {
+          Socket connection = serverSocket.accept();
+          connections.add(connection);
+          executor.execute(() -> serve(connection));
+        }
+      } catch (IOException e) {
+        // The server socket was closed.
+      }
+    }
+
+    private void serve(Socket connection) {
+      try {
+        DataInputStream input = new DataInputStream(connection.getInputStream());
+        OutputStream output = connection.getOutputStream();
+        while (true) {
+          // Read everything the client has pipelined so far, then answer it in reverse order.
+          List<Message> queries = new ArrayList<>();
+          do {
+            queries.add(readQuery(input));
+          } while (input.available() > 0);
+          for (Message query : Lists.reverse(queries)) {
+            Message response = new Message(query.getHeader().getID());
+            response.getHeader().setOpcode(query.getHeader().getOpcode());
+            response.getHeader().setFlag(Flags.QR);
+            response.getHeader().setRcode(Rcode.NOERROR);
+            byte[] bytes;
+            if (tsig.isPresent()) {
+              response.setTSIG(tsig.get(), Rcode.NOERROR, query.getTSIG());
+              bytes = response.toWire(Message.MAXLENGTH);
+            } else {
+              bytes = response.toWire();
+            }
+            ByteBuffer buffer =
+                ByteBuffer.allocate(bytes.length + DnsMessageTransport.MESSAGE_LENGTH_FIELD_BYTES);
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+            output.write(buffer.array());
+            responseOrder.add(query.getHeader().getID());
+          }
+          output.flush();
+        }
+      } catch (IOException e) {
+        // The client closed the connection, or we were asked to close it.
+      }
+    }
+
+    private Message readQuery(DataInputStream input) throws IOException {
+      byte[] bytes = new byte[input.readUnsignedShort()];
+      input.readFully(bytes);
+      Message query = new Message(bytes);
+      if (tsig.isPresent() && tsig.get().verify(query, bytes, null) == Rcode.NOERROR) {
+        verifiedSignatures.incrementAndGet();
+      }
+      return query;
+    }
+
+    @Override
+    public void close() throws IOException {
+      serverSocket.close();
+      closeAllConnections();
+      executor.shutdownNow();
+    }
+  }
 }
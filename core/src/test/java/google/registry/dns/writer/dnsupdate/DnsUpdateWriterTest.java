@@ -28,6 +28,7 @@ import static google.registry.testing.DatabaseHelper.persistResource;
 import static google.registry.util.DateTimeUtils.minusDays;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -83,6 +84,7 @@ public class DnsUpdateWriterTest {
 
   @Mock private DnsMessageTransport mockResolver;
   @Captor private ArgumentCaptor<Update> updateCaptor;
+  @Captor private ArgumentCaptor<List<Update>> updatesCaptor;
 
   private final FakeClock clock = new FakeClock(Instant.parse("1971-01-01T00:00:00Z"));
 
@@ -185,6 +187,113 @@ public class DnsUpdateWriterTest {
     assertThatTotalUpdateSetsIs(update, 4); // The delete and NS sets for each TLD
   }
 
+  @Test
+  void testPublishHosts_sameDomain_domainStagedOnce() throws Exception {
+    Domain domain = persistActiveDomain("example.tld");
+    Host host1 =
+        persistResource(
+            persistActiveSubordinateHost("ns1.example.tld", domain)
+                .asBuilder()
+                .setInetAddresses(ImmutableSet.of(InetAddresses.forString("10.0.0.1")))
+                .build());
+    Host host2 =
+        persistResource(
+            persistActiveSubordinateHost("ns2.example.tld", domain)
+                .asBuilder()
+                .setInetAddresses(ImmutableSet.of(InetAddresses.forString("10.0.0.2")))
+                .build());
+    persistDeletedHost("ns3.example.tld", minusDays(clock.now(), 1));
+    persistResource(
+        domain
+            .asBuilder()
+            .addSubordinateHost("ns1.example.tld")
+            .addSubordinateHost("ns2.example.tld")
+            .addNameservers(ImmutableSet.of(host1.createVKey(), host2.createVKey()))
+            .build());
+
+    writer.publishHost("ns1.example.tld");
+    writer.publishHost("ns2.example.tld");
+    writer.publishHost("ns3.example.tld");
+    writer.publishDomain("example.tld");
+    writer.commit();
+
+    verify(mockResolver).send(updateCaptor.capture());
+    Update update = updateCaptor.getValue();
+    assertThatUpdateDeletes(update, "example.tld.", Type.ANY);
+    assertThatUpdateDeletes(update, "ns1.example.tld.", Type.ANY);
+    assertThatUpdateDeletes(update, "ns2.example.tld.", Type.ANY);
+    assertThatUpdateDeletes(update, "ns3.example.tld.", Type.ANY);
+    assertThatUpdateAdds(
+        update,
+        "example.tld.",
+        Type.NS,
+        Duration.ZERO.toSeconds(),
+        "ns1.example.tld.",
+        "ns2.example.tld.");
+    assertThatUpdateAdds(update, "ns1.example.tld.", Type.A, Duration.ZERO.toSeconds(), "10.0.0.1");
+    assertThatUpdateAdds(update, "ns2.example.tld.", Type.A, Duration.ZERO.toSeconds(), "10.0.0.2");
+    // The deletes of the domain and its three hosts, and the NS and two A sets, each only once.
+    assertThatTotalUpdateSetsIs(update, 7);
+  }
+
+  @MockitoSettings(strictness = Strictness.LENIENT)
+  @Test
+  void testPublishAtomic_oversizeUpdate_isSplitPerDomain() throws Exception {
+    Host host1 = persistActiveHost("ns.example1.tld");
+    persistResource(
+        persistActiveDomain("example1.tld")
+            .asBuilder()
+            .setNameservers(ImmutableSet.of(host1.createVKey()))
+            .build());
+    Host host2 = persistActiveHost("ns.example2.tld");
+    persistResource(
+        persistActiveDomain("example2.tld")
+            .asBuilder()
+            .setNameservers(ImmutableSet.of(host2.createVKey()))
+            .build());
+    when(mockResolver.sendAll(anyList()))
+        .thenReturn(
+            ImmutableList.of(
+                messageWithResponseCode(Rcode.NOERROR), messageWithResponseCode(Rcode.NOERROR)));
+    // Small enough that each domain's records need their own message.
+    writer.setMaxUpdateMessageBytes(100);
+
+    writer.publishDomain("example1.tld");
+    writer.publishDomain("example2.tld");
+    writer.commit();
+
+    verify(mockResolver).sendAll(updatesCaptor.capture());
+    List<Update> updates = updatesCaptor.getValue();
+    assertThat(updates).hasSize(2);
+    assertThatUpdatedZoneIs(updates.get(0), "tld.");
+    assertThatUpdateDeletes(updates.get(0), "example1.tld.", Type.ANY);
+    assertThatUpdateAdds(
+        updates.get(0), "example1.tld.", Type.NS, Duration.ZERO.toSeconds(), "ns.example1.tld.");
+    assertThatTotalUpdateSetsIs(updates.get(0), 2);
+    assertThatUpdatedZoneIs(updates.get(1), "tld.");
+    assertThatUpdateDeletes(updates.get(1), "example2.tld.", Type.ANY);
+    assertThatUpdateAdds(
+        updates.get(1), "example2.tld.", Type.NS, Duration.ZERO.toSeconds(), "ns.example2.tld.");
+    assertThatTotalUpdateSetsIs(updates.get(1), 2);
+  }
+
+  @MockitoSettings(strictness = Strictness.LENIENT)
+  @Test
+  void testPublishAtomic_oversizeUpdate_failsIfAnyMessageFails() throws Exception {
+    persistActiveDomain("example1.tld");
+    persistActiveDomain("example2.tld");
+    when(mockResolver.sendAll(anyList()))
+        .thenReturn(
+            ImmutableList.of(
+                messageWithResponseCode(Rcode.NOERROR), messageWithResponseCode(Rcode.SERVFAIL)));
+    writer.setMaxUpdateMessageBytes(50);
+
+    writer.publishDomain("example1.tld");
+    writer.publishDomain("example2.tld");
+    VerifyException thrown = assertThrows(VerifyException.class, writer::commit);
+    assertThat(thrown).hasMessageThat().contains("SERVFAIL");
+  }
+
   @Test
   void testPublishDomainCreate_publishesDelegationSigner_usesDefaultTtl() throws Exception {
     Domain domain =
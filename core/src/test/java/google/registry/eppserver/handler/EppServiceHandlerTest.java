@@ -25,6 +25,7 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -32,6 +33,8 @@ import static org.mockito.Mockito.when;
 import google.registry.eppserver.metric.FrontendMetrics;
 import google.registry.eppserver.quota.EppServerQuotaManager;
 import google.registry.eppserver.quota.LocalConnectionLimiter;
+import google.registry.eppserver.quota.ValkeyConnectionLimiter;
+import google.registry.eppserver.quota.ValkeyConnectionLimiter.Lease;
 import google.registry.request.RequestHandler;
 import google.registry.util.FakeHttpServletRequest;
 import google.registry.util.FakeHttpServletResponse;
@@ -52,6 +55,7 @@ import io.netty.util.concurrent.ScheduledFuture;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.security.cert.X509Certificate;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import org.junit.jupiter.api.BeforeEach;
@@ -66,6 +70,7 @@ class EppServiceHandlerTest {
 
   @Mock private FrontendMetrics metrics;
   @Mock private LocalConnectionLimiter localConnectionLimiter;
+  @Mock private ValkeyConnectionLimiter clusterConnectionLimiter;
   @Mock private EppServerQuotaManager commandQuotaManager;
   @Mock private Supplier<String> idTokenSupplier;
   @Mock private ChannelHandlerContext ctx;
@@ -84,17 +89,7 @@ class EppServiceHandlerTest {
 
   @BeforeEach
   void setUp() {
-    handler =
-        new EppServiceHandler(
-            new byte[] {'h', 'e', 'l', 'l', 'o'},
-            metrics,
-            localConnectionLimiter,
-            commandQuotaManager,
-            idTokenSupplier,
-            "test-project",
-            10); // preLoginReadTimeoutSeconds
-
-    handler.requestHandler = requestHandler;
+    createHandler(Optional.empty());
 
     when(ctx.channel()).thenReturn(channel);
     when(ctx.executor()).thenReturn(executor);
@@ -117,6 +112,34 @@ class EppServiceHandlerTest {
     lenient().when(commandQuotaManager.acquireQuota(any(String.class))).thenReturn(true);
   }
 
+  private void createHandler(Optional<ValkeyConnectionLimiter> clusterConnectionLimiter) {
+    handler =
+        new EppServiceHandler(
+            new byte[] {'h', 'e', 'l', 'l', 'o'},
+            metrics,
+            localConnectionLimiter,
+            clusterConnectionLimiter,
+            commandQuotaManager,
+            idTokenSupplier,
+            "test-project",
+            10); // preLoginReadTimeoutSeconds
+
+    handler.requestHandler = requestHandler;
+  }
+
+  private void setUpSuccessfulLogin() throws Exception {
+    when(idTokenSupplier.get()).thenReturn("fake_id_token");
+    doAnswer(
+            invocation -> {
+              FakeHttpServletResponse rsp = invocation.getArgument(1);
+              rsp.setHeader(ProxyHttpHeaders.LOGGED_IN_REGISTRAR, "RegistrarA");
+              rsp.getWriter().write("<epp><response>success</response></epp>");
+              return null;
+            })
+        .when(requestHandler)
+        .handleRequest(any(FakeHttpServletRequest.class), any(FakeHttpServletResponse.class));
+  }
+
   private void setUpSuccessfulHandshake() throws Exception {
     certPromise = new DefaultPromise<>(ImmediateEventExecutor.INSTANCE);
     when(channel.attr(CLIENT_CERTIFICATE_PROMISE_KEY)).thenReturn(certPromiseAttr);
@@ -210,6 +233,55 @@ class EppServiceHandlerTest {
     verify(ctx).close();
   }
 
+  @Test
+  void testChannelRead0_clusterRegistrarQuotaRejected_releasesLocalSlot() throws Exception {
+    createHandler(Optional.of(clusterConnectionLimiter));
+    setUpSuccessfulHandshake();
+    setUpSuccessfulLogin();
+    when(localConnectionLimiter.acquireRegistrar("RegistrarA")).thenReturn(true);
+    when(clusterConnectionLimiter.acquire("RegistrarA")).thenReturn(Optional.empty());
+
+    String eppLoginXml = "<epp><command><login><clID>RegistrarA</clID></login></command></epp>";
+    handler.channelRead0(ctx, Unpooled.wrappedBuffer(eppLoginXml.getBytes(UTF_8)));
+
+    verify(localConnectionLimiter).releaseRegistrar("RegistrarA");
+    verify(metrics).registerQuotaRejection(eq("epp_connection_registrar"), eq("RegistrarA"));
+    verify(ctx).close();
+  }
+
+  @Test
+  void testChannelRead0_localRegistrarQuotaRejected_doesNotConsultCluster() throws Exception {
+    createHandler(Optional.of(clusterConnectionLimiter));
+    setUpSuccessfulHandshake();
+    setUpSuccessfulLogin();
+    when(localConnectionLimiter.acquireRegistrar("RegistrarA")).thenReturn(false);
+
+    String eppLoginXml = "<epp><command><login><clID>RegistrarA</clID></login></command></epp>";
+    handler.channelRead0(ctx, Unpooled.wrappedBuffer(eppLoginXml.getBytes(UTF_8)));
+
+    verify(clusterConnectionLimiter, never()).acquire(any(String.class));
+    verify(ctx).close();
+  }
+
+  @Test
+  void testChannelInactive_postLogin_releasesClusterLease() throws Exception {
+    createHandler(Optional.of(clusterConnectionLimiter));
+    setUpSuccessfulHandshake();
+    setUpSuccessfulLogin();
+    Lease lease = new Lease("RegistrarA", "lease-id");
+    when(localConnectionLimiter.acquireRegistrar("RegistrarA")).thenReturn(true);
+    when(clusterConnectionLimiter.acquire("RegistrarA")).thenReturn(Optional.of(lease));
+
+    String eppLoginXml = "<epp><command><login><clID>RegistrarA</clID></login></command></epp>";
+    handler.channelRead0(ctx, Unpooled.wrappedBuffer(eppLoginXml.getBytes(UTF_8)));
+    verify(ctx, never()).close();
+
+    handler.channelInactive(ctx);
+
+    verify(localConnectionLimiter).releaseRegistrar(eq("RegistrarA"));
+    verify(clusterConnectionLimiter).release(lease);
+  }
+
   @Test
   void testChannelRead0_extractsClidAndForwardsRequest() throws Exception {
     setUpSuccessfulHandshake();
@@ -0,0 +1,196 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.eppserver.quota;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import google.registry.eppserver.quota.ValkeyConnectionLimiter.Lease;
+import io.github.ss_bhatt.testcontainers.valkey.ValkeyContainer;
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.RedisClient;
+import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+@Testcontainers
+class ValkeyConnectionLimiterTest {
+
+  @Container private static final ValkeyContainer valkey = new ValkeyContainer();
+
+  private RedisClient jedis;
+  private ValkeyConnectionLimiter limiter;
+
+  @BeforeEach
+  void setUp() {
+    jedis =
+        RedisClient.builder()
+            .hostAndPort(new HostAndPort(valkey.getHost(), valkey.getFirstMappedPort()))
+            .build();
+    jedis.flushAll();
+    limiter = new ValkeyConnectionLimiter(jedis, "testConnection", 2, Duration.ofMinutes(1));
+  }
+
+  @Test
+  void testAcquire_successUpToLimit() {
+    Optional<Lease> lease = limiter.acquire("RegistrarA");
+    assertThat(lease).isPresent();
+    assertThat(lease.get().registrarId()).isEqualTo("RegistrarA");
+    assertThat(jedis.zscore("testConnection:RegistrarA", lease.get().id())).isNotNull();
+    assertThat(jedis.pttl("testConnection:RegistrarA")).isGreaterThan(0L);
+
+    assertThat(limiter.acquire("RegistrarA")).isPresent();
+    assertThat(jedis.zcard("testConnection:RegistrarA")).isEqualTo(2L);
+  }
+
+  @Test
+  void testAcquire_rejectsOverLimit() {
+    assertThat(limiter.acquire("RegistrarA")).isPresent();
+    assertThat(limiter.acquire("RegistrarA")).isPresent();
+    assertThat(limiter.acquire("RegistrarA")).isEmpty();
+    assertThat(jedis.zcard("testConnection:RegistrarA")).isEqualTo(2L);
+  }
+
+  @Test
+  void testAcquire_sharedAcrossInstances() {
+    ValkeyConnectionLimiter otherInstance =
+        new ValkeyConnectionLimiter(jedis, "testConnection", 2, Duration.ofMinutes(1));
+    assertThat(limiter.acquire("RegistrarA")).isPresent();
+    assertThat(otherInstance.acquire("RegistrarA")).isPresent();
+    assertThat(limiter.acquire("RegistrarA")).isEmpty();
+    assertThat(otherInstance.acquire("RegistrarA")).isEmpty();
+  }
+
+  @Test
+  void testAcquire_independentAcrossRegistrars() {
+    assertThat(limiter.acquire("RegistrarA")).isPresent();
+    assertThat(limiter.acquire("RegistrarA")).isPresent();
+    assertThat(limiter.acquire("RegistrarA")).isEmpty();
+
+    assertThat(limiter.acquire("RegistrarB")).isPresent();
+  }
+
+  @Test
+  void testRelease_freesSlot() {
+    Lease lease = limiter.acquire("RegistrarA").get();
+    assertThat(limiter.acquire("RegistrarA")).isPresent();
+    assertThat(limiter.acquire("RegistrarA")).isEmpty();
+
+    limiter.release(lease);
+
+    assertThat(jedis.zscore("testConnection:RegistrarA", lease.id())).isNull();
+    assertThat(limiter.acquire("RegistrarA")).isPresent();
+  }
+
+  @Test
+  void testAcquire_reapsExpiredLeases() throws Exception {
+    ValkeyConnectionLimiter crashedInstance =
+        new ValkeyConnectionLimiter(jedis, "testConnection", 2, Duration.ofMillis(50));
+    assertThat(crashedInstance.acquire("RegistrarA")).isPresent();
+    assertThat(crashedInstance.acquire("RegistrarA")).isPresent();
+    assertThat(limiter.acquire("RegistrarA")).isEmpty();
+
+    // The leases are never renewed or released.
+    Thread.sleep(150);
+
+    assertThat(limiter.acquire("RegistrarA")).isPresent();
+    assertThat(jedis.zcard("testConnection:RegistrarA")).isEqualTo(1L);
+  }
+
+  @Test
+  void testRenewLeases_keepsLeasesAlive() throws Exception {
+    ValkeyConnectionLimiter shortLeases =
+        new ValkeyConnectionLimiter(jedis, "testConnection", 1, Duration.ofMillis(300));
+    Lease lease = shortLeases.acquire("RegistrarA").get();
+
+    for (int i = 0; i < 5; i++) {
+      Thread.sleep(100);
+      shortLeases.renewLeases();
+    }
+
+    assertThat(jedis.zscore("testConnection:RegistrarA", lease.id())).isNotNull();
+    assertThat(shortLeases.acquire("RegistrarA")).isEmpty();
+  }
+
+  @Test
+  void testRenewLeases_restoresMissingLeases() {
+    Lease lease = limiter.acquire("RegistrarA").get();
+    // E.g. the lease was reaped while this instance couldn't reach Valkey.
+    jedis.del("testConnection:RegistrarA");
+
+    limiter.renewLeases();
+
+    assertThat(jedis.zscore("testConnection:RegistrarA", lease.id())).isNotNull();
+  }
+
+  @Test
+  void testRenewLeases_skipsReleasedLeases() {
+    Lease lease = limiter.acquire("RegistrarA").get();
+    limiter.release(lease);
+
+    limiter.renewLeases();
+
+    assertThat(jedis.exists("testConnection:RegistrarA")).isFalse();
+  }
+
+  @Test
+  void testScriptReloadedAfterFlush() {
+    assertThat(limiter.acquire("RegistrarA")).isPresent();
+    jedis.scriptFlush();
+    assertThat(limiter.acquire("RegistrarA")).isPresent();
+  }
+
+  @Test
+  void testAcquire_failsOpen() {
+    UnifiedJedis brokenJedis = mock(UnifiedJedis.class);
+    when(brokenJedis.evalsha(anyString(), anyList(), anyList()))
+        .thenThrow(new JedisConnectionException("Connection refused"));
+    ValkeyConnectionLimiter brokenLimiter =
+        new ValkeyConnectionLimiter(brokenJedis, "testConnection", 1, Duration.ofMinutes(1));
+
+    assertThat(brokenLimiter.acquire("RegistrarA")).isPresent();
+    assertThat(brokenLimiter.acquire("RegistrarA")).isPresent();
+  }
+
+  @Test
+  void testRelease_swallowsErrors() {
+    UnifiedJedis brokenJedis = mock(UnifiedJedis.class);
+    when(brokenJedis.zrem(anyString(), any(String[].class)))
+        .thenThrow(new JedisConnectionException("Connection refused"));
+    ValkeyConnectionLimiter brokenLimiter =
+        new ValkeyConnectionLimiter(brokenJedis, "testConnection", 1, Duration.ofMinutes(1));
+
+    brokenLimiter.release(new Lease("RegistrarA", "lease-id"));
+  }
+
+  @Test
+  void testFailure_leaseDurationTooShort() {
+    IllegalArgumentException thrown =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new ValkeyConnectionLimiter(jedis, "testConnection", 1, Duration.ofMillis(1)));
+    assertThat(thrown).hasMessageThat().isEqualTo("Lease duration too short: PT0.001S");
+  }
+}
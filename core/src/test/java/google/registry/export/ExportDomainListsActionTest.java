@@ -26,10 +26,12 @@ import static google.registry.testing.DatabaseHelper.persistResource;
 import static google.registry.util.DateTimeUtils.plusDays;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
 
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.StorageException;
@@ -47,18 +49,21 @@ import google.registry.persistence.transaction.JpaTestExtensions;
 import google.registry.persistence.transaction.JpaTestExtensions.JpaIntegrationTestExtension;
 import google.registry.storage.drive.DriveConnection;
 import google.registry.testing.FakeClock;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
-import org.mockito.ArgumentCaptor;
 
 /** Unit tests for {@link ExportDomainListsAction}. */
 class ExportDomainListsActionTest {
 
   private final GcsUtils gcsUtils = new GcsUtils(LocalStorageHelper.getOptions());
   private final DriveConnection driveConnection = mock(DriveConnection.class);
-  private final ArgumentCaptor<byte[]> bytesExportedToDrive = ArgumentCaptor.forClass(byte[].class);
+  private final Map<String, String> contentsExportedToDrive = new ConcurrentHashMap<>();
   private ExportDomainListsAction action;
   private final FakeClock clock = new FakeClock(Instant.parse("2020-02-02T02:02:02Z"));
 
@@ -67,7 +72,7 @@ class ExportDomainListsActionTest {
       new JpaTestExtensions.Builder().withClock(clock).buildIntegrationTestExtension();
 
   @BeforeEach
-  void beforeEach() {
+  void beforeEach() throws Exception {
     createTld("tld");
     createTld("testtld");
     persistResource(Tld.get("tld").asBuilder().setDriveFolderId("brouhaha").build());
@@ -79,17 +84,23 @@ class ExportDomainListsActionTest {
     action.clock = clock;
     action.driveConnection = driveConnection;
     persistFeatureFlag(INCLUDE_PENDING_DELETE_DATE_FOR_DOMAINS, INACTIVE);
+    // The exported file is deleted once the export finishes, so read it while it still exists.
+    when(driveConnection.createOrUpdateFileFromPath(any(), any(), any(), any()))
+        .thenAnswer(
+            invocation -> {
+              contentsExportedToDrive.put(
+                  invocation.getArgument(0),
+                  Files.readString(invocation.<Path>getArgument(3), UTF_8));
+              return "fileId";
+            });
   }
 
   private void verifyExportedToDrive(String folderId, String filename, String domains)
       throws Exception {
     verify(driveConnection)
-        .createOrUpdateFile(
-            eq(filename),
-            eq(MediaType.PLAIN_TEXT_UTF_8),
-            eq(folderId),
-            bytesExportedToDrive.capture());
-    assertThat(new String(bytesExportedToDrive.getValue(), UTF_8)).isEqualTo(domains);
+        .createOrUpdateFileFromPath(
+            eq(filename), eq(MediaType.PLAIN_TEXT_UTF_8), eq(folderId), any(Path.class));
+    assertThat(contentsExportedToDrive).containsEntry(filename, domains);
   }
 
   @Test
@@ -165,6 +165,7 @@ public class EppTestCase {
     EppRequestHandler handler = new EppRequestHandler();
     FakeResponse response = new FakeResponse();
     handler.response = response;
+    handler.eppMetrics = new EppMetrics();
     FakesAndMocksModule fakesAndMocksModule = FakesAndMocksModule.create(clock);
     eppMetricBuilder = fakesAndMocksModule.getMetricBuilder();
     handler.eppController =
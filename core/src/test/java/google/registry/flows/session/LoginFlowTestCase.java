@@ -70,7 +70,7 @@ public abstract class LoginFlowTestCase extends FlowTestCase<LoginFlow> {
   // Also called in subclasses.
   void doSuccessfulTest(String xmlFilename) throws Exception {
     setEppInput(xmlFilename);
-    assertMutatingFlow(true);
+    assertMutatingFlow(false);
     runFlowAssertResponse(loadFile("generic_success_response.xml"));
   }
 
@@ -89,7 +89,7 @@ public abstract class LoginFlowTestCase extends FlowTestCase<LoginFlow> {
   @Test
   void testSuccess_setsIsLoginResponse() throws Exception {
     setEppInput("login_valid.xml");
-    assertMutatingFlow(true);
+    assertMutatingFlow(false);
     EppOutput output = runFlow();
     assertThat(output.getResponse().isLoginResponse()).isTrue();
   }
@@ -133,7 +133,7 @@ public abstract class LoginFlowTestCase extends FlowTestCase<LoginFlow> {
     assertThat(registrar.verifyPassword("randomstring")).isFalse();
 
     setEppInput("login_set_new_password.xml", ImmutableMap.of("NEWPW", "ANewPassword"));
-    assertMutatingFlow(true);
+    assertMutatingFlow(false);
     runFlowAssertResponse(loadFile("generic_success_response.xml"));
 
     Registrar newRegistrar = loadRegistrar("NewRegistrar");
@@ -142,6 +142,22 @@ public abstract class LoginFlowTestCase extends FlowTestCase<LoginFlow> {
     assertThat(registrar.verifyPassword("randomstring")).isFalse();
   }
 
+  @Test
+  void testSetNewPassword_dryRun() throws Exception {
+    setEppInput("login_set_new_password.xml", ImmutableMap.of("NEWPW", "ANewPassword"));
+    runFlow(CommitMode.DRY_RUN, UserPrivileges.NORMAL);
+    Registrar newRegistrar = loadRegistrar("NewRegistrar");
+    assertThat(newRegistrar.verifyPassword("foo-BAR2")).isTrue();
+    assertThat(newRegistrar.verifyPassword("ANewPassword")).isFalse();
+  }
+
+  @Test
+  void testSuccess_setsRegistrarIdOnMetric() throws Exception {
+    setEppInput("login_valid.xml");
+    runFlow();
+    assertThat(getEppMetric().getRegistrarId()).hasValue("NewRegistrar");
+  }
+
   @Test
   void testFailure_invalidNewPassword_tooShort() throws Exception {
     setEppInput("login_set_new_password.xml", ImmutableMap.of("NEWPW", "5Char"));
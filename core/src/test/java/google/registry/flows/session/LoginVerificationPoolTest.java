@@ -0,0 +1,173 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.flows.session;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import google.registry.flows.TransportCredentials.BadRegistrarPasswordException;
+import google.registry.flows.session.LoginVerificationPool.TooManyPendingLoginsException;
+import google.registry.testing.FakeClock;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link LoginVerificationPool}. */
+class LoginVerificationPoolTest {
+
+  private final FakeClock clock = new FakeClock();
+  private final ExecutorService loginThreads = Executors.newCachedThreadPool();
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final List<String> verified = new CopyOnWriteArrayList<>();
+
+  @AfterEach
+  void afterEach() {
+    release.countDown();
+    loginThreads.shutdownNow();
+  }
+
+  /** Starts a login that blocks the only verification thread until {@link #release} opens. */
+  private Future<?> blockVerificationThread(LoginVerificationPool pool) throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    Future<?> future =
+        loginThreads.submit(
+            () ->
+                pool.verify(
+                    "blocker",
+                    () -> {
+                      started.countDown();
+                      Uninterruptibles.awaitUninterruptibly(release);
+                      return null;
+                    }));
+    assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+    return future;
+  }
+
+  /** Starts a login in the background and waits until it is queued. */
+  private Future<String> queueLogin(LoginVerificationPool pool, String registrarId, String name)
+      throws Exception {
+    int queueDepth = pool.getQueueDepth();
+    Future<String> future =
+        loginThreads.submit(
+            () ->
+                pool.verify(
+                    registrarId,
+                    () -> {
+                      verified.add(name);
+                      return name;
+                    }));
+    while (pool.getQueueDepth() == queueDepth) {
+      Thread.sleep(1);
+    }
+    return future;
+  }
+
+  @Test
+  void testVerify_returnsResult() throws Exception {
+    LoginVerificationPool pool = new LoginVerificationPool(2, 10, clock);
+    assertThat(pool.verify("TheRegistrar", () -> "verified")).isEqualTo("verified");
+    assertThat(pool.getQueueDepth()).isEqualTo(0);
+  }
+
+  @Test
+  void testVerify_authenticationErrorPropagates() {
+    LoginVerificationPool pool = new LoginVerificationPool(2, 10, clock);
+    assertThrows(
+        BadRegistrarPasswordException.class,
+        () ->
+            pool.verify(
+                "TheRegistrar",
+                () -> {
+                  throw new BadRegistrarPasswordException();
+                }));
+  }
+
+  @Test
+  void testVerify_runtimeExceptionPropagates() {
+    LoginVerificationPool pool = new LoginVerificationPool(2, 10, clock);
+    IllegalStateException thrown =
+        assertThrows(
+            IllegalStateException.class,
+            () ->
+                pool.verify(
+                    "TheRegistrar",
+                    () -> {
+                      throw new IllegalStateException("Broken");
+                    }));
+    assertThat(thrown).hasMessageThat().isEqualTo("Broken");
+  }
+
+  @Test
+  void testVerify_rejectedWhenQueueIsFull() throws Exception {
+    LoginVerificationPool pool = new LoginVerificationPool(1, 2, clock);
+    Future<?> blocker = blockVerificationThread(pool);
+    Future<String> first = queueLogin(pool, "TheRegistrar", "first");
+    Future<String> second = queueLogin(pool, "NewRegistrar", "second");
+
+    assertThrows(TooManyPendingLoginsException.class, () -> pool.verify("TheRegistrar", () -> ""));
+
+    release.countDown();
+    blocker.get(10, TimeUnit.SECONDS);
+    assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo("first");
+    assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo("second");
+    // There is room again once the queue has drained.
+    assertThat(pool.verify("TheRegistrar", () -> "third")).isEqualTo("third");
+  }
+
+  @Test
+  void testVerify_registrarsServedRoundRobin() throws Exception {
+    LoginVerificationPool pool = new LoginVerificationPool(1, 10, clock);
+    Future<?> blocker = blockVerificationThread(pool);
+    List<Future<String>> logins =
+        List.of(
+            queueLogin(pool, "TheRegistrar", "a1"),
+            queueLogin(pool, "TheRegistrar", "a2"),
+            queueLogin(pool, "TheRegistrar", "a3"),
+            queueLogin(pool, "NewRegistrar", "b1"),
+            queueLogin(pool, "NewRegistrar", "b2"));
+
+    release.countDown();
+    blocker.get(10, TimeUnit.SECONDS);
+    for (Future<String> login : logins) {
+      login.get(10, TimeUnit.SECONDS);
+    }
+    assertThat(verified).containsExactly("a1", "b1", "a2", "b2", "a3").inOrder();
+  }
+
+  @Test
+  void testFailure_nonPositiveThreads() {
+    IllegalArgumentException thrown =
+        assertThrows(IllegalArgumentException.class, () -> new LoginVerificationPool(0, 10, clock));
+    assertThat(thrown)
+        .hasMessageThat()
+        .isEqualTo("Number of login verification threads must be positive: 0");
+  }
+
+  @Test
+  void testFailure_nonPositiveQueueDepth() {
+    IllegalArgumentException thrown =
+        assertThrows(IllegalArgumentException.class, () -> new LoginVerificationPool(1, 0, clock));
+    assertThat(thrown)
+        .hasMessageThat()
+        .isEqualTo("Maximum login verification queue depth must be positive: 0");
+  }
+}
@@ -0,0 +1,116 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.monitoring.whitebox;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import google.registry.monitoring.whitebox.FlowProfile.Phase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link FlowProfile}. */
+class FlowProfileTest {
+
+  @AfterEach
+  void afterEach() {
+    FlowProfile.current().ifPresent(FlowProfile::stop);
+  }
+
+  @Test
+  void testStartIfAbsent_nested() {
+    FlowProfile profile = FlowProfile.startIfAbsent().get();
+    assertThat(FlowProfile.startIfAbsent()).isEmpty();
+    assertThat(FlowProfile.current()).hasValue(profile);
+  }
+
+  @Test
+  void testStop_removesProfile() {
+    FlowProfile profile = FlowProfile.startIfAbsent().get();
+    profile.stop();
+    assertThat(FlowProfile.current()).isEmpty();
+    FlowProfile.recordSqlStatement();
+    assertThat(profile.getSqlStatements()).isEqualTo(0);
+  }
+
+  @Test
+  void testFailure_stopInactiveProfile() {
+    FlowProfile profile = FlowProfile.startIfAbsent().get();
+    profile.stop();
+    IllegalStateException thrown = assertThrows(IllegalStateException.class, profile::stop);
+    assertThat(thrown).hasMessageThat().isEqualTo("Profile is not active on this thread");
+  }
+
+  @Test
+  void testRecord_withoutProfile_isNoop() {
+    FlowProfile.recordSqlStatement();
+    FlowProfile.recordRowLoaded();
+    FlowProfile.recordEntityLoad(String.class);
+    FlowProfile.recordValkeyCall();
+    FlowProfile.recordTransactionRetry();
+    try (FlowProfile.Timer timer = FlowProfile.time(Phase.FLOW)) {
+      assertThat(FlowProfile.current()).isEmpty();
+    }
+  }
+
+  @Test
+  void testRecord_countsWork() {
+    FlowProfile profile = FlowProfile.startIfAbsent().get();
+    FlowProfile.recordSqlStatement();
+    FlowProfile.recordSqlStatement();
+    FlowProfile.recordRowLoaded();
+    FlowProfile.recordEntityLoad(String.class);
+    FlowProfile.recordEntityLoad(String.class);
+    FlowProfile.recordEntityLoad(Integer.class);
+    FlowProfile.recordValkeyCall();
+    FlowProfile.recordTransactionRetry();
+    assertThat(profile.getSqlStatements()).isEqualTo(2);
+    assertThat(profile.getRowsLoaded()).isEqualTo(1);
+    assertThat(profile.getEntityLoads().count("String")).isEqualTo(2);
+    assertThat(profile.getEntityLoads().count("Integer")).isEqualTo(1);
+    assertThat(profile.getValkeyCalls()).isEqualTo(1);
+    assertThat(profile.getTransactionRetries()).isEqualTo(1);
+  }
+
+  @Test
+  void testTime_addsUpPhases() throws Exception {
+    FlowProfile profile = FlowProfile.startIfAbsent().get();
+    try (FlowProfile.Timer timer = FlowProfile.time(Phase.FLOW)) {
+      Thread.sleep(5);
+    }
+    try (FlowProfile.Timer timer = FlowProfile.time(Phase.FLOW)) {
+      Thread.sleep(5);
+    }
+    assertThat(profile.getPhaseTimes().keySet()).containsExactly(Phase.FLOW);
+    assertThat(profile.getPhaseTimes().get(Phase.FLOW).toMillis()).isAtLeast(10);
+  }
+
+  @Test
+  void testToHeaderValue() {
+    FlowProfile profile = FlowProfile.startIfAbsent().get();
+    FlowProfile.recordSqlStatement();
+    FlowProfile.recordRowLoaded();
+    FlowProfile.recordEntityLoad(String.class);
+    FlowProfile.recordEntityLoad(Integer.class);
+    FlowProfile.recordValkeyCall();
+    try (FlowProfile.Timer timer = FlowProfile.time(Phase.PARSE)) {
+      // Nothing to time.
+    }
+    assertThat(profile.toHeaderValue())
+        .matches(
+            "sql_statements=1; rows_loaded=1; entity_loads=Integer:1,String:1; valkey_calls=1;"
+                + " transaction_retries=0; parse_ms=\\d+");
+  }
+}
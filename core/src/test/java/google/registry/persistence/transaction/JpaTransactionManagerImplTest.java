@@ -40,6 +40,8 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import google.registry.config.RegistryConfig;
 import google.registry.model.ImmutableObject;
+import google.registry.monitoring.whitebox.FlowProfile;
+import google.registry.monitoring.whitebox.FlowProfile.Phase;
 import google.registry.persistence.PersistenceModule.TransactionIsolationLevel;
 import google.registry.persistence.VKey;
 import google.registry.persistence.transaction.JpaTestExtensions.JpaUnitTestExtension;
@@ -301,6 +303,21 @@ class JpaTransactionManagerImplTest {
     verify(spyJpaTm, times(12)).delete(theEntityKey);
   }
 
+  @Test
+  void transact_recordsRetriesToFlowProfile() {
+    JpaTransactionManager spyJpaTm = spy(tm());
+    doThrow(OptimisticLockException.class).when(spyJpaTm).delete(any(VKey.class));
+    FlowProfile profile = FlowProfile.startIfAbsent().get();
+    try {
+      assertThrows(
+          OptimisticLockException.class,
+          () -> spyJpaTm.transact(() -> spyJpaTm.delete(theEntityKey)));
+    } finally {
+      profile.stop();
+    }
+    assertThat(profile.getTransactionRetries()).isEqualTo(5);
+  }
+
   @Test
   void transactNoRetry_nested() {
     JpaTransactionManagerImpl tm = (JpaTransactionManagerImpl) tm();
@@ -785,6 +802,21 @@ class JpaTransactionManagerImplTest {
                     .isFalse());
   }
 
+  @Test
+  void query_recordsToFlowProfile() {
+    persistResources(moreEntities);
+    FlowProfile profile = FlowProfile.startIfAbsent().get();
+    try {
+      tm().transact(() -> tm().query("FROM TestEntity", TestEntity.class).getResultList());
+    } finally {
+      profile.stop();
+    }
+    assertThat(profile.getSqlStatements()).isAtLeast(1);
+    assertThat(profile.getRowsLoaded()).isEqualTo(moreEntities.size());
+    assertThat(profile.getTransactionRetries()).isEqualTo(0);
+    assertThat(profile.getPhaseTimes()).containsKey(Phase.COMMIT);
+  }
+
   @Test
   void innerTransactions_noRetry() {
     JpaTransactionManager spyJpaTm = spy(tm());
@@ -0,0 +1,114 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.rde;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import google.registry.keyring.api.Keyring;
+import google.registry.testing.BouncyCastleProviderExtension;
+import google.registry.testing.FakeKeyringModule;
+import java.io.ByteArrayOutputStream;
+import java.util.zip.Deflater;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+/** Unit tests for {@link GhostrydeSegments}. */
+class GhostrydeSegmentsTest {
+
+  @RegisterExtension
+  final BouncyCastleProviderExtension bouncy = new BouncyCastleProviderExtension();
+
+  private final Keyring keyring = new FakeKeyringModule().get();
+
+  private static final String HEAD = "<deposit>\n" + "  <header/>\n".repeat(50);
+  private static final String TAIL = "</deposit>\n";
+
+  @Test
+  void testStitchedSegments_decodeAsOneFile() throws Exception {
+    ImmutableList<String> segments =
+        ImmutableList.of(
+            "Fanatics have their dreams, wherewith they weave\n".repeat(1000),
+            "",
+            "(◕‿◕)\n",
+            "A paradise for a sect;\n".repeat(100_000));
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    GhostrydeSegments.Writer writer =
+        GhostrydeSegments.openWriter(
+            output, keyring.getRdeStagingEncryptionKey(), HEAD.getBytes(UTF_8));
+    int level = Deflater.BEST_SPEED;
+    for (String segment : segments) {
+      byte[] data = segment.getBytes(UTF_8);
+      // Segments compressed with different levels can be mixed.
+      writer.write(GhostrydeSegments.compress(data, level), data.length);
+      level = level == Deflater.BEST_SPEED ? Deflater.DEFAULT_COMPRESSION : Deflater.BEST_SPEED;
+    }
+    long length = writer.finish(TAIL.getBytes(UTF_8));
+
+    String expected = HEAD + String.join("", segments) + TAIL;
+    assertThat(
+            new String(
+                Ghostryde.decode(output.toByteArray(), keyring.getRdeStagingDecryptionKey()),
+                UTF_8))
+        .isEqualTo(expected);
+    assertThat(length).isEqualTo(expected.getBytes(UTF_8).length);
+  }
+
+  @Test
+  void testNoSegments_longTail() throws Exception {
+    String tail = "</deposit>\n".repeat(10_000);
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    long length =
+        GhostrydeSegments.openWriter(
+                output, keyring.getRdeStagingEncryptionKey(), HEAD.getBytes(UTF_8))
+            .finish(tail.getBytes(UTF_8));
+
+    assertThat(
+            new String(
+                Ghostryde.decode(output.toByteArray(), keyring.getRdeStagingDecryptionKey()),
+                UTF_8))
+        .isEqualTo(HEAD + tail);
+    assertThat(length).isEqualTo(HEAD.length() + tail.length());
+  }
+
+  @Test
+  void testFailure_headTooShort() {
+    IllegalArgumentException thrown =
+        assertThrows(
+            IllegalArgumentException.class,
+            () ->
+                GhostrydeSegments.openWriter(
+                    new ByteArrayOutputStream(),
+                    keyring.getRdeStagingEncryptionKey(),
+                    "<deposit>".getBytes(UTF_8)));
+    assertThat(thrown).hasMessageThat().contains("at least 512 bytes");
+  }
+
+  @Test
+  void testFailure_writeAfterFinish() throws Exception {
+    GhostrydeSegments.Writer writer =
+        GhostrydeSegments.openWriter(
+            new ByteArrayOutputStream(),
+            keyring.getRdeStagingEncryptionKey(),
+            HEAD.getBytes(UTF_8));
+    writer.finish(TAIL.getBytes(UTF_8));
+    byte[] segment = GhostrydeSegments.compress("<domain/>".getBytes(UTF_8));
+    IllegalStateException thrown =
+        assertThrows(IllegalStateException.class, () -> writer.write(segment, 9));
+    assertThat(thrown).hasMessageThat().isEqualTo("Writer is already finished");
+  }
+}
@@ -30,6 +30,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Base64;
 import java.util.stream.Stream;
+import java.util.zip.Deflater;
 import org.bouncycastle.openpgp.PGPException;
 import org.bouncycastle.openpgp.PGPKeyPair;
 import org.bouncycastle.openpgp.PGPPrivateKey;
@@ -96,6 +97,28 @@ public class GhostrydeTest {
     assertThat(new String(bsOut.toByteArray(), UTF_8)).isEqualTo(content);
   }
 
+  @ParameterizedTest
+  @MethodSource("provideTestCombinations")
+  void testStreamingApi_withCompressionLevel(String content) throws Exception {
+    Keyring keyring = new FakeKeyringModule().get();
+    byte[] data = content.getBytes(UTF_8);
+    PGPPublicKey publicKey = keyring.getRdeStagingEncryptionKey();
+    PGPPrivateKey privateKey = keyring.getRdeStagingDecryptionKey();
+
+    for (int level : new int[] {Deflater.BEST_SPEED, Deflater.BEST_COMPRESSION}) {
+      ByteArrayOutputStream bsOut = new ByteArrayOutputStream();
+      ByteArrayOutputStream lenOut = new ByteArrayOutputStream();
+      try (OutputStream encoder = Ghostryde.encoder(bsOut, publicKey, lenOut, level)) {
+        encoder.write(data);
+      }
+
+      assertThat(new String(Ghostryde.decode(bsOut.toByteArray(), privateKey), UTF_8))
+          .isEqualTo(content);
+      assertThat(Ghostryde.readLength(new ByteArrayInputStream(lenOut.toByteArray())))
+          .isEqualTo(data.length);
+    }
+  }
+
   @ParameterizedTest
   @MethodSource("provideTestCombinations")
   void testStreamingApi_withSize(String content) throws Exception {
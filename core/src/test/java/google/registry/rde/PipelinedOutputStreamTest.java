@@ -0,0 +1,121 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.rde;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link PipelinedOutputStream}. */
+class PipelinedOutputStreamTest {
+
+  @Test
+  void testWrite_largerThanAllBuffers() throws Exception {
+    byte[] data =
+        new byte[PipelinedOutputStream.BUFFER_SIZE * PipelinedOutputStream.MAX_BUFFERS * 3];
+    new Random(42).nextBytes(data);
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    try (PipelinedOutputStream stage = new PipelinedOutputStream("test", output)) {
+      stage.write(data[0]);
+      int offset = 1;
+      int length = 1;
+      while (offset < data.length) {
+        length = Math.min(length * 3 + 1, data.length - offset);
+        stage.write(data, offset, length);
+        offset += length;
+      }
+      assertThat(stage.getBytesWritten()).isEqualTo(data.length);
+    }
+
+    assertThat(output.toByteArray()).isEqualTo(data);
+  }
+
+  @Test
+  void testFlush_handsOverBufferedData() throws Exception {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (PipelinedOutputStream stage = new PipelinedOutputStream("test", output)) {
+      stage.write(new byte[] {1, 2, 3});
+      stage.flush();
+      stage.write(new byte[] {4, 5});
+    }
+    assertThat(output.toByteArray()).isEqualTo(new byte[] {1, 2, 3, 4, 5});
+  }
+
+  @Test
+  void testClose_doesNotCloseDownstream() throws Exception {
+    ClosingTrackingOutputStream output = new ClosingTrackingOutputStream();
+    PipelinedOutputStream stage = new PipelinedOutputStream("test", output);
+    stage.write(new byte[] {1, 2, 3});
+    stage.close();
+    stage.close();
+    assertThat(output.isClosed).isFalse();
+  }
+
+  @Test
+  void testFailure_downstreamExceptionIsRethrown() throws Exception {
+    OutputStream failing =
+        new OutputStream() {
+          @Override
+          public void write(int b) throws IOException {
+            throw new IOException("Disk is full");
+          }
+
+          @Override
+          public void write(byte[] b, int off, int len) throws IOException {
+            throw new IOException("Disk is full");
+          }
+        };
+    PipelinedOutputStream stage = new PipelinedOutputStream("test", failing);
+    byte[] data = new byte[PipelinedOutputStream.BUFFER_SIZE];
+
+    IOException thrown =
+        assertThrows(
+            IOException.class,
+            () -> {
+              // The failure is only noticed once the writer thread gets to the data, which happens
+              // at the latest when the stage is closed.
+              try {
+                for (int i = 0; i < PipelinedOutputStream.MAX_BUFFERS * 2; i++) {
+                  stage.write(data);
+                }
+              } finally {
+                stage.close();
+              }
+            });
+    assertThat(thrown).hasMessageThat().isEqualTo("Stage test failed");
+    assertThat(thrown).hasCauseThat().hasMessageThat().isEqualTo("Disk is full");
+  }
+
+  private static class ClosingTrackingOutputStream extends FilterOutputStream {
+
+    boolean isClosed;
+
+    ClosingTrackingOutputStream() {
+      super(new ByteArrayOutputStream());
+    }
+
+    @Override
+    public void close() {
+      isClosed = true;
+    }
+  }
+}
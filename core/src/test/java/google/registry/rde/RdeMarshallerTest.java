@@ -14,18 +14,25 @@
 
 package google.registry.rde;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.truth.Truth.assertThat;
 import static google.registry.testing.DatabaseHelper.createTld;
 import static google.registry.testing.DatabaseHelper.loadRegistrar;
 import static google.registry.testing.DatabaseHelper.newDomain;
 import static google.registry.xml.ValidationMode.STRICT;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
+import com.google.common.collect.ImmutableList;
 import google.registry.model.domain.Domain;
 import google.registry.model.rde.RdeMode;
+import google.registry.model.registrar.Registrar;
 import google.registry.persistence.transaction.JpaTestExtensions;
 import google.registry.persistence.transaction.JpaTestExtensions.JpaIntegrationTestExtension;
 import google.registry.xml.XmlTestUtils;
 import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
@@ -107,4 +114,49 @@ public class RdeMarshallerTest {
     assertThat(fragment.xml())
         .contains("<rdeDomain:exDate>294247-01-10T04:00:54.000Z</rdeDomain:exDate>");
   }
+
+  @Test
+  void testMarshalRegistrar_compactOutput_isOneLine() throws Exception {
+    Registrar registrar = loadRegistrar("TheRegistrar");
+    DepositFragment formatted = new RdeMarshaller(STRICT).marshalRegistrar(registrar);
+    DepositFragment compact = new RdeMarshaller(STRICT, false).marshalRegistrar(registrar);
+    assertThat(compact.error()).isEmpty();
+    assertThat(compact.xml()).startsWith("<rdeRegistrar:registrar><rdeRegistrar:id>");
+    assertThat(compact.xml()).doesNotContain("xmlns");
+    assertThat(compact.xml()).endsWith("</rdeRegistrar:registrar>\n");
+    assertThat(compact.xml().indexOf('\n')).isEqualTo(compact.xml().length() - 1);
+    assertThat(compact.xml().length()).isLessThan(formatted.xml().length());
+    XmlTestUtils.assertXmlEquals(DECLARATION + formatted.xml(), DECLARATION + compact.xml());
+  }
+
+  @Test
+  void testMarshalRegistrar_concurrently_producesSameFragments() throws Exception {
+    Registrar registrar = loadRegistrar("TheRegistrar");
+    RdeMarshaller marshaller = new RdeMarshaller(STRICT);
+    String expected = marshaller.marshalRegistrar(registrar).xml();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      ImmutableList<Future<String>> results =
+          executor
+              .invokeAll(
+                  ImmutableList.of(
+                      () -> marshaller.marshalRegistrar(registrar).xml(),
+                      () -> marshaller.marshalRegistrar(registrar).xml(),
+                      () -> new RdeMarshaller(STRICT).marshalRegistrar(registrar).xml(),
+                      () -> new RdeMarshaller(STRICT).marshalRegistrar(registrar).xml(),
+                      () -> marshaller.marshalRegistrar(registrar).xml(),
+                      () -> marshaller.marshalRegistrar(registrar).xml(),
+                      () -> new RdeMarshaller(STRICT).marshalRegistrar(registrar).xml(),
+                      () -> new RdeMarshaller(STRICT).marshalRegistrar(registrar).xml()),
+                  30,
+                  SECONDS)
+              .stream()
+              .collect(toImmutableList());
+      for (Future<String> result : results) {
+        assertThat(result.get()).isEqualTo(expected);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 }
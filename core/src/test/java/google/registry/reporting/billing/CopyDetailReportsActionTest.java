@@ -39,7 +39,9 @@ import google.registry.testing.FakeClock;
 import google.registry.testing.FakeResponse;
 import google.registry.testing.FakeSleeper;
 import google.registry.util.Retrier;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
@@ -105,6 +107,37 @@ class CopyDetailReportsActionTest {
     assertThat(response.getPayload()).isEqualTo("Copied detail reports.\n");
   }
 
+  @Test
+  void testSuccess_compressedShards_decompressed() throws IOException {
+    gcsUtils.createFromBytes(
+        BlobId.of(
+            "test-bucket",
+            "results/invoice_details_2017-10_TheRegistrar_test-00000-of-00002.csv.gz"),
+        gzip("hello,world\n1,2"));
+    gcsUtils.createFromBytes(
+        BlobId.of(
+            "test-bucket",
+            "results/invoice_details_2017-10_TheRegistrar_test-00001-of-00002.csv.gz"),
+        gzip("hello,world\n3,4"));
+
+    action.run();
+    verify(driveConnection)
+        .createOrUpdateFile(
+            "invoice_details_2017-10_TheRegistrar_test-00000-of-00002.csv",
+            MediaType.CSV_UTF_8,
+            "0B-12345",
+            "hello,world\n1,2".getBytes(UTF_8));
+    verify(driveConnection)
+        .createOrUpdateFile(
+            "invoice_details_2017-10_TheRegistrar_test-00001-of-00002.csv",
+            MediaType.CSV_UTF_8,
+            "0B-12345",
+            "hello,world\n3,4".getBytes(UTF_8));
+    verifyNoMoreInteractions(driveConnection);
+    assertThat(response.getStatus()).isEqualTo(SC_OK);
+    assertThat(response.getPayload()).isEqualTo("Copied detail reports.\n");
+  }
+
   @Test
   void testSuccess_nonDetailReportFiles_notSent() throws IOException {
     gcsUtils.createFromBytes(
@@ -282,4 +315,12 @@ class CopyDetailReportsActionTest {
     verifyNoInteractions(driveConnection);
     assertThat(response.getStatus()).isEqualTo(SC_OK);
   }
+
+  private static byte[] gzip(String content) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzipOutput = new GZIPOutputStream(output)) {
+      gzipOutput.write(content.getBytes(UTF_8));
+    }
+    return output.toByteArray();
+  }
 }
@@ -32,6 +32,7 @@ import com.google.common.collect.ImmutableSet;
 import dagger.Component;
 import dagger.Module;
 import dagger.Provides;
+import google.registry.cache.CacheMetrics;
 import google.registry.config.CredentialModule.ApplicationDefaultCredential;
 import google.registry.config.RegistryConfig.Config;
 import google.registry.model.console.GlobalRole;
@@ -41,9 +42,15 @@ import google.registry.persistence.transaction.JpaTestExtensions;
 import google.registry.request.auth.AuthSettings.AuthLevel;
 import google.registry.request.auth.OidcTokenAuthenticationMechanism.IapOidcAuthenticationMechanism;
 import google.registry.request.auth.OidcTokenAuthenticationMechanism.RegularOidcAuthenticationMechanism;
+import google.registry.testing.FakeClock;
+import google.registry.util.Clock;
 import google.registry.util.GoogleCredentialsBundle;
 import jakarta.inject.Singleton;
 import jakarta.servlet.http.HttpServletRequest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -65,12 +72,21 @@ public class OidcTokenAuthenticationMechanismTest {
   private final JsonWebSignature jwt =
       new JsonWebSignature(new Header(), payload, new byte[0], new byte[0]);
   private final HttpServletRequest request = mock(HttpServletRequest.class);
+  private final FakeClock clock = new FakeClock(Instant.parse("2026-01-01T00:00:00Z"));
+  private final AtomicInteger verifications = new AtomicInteger();
 
   private User user;
   private AuthResult authResult;
   private OidcTokenAuthenticationMechanism authenticationMechanism =
       new OidcTokenAuthenticationMechanism(
-          serviceAccounts, request -> rawToken, (service, token) -> jwt) {};
+          serviceAccounts,
+          request -> rawToken,
+          (service, token) -> {
+            verifications.incrementAndGet();
+            return jwt;
+          },
+          new CacheMetrics(),
+          clock) {};
 
   @RegisterExtension
   public final JpaTestExtensions.JpaUnitTestExtension jpaExtension =
@@ -80,6 +96,7 @@ public class OidcTokenAuthenticationMechanismTest {
   void beforeEach() throws Exception {
     payload.setEmail(email);
     payload.setSubject(gaiaId);
+    payload.setExpirationTimeSeconds(clock.now().plus(Duration.ofHours(1)).getEpochSecond());
     user = createAdminUser(email);
     when(request.getServerName()).thenReturn("frontend.registry.test");
   }
@@ -87,6 +104,8 @@ public class OidcTokenAuthenticationMechanismTest {
   @AfterEach
   void afterEach() {
     OidcTokenAuthenticationMechanism.unsetAuthResultForTesting();
+    OidcTokenAuthenticationMechanism.setTokenCacheForTest(Optional.empty());
+    OidcTokenAuthenticationMechanism.setUserCacheForTest(Optional.empty());
   }
 
   @Test
@@ -99,7 +118,11 @@ public class OidcTokenAuthenticationMechanismTest {
   void testAuthenticate_noTokenFromRequest() {
     authenticationMechanism =
         new OidcTokenAuthenticationMechanism(
-            serviceAccounts, e -> null, (service, token) -> jwt) {};
+            serviceAccounts,
+            e -> null,
+            (service, token) -> jwt,
+            new CacheMetrics(),
+            clock) {};
     authResult = authenticationMechanism.authenticate(request);
     assertThat(authResult).isEqualTo(AuthResult.NOT_AUTHENTICATED);
   }
@@ -112,7 +135,9 @@ public class OidcTokenAuthenticationMechanismTest {
             e -> null,
             (service, token) -> {
               throw new VerificationException("Bad token");
-            }) {};
+            },
+            new CacheMetrics(),
+            clock) {};
     authResult = authenticationMechanism.authenticate(request);
     assertThat(authResult).isEqualTo(AuthResult.NOT_AUTHENTICATED);
   }
@@ -162,6 +187,57 @@ public class OidcTokenAuthenticationMechanismTest {
     assertThat(authResult).isEqualTo(AuthResult.NOT_AUTHENTICATED);
   }
 
+  @Test
+  void testAuthenticate_tokenCached() throws Exception {
+    OidcTokenAuthenticationMechanism.setTokenCacheForTest(Optional.of(10));
+    assertThat(authenticationMechanism.authenticate(request).user()).hasValue(user);
+    assertThat(authenticationMechanism.authenticate(request).user()).hasValue(user);
+    assertThat(verifications.get()).isEqualTo(1);
+  }
+
+  @Test
+  void testAuthenticate_tokenCachedPerService() throws Exception {
+    OidcTokenAuthenticationMechanism.setTokenCacheForTest(Optional.of(10));
+    authenticationMechanism.authenticate(request);
+    when(request.getServerName()).thenReturn("backend.registry.test");
+    authenticationMechanism.authenticate(request);
+    assertThat(verifications.get()).isEqualTo(2);
+  }
+
+  @Test
+  void testAuthenticate_expiredTokenVerifiedAgain() throws Exception {
+    OidcTokenAuthenticationMechanism.setTokenCacheForTest(Optional.of(10));
+    authenticationMechanism.authenticate(request);
+    clock.advanceBy(Duration.ofHours(1));
+    authenticationMechanism.authenticate(request);
+    assertThat(verifications.get()).isEqualTo(2);
+  }
+
+  @Test
+  void testAuthenticate_tokenWithoutExpirationNotCached() throws Exception {
+    OidcTokenAuthenticationMechanism.setTokenCacheForTest(Optional.of(10));
+    payload.setExpirationTimeSeconds(null);
+    authenticationMechanism.authenticate(request);
+    authenticationMechanism.authenticate(request);
+    assertThat(verifications.get()).isEqualTo(2);
+  }
+
+  @Test
+  void testAuthenticate_userCachedUntilInvalidated() throws Exception {
+    OidcTokenAuthenticationMechanism.setUserCacheForTest(Optional.of(Duration.ofMinutes(1)));
+    assertThat(authenticationMechanism.authenticate(request).user()).hasValue(user);
+    User updatedUser =
+        persistResource(
+            user.asBuilder()
+                .setUserRoles(
+                    new UserRoles.Builder().setIsAdmin(false).setGlobalRole(GlobalRole.FTE).build())
+                .build());
+    assertThat(authenticationMechanism.authenticate(request).user()).hasValue(user);
+
+    OidcTokenAuthenticationMechanism.invalidateCachedUser(email);
+    assertThat(authenticationMechanism.authenticate(request).user()).hasValue(updatedUser);
+  }
+
   @Test
   void testIap_tokenExtractor() throws Exception {
     useIapOidcMechanism();
@@ -230,6 +306,12 @@ public class OidcTokenAuthenticationMechanismTest {
       return "client-id";
     }
 
+    @Provides
+    @Singleton
+    Clock provideClock() {
+      return new FakeClock();
+    }
+
     @Provides
     @Singleton
     @ApplicationDefaultCredential
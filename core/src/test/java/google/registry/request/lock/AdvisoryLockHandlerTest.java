@@ -0,0 +1,159 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.request.lock;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import google.registry.persistence.transaction.JpaTestExtensions;
+import google.registry.persistence.transaction.JpaTestExtensions.JpaIntegrationTestExtension;
+import google.registry.testing.FakeClock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+/** Unit tests for {@link AdvisoryLockHandler}. */
+final class AdvisoryLockHandlerTest {
+
+  private static final Duration ONE_DAY = Duration.ofDays(1);
+
+  private final FakeClock clock = new FakeClock(Instant.parse("2001-08-29T12:20:00Z"));
+
+  @RegisterExtension
+  final JpaIntegrationTestExtension jpa =
+      new JpaTestExtensions.Builder().withClock(clock).buildIntegrationTestExtension();
+
+  private final AdvisoryLockHandler lockHandler = new AdvisoryLockHandler(clock);
+
+  @Test
+  void testLockSucceeds() {
+    AtomicInteger numCalled = new AtomicInteger();
+    assertThat(
+            lockHandler.executeWithLocks(
+                () -> {
+                  numCalled.incrementAndGet();
+                  return null;
+                },
+                "tld",
+                ONE_DAY,
+                "resourceName"))
+        .isTrue();
+    assertThat(numCalled.get()).isEqualTo(1);
+  }
+
+  @Test
+  void testLockHeldWhileRunning_releasedAfterwards() {
+    AtomicBoolean nestedLockAcquired = new AtomicBoolean(true);
+    assertThat(
+            lockHandler.executeWithLocks(
+                () -> {
+                  // The nested call runs on its own connection, i.e. in another database session.
+                  nestedLockAcquired.set(
+                      lockHandler.executeWithLocks(() -> null, "tld", ONE_DAY, "resourceName"));
+                  return null;
+                },
+                "tld",
+                ONE_DAY,
+                "resourceName"))
+        .isTrue();
+    assertThat(nestedLockAcquired.get()).isFalse();
+    assertThat(lockHandler.executeWithLocks(() -> null, "tld", ONE_DAY, "resourceName")).isTrue();
+  }
+
+  @Test
+  void testLocksAreIndependent() {
+    AtomicBoolean otherTldAcquired = new AtomicBoolean();
+    AtomicBoolean otherResourceAcquired = new AtomicBoolean();
+    AtomicBoolean globalAcquired = new AtomicBoolean();
+    assertThat(
+            lockHandler.executeWithLocks(
+                () -> {
+                  otherTldAcquired.set(
+                      lockHandler.executeWithLocks(() -> null, "other", ONE_DAY, "resourceName"));
+                  otherResourceAcquired.set(
+                      lockHandler.executeWithLocks(() -> null, "tld", ONE_DAY, "otherResource"));
+                  globalAcquired.set(
+                      lockHandler.executeWithLocks(() -> null, null, ONE_DAY, "resourceName"));
+                  return null;
+                },
+                "tld",
+                ONE_DAY,
+                "resourceName"))
+        .isTrue();
+    assertThat(otherTldAcquired.get()).isTrue();
+    assertThat(otherResourceAcquired.get()).isTrue();
+    assertThat(globalAcquired.get()).isTrue();
+  }
+
+  @Test
+  void testMultipleLocks_allOrNothing() {
+    AtomicBoolean bothAcquired = new AtomicBoolean(true);
+    AtomicBoolean otherAcquired = new AtomicBoolean();
+    assertThat(
+            lockHandler.executeWithLocks(
+                () -> {
+                  bothAcquired.set(
+                      lockHandler.executeWithLocks(() -> null, "tld", ONE_DAY, "a", "b"));
+                  // The failed attempt above must not keep holding the lock it did get.
+                  otherAcquired.set(
+                      lockHandler.executeWithLocks(() -> null, "tld", ONE_DAY, "a"));
+                  return null;
+                },
+                "tld",
+                ONE_DAY,
+                "b"))
+        .isTrue();
+    assertThat(bothAcquired.get()).isFalse();
+    assertThat(otherAcquired.get()).isTrue();
+  }
+
+  @Test
+  void testLockReleasedWhenCallableThrows() {
+    IllegalStateException thrown =
+        assertThrows(
+            IllegalStateException.class,
+            () ->
+                lockHandler.executeWithLocks(
+                    () -> {
+                      throw new IllegalStateException("Broken");
+                    },
+                    "tld",
+                    ONE_DAY,
+                    "resourceName"));
+    assertThat(thrown).hasMessageThat().isEqualTo("Broken");
+    assertThat(lockHandler.executeWithLocks(() -> null, "tld", ONE_DAY, "resourceName")).isTrue();
+  }
+
+  @Test
+  void testTimeout_releasesLocks() {
+    RuntimeException thrown =
+        assertThrows(
+            RuntimeException.class,
+            () ->
+                lockHandler.executeWithLocks(
+                    () -> {
+                      Thread.sleep(Duration.ofMinutes(1).toMillis());
+                      return null;
+                    },
+                    "tld",
+                    Duration.ofMillis(5100),
+                    "resourceName"));
+    assertThat(thrown).hasMessageThat().contains("timed out");
+    assertThat(lockHandler.executeWithLocks(() -> null, "tld", ONE_DAY, "resourceName")).isTrue();
+  }
+}
@@ -27,7 +27,9 @@ import static org.mockito.Mockito.when;
 
 import com.google.api.client.googleapis.json.GoogleJsonError;
 import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.AbstractInputStreamContent;
 import com.google.api.client.http.ByteArrayContent;
+import com.google.api.client.http.FileContent;
 import com.google.api.client.http.HttpHeaders;
 import com.google.api.client.http.HttpResponseException;
 import com.google.api.services.drive.Drive;
@@ -36,10 +38,12 @@ import com.google.api.services.drive.model.File;
 import com.google.api.services.drive.model.FileList;
 import com.google.common.collect.ImmutableList;
 import com.google.common.net.MediaType;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentMatcher;
 
 /** Tests for {@link DriveConnection}. */
@@ -53,6 +57,8 @@ class DriveConnectionTest {
 
   private static final byte[] DATA = {1, 2, 3};
   private DriveConnection driveConnection;
+
+  @TempDir Path tmpDir;
   private List<String> allFiles;
 
   private ArgumentMatcher<ByteArrayContent> hasByteArrayContent(final byte[] data) {
@@ -65,6 +71,13 @@ class DriveConnectionTest {
     };
   }
 
+  private ArgumentMatcher<AbstractInputStreamContent> hasFileContent(final Path path) {
+    return arg ->
+        arg instanceof FileContent fileContent
+            && fileContent.getFile().toPath().equals(path)
+            && fileContent.getType().equals("video/webm");
+  }
+
   @BeforeEach
   void beforeEach() throws Exception {
     driveConnection = new DriveConnection();
@@ -225,6 +238,39 @@ class DriveConnectionTest {
         .isEqualTo("id");
   }
 
+  @Test
+  void testCreateOrUpdateFileFromPath_succeedsForNewFile() throws Exception {
+    Path path = java.nio.file.Files.write(tmpDir.resolve("data"), DATA);
+    when(files.create(
+            eq(
+                new File()
+                    .setName("name")
+                    .setMimeType("video/webm")
+                    .setParents(ImmutableList.of("driveFolderId"))),
+            argThat(hasFileContent(path))))
+        .thenReturn(create);
+    FileList emptyFileList = new FileList().setFiles(ImmutableList.of()).setNextPageToken(null);
+    when(filesList.execute()).thenReturn(emptyFileList);
+    assertThat(
+            driveConnection.createOrUpdateFileFromPath(
+                "name", MediaType.WEBM_VIDEO, "driveFolderId", path))
+        .isEqualTo("id");
+  }
+
+  @Test
+  void testCreateOrUpdateFileFromPath_succeedsForUpdatingFile() throws Exception {
+    Path path = java.nio.file.Files.write(tmpDir.resolve("data"), DATA);
+    when(files.update(eq("id"), eq(new File().setName("name")), argThat(hasFileContent(path))))
+        .thenReturn(update);
+    FileList fileList =
+        new FileList().setFiles(ImmutableList.of(new File().setId("id"))).setNextPageToken(null);
+    when(filesList.execute()).thenReturn(fileList);
+    assertThat(
+            driveConnection.createOrUpdateFileFromPath(
+                "name", MediaType.WEBM_VIDEO, "driveFolderId", path))
+        .isEqualTo("id");
+  }
+
   @Test
   void testCreateOrUpdateFile_throwsExceptionWhenMultipleFilesWithNameAlreadyExist()
       throws Exception {
@@ -40,6 +40,7 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
 import com.google.common.net.HttpHeaders;
 import com.google.common.net.MediaType;
+import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.protobuf.Timestamp;
 import com.google.protobuf.util.Timestamps;
 import dagger.Module;
@@ -53,6 +54,7 @@ import java.io.Serializable;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -99,6 +101,9 @@ public class CloudTasksHelper implements Serializable {
 
   private final int instanceId = nextInstanceId.getAndIncrement();
   private final CloudTasksUtils cloudTasksUtils;
+  private final AtomicInteger inFlightEnqueues = new AtomicInteger();
+  private final AtomicInteger maxConcurrentEnqueues = new AtomicInteger();
+  private Duration enqueueLatency = Duration.ZERO;
 
   public CloudTasksHelper(FakeClock clock) {
     cloudTasksUtils =
@@ -121,6 +126,22 @@ public class CloudTasksHelper implements Serializable {
     return cloudTasksUtils;
   }
 
+  /**
+   * Makes every enqueue take the given time, like a round trip to Cloud Tasks would.
+   *
+   * <p>This lets tests measure how many requests are made concurrently, and how long it takes to
+   * enqueue a batch of tasks.
+   */
+  public CloudTasksHelper setEnqueueLatency(Duration enqueueLatency) {
+    this.enqueueLatency = enqueueLatency;
+    return this;
+  }
+
+  /** Returns the highest number of enqueue requests that were ever in flight at the same time. */
+  public int getMaxConcurrentEnqueues() {
+    return maxConcurrentEnqueues.get();
+  }
+
   public List<Task> getTestTasksFor(String queue) {
     return new ArrayList<>(testTasks.get(instanceId).get(queue));
   }
@@ -214,6 +235,18 @@ public class CloudTasksHelper implements Serializable {
 
     @Override
     public Task enqueue(String projectId, String locationId, String queueName, Task task) {
+      maxConcurrentEnqueues.accumulateAndGet(inFlightEnqueues.incrementAndGet(), Math::max);
+      try {
+        if (!enqueueLatency.isZero()) {
+          Uninterruptibles.sleepUninterruptibly(enqueueLatency);
+        }
+        return store(queueName, task);
+      } finally {
+        inFlightEnqueues.decrementAndGet();
+      }
+    }
+
+    private Task store(String queueName, Task task) {
       if (task.getName().isEmpty()) {
         task = task.toBuilder().setName(String.format("test-%d", testTasks.size())).build();
       }
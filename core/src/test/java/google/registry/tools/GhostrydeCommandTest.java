@@ -102,6 +102,32 @@ class GhostrydeCommandTest extends CommandTestCase<GhostrydeCommand> {
     assertThat(decoded).isEqualTo(SONG_BY_CHRISTINA_ROSSETTI);
   }
 
+  @Test
+  void testEncrypt_withCompressionLevel() throws Exception {
+    Path inFile = tmpDir.resolve("atrain.txt");
+    Path outFile = tmpDir.resolve("out.dat");
+    Files.write(inFile, SONG_BY_CHRISTINA_ROSSETTI);
+    runCommand("--encrypt", "--compression_level=1", "--input=" + inFile, "--output=" + outFile);
+    byte[] decoded =
+        Ghostryde.decode(Files.readAllBytes(outFile), keyring.getRdeStagingDecryptionKey());
+    assertThat(decoded).isEqualTo(SONG_BY_CHRISTINA_ROSSETTI);
+  }
+
+  @Test
+  void testEncrypt_invalidCompressionLevel() throws Exception {
+    Path inputFile = Files.createFile(tmpDir.resolve("foo.dat"));
+    IllegalArgumentException thrown =
+        assertThrows(
+            IllegalArgumentException.class,
+            () ->
+                runCommand(
+                    "--encrypt",
+                    "--compression_level=10",
+                    "--input=" + inputFile,
+                    "--output=bar.dat"));
+    assertThat(thrown).hasMessageThat().isEqualTo("Invalid --compression_level: 10");
+  }
+
   @Test
   void testEncrypt_outputIsADirectory_appendsGhostrydeExtension() throws Exception {
     Path inFile = tmpDir.resolve("atrain.txt");
@@ -212,4 +212,47 @@ class GenerateZoneFilesActionTest {
     assertThat(response)
         .containsEntry("filenames", ImmutableList.of("gs://zonefiles-bucket/tld-" + now + ".zone"));
   }
+
+  @Test
+  void testGenerate_multipleTlds() throws Exception {
+    createTlds("tld", "com");
+    Instant now = Instant.parse("2024-03-27T00:00:00Z");
+    Host host = persistResource(newHost("ns1.example.net"));
+    persistResource(
+        DatabaseHelper.newDomain("foo.tld").asBuilder().addNameserver(host.createVKey()).build());
+    persistResource(
+        DatabaseHelper.newDomain("bar.com").asBuilder().addNameserver(host.createVKey()).build());
+
+    GenerateZoneFilesAction action = new GenerateZoneFilesAction();
+    action.bucket = "zonefiles-bucket";
+    action.gcsUtils = gcsUtils;
+    action.databaseRetention = Duration.ofDays(29);
+    action.dnsDefaultATtl = Duration.ofSeconds(11);
+    action.dnsDefaultNsTtl = Duration.ofSeconds(222);
+    action.dnsDefaultDsTtl = Duration.ofSeconds(3333);
+    action.clock = new FakeClock(plusMinutes(now, 2));
+
+    Map<String, Object> response =
+        action.handleJsonRequest(
+            ImmutableMap.<String, Object>of(
+                "tlds", ImmutableList.of("tld", "com"), "exportTime", now));
+    assertThat(response)
+        .containsEntry(
+            "filenames",
+            ImmutableList.of(
+                "gs://zonefiles-bucket/tld-" + now + ".zone",
+                "gs://zonefiles-bucket/com-" + now + ".zone"));
+    assertThat(
+            new String(
+                gcsUtils.readBytesFrom(
+                    BlobId.of("zonefiles-bucket", String.format("tld-%s.zone", now))),
+                UTF_8))
+        .isEqualTo("$ORIGIN\ttld.\n\nfoo\t222\tIN\tNS\tns1.example.net.\n\n");
+    assertThat(
+            new String(
+                gcsUtils.readBytesFrom(
+                    BlobId.of("zonefiles-bucket", String.format("com-%s.zone", now))),
+                UTF_8))
+        .isEqualTo("$ORIGIN\tcom.\n\nbar\t222\tIN\tNS\tns1.example.net.\n\n");
+  }
 }
@@ -17,6 +17,7 @@ package google.registry.ui.server.console;
 import static com.google.common.io.BaseEncoding.base64;
 import static com.google.common.truth.Truth.assertThat;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
+import static google.registry.request.auth.OidcTokenAuthenticationMechanism.getUserCacheForTest;
 import static google.registry.testing.DatabaseHelper.createTld;
 import static google.registry.testing.DatabaseHelper.loadByEntity;
 import static google.registry.testing.DatabaseHelper.loadRegistrar;
@@ -45,6 +46,7 @@ import google.registry.model.domain.Domain;
 import google.registry.model.domain.RegistryLock;
 import google.registry.model.eppcommon.StatusValue;
 import google.registry.request.auth.AuthResult;
+import google.registry.request.auth.OidcTokenAuthenticationMechanism;
 import google.registry.testing.CloudTasksHelper;
 import google.registry.testing.ConsoleApiParamsUtils;
 import google.registry.testing.DeterministicStringGenerator;
@@ -109,6 +111,7 @@ public class ConsoleRegistryLockActionTest extends ConsoleActionBaseTestCase {
   @AfterEach
   void afterEach() {
     verifyNoMoreInteractions(gmailClient);
+    OidcTokenAuthenticationMechanism.setUserCacheForTest(Optional.empty());
   }
 
   @Test
@@ -304,6 +307,8 @@ public class ConsoleRegistryLockActionTest extends ConsoleActionBaseTestCase {
     user = loadByEntity(user);
     assertThat(user.getCurrentHashAlgorithm("registryLockPassword").get())
         .isEqualTo(HashAlgorithm.SCRYPT_P_1);
+    OidcTokenAuthenticationMechanism.setUserCacheForTest(Optional.of(Duration.ofMinutes(1)));
+    assertThat(getUserCacheForTest().get(user.getEmailAddress())).isPresent();
     action = createDefaultPostAction(true);
     action.run();
     verifyEmail();
@@ -312,6 +317,38 @@ public class ConsoleRegistryLockActionTest extends ConsoleActionBaseTestCase {
     user = loadByEntity(user);
     assertThat(user.getCurrentHashAlgorithm("registryLockPassword").get())
         .isEqualTo(HashAlgorithm.ARGON_2_ID);
+    // The cached user still has the old hash, so it must not be used for the next lock request.
+    assertThat(getUserCacheForTest().getIfPresent(user.getEmailAddress())).isNull();
+  }
+
+  @Test
+  void testPost_lock_passwordResetSinceAuthentication_usesNewPassword() throws Exception {
+    // The authenticated user may come from the user cache, and so predate the password reset.
+    persistResource(
+        loadByEntity(user)
+            .asBuilder()
+            .removeRegistryLockPassword()
+            .setRegistryLockPassword("newRegistryLockPassword")
+            .build());
+    action = createPostAction("example.test", true, "newRegistryLockPassword", null);
+    action.run();
+    verifyEmail();
+    assertThat(response.getStatus()).isEqualTo(SC_OK);
+    assertThat(getMostRecentRegistryLockByRepoId(defaultDomain.getRepoId())).isPresent();
+  }
+
+  @Test
+  void testPost_failure_oldPasswordAfterReset() throws Exception {
+    persistResource(
+        loadByEntity(user)
+            .asBuilder()
+            .removeRegistryLockPassword()
+            .setRegistryLockPassword("newRegistryLockPassword")
+            .build());
+    action = createDefaultPostAction(true);
+    action.run();
+    assertThat(response.getStatus()).isEqualTo(SC_UNAUTHORIZED);
+    assertThat(getMostRecentRegistryLockByRepoId(defaultDomain.getRepoId())).isEmpty();
   }
 
   @Test
@@ -15,6 +15,7 @@
 package google.registry.ui.server.console;
 
 import static com.google.common.truth.Truth.assertThat;
+import static google.registry.request.auth.OidcTokenAuthenticationMechanism.getUserCacheForTest;
 import static google.registry.testing.DatabaseHelper.loadByKey;
 import static google.registry.testing.DatabaseHelper.loadRegistrar;
 import static google.registry.testing.DatabaseHelper.persistResource;
@@ -24,8 +25,10 @@ import static jakarta.servlet.http.HttpServletResponse.SC_FORBIDDEN;
 import static jakarta.servlet.http.HttpServletResponse.SC_OK;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -33,8 +36,10 @@ import com.google.api.services.directory.Directory;
 import com.google.api.services.directory.Directory.Users;
 import com.google.api.services.directory.Directory.Users.Delete;
 import com.google.api.services.directory.Directory.Users.Insert;
+import com.google.cloud.tasks.v2.Task;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import google.registry.batch.CloudTasksUtils;
 import google.registry.model.console.GlobalRole;
 import google.registry.model.console.RegistrarRole;
 import google.registry.model.console.User;
@@ -42,6 +47,7 @@ import google.registry.model.console.UserRoles;
 import google.registry.model.registrar.Registrar;
 import google.registry.persistence.VKey;
 import google.registry.request.auth.AuthResult;
+import google.registry.request.auth.OidcTokenAuthenticationMechanism;
 import google.registry.testing.CloudTasksHelper;
 import google.registry.testing.ConsoleApiParamsUtils;
 import google.registry.testing.DatabaseHelper;
@@ -52,9 +58,13 @@ import google.registry.ui.server.console.ConsoleUsersAction.UserData;
 import google.registry.util.StringGenerator;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -106,6 +116,11 @@ class ConsoleUsersActionTest extends ConsoleActionBaseTestCase {
     DatabaseHelper.persistResources(ImmutableList.of(dbUser1, dbUser2, dbUser3));
   }
 
+  @AfterEach
+  void afterEach() {
+    OidcTokenAuthenticationMechanism.setUserCacheForTest(Optional.empty());
+  }
+
   @Test
   void testSuccess_registrarAccess() throws IOException {
     UserRoles userRoles =
@@ -448,6 +463,65 @@ class ConsoleUsersActionTest extends ConsoleActionBaseTestCase {
         .isEqualTo(RegistrarRole.ACCOUNT_MANAGER);
   }
 
+  @Test
+  void testSuccess_updatesUserRole_invalidatesCachedUser() throws IOException {
+    OidcTokenAuthenticationMechanism.setUserCacheForTest(Optional.of(Duration.ofMinutes(1)));
+    assertThat(getUserCacheForTest().get("test2@test.com")).isPresent();
+    User user1 = loadByKey(VKey.create(User.class, "test1@test.com"));
+    AuthResult authResult =
+        AuthResult.createUser(
+            user1
+                .asBuilder()
+                .setUserRoles(user1.getUserRoles().asBuilder().setIsAdmin(true).build())
+                .build());
+    ConsoleUsersAction action =
+        createAction(
+            Optional.of(ConsoleApiParamsUtils.createFake(authResult)),
+            Optional.of("PUT"),
+            Optional.of(
+                new UserData(
+                    "test2@test.com", null, RegistrarRole.ACCOUNT_MANAGER.toString(), null)));
+    action.cloudTasksUtils = cloudTasksHelper.getTestCloudTasksUtils();
+    action.run();
+    assertThat(response.getStatus()).isEqualTo(SC_OK);
+    assertThat(getUserCacheForTest().getIfPresent("test2@test.com")).isNull();
+  }
+
+  @Test
+  void testSuccess_deletesUser_userLoadedBeforeCommit_invalidatesCachedUser() throws Exception {
+    OidcTokenAuthenticationMechanism.setUserCacheForTest(Optional.of(Duration.ofMinutes(1)));
+    User user1 = loadByKey(VKey.create(User.class, "test1@test.com"));
+    AuthResult authResult =
+        AuthResult.createUser(
+            user1
+                .asBuilder()
+                .setUserRoles(user1.getUserRoles().asBuilder().setIsAdmin(true).build())
+                .build());
+    ConsoleUsersAction action =
+        createAction(
+            Optional.of(ConsoleApiParamsUtils.createFake(authResult)),
+            Optional.of("DELETE"),
+            Optional.of(
+                new UserData(
+                    "test2@test.com", null, RegistrarRole.ACCOUNT_MANAGER.toString(), null)));
+    CloudTasksUtils cloudTasksUtils = spy(cloudTasksHelper.getTestCloudTasksUtils());
+    // Another request loads the user while the deletion has not been committed yet, so it caches
+    // the user as it was before the deletion.
+    doAnswer(
+            invocation -> {
+              loadUserConcurrently("test2@test.com");
+              return invocation.callRealMethod();
+            })
+        .when(cloudTasksUtils)
+        .enqueue(anyString(), any(Task.class));
+    action.cloudTasksUtils = cloudTasksUtils;
+    action.run();
+    assertThat(response.getStatus()).isEqualTo(SC_OK);
+    assertThat(DatabaseHelper.loadByKeyIfPresent(VKey.create(User.class, "test2@test.com")))
+        .isEmpty();
+    assertThat(getUserCacheForTest().getIfPresent("test2@test.com")).isNull();
+  }
+
   @Test
   void testFailure_noPermissionToUpdateUser() throws IOException {
     User user1 = loadByKey(VKey.create(User.class, "test1@test.com"));
@@ -668,6 +742,15 @@ class ConsoleUsersActionTest extends ConsoleActionBaseTestCase {
     assertThat(response.getStatus()).isEqualTo(SC_FORBIDDEN);
   }
 
+  private static void loadUserConcurrently(String email) throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      executor.submit(() -> getUserCacheForTest().get(email)).get();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
   private ConsoleUsersAction createAction(
       Optional<ConsoleApiParams> maybeConsoleApiParams,
       Optional<String> method,
@@ -15,6 +15,7 @@
 package google.registry.ui.server.console;
 
 import static com.google.common.truth.Truth.assertThat;
+import static google.registry.request.auth.OidcTokenAuthenticationMechanism.getUserCacheForTest;
 import static google.registry.testing.DatabaseHelper.loadByEntity;
 import static google.registry.testing.DatabaseHelper.persistResource;
 import static org.mockito.Mockito.when;
@@ -26,6 +27,7 @@ import google.registry.model.console.User;
 import google.registry.model.console.UserRoles;
 import google.registry.model.registrar.Registrar;
 import google.registry.request.auth.AuthResult;
+import google.registry.request.auth.OidcTokenAuthenticationMechanism;
 import google.registry.testing.ConsoleApiParamsUtils;
 import google.registry.testing.FakeResponse;
 import jakarta.servlet.http.HttpServletResponse;
@@ -33,6 +35,7 @@ import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
 import javax.annotation.Nullable;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -46,6 +49,11 @@ public class PasswordResetVerifyActionTest extends ConsoleActionBaseTestCase {
     verificationCode = saveRequest(PasswordResetRequest.Type.EPP).getVerificationCode();
   }
 
+  @AfterEach
+  void afterEach() {
+    OidcTokenAuthenticationMechanism.setUserCacheForTest(Optional.empty());
+  }
+
   @Test
   void testSuccess_get_epp() throws Exception {
     createAction("GET", verificationCode, null).run();
@@ -85,6 +93,22 @@ public class PasswordResetVerifyActionTest extends ConsoleActionBaseTestCase {
         .isTrue();
   }
 
+  @Test
+  void testSuccess_post_lock_invalidatesCachedUser() throws Exception {
+    OidcTokenAuthenticationMechanism.setUserCacheForTest(Optional.of(Duration.ofMinutes(1)));
+    assertThat(getUserCacheForTest().get(fteUser.getEmailAddress())).isPresent();
+    verificationCode = saveRequest(PasswordResetRequest.Type.REGISTRY_LOCK).getVerificationCode();
+    createAction("POST", verificationCode, "newRegistryLockPassword").run();
+    assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+    assertThat(getUserCacheForTest().getIfPresent(fteUser.getEmailAddress())).isNull();
+    assertThat(
+            getUserCacheForTest()
+                .get(fteUser.getEmailAddress())
+                .get()
+                .verifyRegistryLockPassword("newRegistryLockPassword"))
+        .isTrue();
+  }
+
   @Test
   void testFailure_post_replay() throws Exception {
     createAction("POST", verificationCode, "newPassword1").run();
@@ -0,0 +1,428 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.proxy;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static google.registry.proxy.Protocol.PROTOCOL_KEY;
+import static google.registry.proxy.handler.EppServiceHandler.CLIENT_CERTIFICATE_HASH_KEY;
+import static google.registry.proxy.handler.RelayHandler.RELAY_CHANNEL_KEY;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.flogger.FluentLogger;
+import google.registry.proxy.Protocol.BackendProtocol;
+import google.registry.proxy.handler.RelayHandler;
+import google.registry.proxy.metric.BackendMetrics;
+import google.registry.util.Clock;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.ScheduledFuture;
+import jakarta.inject.Provider;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded pool of keep-alive HTTP connections to the backend, shared by frontend channels.
+ *
+ * <p>Without a pool, every frontend channel has its own relay channel to the backend, so a proxy
+ * serving thousands of registrar sessions holds thousands of backend connections, each of which
+ * costs a full TLS handshake to establish. All session state is kept in the frontend channel as
+ * cookies, so any backend connection can serve any request, and a handful of connections that
+ * are reused across requests suffice.
+ *
+ * <p>A frontend channel has at most one request in flight, so that its responses are relayed in
+ * the order of its requests. Further requests wait in a queue of the channel. Frontend channels
+ * waiting for a connection are grouped by client certificate hash, and free connections are handed
+ * to the groups in turn, so that a registrar with many busy sessions cannot starve the others.
+ * Connections are checked before they are reused, and idle connections are closed after {@link
+ * #IDLE_TIMEOUT}.
+ *
+ * <p>The state of the pool is only accessed from its event loop. In production, the pool serves the
+ * frontend channels of the same event loop, just like a dedicated relay channel would, so that no
+ * synchronization is needed.
+ */
+public class BackendConnectionPool {
+
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  /** Key used to retrieve the pool that relays the requests of a frontend {@link Channel}. */
+  public static final AttributeKey<BackendConnectionPool> BACKEND_POOL_KEY =
+      AttributeKey.valueOf("BACKEND_POOL_KEY");
+
+  /** Requests of a frontend channel not yet answered. The first one may be in flight. */
+  private static final AttributeKey<Deque<PendingRequest>> PENDING_REQUESTS_KEY =
+      AttributeKey.valueOf("PENDING_REQUESTS_KEY");
+
+  /** How long a connection can stay idle in the pool before it is closed. */
+  @VisibleForTesting static final Duration IDLE_TIMEOUT = Duration.ofMinutes(5);
+
+  /** How often idle connections are checked. */
+  private static final Duration HEALTH_CHECK_INTERVAL = Duration.ofSeconds(30);
+
+  private final EventLoop eventLoop;
+  private final SocketAddress backendAddress;
+  private final BackendProtocol protocol;
+  private final BackendMetrics metrics;
+  private final Clock clock;
+  private final Bootstrap bootstrap;
+  private final ScheduledFuture<?> healthCheck;
+
+  /** Idle connections, the most recently used last. */
+  private final Deque<IdleConnection> idleConnections = new ArrayDeque<>();
+
+  /** Frontend channels waiting for a connection by client certificate hash, in turn order. */
+  private final LinkedHashMap<String, Deque<Channel>> waitingChannels = new LinkedHashMap<>();
+
+  private int waitingChannelCount;
+  private int openConnections;
+  private int connectingConnections;
+
+  /**
+   * Creates a pool of connections to {@code backendAddress}.
+   *
+   * @param eventLoop the event loop that the pool and its connections run on
+   * @param channelClass the class of the connections
+   * @param backendAddress the address to connect to, usually the host and port of the protocol
+   * @param protocol the protocol of the connections, whose last handler must be a {@link
+   *     RelayHandler} that relays the responses to the frontend channels
+   */
+  BackendConnectionPool(
+      EventLoop eventLoop,
+      Class<? extends Channel> channelClass,
+      SocketAddress backendAddress,
+      BackendProtocol protocol,
+      BackendMetrics metrics,
+      Clock clock) {
+    checkArgument(
+        protocol.connectionPoolSize() > 0,
+        "Connection pool size must be positive: %s",
+        protocol.connectionPoolSize());
+    this.eventLoop = eventLoop;
+    this.backendAddress = backendAddress;
+    this.protocol = protocol;
+    this.metrics = metrics;
+    this.clock = clock;
+    this.bootstrap =
+        new Bootstrap()
+            .group(eventLoop)
+            .channel(channelClass)
+            .handler(
+                new ChannelInitializer<Channel>() {
+                  @Override
+                  protected void initChannel(Channel connection) {
+                    for (Provider<? extends ChannelHandler> handlerProvider :
+                        protocol.handlerProviders()) {
+                      connection.pipeline().addLast(handlerProvider.get());
+                    }
+                    // The response must be seen before the relay handler passes it on.
+                    connection
+                        .pipeline()
+                        .addBefore(
+                            connection.pipeline().context(RelayHandler.class).name(),
+                            null,
+                            new ResponseHandler());
+                  }
+                })
+            .option(ChannelOption.SO_KEEPALIVE, true)
+            .attr(PROTOCOL_KEY, protocol);
+    this.healthCheck =
+        eventLoop.scheduleWithFixedDelay(
+            this::checkIdleConnections,
+            HEALTH_CHECK_INTERVAL.toMillis(),
+            HEALTH_CHECK_INTERVAL.toMillis(),
+            TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Relays a request from a frontend channel to the backend.
+   *
+   * <p>The response is written to the frontend channel by the relay handler of the connection
+   * that the request is sent over.
+   */
+  public void relay(Channel frontendChannel, FullHttpRequest request) {
+    if (!eventLoop.inEventLoop()) {
+      eventLoop.execute(() -> relay(frontendChannel, request));
+      return;
+    }
+    Deque<PendingRequest> pendingRequests = frontendChannel.attr(PENDING_REQUESTS_KEY).get();
+    if (pendingRequests == null) {
+      Deque<PendingRequest> newPendingRequests = new ArrayDeque<>();
+      frontendChannel.attr(PENDING_REQUESTS_KEY).set(newPendingRequests);
+      frontendChannel
+          .closeFuture()
+          .addListener(future -> eventLoop.execute(() -> releaseAll(newPendingRequests)));
+      pendingRequests = newPendingRequests;
+    }
+    if (!frontendChannel.isActive()) {
+      ReferenceCountUtil.release(request);
+      return;
+    }
+    pendingRequests.add(new PendingRequest(request, clock.now()));
+    if (pendingRequests.size() == 1) {
+      addWaitingChannel(frontendChannel);
+      dispatch();
+    }
+  }
+
+  /** Closes all the connections and stops checking their health. */
+  public void close() {
+    if (!eventLoop.inEventLoop()) {
+      eventLoop.execute(this::close);
+      return;
+    }
+    healthCheck.cancel(false);
+    idleConnections.forEach(idleConnection -> idleConnection.connection().close());
+    idleConnections.clear();
+  }
+
+  @VisibleForTesting
+  int getOpenConnections() {
+    return openConnections;
+  }
+
+  @VisibleForTesting
+  int getIdleConnections() {
+    return idleConnections.size();
+  }
+
+  private void addWaitingChannel(Channel frontendChannel) {
+    waitingChannels
+        .computeIfAbsent(getCertHash(frontendChannel), certHash -> new ArrayDeque<>())
+        .add(frontendChannel);
+    waitingChannelCount++;
+  }
+
+  /** Returns the next waiting channel, taking the client certificate hashes in turn. */
+  private Channel pollWaitingChannel() {
+    Iterator<Map.Entry<String, Deque<Channel>>> iterator = waitingChannels.entrySet().iterator();
+    Map.Entry<String, Deque<Channel>> first = iterator.next();
+    iterator.remove();
+    Channel frontendChannel = first.getValue().remove();
+    if (!first.getValue().isEmpty()) {
+      // Move the group to the end of the line.
+      waitingChannels.put(first.getKey(), first.getValue());
+    }
+    waitingChannelCount--;
+    return frontendChannel;
+  }
+
+  /** Sends waiting requests over idle connections, and opens connections if there are none. */
+  private void dispatch() {
+    while (waitingChannelCount > 0) {
+      Channel connection = pollIdleConnection();
+      if (connection == null) {
+        // Open as many connections as there are waiting channels, within the limit of the pool.
+        while (openConnections < protocol.connectionPoolSize()
+            && connectingConnections < waitingChannelCount) {
+          connect();
+        }
+        return;
+      }
+      Channel frontendChannel = pollWaitingChannel();
+      if (frontendChannel.isActive()) {
+        send(connection, frontendChannel);
+      } else {
+        addIdleConnection(connection);
+      }
+    }
+  }
+
+  /** Returns a healthy idle connection, or null if there is none. */
+  private Channel pollIdleConnection() {
+    while (!idleConnections.isEmpty()) {
+      // Reuse the most recently used connection, so that the others time out when not needed.
+      Channel connection = idleConnections.removeLast().connection();
+      if (connection.isActive()) {
+        return connection;
+      }
+      metrics.unhealthyConnectionDiscarded(protocol.name());
+      ChannelFuture unusedFuture = connection.close();
+    }
+    return null;
+  }
+
+  private void addIdleConnection(Channel connection) {
+    idleConnections.addLast(new IdleConnection(connection, clock.now()));
+  }
+
+  private void connect() {
+    openConnections++;
+    connectingConnections++;
+    ChannelFuture unusedFuture =
+        bootstrap
+            .connect(backendAddress)
+            .addListener(
+                (ChannelFuture future) -> {
+                  connectingConnections--;
+                  if (!future.isSuccess()) {
+                    openConnections--;
+                    logger.atWarning().withCause(future.cause()).log(
+                        "Cannot connect to backend %s for pool on %s.", protocol.name(), eventLoop);
+                    failWaitingChannels();
+                    return;
+                  }
+                  Channel connection = future.channel();
+                  metrics.registerPooledConnection(protocol.name(), connection);
+                  logger.atInfo().log("Pooled connection established: %s", connection);
+                  ChannelFuture unusedCloseFuture =
+                      connection.closeFuture().addListener(f -> onConnectionClosed(connection));
+                  addIdleConnection(connection);
+                  dispatch();
+                });
+  }
+
+  /**
+   * Closes the waiting frontend channels if no connection can serve them.
+   *
+   * <p>This mirrors what happens to a frontend channel whose dedicated relay channel cannot be
+   * established.
+   */
+  private void failWaitingChannels() {
+    if (openConnections > 0) {
+      // The open connections will serve the waiting channels when they become free.
+      return;
+    }
+    while (waitingChannelCount > 0) {
+      ChannelFuture unusedFuture = pollWaitingChannel().close();
+    }
+  }
+
+  private void send(Channel connection, Channel frontendChannel) {
+    PendingRequest pendingRequest = frontendChannel.attr(PENDING_REQUESTS_KEY).get().peek();
+    metrics.requestDequeued(
+        protocol.name(),
+        getCertHash(frontendChannel),
+        Duration.between(pendingRequest.queuedTime(), clock.now()));
+    connection.attr(RELAY_CHANNEL_KEY).set(frontendChannel);
+    // The write releases the request, but it must be kept in case the write fails.
+    pendingRequest.request().retain();
+    ChannelFuture unusedFuture =
+        connection
+            .writeAndFlush(pendingRequest.request())
+            .addListener(
+                future -> {
+                  if (!future.isSuccess()) {
+                    logger.atWarning().withCause(future.cause()).log(
+                        "Relay failed over pooled connection %s for %s, retrying.",
+                        connection, frontendChannel);
+                    // The request was not sent, it can be sent again over another connection.
+                    connection.attr(RELAY_CHANNEL_KEY).set(null);
+                    ChannelFuture unusedFuture2 = connection.close();
+                    if (frontendChannel.isActive()) {
+                      addWaitingChannel(frontendChannel);
+                    }
+                    dispatch();
+                  }
+                });
+  }
+
+  /** Returns the connection to the pool after its response is relayed to the frontend channel. */
+  private void onResponse(Channel connection, boolean keepAlive) {
+    Channel frontendChannel = connection.attr(RELAY_CHANNEL_KEY).getAndSet(null);
+    if (frontendChannel != null) {
+      Deque<PendingRequest> pendingRequests = frontendChannel.attr(PENDING_REQUESTS_KEY).get();
+      PendingRequest answered = pendingRequests.poll();
+      if (answered != null) {
+        ReferenceCountUtil.release(answered.request());
+      }
+      if (!pendingRequests.isEmpty() && frontendChannel.isActive()) {
+        addWaitingChannel(frontendChannel);
+      }
+    }
+    if (keepAlive && connection.isActive()) {
+      addIdleConnection(connection);
+    } else {
+      ChannelFuture unusedFuture = connection.close();
+    }
+    dispatch();
+  }
+
+  private void onConnectionClosed(Channel connection) {
+    openConnections--;
+    idleConnections.removeIf(idleConnection -> idleConnection.connection() == connection);
+    Channel frontendChannel = connection.attr(RELAY_CHANNEL_KEY).getAndSet(null);
+    if (frontendChannel != null) {
+      // The request may or may not have been processed by the backend, so it cannot be resent.
+      // Closing the frontend channel lets the client know, just like when its dedicated relay
+      // channel fails.
+      logger.atWarning().log(
+          "Pooled connection %s closed before responding to %s.", connection, frontendChannel);
+      ChannelFuture unusedFuture = frontendChannel.close();
+    }
+    logger.atInfo().log("Pooled connection terminated: %s", connection);
+    dispatch();
+  }
+
+  /** Closes idle connections that timed out or are no longer healthy. */
+  private void checkIdleConnections() {
+    Instant cutoff = clock.now().minus(IDLE_TIMEOUT);
+    Iterator<IdleConnection> iterator = idleConnections.iterator();
+    while (iterator.hasNext()) {
+      IdleConnection idleConnection = iterator.next();
+      if (!idleConnection.connection().isActive()) {
+        metrics.unhealthyConnectionDiscarded(protocol.name());
+      } else if (!idleConnection.idleSince().isBefore(cutoff)) {
+        continue;
+      }
+      iterator.remove();
+      ChannelFuture unusedFuture = idleConnection.connection().close();
+    }
+  }
+
+  private static void releaseAll(Deque<PendingRequest> pendingRequests) {
+    pendingRequests.forEach(pendingRequest -> ReferenceCountUtil.release(pendingRequest.request()));
+    pendingRequests.clear();
+  }
+
+  private static String getCertHash(Channel frontendChannel) {
+    return Optional.ofNullable(frontendChannel.attr(CLIENT_CERTIFICATE_HASH_KEY).get())
+        .orElse("none");
+  }
+
+  /** Notifies the pool of the responses received by a connection. */
+  private class ResponseHandler extends ChannelInboundHandlerAdapter {
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+      boolean keepAlive =
+          !(msg instanceof FullHttpResponse response) || HttpUtil.isKeepAlive(response);
+      ctx.fireChannelRead(msg);
+      onResponse(ctx.channel(), keepAlive);
+    }
+  }
+
+  private record PendingRequest(FullHttpRequest request, Instant queuedTime) {}
+
+  private record IdleConnection(Channel connection, Instant idleSince) {}
+}
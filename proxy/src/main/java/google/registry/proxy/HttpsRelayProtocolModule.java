@@ -68,6 +68,7 @@ public class HttpsRelayProtocolModule {
         .name(PROTOCOL_NAME)
         .isLocal(localRelay)
         .port(localRelay ? config.httpsRelay.localPort : config.httpsRelay.port)
+        .connectionPoolSize(config.httpsRelay.connectionPoolSize)
         .handlerProviders(handlerProviders);
   }
 
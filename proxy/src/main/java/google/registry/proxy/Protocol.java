@@ -47,9 +47,12 @@ public interface Protocol {
     return new AutoValue_Protocol_FrontendProtocol.Builder().hasBackend(true);
   }
 
-  /** A builder for {@link FrontendProtocol}, by default it connects to a remote host. */
+  /**
+   * A builder for {@link BackendProtocol}, by default it connects to a remote host with a dedicated
+   * connection for each frontend channel.
+   */
   static BackendProtocol.Builder backendBuilder() {
-    return new AutoValue_Protocol_BackendProtocol.Builder().isLocal(false);
+    return new AutoValue_Protocol_BackendProtocol.Builder().isLocal(false).connectionPoolSize(0);
   }
 
   /**
@@ -125,6 +128,12 @@ public interface Protocol {
     /** Whether the protocol is expected to connect to localhost. */
     public abstract boolean isLocal();
 
+    /**
+     * The maximum number of pooled connections per event loop, or 0 to open a dedicated connection
+     * for each frontend channel instead.
+     */
+    public abstract int connectionPoolSize();
+
     /** Builder of {@link BackendProtocol}. */
     @AutoValue.Builder
     public abstract static class Builder extends Protocol.Builder<Builder, BackendProtocol> {
@@ -132,6 +141,8 @@ public interface Protocol {
 
       public abstract Builder isLocal(boolean value);
 
+      public abstract Builder connectionPoolSize(int value);
+
       abstract BackendProtocol autoBuild();
 
       @Override
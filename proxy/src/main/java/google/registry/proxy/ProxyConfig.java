@@ -87,6 +87,7 @@ public class ProxyConfig {
     public int port;
     public int localPort;
     public int maxMessageLengthBytes;
+    public int connectionPoolSize;
   }
 
   /** Configuration options that apply to Stackdriver monitoring metrics. */
@@ -41,6 +41,7 @@ import google.registry.proxy.HttpsRelayProtocolModule.HttpsRelayProtocol;
 import google.registry.proxy.Protocol.FrontendProtocol;
 import google.registry.proxy.ProxyConfig.Environment;
 import google.registry.proxy.handler.ProxyProtocolHandler;
+import google.registry.proxy.metric.BackendMetrics;
 import google.registry.util.Clock;
 import google.registry.util.GcpJsonFormatter;
 import google.registry.util.GoogleCredentialsBundle;
@@ -406,5 +407,9 @@ public class ProxyModule {
     Set<FrontendProtocol> protocols();
 
     MetricReporter metricReporter();
+
+    BackendMetrics backendMetrics();
+
+    Clock clock();
   }
 }
@@ -14,6 +14,7 @@
 
 package google.registry.proxy;
 
+import static google.registry.proxy.BackendConnectionPool.BACKEND_POOL_KEY;
 import static google.registry.proxy.Protocol.PROTOCOL_KEY;
 import static google.registry.proxy.handler.RelayHandler.RELAY_BUFFER_KEY;
 import static google.registry.proxy.handler.RelayHandler.RELAY_CHANNEL_KEY;
@@ -27,6 +28,8 @@ import google.registry.proxy.Protocol.BackendProtocol;
 import google.registry.proxy.Protocol.FrontendProtocol;
 import google.registry.proxy.ProxyConfig.Environment;
 import google.registry.proxy.ProxyModule.ProxyComponent;
+import google.registry.proxy.metric.BackendMetrics;
+import google.registry.util.Clock;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
@@ -35,6 +38,7 @@ import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
@@ -44,10 +48,13 @@ import io.netty.util.concurrent.Future;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 import io.netty.util.internal.logging.JdkLoggerFactory;
 import jakarta.inject.Provider;
+import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeoutException;
 
 /**
@@ -61,11 +68,19 @@ public class ProxyServer implements Runnable {
   private static final int MAX_SOCKET_BACKLOG = 128;
 
   private final ImmutableSet<FrontendProtocol> protocols;
+  private final BackendMetrics backendMetrics;
+  private final Clock clock;
   private final HashMap<Integer, Channel> portToChannelMap = new HashMap<>();
   private final EventLoopGroup eventGroup = new NioEventLoopGroup();
 
+  /** The backend connection pools, one per event loop and backend protocol that uses a pool. */
+  private final ConcurrentMap<PoolKey, BackendConnectionPool> connectionPools =
+      new ConcurrentHashMap<>();
+
   ProxyServer(ProxyComponent proxyComponent) {
     this.protocols = ImmutableSet.copyOf(proxyComponent.protocols());
+    this.backendMetrics = proxyComponent.backendMetrics();
+    this.clock = proxyComponent.clock();
   }
 
   /**
@@ -82,8 +97,12 @@ public class ProxyServer implements Runnable {
    *   <li>After the outbound {@link Channel} connects successfully, enable {@link
    *       ChannelOption#AUTO_READ} on the inbound {@link Channel} to start reading.
    * </ol>
+   *
+   * <p>If the {@link BackendProtocol} has a connection pool, the inbound {@link Channel} relays to
+   * the {@link BackendConnectionPool} of its event loop instead of a dedicated outbound {@link
+   * Channel}, and starts reading immediately.
    */
-  private static class ServerChannelInitializer extends ChannelInitializer<NioSocketChannel> {
+  private class ServerChannelInitializer extends ChannelInitializer<NioSocketChannel> {
     @Override
     protected void initChannel(NioSocketChannel inboundChannel) {
       // Add inbound channel handlers.
@@ -96,6 +115,33 @@ public class ProxyServer implements Runnable {
       if (!inboundProtocol.hasBackend()) {
         // If the frontend has no backend to relay to (e.g. health check) start reading immediately.
         inboundChannel.config().setAutoRead(true);
+      } else if (inboundProtocol.relayProtocol().connectionPoolSize() > 0) {
+        logger.atInfo().log(
+            "Connection established: %s %s", inboundProtocol.name(), inboundChannel);
+        BackendProtocol outboundProtocol = inboundProtocol.relayProtocol();
+        inboundChannel
+            .attr(BACKEND_POOL_KEY)
+            .set(
+                connectionPools.computeIfAbsent(
+                    new PoolKey(inboundChannel.eventLoop(), outboundProtocol.name()),
+                    key ->
+                        new BackendConnectionPool(
+                            key.eventLoop(),
+                            NioSocketChannel.class,
+                            InetSocketAddress.createUnresolved(
+                                outboundProtocol.host(), outboundProtocol.port()),
+                            outboundProtocol,
+                            backendMetrics,
+                            clock)));
+        inboundChannel.config().setAutoRead(true);
+        ChannelFuture unusedChannelFuture =
+            inboundChannel
+                .closeFuture()
+                .addListener(
+                    (future) ->
+                        logger.atInfo().log(
+                            "Connection terminated: %s %s",
+                            inboundProtocol.name(), inboundChannel));
       } else {
         logger.atInfo().log(
             "Connection established: %s %s", inboundProtocol.name(), inboundChannel);
@@ -296,10 +342,13 @@ public class ProxyServer implements Runnable {
           });
     } finally {
       logger.atInfo().log("Shutting down server...");
+      connectionPools.values().forEach(BackendConnectionPool::close);
       Future<?> unusedFuture = eventGroup.shutdownGracefully();
     }
   }
 
+  private record PoolKey(EventLoop eventLoop, String protocolName) {}
+
   public static void main(String[] args) {
     // Use JDK logger for Netty's LoggingHandler,
     // which is what Flogger uses under the hood.
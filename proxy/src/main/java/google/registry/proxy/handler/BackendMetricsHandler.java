@@ -52,12 +52,9 @@ public class BackendMetricsHandler extends ChannelDuplexHandler {
   private final Clock clock;
   private final BackendMetrics metrics;
 
-  private String relayedProtocolName;
-  private String clientCertHash;
-  private Channel relayedChannel;
-
   /**
-   * A queue that saves the time at which a request is sent to Nomulus.
+   * A queue that saves the time at which a request is sent to Nomulus, along with the frontend
+   * channel that the request is relayed from.
    *
    * <p>This queue is used to calculate HTTP request-response latency. HTTP 1.1 specification allows
    * for pipelining, in which a client can sent multiple requests without waiting for each
@@ -68,10 +65,13 @@ public class BackendMetricsHandler extends ChannelDuplexHandler {
    * guarantees that the request time at the head of the queue always corresponds to the response
    * received in {@link #channelRead}.
    *
+   * <p>A backend channel in a {@code BackendConnectionPool} relays requests from different frontend
+   * channels over time, which is why the frontend channel is looked up for each request.
+   *
    * @see <a href="https://www.w3.org/Protocols/rfc2616/rfc2616-sec8.html">RFC 2616 8.1.2.2
    *     Pipelining</a>
    */
-  private final Queue<Instant> requestSentTimeQueue = new ArrayDeque<>();
+  private final Queue<SentRequest> requestSentTimeQueue = new ArrayDeque<>();
 
   @Inject
   BackendMetricsHandler(Clock clock, BackendMetrics metrics) {
@@ -79,39 +79,31 @@ public class BackendMetricsHandler extends ChannelDuplexHandler {
     this.metrics = metrics;
   }
 
-  @Override
-  public void channelRegistered(ChannelHandlerContext ctx) throws Exception {
-    // Backend channel is always established after a frontend channel is connected, so this call
-    // should always return a non-null relay channel.
-    relayedChannel = ctx.channel().attr(RELAY_CHANNEL_KEY).get();
-    checkNotNull(relayedChannel, "No frontend channel found.");
-    relayedProtocolName = relayedChannel.attr(PROTOCOL_KEY).get().name();
-    super.channelRegistered(ctx);
-  }
-
   @Override
   public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
     checkArgument(msg instanceof FullHttpResponse, "Incoming response must be FullHttpResponse.");
     checkState(!requestSentTimeQueue.isEmpty(), "Response received before request is sent.");
+    SentRequest sentRequest = requestSentTimeQueue.remove();
     metrics.responseReceived(
-        relayedProtocolName,
-        clientCertHash,
+        sentRequest.relayedProtocolName(),
+        sentRequest.clientCertHash(),
         (FullHttpResponse) msg,
-        Duration.between(requestSentTimeQueue.remove(), clock.now()));
+        Duration.between(sentRequest.sentTime(), clock.now()));
     super.channelRead(ctx, msg);
   }
 
   @Override
   public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
     checkArgument(msg instanceof FullHttpRequest, "Outgoing request must be FullHttpRequest.");
+    // The frontend channel is always set before a request is relayed to the backend channel.
+    Channel relayedChannel = ctx.channel().attr(RELAY_CHANNEL_KEY).get();
+    checkNotNull(relayedChannel, "No frontend channel found.");
+    String relayedProtocolName = relayedChannel.attr(PROTOCOL_KEY).get().name();
     // For EPP, the client hash attribute is set upon handshake completion, before the first HELLO
-    // is sent to the server. Therefore the first call to write() with HELLO payload has access to
-    // the hash in its channel attribute.
-    if (clientCertHash == null) {
-      clientCertHash =
-          Optional.ofNullable(relayedChannel.attr(CLIENT_CERTIFICATE_HASH_KEY).get())
-              .orElse("none");
-    }
+    // is sent to the server. Therefore any call to write() has access to the hash in the frontend
+    // channel attribute.
+    String clientCertHash =
+        Optional.ofNullable(relayedChannel.attr(CLIENT_CERTIFICATE_HASH_KEY).get()).orElse("none");
     FullHttpRequest request = (FullHttpRequest) msg;
 
     // Record request size now because the content would have read by the time the listener is
@@ -125,8 +117,11 @@ public class BackendMetricsHandler extends ChannelDuplexHandler {
                   if (future.isSuccess()) {
                     // Only instrument request metrics when the request is actually sent to Nomulus
                     metrics.requestSent(relayedProtocolName, clientCertHash, bytes);
-                    requestSentTimeQueue.add(clock.now());
+                    requestSentTimeQueue.add(
+                        new SentRequest(relayedProtocolName, clientCertHash, clock.now()));
                   }
                 });
   }
+
+  private record SentRequest(String relayedProtocolName, String clientCertHash, Instant sentTime) {}
 }
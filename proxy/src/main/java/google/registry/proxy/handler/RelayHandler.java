@@ -14,9 +14,11 @@
 
 package google.registry.proxy.handler;
 
+import static google.registry.proxy.BackendConnectionPool.BACKEND_POOL_KEY;
 import static google.registry.proxy.Protocol.PROTOCOL_KEY;
 
 import com.google.common.flogger.FluentLogger;
+import google.registry.proxy.BackendConnectionPool;
 import google.registry.proxy.handler.QuotaHandler.OverQuotaException;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
@@ -60,10 +62,20 @@ public class RelayHandler<I> extends SimpleChannelInboundHandler<I> {
     super(clazz, false);
   }
 
-  /** Read message of type {@code I}, write it as-is into the relay channel. */
+  /**
+   * Read message of type {@code I}, write it as-is into the relay channel.
+   *
+   * <p>If the channel relays to a {@link BackendConnectionPool}, the pool picks the connection that
+   * the message is written to instead.
+   */
   @Override
   protected void channelRead0(ChannelHandlerContext ctx, I msg) {
     Channel channel = ctx.channel();
+    BackendConnectionPool pool = channel.attr(BACKEND_POOL_KEY).get();
+    if (pool != null) {
+      pool.relay(channel, (FullHttpRequest) msg);
+      return;
+    }
     Channel relayChannel = channel.attr(RELAY_CHANNEL_KEY).get();
     if (relayChannel == null) {
       logger.atSevere().log("Relay channel not specified for channel: %s", channel);
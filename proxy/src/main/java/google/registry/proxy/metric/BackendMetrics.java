@@ -14,12 +14,16 @@
 
 package google.registry.proxy.metric;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.monitoring.metrics.EventMetric;
 import com.google.monitoring.metrics.IncrementableMetric;
 import com.google.monitoring.metrics.LabelDescriptor;
+import com.google.monitoring.metrics.Metric;
 import com.google.monitoring.metrics.MetricRegistryImpl;
+import google.registry.util.ActiveCounts;
 import google.registry.util.NonFinalForTesting;
+import io.netty.channel.Channel;
 import io.netty.handler.codec.http.FullHttpResponse;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
@@ -31,6 +35,18 @@ import java.util.Random;
 @Singleton
 public class BackendMetrics extends BaseMetrics {
 
+  private static final ImmutableSet<LabelDescriptor> POOL_LABELS =
+      ImmutableSet.of(LabelDescriptor.create("protocol", "Name of the protocol."));
+
+  /** The maximum number of protocols to count pooled connections for. */
+  private static final int MAX_POOL_LABEL_SETS = 100;
+
+  /** How long a protocol stays in the pooled connections gauge after its last connection closed. */
+  private static final Duration IDLE_POOL_LABELS_TIMEOUT = Duration.ofHours(1);
+
+  private static final ActiveCounts pooledConnections =
+      new ActiveCounts(MAX_POOL_LABEL_SETS, IDLE_POOL_LABELS_TIMEOUT);
+
   static final IncrementableMetric requestsCounter =
       MetricRegistryImpl.getDefault()
           .newIncrementableMetric(
@@ -77,6 +93,33 @@ public class BackendMetrics extends BaseMetrics {
               LABELS,
               DEFAULT_LATENCY_FITTER);
 
+  static final Metric<Long> pooledConnectionsGauge =
+      MetricRegistryImpl.getDefault()
+          .newGauge(
+              "/proxy/backend/pooled_connections",
+              "Number of open connections in the backend connection pools.",
+              "Pooled Connections",
+              POOL_LABELS,
+              pooledConnections::snapshot,
+              Long.class);
+
+  static final IncrementableMetric unhealthyConnectionsCounter =
+      MetricRegistryImpl.getDefault()
+          .newIncrementableMetric(
+              "/proxy/backend/unhealthy_pooled_connections",
+              "Total number of pooled connections found closed when checked.",
+              "Unhealthy Connections",
+              POOL_LABELS);
+
+  static final EventMetric poolWaitTimeMs =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/proxy/backend/pool_wait_time_ms",
+              "Time between a request received and a pooled connection available to send it.",
+              "Wait Milliseconds",
+              LABELS,
+              DEFAULT_LATENCY_FITTER);
+
   private final Random random;
   private final double backendMetricsRatio;
 
@@ -93,6 +136,9 @@ public class BackendMetrics extends BaseMetrics {
     responseBytes.reset();
     responsesCounter.reset();
     latencyMs.reset();
+    pooledConnections.clear();
+    unhealthyConnectionsCounter.reset();
+    poolWaitTimeMs.reset();
   }
 
   @NonFinalForTesting
@@ -118,6 +164,26 @@ public class BackendMetrics extends BaseMetrics {
         roundRatioReciprocal(), protocol, certHash, response.status().toString());
   }
 
+  @NonFinalForTesting
+  public void registerPooledConnection(String protocol, Channel channel) {
+    ActiveCounts.Counter pooledConnection = pooledConnections.increment(ImmutableList.of(protocol));
+    channel.closeFuture().addListener(future -> pooledConnection.decrement());
+  }
+
+  @NonFinalForTesting
+  public void unhealthyConnectionDiscarded(String protocol) {
+    unhealthyConnectionsCounter.increment(protocol);
+  }
+
+  @NonFinalForTesting
+  public void requestDequeued(String protocol, String certHash, Duration waitTime) {
+    // Short-circuit metrics recording randomly according to the configured ratio.
+    if (random.nextDouble() > backendMetricsRatio) {
+      return;
+    }
+    poolWaitTimeMs.record(waitTime.toMillis(), protocol, certHash);
+  }
+
   /**
    * Returns the reciprocal of the backend metrics ratio, stochastically rounded to the nearest int.
    *
@@ -15,31 +15,31 @@
 package google.registry.proxy.metric;
 
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
 import com.google.monitoring.metrics.EventMetric;
 import com.google.monitoring.metrics.IncrementableMetric;
 import com.google.monitoring.metrics.Metric;
 import com.google.monitoring.metrics.MetricRegistryImpl;
+import google.registry.util.ActiveCounts;
 import google.registry.util.NonFinalForTesting;
 import io.netty.channel.Channel;
-import io.netty.channel.group.ChannelGroup;
-import io.netty.channel.group.DefaultChannelGroup;
-import io.netty.util.concurrent.GlobalEventExecutor;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import jakarta.inject.Singleton;
 import java.time.Duration;
-import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
 /** Frontend metrics instrumentation. */
 @Singleton
 public class FrontendMetrics extends BaseMetrics {
 
-  private static final ConcurrentMap<ImmutableList<String>, ChannelGroup> activeConnections =
-      new ConcurrentHashMap<>();
+  /** The maximum number of (protocol, certificate hash) pairs to count active connections for. */
+  private static final int MAX_CONNECTION_LABEL_SETS = 5000;
+
+  /** How long a pair stays in the active connections gauge after its last connection closed. */
+  private static final Duration IDLE_CONNECTION_LABELS_TIMEOUT = Duration.ofHours(1);
+
+  private static final ActiveCounts activeConnections =
+      new ActiveCounts(MAX_CONNECTION_LABEL_SETS, IDLE_CONNECTION_LABELS_TIMEOUT);
 
   static final Metric<Long> activeConnectionsGauge =
       MetricRegistryImpl.getDefault()
@@ -48,11 +48,7 @@ public class FrontendMetrics extends BaseMetrics {
               "Number of active connections from clients to the proxy.",
               "Active Connections",
               LABELS,
-              () ->
-                  activeConnections.entrySet().stream()
-                      .collect(
-                          ImmutableMap.toImmutableMap(
-                              Map.Entry::getKey, entry -> (long) entry.getValue().size())),
+              activeConnections::snapshot,
               Long.class);
 
   static final IncrementableMetric totalConnectionsCounter =
@@ -99,15 +95,9 @@ public class FrontendMetrics extends BaseMetrics {
   @NonFinalForTesting
   public void registerActiveConnection(String protocol, String certHash, Channel channel) {
     totalConnectionsCounter.increment(protocol, certHash);
-    ImmutableList<String> labels = ImmutableList.of(protocol, certHash);
-    ChannelGroup channelGroup;
-    if (activeConnections.containsKey(labels)) {
-      channelGroup = activeConnections.get(labels);
-    } else {
-      channelGroup = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
-      activeConnections.put(labels, channelGroup);
-    }
-    channelGroup.add(channel);
+    ActiveCounts.Counter activeConnection =
+        activeConnections.increment(ImmutableList.of(protocol, certHash));
+    channel.closeFuture().addListener(future -> activeConnection.decrement());
   }
 
   @NonFinalForTesting
@@ -14,6 +14,7 @@
 
 package google.registry.proxy.quota;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static google.registry.proxy.quota.QuotaConfig.SENTINEL_UNLIMITED_TOKENS;
 import static java.lang.StrictMath.max;
 import static java.lang.StrictMath.min;
@@ -21,12 +22,13 @@ import static java.lang.StrictMath.min;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.flogger.FluentLogger;
 import google.registry.util.Clock;
-import java.time.Duration;
 import java.time.Instant;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 
 /**
@@ -55,28 +57,61 @@ public class TokenStore {
     }
   }
 
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
   /**
-   * A wrapper to get around Java lambda's closure limitation.
+   * The number of low bits of a bucket's state that hold the available tokens.
    *
-   * <p>Use the class to modify the value of a local variable captured by an lambda.
+   * <p>The remaining 40 high bits hold the last refill time, in milliseconds since the store was
+   * created, which lasts for over 30 years.
    */
-  private static class Wrapper<T> {
-    T value;
-  }
+  private static final int TOKEN_BITS = 24;
 
-  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+  private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+
+  /** The token value stored for users with unlimited tokens. */
+  private static final int UNLIMITED_TOKENS = (int) TOKEN_MASK;
+
+  /** The tokens available to a user and their last refill time, packed in a single long. */
+  private static final class Bucket {
 
-  /** A map of {@code userId} to available tokens, timestamped at last refill time. */
-  private final ConcurrentHashMap<String, TimestampedInteger> tokensMap = new ConcurrentHashMap<>();
+    final boolean unlimited;
+    final int tokenAmount;
+    final long refillPeriodMillis;
+    final AtomicLong state;
+
+    Bucket(boolean unlimited, int tokenAmount, long refillPeriodMillis, long initialState) {
+      this.unlimited = unlimited;
+      this.tokenAmount = tokenAmount;
+      this.refillPeriodMillis = refillPeriodMillis;
+      this.state = new AtomicLong(initialState);
+    }
+
+    boolean needsRefill(long refillTime, long now) {
+      return refillPeriodMillis != 0 && now - refillTime >= refillPeriodMillis;
+    }
+  }
+
+  /**
+   * A map of {@code userId} to available tokens, timestamped at last refill time.
+   *
+   * <p>Entries are only created on a user's first request. After that, takes and puts update the
+   * bucket with a compare-and-set, so concurrent requests from the same user never lock.
+   */
+  private final ConcurrentHashMap<String, Bucket> tokensMap = new ConcurrentHashMap<>();
 
   private final QuotaConfig config;
   private final ScheduledExecutorService refreshExecutor;
   private final Clock clock;
 
+  /** The time that refill times are stored relative to, in milliseconds since the epoch. */
+  private final long baseMillis;
+
   public TokenStore(QuotaConfig config, ScheduledExecutorService refreshExecutor, Clock clock) {
     this.config = config;
     this.refreshExecutor = refreshExecutor;
     this.clock = clock;
+    this.baseMillis = clock.now().toEpochMilli();
   }
 
   /**
@@ -95,37 +130,28 @@ public class TokenStore {
    *     which the granted one is taken.
    */
   TimestampedInteger take(String userId) {
-    Wrapper<TimestampedInteger> grantedToken = new Wrapper<>();
-    tokensMap.compute(
-        userId,
-        (user, availableTokens) -> {
-          Instant now = clock.now();
-          int currentTokenCount;
-          Instant refillTime;
-          // Checks if the user is provisioned with unlimited tokens.
-          if (config.hasUnlimitedTokens(user)) {
-            grantedToken.value = TimestampedInteger.create(1, now);
-            return TimestampedInteger.create(SENTINEL_UNLIMITED_TOKENS, now);
-          }
-          // Checks if the entry exists.
-          if (availableTokens == null
-              // Or if refill is enabled and the entry needs to be refilled.
-              || (!config.getRefillPeriod(user).isZero()
-                  && Duration.between(availableTokens.timestamp(), now)
-                          .compareTo(config.getRefillPeriod(user))
-                      >= 0)) {
-            currentTokenCount = config.getTokenAmount(user);
-            refillTime = now;
-          } else {
-            currentTokenCount = availableTokens.value();
-            refillTime = availableTokens.timestamp();
-          }
-          int newTokenCount = max(0, currentTokenCount - 1);
-          grantedToken.value =
-              TimestampedInteger.create(currentTokenCount - newTokenCount, refillTime);
-          return TimestampedInteger.create(newTokenCount, refillTime);
-        });
-    return grantedToken.value;
+    long now = nowMillis();
+    Bucket bucket = getOrCreateBucket(userId, now);
+    // Checks if the user is provisioned with unlimited tokens.
+    if (bucket.unlimited) {
+      bucket.state.set(pack(UNLIMITED_TOKENS, now));
+      return TimestampedInteger.create(1, toInstant(now));
+    }
+    while (true) {
+      long state = bucket.state.get();
+      int currentTokenCount = tokens(state);
+      long refillTime = refillTime(state);
+      // Checks if refill is enabled and the entry needs to be refilled.
+      if (bucket.needsRefill(refillTime, now)) {
+        currentTokenCount = bucket.tokenAmount;
+        refillTime = now;
+      }
+      int newTokenCount = max(0, currentTokenCount - 1);
+      long newState = pack(newTokenCount, refillTime);
+      if (newState == state || bucket.state.compareAndSet(state, newState)) {
+        return TimestampedInteger.create(currentTokenCount - newTokenCount, toInstant(refillTime));
+      }
+    }
   }
 
   /**
@@ -140,33 +166,32 @@ public class TokenStore {
    *     one is taken from.
    */
   void put(String userId, Instant returnedTokenRefillTime) {
-    tokensMap.computeIfPresent(
-        userId,
-        (user, availableTokens) -> {
-          Instant now = clock.now();
-          int currentTokenCount = availableTokens.value();
-          Instant refillTime = availableTokens.timestamp();
-          int newTokenCount;
-          // Check if quota is unlimited.
-          if (!config.hasUnlimitedTokens(userId)) {
-            // Check if refill is enabled and a refill is needed.
-            if (!config.getRefillPeriod(user).isZero()
-                && Duration.between(availableTokens.timestamp(), now)
-                        .compareTo(config.getRefillPeriod(user))
-                    >= 0) {
-              currentTokenCount = config.getTokenAmount(user);
-              refillTime = now;
-            }
-            // If the returned token comes from the current pool, add it back, otherwise discard it.
-            newTokenCount =
-                returnedTokenRefillTime.equals(refillTime)
-                    ? min(currentTokenCount + 1, config.getTokenAmount(userId))
-                    : currentTokenCount;
-          } else {
-            newTokenCount = SENTINEL_UNLIMITED_TOKENS;
-          }
-          return TimestampedInteger.create(newTokenCount, refillTime);
-        });
+    Bucket bucket = tokensMap.get(userId);
+    // Nothing to return to if the entry doesn't exist, and unlimited tokens never run out.
+    if (bucket == null || bucket.unlimited) {
+      return;
+    }
+    long now = nowMillis();
+    long returnedRefillTime = returnedTokenRefillTime.toEpochMilli();
+    while (true) {
+      long state = bucket.state.get();
+      int currentTokenCount = tokens(state);
+      long refillTime = refillTime(state);
+      // Check if refill is enabled and a refill is needed.
+      if (bucket.needsRefill(refillTime, now)) {
+        currentTokenCount = bucket.tokenAmount;
+        refillTime = now;
+      }
+      // If the returned token comes from the current pool, add it back, otherwise discard it.
+      int newTokenCount =
+          returnedRefillTime == refillTime
+              ? min(currentTokenCount + 1, bucket.tokenAmount)
+              : currentTokenCount;
+      long newState = pack(newTokenCount, refillTime);
+      if (newState == state || bucket.state.compareAndSet(state, newState)) {
+        return;
+      }
+    }
   }
 
   /**
@@ -180,12 +205,12 @@ public class TokenStore {
    * later from the refill time, otherwise another refill would have been performed.
    */
   void refresh() {
+    long now = nowMillis();
+    long refreshPeriodMillis = config.getRefreshPeriod().toMillis();
     tokensMap.forEach(
-        (user, availableTokens) -> {
-          if (Duration.between(availableTokens.timestamp(), clock.now())
-                  .compareTo(config.getRefreshPeriod())
-              >= 0) {
-            tokensMap.remove(user, availableTokens);
+        (user, bucket) -> {
+          if (now - refillTime(bucket.state.get()) >= refreshPeriodMillis) {
+            tokensMap.remove(user, bucket);
           }
         });
   }
@@ -213,7 +238,56 @@ public class TokenStore {
    * stay private and not be altered unintentionally.
    */
   @VisibleForTesting
+  @Nullable
   TimestampedInteger getTokenForTests(String userId) {
-    return tokensMap.get(userId);
+    Bucket bucket = tokensMap.get(userId);
+    if (bucket == null) {
+      return null;
+    }
+    long state = bucket.state.get();
+    return TimestampedInteger.create(tokens(state), toInstant(refillTime(state)));
+  }
+
+  private Bucket getOrCreateBucket(String userId, long now) {
+    // Only look up with get() first, which doesn't lock like computeIfAbsent() does.
+    Bucket bucket = tokensMap.get(userId);
+    return bucket != null
+        ? bucket
+        : tokensMap.computeIfAbsent(userId, user -> newBucket(user, now));
+  }
+
+  private Bucket newBucket(String userId, long now) {
+    if (config.hasUnlimitedTokens(userId)) {
+      return new Bucket(true, SENTINEL_UNLIMITED_TOKENS, 0, pack(UNLIMITED_TOKENS, now));
+    }
+    int tokenAmount = config.getTokenAmount(userId);
+    checkArgument(
+        tokenAmount >= 0 && tokenAmount < UNLIMITED_TOKENS,
+        "Token amount %s of user %s is out of range",
+        tokenAmount,
+        userId);
+    return new Bucket(
+        false, tokenAmount, config.getRefillPeriod(userId).toMillis(), pack(tokenAmount, now));
+  }
+
+  private long nowMillis() {
+    return clock.now().toEpochMilli();
+  }
+
+  private long pack(int tokens, long refillTime) {
+    return (max(0, refillTime - baseMillis) << TOKEN_BITS) | (tokens & TOKEN_MASK);
+  }
+
+  private long refillTime(long state) {
+    return baseMillis + (state >>> TOKEN_BITS);
+  }
+
+  private static int tokens(long state) {
+    int tokens = (int) (state & TOKEN_MASK);
+    return tokens == UNLIMITED_TOKENS ? SENTINEL_UNLIMITED_TOKENS : tokens;
+  }
+
+  private static Instant toInstant(long epochMillis) {
+    return Instant.ofEpochMilli(epochMillis);
   }
 }
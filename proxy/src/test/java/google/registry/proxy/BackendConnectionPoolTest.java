@@ -0,0 +1,333 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.proxy;
+
+import static com.google.common.truth.Truth.assertThat;
+import static google.registry.proxy.Protocol.PROTOCOL_KEY;
+import static google.registry.proxy.TestUtils.makeHttpPostRequest;
+import static google.registry.proxy.TestUtils.makeHttpResponse;
+import static google.registry.proxy.handler.EppServiceHandler.CLIENT_CERTIFICATE_HASH_KEY;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.collect.ImmutableList;
+import google.registry.proxy.Protocol.BackendProtocol;
+import google.registry.proxy.Protocol.FrontendProtocol;
+import google.registry.proxy.handler.RelayHandler.FullHttpResponseRelayHandler;
+import google.registry.proxy.metric.BackendMetrics;
+import google.registry.testing.FakeClock;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoop;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link BackendConnectionPool}.
+ *
+ * <p>The pool connects to a local Netty HTTP server standing in for Nomulus, which holds on to the
+ * requests it receives until the test responds to them.
+ */
+class BackendConnectionPoolTest {
+
+  private static final String HOST = "localhost";
+  private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+  private final DefaultEventLoopGroup eventLoopGroup = new DefaultEventLoopGroup(1);
+  private final EventLoop eventLoop = eventLoopGroup.next();
+  private final LocalAddress backendAddress = new LocalAddress("backend");
+  private final FakeBackend backend = new FakeBackend();
+  private final BackendMetrics metrics = mock(BackendMetrics.class);
+  private final FakeClock clock = new FakeClock();
+
+  private final FrontendProtocol frontendProtocol =
+      Protocol.frontendBuilder()
+          .name("frontend")
+          .port(1)
+          .relayProtocol(backendProtocol(2))
+          .handlerProviders(ImmutableList.of())
+          .build();
+
+  private Channel backendServerChannel;
+
+  @BeforeEach
+  void beforeEach() throws Exception {
+    backendServerChannel =
+        new ServerBootstrap()
+            .group(eventLoopGroup)
+            .channel(LocalServerChannel.class)
+            .childHandler(
+                new ChannelInitializer<LocalChannel>() {
+                  @Override
+                  protected void initChannel(LocalChannel channel) {
+                    channel
+                        .pipeline()
+                        .addLast(new HttpServerCodec(), new HttpObjectAggregator(1024), backend);
+                  }
+                })
+            .bind(backendAddress)
+            .sync()
+            .channel();
+  }
+
+  @AfterEach
+  void afterEach() throws Exception {
+    backendServerChannel.close().sync();
+    eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+  }
+
+  private static BackendProtocol backendProtocol(int connectionPoolSize) {
+    return Protocol.backendBuilder()
+        .name("backend")
+        .host(HOST)
+        .port(2)
+        .connectionPoolSize(connectionPoolSize)
+        .handlerProviders(
+            ImmutableList.of(
+                HttpClientCodec::new,
+                () -> new HttpObjectAggregator(1024),
+                FullHttpResponseRelayHandler::new))
+        .build();
+  }
+
+  private BackendConnectionPool createPool(int connectionPoolSize) {
+    return new BackendConnectionPool(
+        eventLoop,
+        LocalChannel.class,
+        backendAddress,
+        backendProtocol(connectionPoolSize),
+        metrics,
+        clock);
+  }
+
+  /** Relays all the requests in a single event loop task, so that none is sent in between. */
+  private void relayAll(BackendConnectionPool pool, List<FakeFrontend> frontends)
+      throws Exception {
+    eventLoop
+        .submit(
+            () ->
+                frontends.forEach(
+                    frontend ->
+                        pool.relay(
+                            frontend.channel, makeHttpPostRequest(frontend.name, HOST, "/"))))
+        .sync();
+  }
+
+  private ImmutableList<String> respondToRequests(int count) throws Exception {
+    ImmutableList.Builder<String> requests = new ImmutableList.Builder<>();
+    for (int i = 0; i < count; i++) {
+      requests.add(backend.respond());
+    }
+    return requests.build();
+  }
+
+  private <T> T onEventLoop(Callable<T> callable) throws Exception {
+    return eventLoop.submit(callable).get(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+  }
+
+  @Test
+  void testRelay_reusesConnection() throws Exception {
+    BackendConnectionPool pool = createPool(2);
+    for (int i = 0; i < 5; i++) {
+      FakeFrontend frontend = new FakeFrontend("request " + i, "hash");
+      relayAll(pool, ImmutableList.of(frontend));
+      assertThat(backend.respond()).isEqualTo("request " + i);
+      assertThat(frontend.takeResponse()).isEqualTo("response to request " + i);
+    }
+    // The requests were sent one after the other, so one connection served them all.
+    assertThat(backend.connections).hasSize(1);
+    assertThat(onEventLoop(pool::getOpenConnections)).isEqualTo(1);
+    assertThat(onEventLoop(pool::getIdleConnections)).isEqualTo(1);
+    verify(metrics).registerPooledConnection(eq("backend"), any(Channel.class));
+    verify(metrics, atLeastOnce()).requestDequeued(eq("backend"), eq("hash"), any());
+  }
+
+  @Test
+  void testRelay_boundedConnections_fairAcrossCertificates() throws Exception {
+    BackendConnectionPool pool = createPool(2);
+    ImmutableList<FakeFrontend> frontends =
+        ImmutableList.of(
+            new FakeFrontend("a1", "registrar-a"),
+            new FakeFrontend("a2", "registrar-a"),
+            new FakeFrontend("a3", "registrar-a"),
+            new FakeFrontend("a4", "registrar-a"),
+            new FakeFrontend("b1", "registrar-b"),
+            new FakeFrontend("b2", "registrar-b"));
+    relayAll(pool, frontends);
+
+    // Registrar B does not have to wait for all the sessions of registrar A.
+    assertThat(respondToRequests(6)).containsExactly("a1", "b1", "a2", "b2", "a3", "a4").inOrder();
+    for (FakeFrontend frontend : frontends) {
+      assertThat(frontend.takeResponse()).isEqualTo("response to " + frontend.name);
+    }
+    assertThat(backend.connections).hasSize(2);
+  }
+
+  @Test
+  void testRelay_oneRequestInFlightPerChannel() throws Exception {
+    BackendConnectionPool pool = createPool(2);
+    FakeFrontend frontend = new FakeFrontend("session", "hash");
+    eventLoop
+        .submit(
+            () -> {
+              for (int i = 1; i <= 3; i++) {
+                pool.relay(frontend.channel, makeHttpPostRequest("request " + i, HOST, "/"));
+              }
+            })
+        .sync();
+
+    assertThat(respondToRequests(3))
+        .containsExactly("request 1", "request 2", "request 3")
+        .inOrder();
+    assertThat(frontend.takeResponse()).isEqualTo("response to request 1");
+    assertThat(frontend.takeResponse()).isEqualTo("response to request 2");
+    assertThat(frontend.takeResponse()).isEqualTo("response to request 3");
+    // The second connection is never needed.
+    assertThat(backend.connections).hasSize(1);
+  }
+
+  @Test
+  void testRelay_connectionClosedByBackend_reconnects() throws Exception {
+    BackendConnectionPool pool = createPool(1);
+    backend.closeAfterResponse = true;
+    FakeFrontend frontend1 = new FakeFrontend("request 1", "hash");
+    relayAll(pool, ImmutableList.of(frontend1));
+    assertThat(backend.respond()).isEqualTo("request 1");
+    assertThat(frontend1.takeResponse()).isEqualTo("response to request 1");
+
+    backend.closeAfterResponse = false;
+    FakeFrontend frontend2 = new FakeFrontend("request 2", "hash");
+    relayAll(pool, ImmutableList.of(frontend2));
+    assertThat(backend.respond()).isEqualTo("request 2");
+    assertThat(frontend2.takeResponse()).isEqualTo("response to request 2");
+    assertThat(backend.connections).hasSize(2);
+    assertThat(onEventLoop(pool::getOpenConnections)).isEqualTo(1);
+  }
+
+  @Test
+  void testRelay_cannotConnect_closesFrontend() throws Exception {
+    backendServerChannel.close().sync();
+    BackendConnectionPool pool = createPool(1);
+    FakeFrontend frontend = new FakeFrontend("request", "hash");
+    relayAll(pool, ImmutableList.of(frontend));
+    frontend.channel.closeFuture().await(TIMEOUT.toMillis());
+    assertThat(frontend.channel.isActive()).isFalse();
+    assertThat(onEventLoop(pool::getOpenConnections)).isEqualTo(0);
+  }
+
+  @Test
+  void testFailure_nonPositivePoolSize() {
+    IllegalArgumentException thrown =
+        assertThrows(IllegalArgumentException.class, () -> createPool(0));
+    assertThat(thrown).hasMessageThat().isEqualTo("Connection pool size must be positive: 0");
+  }
+
+  /** A frontend channel that records the responses relayed to it. */
+  private class FakeFrontend {
+
+    private final String name;
+    private final EmbeddedChannel channel;
+    private final BlockingQueue<String> responses = new LinkedBlockingQueue<>();
+
+    FakeFrontend(String name, String certHash) {
+      this.name = name;
+      this.channel =
+          new EmbeddedChannel(
+              new ChannelOutboundHandlerAdapter() {
+                @Override
+                public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                  responses.add(((FullHttpResponse) msg).content().toString(US_ASCII));
+                  promise.setSuccess();
+                }
+              });
+      channel.attr(PROTOCOL_KEY).set(frontendProtocol);
+      channel.attr(CLIENT_CERTIFICATE_HASH_KEY).set(certHash);
+    }
+
+    String takeResponse() throws InterruptedException {
+      String response = responses.poll(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+      assertThat(response).isNotNull();
+      return response;
+    }
+  }
+
+  /** A stand-in for Nomulus that holds on to the requests it receives until told to respond. */
+  @Sharable
+  private static class FakeBackend extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+    private final Set<Channel> connections = ConcurrentHashMap.newKeySet();
+    private final BlockingQueue<ReceivedRequest> requests = new LinkedBlockingQueue<>();
+    private volatile boolean closeAfterResponse;
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+      connections.add(ctx.channel());
+      super.channelActive(ctx);
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+      requests.add(new ReceivedRequest(ctx, request.content().toString(US_ASCII)));
+    }
+
+    /** Responds to the oldest request not yet responded to, and returns its content. */
+    String respond() throws InterruptedException {
+      ReceivedRequest request = requests.poll(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+      assertThat(request).isNotNull();
+      FullHttpResponse response =
+          makeHttpResponse("response to " + request.content(), HttpResponseStatus.OK);
+      if (closeAfterResponse) {
+        response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+      }
+      request.ctx().writeAndFlush(response);
+      return request.content();
+    }
+
+    private record ReceivedRequest(ChannelHandlerContext ctx, String content) {}
+  }
+}
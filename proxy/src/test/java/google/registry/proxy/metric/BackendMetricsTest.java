@@ -22,6 +22,8 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableSet;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.FullHttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
@@ -187,4 +189,25 @@ class BackendMetricsTest {
         .and()
         .hasNoOtherValues();
   }
+
+  @Test
+  void testSuccess_pooledConnections() {
+    EmbeddedChannel channel1 = new EmbeddedChannel();
+    EmbeddedChannel channel2 = new EmbeddedChannel();
+    metrics.registerPooledConnection(protocol, channel1);
+    metrics.registerPooledConnection(protocol, channel2);
+    assertThat(BackendMetrics.pooledConnectionsGauge)
+        .hasValueForLabels(2, protocol)
+        .and()
+        .hasNoOtherValues();
+
+    ChannelFuture unusedFuture = channel1.close();
+    assertThat(BackendMetrics.pooledConnectionsGauge)
+        .hasValueForLabels(1, protocol)
+        .and()
+        .hasNoOtherValues();
+
+    unusedFuture = channel2.close();
+    assertThat(BackendMetrics.pooledConnectionsGauge).hasNoOtherValues();
+  }
 }
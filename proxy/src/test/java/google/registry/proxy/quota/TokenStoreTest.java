@@ -33,6 +33,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -293,6 +294,36 @@ class TokenStoreTest {
         .isEqualTo(TimestampedInteger.create(4, time3));
   }
 
+  @Test
+  void testSuccess_contendedTakesAndPuts() throws Exception {
+    when(quotaConfig.getTokenAmount(user)).thenReturn(1000);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    AtomicInteger granted = new AtomicInteger();
+    Runnable takeAll =
+        () -> {
+          for (int i = 0; i < 500; i++) {
+            granted.addAndGet(tokenStore.take(user).value());
+          }
+        };
+    submitAndWaitForTasks(executor, takeAll, takeAll, takeAll, takeAll);
+    // Exactly the allotted tokens are granted, no matter how the takes interleave.
+    assertThat(granted.get()).isEqualTo(1000);
+    assertThat(tokenStore.getTokenForTests(user))
+        .isEqualTo(TimestampedInteger.create(0, clock.now()));
+
+    Instant refillTime = clock.now();
+    Runnable putSome =
+        () -> {
+          for (int i = 0; i < 100; i++) {
+            tokenStore.put(user, refillTime);
+          }
+        };
+    submitAndWaitForTasks(executor, putSome, putSome, putSome, putSome);
+    assertThat(tokenStore.getTokenForTests(user))
+        .isEqualTo(TimestampedInteger.create(400, refillTime));
+    executor.shutdown();
+  }
+
   @Test
   void testSuccess_scheduleRefresh() throws Exception {
     when(quotaConfig.getRefreshPeriod()).thenReturn(Duration.ofSeconds(5));
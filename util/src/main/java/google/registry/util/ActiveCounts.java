@@ -0,0 +1,134 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts of things that are currently active, e.g. open connections, per set of metric labels.
+ *
+ * <p>This is meant to back a gauge. Each count is a {@link LongAdder}, and callers keep the {@link
+ * Counter} they incremented so that they can decrement it without looking it up again.
+ *
+ * <p>The number of label sets is capped, since every one of them becomes a time series. Once the
+ * cap is reached, counts for new label sets are added to an overflow label set, which is the same
+ * labels with the last one, usually the one with the highest cardinality, replaced by {@link
+ * #OVERFLOW_LABEL}. Label sets whose count stays at zero for the idle timeout are dropped when
+ * {@link #snapshot} is next called, which makes room for new ones.
+ */
+public final class ActiveCounts {
+
+  /** The value of the last label of label sets that didn't fit under the cap. */
+  public static final String OVERFLOW_LABEL = "_overflow";
+
+  private static final long NOT_IDLE = Long.MIN_VALUE;
+
+  private final ConcurrentHashMap<ImmutableList<String>, Counter> counters =
+      new ConcurrentHashMap<>();
+  private final int maxLabelSets;
+  private final long idleTimeoutNanos;
+  private final Ticker ticker;
+
+  public ActiveCounts(int maxLabelSets, Duration idleTimeout) {
+    this(maxLabelSets, idleTimeout, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  ActiveCounts(int maxLabelSets, Duration idleTimeout, Ticker ticker) {
+    checkArgument(maxLabelSets > 0, "Maximum number of label sets must be positive");
+    checkArgument(!idleTimeout.isNegative(), "Idle timeout must not be negative");
+    this.maxLabelSets = maxLabelSets;
+    this.idleTimeoutNanos = idleTimeout.toNanos();
+    this.ticker = ticker;
+  }
+
+  /** An active count, which must be decremented exactly once for each time it was incremented. */
+  public static final class Counter {
+
+    private final LongAdder count = new LongAdder();
+
+    /** When the count was first seen at zero by {@link #snapshot}, or {@link #NOT_IDLE}. */
+    private volatile long idleSinceNanos = NOT_IDLE;
+
+    private Counter() {}
+
+    public void decrement() {
+      count.decrement();
+    }
+  }
+
+  /** Increments the count for the labels, and returns the counter to decrement once done. */
+  public Counter increment(ImmutableList<String> labels) {
+    ImmutableList<String> key =
+        counters.containsKey(labels) || counters.size() < maxLabelSets
+            ? labels
+            : overflowLabels(labels);
+    // Increments happen inside compute() so that they can't race with the eviction in snapshot().
+    // Decrements need no such care: a counter is only evicted when no one is left to decrement it.
+    return counters.compute(
+        key,
+        (unused, counter) -> {
+          Counter result = counter == null ? new Counter() : counter;
+          result.count.increment();
+          result.idleSinceNanos = NOT_IDLE;
+          return result;
+        });
+  }
+
+  /** Returns the current counts, after dropping the label sets that have been idle for too long. */
+  public ImmutableMap<ImmutableList<String>, Long> snapshot() {
+    long now = ticker.read();
+    for (ImmutableList<String> labels : counters.keySet()) {
+      counters.computeIfPresent(
+          labels, (unused, counter) -> isEvictable(counter, now) ? null : counter);
+    }
+    return counters.entrySet().stream()
+        .collect(toImmutableMap(Map.Entry::getKey, entry -> entry.getValue().count.sum()));
+  }
+
+  /** Drops all counts. Only for use in tests. */
+  @VisibleForTesting
+  public void clear() {
+    counters.clear();
+  }
+
+  private boolean isEvictable(Counter counter, long now) {
+    if (counter.count.sum() != 0) {
+      counter.idleSinceNanos = NOT_IDLE;
+      return false;
+    }
+    if (counter.idleSinceNanos == NOT_IDLE) {
+      counter.idleSinceNanos = now;
+    }
+    return now - counter.idleSinceNanos >= idleTimeoutNanos;
+  }
+
+  private static ImmutableList<String> overflowLabels(ImmutableList<String> labels) {
+    return ImmutableList.<String>builder()
+        .addAll(labels.subList(0, labels.size() - 1))
+        .add(OVERFLOW_LABEL)
+        .build();
+  }
+}
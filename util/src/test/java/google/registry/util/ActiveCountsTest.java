@@ -0,0 +1,121 @@
+// Copyright 2026 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static google.registry.util.ActiveCounts.OVERFLOW_LABEL;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.testing.FakeTicker;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link ActiveCounts}. */
+class ActiveCountsTest {
+
+  private static final ImmutableList<String> LABELS_A = ImmutableList.of("epp", "hashA");
+  private static final ImmutableList<String> LABELS_B = ImmutableList.of("epp", "hashB");
+  private static final ImmutableList<String> LABELS_C = ImmutableList.of("whois", "hashC");
+
+  private final FakeTicker ticker = new FakeTicker();
+  private final ActiveCounts counts = new ActiveCounts(2, Duration.ofMinutes(10), ticker);
+
+  @Test
+  void testIncrementAndDecrement() {
+    ActiveCounts.Counter a1 = counts.increment(LABELS_A);
+    counts.increment(LABELS_A);
+    counts.increment(LABELS_B);
+    assertThat(counts.snapshot()).containsExactly(LABELS_A, 2L, LABELS_B, 1L);
+
+    a1.decrement();
+    assertThat(counts.snapshot()).containsExactly(LABELS_A, 1L, LABELS_B, 1L);
+  }
+
+  @Test
+  void testCardinalityLimit_overflows() {
+    counts.increment(LABELS_A);
+    counts.increment(LABELS_B);
+    ActiveCounts.Counter c = counts.increment(LABELS_C);
+    counts.increment(LABELS_C);
+    // Existing label sets are still counted on their own.
+    counts.increment(LABELS_A);
+
+    assertThat(counts.snapshot())
+        .containsExactly(
+            LABELS_A, 2L, LABELS_B, 1L, ImmutableList.of("whois", OVERFLOW_LABEL), 2L);
+    c.decrement();
+    assertThat(counts.snapshot()).containsEntry(ImmutableList.of("whois", OVERFLOW_LABEL), 1L);
+  }
+
+  @Test
+  void testIdleLabelsEvicted() {
+    counts.increment(LABELS_A).decrement();
+    counts.increment(LABELS_B);
+    // Idle label sets are still reported as zero until the idle timeout has passed.
+    assertThat(counts.snapshot()).containsExactly(LABELS_A, 0L, LABELS_B, 1L);
+    ticker.advance(Duration.ofMinutes(9));
+    assertThat(counts.snapshot()).containsExactly(LABELS_A, 0L, LABELS_B, 1L);
+    ticker.advance(Duration.ofMinutes(1));
+    assertThat(counts.snapshot()).containsExactly(LABELS_B, 1L);
+
+    // The evicted label set made room for a new one.
+    counts.increment(LABELS_C);
+    assertThat(counts.snapshot()).containsExactly(LABELS_B, 1L, LABELS_C, 1L);
+  }
+
+  @Test
+  void testIdleTimerResetByIncrement() {
+    ActiveCounts.Counter a = counts.increment(LABELS_A);
+    a.decrement();
+    assertThat(counts.snapshot()).containsExactly(LABELS_A, 0L);
+    ticker.advance(Duration.ofMinutes(9));
+    counts.increment(LABELS_A).decrement();
+    ticker.advance(Duration.ofMinutes(9));
+    // The label set was last seen idle 9 minutes ago, after it was used again.
+    assertThat(counts.snapshot()).containsExactly(LABELS_A, 0L);
+  }
+
+  @Test
+  void testConcurrentUpdates() throws Exception {
+    ActiveCounts unlimited = new ActiveCounts(100, Duration.ZERO, ticker);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    for (int i = 0; i < 8; i++) {
+      executor.execute(
+          () -> {
+            for (int j = 0; j < 10_000; j++) {
+              unlimited.increment(LABELS_A).decrement();
+              ImmutableMap<ImmutableList<String>, Long> unused = unlimited.snapshot();
+            }
+          });
+    }
+    executor.shutdown();
+    assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+    // Every increment was matched by a decrement, even with label sets evicted in between.
+    assertThat(unlimited.snapshot().getOrDefault(LABELS_A, 0L)).isEqualTo(0L);
+  }
+
+  @Test
+  void testFailure_nonPositiveMaxLabelSets() {
+    IllegalArgumentException thrown =
+        assertThrows(
+            IllegalArgumentException.class, () -> new ActiveCounts(0, Duration.ofMinutes(1)));
+    assertThat(thrown).hasMessageThat().isEqualTo("Maximum number of label sets must be positive");
+  }
+}